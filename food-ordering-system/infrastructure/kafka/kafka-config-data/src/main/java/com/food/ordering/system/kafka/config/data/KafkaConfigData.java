@@ -12,6 +12,9 @@ public class KafkaConfigData {
     private String bootstrapServers;
     private String schemaRegistryUrlKey;
     private String schemaRegistryUrl;
+    // avro.schema.id.source of the cached avro serde of kafka-model: fingerprint or registry
+    private String schemaIdSourceKey;
+    private String schemaIdSource;
     private Integer numOfPartitions;
     private Short replicationFactor;
 }
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "kafka-consumer-config")
@@ -14,6 +17,9 @@ public class KafkaConsumerConfigData {
     private String autoOffsetReset;
     private String specificAvroReaderKey;
     private String specificAvroReader;
+    // avro.reuse.records of the cached avro deserializer of kafka-model
+    private String reuseAvroRecordsKey;
+    private Boolean reuseAvroRecords;
     private Boolean batchListener;
     private Boolean autoStartup;
     private Integer concurrencyLevel;
@@ -24,4 +30,41 @@ public class KafkaConsumerConfigData {
     private Integer maxPollRecords;
     private Integer maxPartitionFetchBytesDefault;
     private Integer maxPartitionFetchBytesBoostFactor;
+    // opt-in exactly-once mode - the consumers read only committed records and the listener containers commit their
+    // offsets in a Kafka transaction, together with the records sent from the listener thread; it requires the
+    // producer transactional id prefix. A failed record is not sent to the retry topics in this mode, its batch is
+    // delivered again until it succeeds
+    private Boolean exactlyOnce;
+    // e.g. the CooperativeStickyAssignor, which keeps the partitions of the remaining consumers through a rebalance
+    private String partitionAssignmentStrategy;
+    // static membership - a consumer that restarts with the same id within the session timeout gets its partitions
+    // back without a rebalance; it has to be unique per instance, the containers add a suffix per consumer thread
+    private String groupInstanceId;
+    // the size of the pool processing the records of the batches, in order per key; 0 (or not set) processes them on
+    // the listener thread
+    private Integer parallelProcessingThreads;
+    // a record that fails goes through a retry topic per delay, <topic><retry-topic-suffix>-<delay ms>, and then to
+    // <topic><dead-letter-topic-suffix>
+    private List<Long> retryTopicDelaysMs = new ArrayList<>();
+    private String retryTopicSuffix;
+    private String deadLetterTopicSuffix;
+    // the consumed topics whose retry topics and dead letter topic are created at startup, with the partitions and
+    // replication factor of kafka-config
+    private List<String> retryTopicSourceTopics = new ArrayList<>();
+    // the adaptive consumer controller pauses the listener containers while the database connection pool is saturated
+    // and resizes their concurrency and max.poll.records within the bounds below, following their lag and batch
+    // processing time; off unless enabled, the listener ids limit it to some containers (all when empty)
+    private Boolean adaptiveEnabled;
+    private List<String> adaptiveListenerIds = new ArrayList<>();
+    private Long adaptiveIntervalMs;
+    private Long adaptiveCooldownMs;
+    private Integer adaptiveMinConcurrency;
+    private Integer adaptiveMaxConcurrency;
+    private Integer adaptiveMinPollRecords;
+    private Integer adaptiveMaxPollRecords;
+    private Long adaptiveTargetBatchTimeMs;
+    private Long adaptiveScaleUpLag;
+    private Long adaptiveScaleDownLag;
+    private Double adaptivePausePoolUsage;
+    private Double adaptiveResumePoolUsage;
 }
\ No newline at end of file
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "kafka-producer-config")
@@ -18,4 +21,14 @@ public class KafkaProducerConfigData {
     private Integer lingerMs;
     private Integer requestTimeoutMs;
     private Integer retryCount;
+    // opt-in exactly-once mode - when set, the producers are idempotent and transactional, with transactional ids
+    // starting with this prefix; it has to be unique per service instance
+    private String transactionalIdPrefix;
+    // topic name -> the field of its avro model the records are keyed by, e.g. customerId, so the records of a
+    // customer land on one partition; the topics not listed here are keyed by saga id. The key of a topic is only
+    // changed once the topic is drained, as the messages of a saga keyed both ways can land on different partitions
+    private Map<String, String> partitionKeyFields = new HashMap<>();
+    // topic name -> the version of the event schemas written to it, 1 when not listed; 2 writes the compact schemas,
+    // which is only switched on once all the consumers of the topic read both versions
+    private Map<String, Integer> schemaVersions = new HashMap<>();
 }
\ No newline at end of file
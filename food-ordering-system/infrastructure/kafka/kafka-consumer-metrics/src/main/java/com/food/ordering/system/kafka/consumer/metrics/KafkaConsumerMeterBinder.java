@@ -0,0 +1,69 @@
+package com.food.ordering.system.kafka.consumer.metrics;
+
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerMetrics;
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveDecision;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Builder;
+
+import java.util.Locale;
+
+// Binds the values kept by the adaptive consumer controller to Micrometer: the connection pool demand it read last
+// and, per controlled listener container, its size, the signals of the last control run and the decisions taken,
+// tagged with the listener id. The containers are picked up by the controller once they run, after the binding, so
+// their meters are registered when the controller first sees them.
+public class KafkaConsumerMeterBinder implements MeterBinder {
+
+    private final AdaptiveConsumerController adaptiveConsumerController;
+
+    @Builder
+    public KafkaConsumerMeterBinder(AdaptiveConsumerController adaptiveConsumerController) {
+        this.adaptiveConsumerController = adaptiveConsumerController;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!adaptiveConsumerController.isEnabled()) {
+            return;
+        }
+        Gauge.builder("kafka.consumer.adaptive.pool.usage", adaptiveConsumerController,
+                        AdaptiveConsumerController::getPoolUsage)
+                .description("Active connections and threads waiting for one over the pool size, above 1 the pool " +
+                        "is short")
+                .register(registry);
+        adaptiveConsumerController.forEachContainerMetrics(metrics -> bindContainer(registry, metrics));
+    }
+
+    private void bindContainer(MeterRegistry registry, AdaptiveConsumerMetrics metrics) {
+        String listener = metrics.getListenerId();
+        Gauge.builder("kafka.consumer.adaptive.concurrency", metrics, AdaptiveConsumerMetrics::getConcurrency)
+                .tag("listener", listener)
+                .register(registry);
+        Gauge.builder("kafka.consumer.adaptive.max.poll.records", metrics, AdaptiveConsumerMetrics::getMaxPollRecords)
+                .tag("listener", listener)
+                .register(registry);
+        Gauge.builder("kafka.consumer.adaptive.paused", metrics, AdaptiveConsumerMetrics::getPaused)
+                .description("1 while the container is paused for the connection pool")
+                .tag("listener", listener)
+                .register(registry);
+        Gauge.builder("kafka.consumer.adaptive.lag", metrics, AdaptiveConsumerMetrics::getLag)
+                .description("Records behind the end of the assigned partitions at the last control run")
+                .tag("listener", listener)
+                .register(registry);
+        Gauge.builder("kafka.consumer.adaptive.batch.time", metrics, AdaptiveConsumerMetrics::getBatchTimeMs)
+                .description("Average batch processing time over the last control interval")
+                .baseUnit("milliseconds")
+                .tag("listener", listener)
+                .register(registry);
+        for (AdaptiveDecision decision : AdaptiveDecision.values()) {
+            FunctionCounter.builder("kafka.consumer.adaptive.decisions", metrics,
+                            containerMetrics -> containerMetrics.getDecisions(decision))
+                    .description("Pauses, resumes and resizes decided by the adaptive consumer controller")
+                    .tags("listener", listener, "decision", decision.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.food.ordering.system.kafka.consumer;
+
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+// A consumer whose failed records go through the retry topics of its topics, see RetryTopics. Only the receive method
+// is declared with @KafkaListener: KafkaRetryListenerConfig registers a listener of receiveRetries for each retry topic
+// of the topics of that listener, so the records waiting for a long delay never hold up the ones of a shorter delay.
+public interface RetryingKafkaConsumer<T extends SpecificRecordBase> extends KafkaConsumer<T> {
+
+    // the records of one retry topic, delivered to a container with manual acknowledgements
+    void receiveRetries(List<ConsumerRecord<String, T>> records, Acknowledgment acknowledgment);
+}
@@ -0,0 +1,416 @@
+package com.food.ordering.system.kafka.consumer.adaptive;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Adapts the listener containers to the load, once per control interval, from three signals: the consumer lag (the
+// per-partition records-lag of the container's consumers), the batch processing time (measured by the batch
+// interceptor the container factory sets) and the demand on the Hikari pool (the active connections and the threads
+// waiting for one, over the pool size).
+// - while the pool demand is at or above adaptive-pause-pool-usage, the containers are paused - their consumers keep
+//   polling, so they stay in the group, but get no records - until it drops to adaptive-resume-pool-usage
+// - a batch slower than the target halves max.poll.records; a batch below half of it doubles them while the
+//   container lags by more than adaptive-scale-up-lag
+// - a lag above adaptive-scale-up-lag adds a consumer, a lag at or below adaptive-scale-down-lag removes one
+// all within the configured bounds. The consumer properties and the concurrency are only read when the consumers are
+// created, so a resize restarts the container, which commits the processed offsets and rebalances its group; a
+// container is resized at most once per cooldown.
+// The decisions and the signals they were taken on are kept in an AdaptiveConsumerMetrics per container.
+@Slf4j
+@Component
+public class AdaptiveConsumerController implements SmartLifecycle {
+
+    private static final String LAG_METRIC = "records-lag";
+    private static final String FETCH_MANAGER_METRIC_GROUP = "consumer-fetch-manager-metrics";
+    private static final String PARTITION_TAG = "partition";
+
+    private final KafkaConsumerConfigData kafkaConsumerConfigData;
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final ObjectProvider<DataSource> dataSourceProvider;
+    private final boolean enabled;
+    private final Map<String, ControlledContainer> controlledContainers = new ConcurrentHashMap<>();
+    // keyed by group id, the only thing the batch interceptor knows of its container
+    private final Map<String, BatchTimes> batchTimesByGroupId = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> batchStartNanos = new ThreadLocal<>();
+    private final List<java.util.function.Consumer<AdaptiveConsumerMetrics>> metricsListeners =
+            new CopyOnWriteArrayList<>();
+
+    private volatile double poolUsage;
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    private static class ControlledContainer {
+        private final ConcurrentMessageListenerContainer<?, ?> container;
+        private final AdaptiveConsumerMetrics metrics;
+        private int maxPollRecords;
+        private boolean paused;
+        private long lastResizeNanos;
+        private volatile boolean restarting;
+
+        private ControlledContainer(ConcurrentMessageListenerContainer<?, ?> container, int maxPollRecords) {
+            this.container = container;
+            this.maxPollRecords = maxPollRecords;
+            this.metrics = new AdaptiveConsumerMetrics(container.getListenerId(), container.getConcurrency(),
+                    maxPollRecords);
+            this.lastResizeNanos = System.nanoTime();
+        }
+    }
+
+    private static class BatchTimes {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        // NaN when no batch was processed since the last call
+        private double drainAverageMs() {
+            long batches = count.getAndSet(0);
+            long nanos = totalNanos.getAndSet(0);
+            return batches == 0 ? Double.NaN : (double) nanos / batches / 1_000_000;
+        }
+    }
+
+    public AdaptiveConsumerController(KafkaConsumerConfigData kafkaConsumerConfigData,
+                                      KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+                                      ObjectProvider<DataSource> dataSourceProvider) {
+        this.kafkaConsumerConfigData = kafkaConsumerConfigData;
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+        this.dataSourceProvider = dataSourceProvider;
+        this.enabled = Boolean.TRUE.equals(kafkaConsumerConfigData.getAdaptiveEnabled());
+        if (enabled) {
+            validate(kafkaConsumerConfigData);
+        }
+    }
+
+    // set on the listener container factory; it only sees the batch listeners
+    public <K, V> BatchInterceptor<K, V> batchInterceptor() {
+        return new BatchInterceptor<>() {
+            @Override
+            public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+                batchStartNanos.set(System.nanoTime());
+                return records;
+            }
+
+            @Override
+            public void success(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+                recordBatch(consumer);
+            }
+
+            @Override
+            public void failure(ConsumerRecords<K, V> records, Exception exception, Consumer<K, V> consumer) {
+                recordBatch(consumer);
+            }
+        };
+    }
+
+    // the listener gets the metrics of the containers controlled so far and of every container controlled later
+    public synchronized void forEachContainerMetrics(java.util.function.Consumer<AdaptiveConsumerMetrics> listener) {
+        controlledContainers.values().forEach(controlled -> listener.accept(controlled.metrics));
+        metricsListeners.add(listener);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // (active connections + threads waiting for one) / pool size at the last control run; above 1 the pool is short
+    public double getPoolUsage() {
+        return poolUsage;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    // started after the listener containers and stopped before them
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-adaptive-consumer-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = kafkaConsumerConfigData.getAdaptiveIntervalMs();
+        executor.scheduleWithFixedDelay(this::control, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("AdaptiveConsumerController started, it runs every {} ms", intervalMs);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        log.info("AdaptiveConsumerController stopped.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void control() {
+        poolUsage = samplePoolUsage();
+        for (MessageListenerContainer container : kafkaListenerEndpointRegistry.getListenerContainers()) {
+            if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrentContainer) ||
+                    !isControlled(container.getListenerId())) {
+                continue;
+            }
+            try {
+                control(controlledContainer(concurrentContainer), poolUsage);
+            } catch (RuntimeException e) {
+                log.error("AdaptiveConsumerController could not control the listener container {}!",
+                        container.getListenerId(), e);
+            }
+        }
+    }
+
+    private void control(ControlledContainer controlled, double poolUsage) {
+        ConcurrentMessageListenerContainer<?, ?> container = controlled.container;
+        if (controlled.restarting || !container.isRunning()) {
+            return;
+        }
+        long lag = lag(container);
+        double batchTimeMs = batchTimesByGroupId
+                .computeIfAbsent(container.getGroupId(), groupId -> new BatchTimes())
+                .drainAverageMs();
+        controlled.metrics.recordSample(lag, batchTimeMs);
+
+        // the pool comes first: while the database is saturated, more records would only wait for a connection
+        if (controlled.paused) {
+            if (poolUsage <= kafkaConsumerConfigData.getAdaptiveResumePoolUsage()) {
+                container.resume();
+                controlled.paused = false;
+                decided(controlled, AdaptiveDecision.RESUME, lag, batchTimeMs, poolUsage);
+            }
+            return;
+        }
+        if (poolUsage >= kafkaConsumerConfigData.getAdaptivePausePoolUsage()) {
+            container.pause();
+            controlled.paused = true;
+            decided(controlled, AdaptiveDecision.PAUSE, lag, batchTimeMs, poolUsage);
+            return;
+        }
+
+        long cooldownNanos = TimeUnit.MILLISECONDS.toNanos(kafkaConsumerConfigData.getAdaptiveCooldownMs());
+        if (System.nanoTime() - controlled.lastResizeNanos < cooldownNanos) {
+            return;
+        }
+        int concurrency = container.getConcurrency();
+        int maxPollRecords = controlled.maxPollRecords;
+        int newConcurrency = concurrency;
+        int newMaxPollRecords = maxPollRecords;
+        // no batch in the interval (NaN) leaves max.poll.records as it is
+        if (batchTimeMs > kafkaConsumerConfigData.getAdaptiveTargetBatchTimeMs()) {
+            newMaxPollRecords = Math.max(kafkaConsumerConfigData.getAdaptiveMinPollRecords(), maxPollRecords / 2);
+        } else if (batchTimeMs < kafkaConsumerConfigData.getAdaptiveTargetBatchTimeMs() / 2.0 &&
+                lag > kafkaConsumerConfigData.getAdaptiveScaleUpLag()) {
+            newMaxPollRecords = Math.min(kafkaConsumerConfigData.getAdaptiveMaxPollRecords(), maxPollRecords * 2);
+        }
+        if (lag > kafkaConsumerConfigData.getAdaptiveScaleUpLag()) {
+            newConcurrency = Math.min(kafkaConsumerConfigData.getAdaptiveMaxConcurrency(), concurrency + 1);
+        } else if (lag <= kafkaConsumerConfigData.getAdaptiveScaleDownLag()) {
+            newConcurrency = Math.max(kafkaConsumerConfigData.getAdaptiveMinConcurrency(), concurrency - 1);
+        }
+        if (newConcurrency == concurrency && newMaxPollRecords == maxPollRecords) {
+            return;
+        }
+
+        if (newConcurrency != concurrency) {
+            decided(controlled, newConcurrency > concurrency ? AdaptiveDecision.SCALE_UP : AdaptiveDecision.SCALE_DOWN,
+                    lag, batchTimeMs, poolUsage);
+        }
+        if (newMaxPollRecords != maxPollRecords) {
+            decided(controlled, newMaxPollRecords > maxPollRecords ? AdaptiveDecision.GROW_POLL_RECORDS :
+                    AdaptiveDecision.SHRINK_POLL_RECORDS, lag, batchTimeMs, poolUsage);
+        }
+        resize(controlled, newConcurrency, newMaxPollRecords);
+    }
+
+    private void resize(ControlledContainer controlled, int concurrency, int maxPollRecords) {
+        ConcurrentMessageListenerContainer<?, ?> container = controlled.container;
+        log.info("Resizing the listener container {} to {} consumers and {} max poll records",
+                container.getListenerId(), concurrency, maxPollRecords);
+        controlled.restarting = true;
+        // the callback runs on the consumer thread that stops last, the container is started again from the control
+        // thread
+        ScheduledExecutorService controlExecutor = executor;
+        container.stop(() -> {
+            try {
+                controlExecutor.execute(() -> {
+                    try {
+                        container.setConcurrency(concurrency);
+                        // not changed in place, the factory shares the properties between its containers
+                        Properties consumerProperties = new Properties();
+                        consumerProperties.putAll(container.getContainerProperties().getKafkaConsumerProperties());
+                        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+                                String.valueOf(maxPollRecords));
+                        container.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+                        container.start();
+                        controlled.maxPollRecords = maxPollRecords;
+                        controlled.metrics.recordSize(concurrency, maxPollRecords);
+                    } finally {
+                        controlled.lastResizeNanos = System.nanoTime();
+                        controlled.restarting = false;
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the controller is stopping along with the containers
+                log.warn("Listener container {} stopped for a resize is not started again, the controller is " +
+                        "stopped", container.getListenerId());
+            }
+        });
+    }
+
+    private void decided(ControlledContainer controlled,
+                         AdaptiveDecision decision,
+                         long lag,
+                         double batchTimeMs,
+                         double poolUsage) {
+        controlled.metrics.recordDecision(decision);
+        log.info("Listener container {}: {} at lag {}, batch time {} ms and pool usage {}",
+                controlled.container.getListenerId(), decision, lag, String.format("%.1f", batchTimeMs),
+                String.format("%.2f", poolUsage));
+    }
+
+    private synchronized ControlledContainer controlledContainer(ConcurrentMessageListenerContainer<?, ?> container) {
+        ControlledContainer controlled = controlledContainers.get(container.getListenerId());
+        if (controlled == null) {
+            controlled = new ControlledContainer(container, kafkaConsumerConfigData.getMaxPollRecords());
+            controlledContainers.put(container.getListenerId(), controlled);
+            AdaptiveConsumerMetrics metrics = controlled.metrics;
+            metricsListeners.forEach(listener -> listener.accept(metrics));
+        }
+        return controlled;
+    }
+
+    private boolean isControlled(String listenerId) {
+        List<String> listenerIds = kafkaConsumerConfigData.getAdaptiveListenerIds();
+        return listenerIds.isEmpty() || listenerIds.contains(listenerId);
+    }
+
+    private void recordBatch(Consumer<?, ?> consumer) {
+        Long startNanos = batchStartNanos.get();
+        if (startNanos == null) {
+            return;
+        }
+        batchStartNanos.remove();
+        BatchTimes batchTimes = batchTimesByGroupId.computeIfAbsent(consumer.groupMetadata().groupId(),
+                groupId -> new BatchTimes());
+        batchTimes.count.incrementAndGet();
+        batchTimes.totalNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    // 0 when there is no single Hikari data source, or its pool is not started yet
+    private double samplePoolUsage() {
+        DataSource dataSource = dataSourceProvider.getIfUnique();
+        if (dataSource == null) {
+            return 0;
+        }
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+            if (pool == null) {
+                return 0;
+            }
+            return (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection()) /
+                    hikariDataSource.getMaximumPoolSize();
+        } catch (SQLException e) {
+            log.error("AdaptiveConsumerController could not read the connection pool!", e);
+            return 0;
+        }
+    }
+
+    private static long lag(MessageListenerContainer container) {
+        double lag = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                MetricName metricName = metric.getKey();
+                if (LAG_METRIC.equals(metricName.name()) && FETCH_MANAGER_METRIC_GROUP.equals(metricName.group()) &&
+                        metricName.tags().containsKey(PARTITION_TAG) &&
+                        metric.getValue().metricValue() instanceof Double partitionLag && !partitionLag.isNaN()) {
+                    lag += partitionLag;
+                }
+            }
+        }
+        return (long) lag;
+    }
+
+    private static void validate(KafkaConsumerConfigData config) {
+        if (config.getAdaptiveIntervalMs() == null || config.getAdaptiveIntervalMs() <= 0 ||
+                config.getAdaptiveCooldownMs() == null || config.getAdaptiveCooldownMs() < 0) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer interval %s ms or cooldown " +
+                    "%s ms!", config.getAdaptiveIntervalMs(), config.getAdaptiveCooldownMs()));
+        }
+        if (config.getAdaptiveMinConcurrency() == null || config.getAdaptiveMaxConcurrency() == null ||
+                config.getAdaptiveMinConcurrency() < 1 ||
+                config.getAdaptiveMinConcurrency() > config.getAdaptiveMaxConcurrency()) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer concurrency bounds [%s, %s]!",
+                    config.getAdaptiveMinConcurrency(), config.getAdaptiveMaxConcurrency()));
+        }
+        if (config.getAdaptiveMinPollRecords() == null || config.getAdaptiveMaxPollRecords() == null ||
+                config.getAdaptiveMinPollRecords() < 1 ||
+                config.getAdaptiveMinPollRecords() > config.getAdaptiveMaxPollRecords()) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer max poll records bounds " +
+                    "[%s, %s]!", config.getAdaptiveMinPollRecords(), config.getAdaptiveMaxPollRecords()));
+        }
+        if (config.getAdaptiveTargetBatchTimeMs() == null || config.getAdaptiveTargetBatchTimeMs() <= 0 ||
+                config.getAdaptiveTargetBatchTimeMs() >= config.getMaxPollIntervalMs()) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer target batch time %s ms, it " +
+                    "has to be between 0 and the max poll interval!", config.getAdaptiveTargetBatchTimeMs()));
+        }
+        if (config.getAdaptiveScaleUpLag() == null || config.getAdaptiveScaleDownLag() == null ||
+                config.getAdaptiveScaleDownLag() < 0 ||
+                config.getAdaptiveScaleDownLag() >= config.getAdaptiveScaleUpLag()) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer lag thresholds, scale down " +
+                    "%s has to be below scale up %s!", config.getAdaptiveScaleDownLag(),
+                    config.getAdaptiveScaleUpLag()));
+        }
+        if (config.getAdaptivePausePoolUsage() == null || config.getAdaptiveResumePoolUsage() == null ||
+                config.getAdaptiveResumePoolUsage() < 0 ||
+                config.getAdaptiveResumePoolUsage() >= config.getAdaptivePausePoolUsage()) {
+            throw new IllegalArgumentException(String.format("Invalid adaptive consumer pool usage thresholds, " +
+                    "resume %s has to be below pause %s!", config.getAdaptiveResumePoolUsage(),
+                    config.getAdaptivePausePoolUsage()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.food.ordering.system.kafka.consumer.adaptive;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// plain values of a listener container controlled by the AdaptiveConsumerController, so the module does not depend on
+// any metrics library; they can be bound to a registry by the service
+public class AdaptiveConsumerMetrics {
+
+    private final String listenerId;
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final AtomicInteger maxPollRecords = new AtomicInteger();
+    private final AtomicInteger paused = new AtomicInteger();
+    private final AtomicLong lag = new AtomicLong();
+    // the average over the last control interval, NaN when no batch was processed in it
+    private volatile double batchTimeMs = Double.NaN;
+    private final Map<AdaptiveDecision, AtomicLong> decisions = new EnumMap<>(AdaptiveDecision.class);
+
+    AdaptiveConsumerMetrics(String listenerId, int concurrency, int maxPollRecords) {
+        this.listenerId = listenerId;
+        this.concurrency.set(concurrency);
+        this.maxPollRecords.set(maxPollRecords);
+        for (AdaptiveDecision decision : AdaptiveDecision.values()) {
+            decisions.put(decision, new AtomicLong());
+        }
+    }
+
+    void recordSample(long lag, double batchTimeMs) {
+        this.lag.set(lag);
+        this.batchTimeMs = batchTimeMs;
+    }
+
+    void recordDecision(AdaptiveDecision decision) {
+        decisions.get(decision).incrementAndGet();
+        if (decision == AdaptiveDecision.PAUSE) {
+            paused.set(1);
+        } else if (decision == AdaptiveDecision.RESUME) {
+            paused.set(0);
+        }
+    }
+
+    void recordSize(int concurrency, int maxPollRecords) {
+        this.concurrency.set(concurrency);
+        this.maxPollRecords.set(maxPollRecords);
+    }
+
+    public String getListenerId() {
+        return listenerId;
+    }
+
+    public int getConcurrency() {
+        return concurrency.get();
+    }
+
+    public int getMaxPollRecords() {
+        return maxPollRecords.get();
+    }
+
+    // 1 while the controller keeps the container paused
+    public int getPaused() {
+        return paused.get();
+    }
+
+    // the sum of the partition lags reported by the consumers of the container
+    public long getLag() {
+        return lag.get();
+    }
+
+    public double getBatchTimeMs() {
+        return batchTimeMs;
+    }
+
+    public long getDecisions(AdaptiveDecision decision) {
+        return decisions.get(decision).get();
+    }
+}
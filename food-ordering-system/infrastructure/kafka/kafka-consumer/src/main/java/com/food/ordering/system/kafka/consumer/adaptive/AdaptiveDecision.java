@@ -0,0 +1,5 @@
+package com.food.ordering.system.kafka.consumer.adaptive;
+
+public enum AdaptiveDecision {
+    PAUSE, RESUME, SCALE_UP, SCALE_DOWN, GROW_POLL_RECORDS, SHRINK_POLL_RECORDS
+}
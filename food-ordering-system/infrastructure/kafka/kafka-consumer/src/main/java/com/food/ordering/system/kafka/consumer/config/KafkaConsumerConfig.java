@@ -2,30 +2,59 @@ package com.food.ordering.system.kafka.consumer.config;
 
 import com.food.ordering.system.kafka.config.data.KafkaConfigData;
 import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.IsolationLevel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.CommonErrorHandler;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.util.StringUtils;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
-
+@Slf4j
 @Configuration
 // SpecificRecordBase is a base avro class
 public class KafkaConsumerConfig<K extends Serializable, V extends SpecificRecordBase> {
 
     private final KafkaConfigData kafkaConfigData;
     private final KafkaConsumerConfigData kafkaConsumerConfigData;
+    // only resolved in the exactly-once mode, a service that does not produce has no producer factory
+    private final ObjectProvider<ProducerFactory<K, V>> producerFactoryProvider;
+    private final RetryTopics retryTopics;
+    private final AdaptiveConsumerController adaptiveConsumerController;
 
-    public KafkaConsumerConfig(KafkaConfigData kafkaConfigData, KafkaConsumerConfigData kafkaConsumerConfigData) {
+    public KafkaConsumerConfig(KafkaConfigData kafkaConfigData,
+                               KafkaConsumerConfigData kafkaConsumerConfigData,
+                               ObjectProvider<ProducerFactory<K, V>> producerFactoryProvider,
+                               RetryTopics retryTopics,
+                               AdaptiveConsumerController adaptiveConsumerController) {
         this.kafkaConfigData = kafkaConfigData;
         this.kafkaConsumerConfigData = kafkaConsumerConfigData;
+        this.producerFactoryProvider = producerFactoryProvider;
+        this.retryTopics = retryTopics;
+        this.adaptiveConsumerController = adaptiveConsumerController;
+        if (isExactlyOnce() && Boolean.TRUE.equals(kafkaConsumerConfigData.getBatchListener())) {
+            log.warn("The exactly-once Kafka consumer mode does not send failed records to the retry topics: a batch " +
+                    "with a failed record is rolled back and delivered again as a whole until it succeeds");
+        }
     }
 
     @Bean
@@ -37,6 +66,13 @@ public class KafkaConsumerConfig<K extends Serializable, V extends SpecificRecor
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, kafkaConsumerConfigData.getAutoOffsetReset());
         props.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
         props.put(kafkaConsumerConfigData.getSpecificAvroReaderKey(), kafkaConsumerConfigData.getSpecificAvroReader());
+        // only read by the cached avro deserializer
+        if (StringUtils.hasText(kafkaConfigData.getSchemaIdSourceKey())) {
+            props.put(kafkaConfigData.getSchemaIdSourceKey(), kafkaConfigData.getSchemaIdSource());
+        }
+        if (StringUtils.hasText(kafkaConsumerConfigData.getReuseAvroRecordsKey())) {
+            props.put(kafkaConsumerConfigData.getReuseAvroRecordsKey(), kafkaConsumerConfigData.getReuseAvroRecords());
+        }
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, kafkaConsumerConfigData.getSessionTimeoutMs());
         props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, kafkaConsumerConfigData.getHeartbeatIntervalMs());
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, kafkaConsumerConfigData.getMaxPollIntervalMs());
@@ -44,6 +80,20 @@ public class KafkaConsumerConfig<K extends Serializable, V extends SpecificRecor
                 kafkaConsumerConfigData.getMaxPartitionFetchBytesDefault() *
                         kafkaConsumerConfigData.getMaxPartitionFetchBytesBoostFactor());
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafkaConsumerConfigData.getMaxPollRecords());
+        // with the partition key strategies of the producers, a stable assignment keeps a restaurant's or a customer's
+        // records on the same consumer instance
+        if (StringUtils.hasText(kafkaConsumerConfigData.getPartitionAssignmentStrategy())) {
+            props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+                    kafkaConsumerConfigData.getPartitionAssignmentStrategy());
+        }
+        if (StringUtils.hasText(kafkaConsumerConfigData.getGroupInstanceId())) {
+            props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, kafkaConsumerConfigData.getGroupInstanceId());
+        }
+        if (isExactlyOnce()) {
+            // the records of aborted (and still open) transactions are skipped
+            props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG,
+                    IsolationLevel.READ_COMMITTED.toString().toLowerCase(Locale.ROOT));
+        }
         return props;
     }
 
@@ -52,14 +102,92 @@ public class KafkaConsumerConfig<K extends Serializable, V extends SpecificRecor
         return new DefaultKafkaConsumerFactory<>(consumerConfig());
     }
 
+    // only the containers of the topics with retry topics send their failed records on, the others keep the in-place
+    // retries of the default error handler of spring-kafka
     @Bean
     public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<K, V>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<K, V> factory =
+                listenerContainerFactory(ContainerProperties.AckMode.BATCH);
+        if (!isExactlyOnce()) {
+            factory.setContainerCustomizer(container -> {
+                if (hasRetryTopics(container.getContainerProperties().getTopics())) {
+                    container.setCommonErrorHandler(failedRecordErrorHandler());
+                }
+            });
+        }
+        return factory;
+    }
+
+    // the retry listeners acknowledge the due records themselves and delay the rest, see KeyOrderedBatchProcessor;
+    // KafkaRetryListenerConfig creates a container of this factory per retry topic
+    @Bean
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<K, V>>
+    kafkaRetryListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<K, V> factory =
+                listenerContainerFactory(ContainerProperties.AckMode.MANUAL);
+        if (!isExactlyOnce()) {
+            factory.setCommonErrorHandler(failedRecordErrorHandler());
+        }
+        return factory;
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<K, V> listenerContainerFactory(
+            ContainerProperties.AckMode ackMode) {
         ConcurrentKafkaListenerContainerFactory<K, V> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setBatchListener(kafkaConsumerConfigData.getBatchListener());
         factory.setConcurrency(kafkaConsumerConfigData.getConcurrencyLevel());
         factory.setAutoStartup(kafkaConsumerConfigData.getAutoStartup());
         factory.getContainerProperties().setPollTimeout(kafkaConsumerConfigData.getPollTimeoutMs());
+        factory.getContainerProperties().setAckMode(ackMode);
+        // measures the batch processing time the adaptive consumer controller sizes max.poll.records by
+        if (adaptiveConsumerController.isEnabled()) {
+            factory.setBatchInterceptor(adaptiveConsumerController.batchInterceptor());
+        }
+        if (isExactlyOnce()) {
+            factory.getContainerProperties().setTransactionManager(kafkaTransactionManager());
+        }
         return factory;
     }
+
+    // the retry and dead letter topics are only created for retry-topic-source-topics
+    private boolean hasRetryTopics(String[] topics) {
+        return topics != null && topics.length > 0 &&
+                kafkaConsumerConfigData.getRetryTopicSourceTopics().containsAll(Arrays.asList(topics));
+    }
+
+    // The listeners report the failed record of a batch with a BatchListenerFailedException: the records before it are
+    // committed, the failed one is sent on to its next retry topic (or the dead letter topic) without a retry in place,
+    // and the ones after it are delivered again. Any other exception sends all the records of the batch on.
+    // The exactly-once mode has no such record isolation: it keeps the rollback processing of the container, and the
+    // after-rollback processor of spring-kafka cannot recover a single record of a batch listener, so it delivers the
+    // whole batch again, and a record that keeps failing holds up its partitions until it is fixed or skipped by hand.
+    private CommonErrorHandler failedRecordErrorHandler() {
+        ProducerFactory<K, V> producerFactory = producerFactoryProvider.getIfAvailable();
+        if (producerFactory == null) {
+            throw new IllegalStateException("Sending the failed records to the retry topics requires a producer " +
+                    "factory!");
+        }
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                new KafkaTemplate<>(producerFactory), retryTopics::destination);
+        recoverer.setHeadersFunction(retryTopics::headers);
+        return new DefaultErrorHandler(recoverer, new FixedBackOff(0L, 0L));
+    }
+
+    // Not a bean on purpose: a transaction manager bean would make Spring Boot back off from creating the JPA one,
+    // and the @Transactional methods of the services would run in Kafka transactions. The listener containers run
+    // each delivery in a Kafka transaction of their own and send the consumed offsets with it; the database
+    // transactions of the listeners stay separate, which is why the services keep their duplicate checks.
+    private KafkaTransactionManager<K, V> kafkaTransactionManager() {
+        ProducerFactory<K, V> producerFactory = producerFactoryProvider.getIfAvailable();
+        if (producerFactory == null || !producerFactory.transactionCapable()) {
+            throw new IllegalStateException("The exactly-once Kafka consumer mode requires a transactional producer " +
+                    "factory, set kafka-producer-config.transactional-id-prefix!");
+        }
+        return new KafkaTransactionManager<>(producerFactory);
+    }
+
+    private boolean isExactlyOnce() {
+        return Boolean.TRUE.equals(kafkaConsumerConfigData.getExactlyOnce());
+    }
 }
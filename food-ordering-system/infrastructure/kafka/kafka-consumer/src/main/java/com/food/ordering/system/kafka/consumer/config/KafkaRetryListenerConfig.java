@@ -0,0 +1,88 @@
+package com.food.ordering.system.kafka.consumer.config;
+
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+// Registers a listener container for each retry topic of the topics read by the RetryingKafkaConsumer beans. A retry
+// container delays the delivery of its records until they are due, which pauses all of its partitions - one container
+// per retry topic keeps a record waiting in the longest delay from holding up the records of the shorter ones.
+// The retry listener of a topic is named, and grouped, after the @KafkaListener of its receive method and the retry
+// topic: <listener id>-<retry topic>.
+@Slf4j
+@Configuration
+public class KafkaRetryListenerConfig implements KafkaListenerConfigurer {
+
+    private static final Method RECEIVE_RETRIES_METHOD = ReflectionUtils.findMethod(RetryingKafkaConsumer.class,
+            "receiveRetries", List.class, Acknowledgment.class);
+
+    private final ObjectProvider<RetryingKafkaConsumer<?>> retryingKafkaConsumers;
+    private final KafkaListenerContainerFactory<?> kafkaRetryListenerContainerFactory;
+    private final RetryTopics retryTopics;
+    private final ConfigurableBeanFactory beanFactory;
+
+    public KafkaRetryListenerConfig(ObjectProvider<RetryingKafkaConsumer<?>> retryingKafkaConsumers,
+                                    @Qualifier("kafkaRetryListenerContainerFactory")
+                                    KafkaListenerContainerFactory<?> kafkaRetryListenerContainerFactory,
+                                    RetryTopics retryTopics,
+                                    ConfigurableBeanFactory beanFactory) {
+        this.retryingKafkaConsumers = retryingKafkaConsumers;
+        this.kafkaRetryListenerContainerFactory = kafkaRetryListenerContainerFactory;
+        this.retryTopics = retryTopics;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        DefaultMessageHandlerMethodFactory messageHandlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        messageHandlerMethodFactory.afterPropertiesSet();
+        retryingKafkaConsumers.orderedStream().forEach(retryingKafkaConsumer -> {
+            KafkaListener kafkaListener = receiveListener(retryingKafkaConsumer);
+            String listenerId = beanFactory.resolveEmbeddedValue(kafkaListener.id());
+            for (String topic : kafkaListener.topics()) {
+                for (String retryTopic : retryTopics.retryTopics(beanFactory.resolveEmbeddedValue(topic))) {
+                    MethodKafkaListenerEndpoint<String, ConsumerRecord<String, ?>> endpoint =
+                            new MethodKafkaListenerEndpoint<>();
+                    endpoint.setId(listenerId + "-" + retryTopic);
+                    endpoint.setGroupId(endpoint.getId());
+                    endpoint.setTopics(retryTopic);
+                    endpoint.setBean(retryingKafkaConsumer);
+                    endpoint.setMethod(RECEIVE_RETRIES_METHOD);
+                    endpoint.setMessageHandlerMethodFactory(messageHandlerMethodFactory);
+                    registrar.registerEndpoint(endpoint, kafkaRetryListenerContainerFactory);
+                    log.info("Registered retry listener {} of topic {}", endpoint.getId(), retryTopic);
+                }
+            }
+        });
+    }
+
+    private static KafkaListener receiveListener(RetryingKafkaConsumer<?> retryingKafkaConsumer) {
+        Method receiveMethod = ReflectionUtils.findMethod(AopUtils.getTargetClass(retryingKafkaConsumer), "receive",
+                List.class, List.class, List.class, List.class);
+        KafkaListener kafkaListener = receiveMethod == null ? null :
+                AnnotatedElementUtils.findMergedAnnotation(receiveMethod, KafkaListener.class);
+        if (kafkaListener == null || kafkaListener.id().isEmpty() || kafkaListener.topics().length == 0) {
+            throw new IllegalStateException(String.format("The receive method of %s has to be a @KafkaListener with " +
+                    "an id and topics to be retried!", AopUtils.getTargetClass(retryingKafkaConsumer).getName()));
+        }
+        return kafkaListener;
+    }
+}
@@ -0,0 +1,55 @@
+package com.food.ordering.system.kafka.consumer.config;
+
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Creates the retry topics and the dead letter topic of the consumed topics at startup, so they always follow
+// retry-topic-delays-ms rather than a list kept next to it. Existing topics are left as they are; a tier that is no
+// longer configured has to be deleted by hand once it is drained.
+@Configuration
+public class KafkaRetryTopicConfig {
+
+    private final KafkaConfigData kafkaConfigData;
+    private final KafkaConsumerConfigData kafkaConsumerConfigData;
+    private final RetryTopics retryTopics;
+
+    public KafkaRetryTopicConfig(KafkaConfigData kafkaConfigData,
+                                 KafkaConsumerConfigData kafkaConsumerConfigData,
+                                 RetryTopics retryTopics) {
+        this.kafkaConfigData = kafkaConfigData;
+        this.kafkaConsumerConfigData = kafkaConsumerConfigData;
+        this.retryTopics = retryTopics;
+    }
+
+    // the admin of Spring Boot would connect to spring.kafka.bootstrap-servers, which the services do not set
+    @Bean
+    public KafkaAdmin kafkaAdmin() {
+        return new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers()));
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics retryNewTopics() {
+        List<NewTopic> newTopics = new ArrayList<>();
+        for (String topicName : kafkaConsumerConfigData.getRetryTopicSourceTopics()) {
+            for (String retryTopic : retryTopics.retryTopics(topicName)) {
+                newTopics.add(newTopic(retryTopic));
+            }
+            newTopics.add(newTopic(retryTopics.deadLetterTopic(topicName)));
+        }
+        return new KafkaAdmin.NewTopics(newTopics.toArray(NewTopic[]::new));
+    }
+
+    private NewTopic newTopic(String topicName) {
+        return new NewTopic(topicName, kafkaConfigData.getNumOfPartitions(), kafkaConfigData.getReplicationFactor());
+    }
+}
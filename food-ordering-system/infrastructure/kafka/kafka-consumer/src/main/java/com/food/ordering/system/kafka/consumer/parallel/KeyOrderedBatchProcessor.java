@@ -0,0 +1,185 @@
+package com.food.ordering.system.kafka.consumer.parallel;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.exception.KafkaConsumerException;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Processes the records of a batch listener delivery on a bounded pool shared by all the listener containers of the
+// service: the records with the same partition and key are processed one after another, in offset order, the others
+// concurrently. The listener thread waits for the whole batch, so the container still commits once per poll.
+// When a record fails, the rest of its key is skipped and a BatchListenerFailedException reports the lowest record of
+// the batch that did not complete - the error handler commits the records before it, sends it to a retry topic (see
+// RetryTopics) and redelivers everything after it, also the records of other keys that did complete, which the
+// duplicate checks of the services drop. The sequential processing reports the failed record the same way.
+// The pool threads take no part in the Kafka transaction of the exactly-once mode, so the records must not be sent
+// from the processing; the listeners only write to the database and the outbox.
+// With parallel-processing-threads of 0 (or not set) the records are processed on the listener thread, in order.
+@Slf4j
+@Component
+public class KeyOrderedBatchProcessor implements DisposableBean {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService executorService;
+
+    public KeyOrderedBatchProcessor(KafkaConsumerConfigData kafkaConsumerConfigData) {
+        Integer threads = kafkaConsumerConfigData.getParallelProcessingThreads();
+        if (threads != null && threads < 0) {
+            throw new IllegalArgumentException(String.format("Invalid parallel processing threads %d!", threads));
+        }
+        this.executorService = threads == null || threads == 0 ? null :
+                Executors.newFixedThreadPool(threads, processingThreadFactory());
+        log.info("Kafka batch records are processed {}", executorService == null ? "sequentially" :
+                String.format("on %d threads, in order per key", threads));
+    }
+
+    public <T> void process(List<T> messages,
+                            List<String> keys,
+                            List<Integer> partitions,
+                            Consumer<T> recordProcessor) {
+        if (executorService == null) {
+            processSequentially(messages, keys, recordProcessor);
+            return;
+        }
+        Map<String, List<Integer>> indicesByKey = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            indicesByKey.computeIfAbsent(partitions.get(i) + "|" + keys.get(i), key -> new ArrayList<>()).add(i);
+        }
+        if (indicesByKey.size() == 1) {
+            processSequentially(messages, keys, recordProcessor);
+            return;
+        }
+
+        // each index is written by the task of its key only, the futures publish the writes to the listener thread
+        boolean[] completed = new boolean[messages.size()];
+        RuntimeException[] failures = new RuntimeException[messages.size()];
+        List<Future<?>> futures = new ArrayList<>(indicesByKey.size());
+        indicesByKey.values().forEach(indices -> futures.add(executorService.submit(() -> {
+            for (int index : indices) {
+                try {
+                    recordProcessor.accept(messages.get(index));
+                    completed[index] = true;
+                } catch (RuntimeException e) {
+                    failures[index] = e;
+                    return;
+                }
+            }
+        })));
+        awaitAll(futures);
+
+        for (int i = 0; i < messages.size(); i++) {
+            // the first record of a key that did not complete is the failed one, so the lowest of the batch is too
+            if (!completed[i]) {
+                log.error("Record {} of the batch, key {} of partition {}, failed, {} records completed",
+                        i, keys.get(i), partitions.get(i), countCompleted(completed));
+                throw recordFailed(keys.get(i), failures[i], i);
+            }
+        }
+    }
+
+    // The records of a retry topic are processed once they are due; the batch is acknowledged up to the first record
+    // that is not, and the delivery of that record and the ones after it is delayed until it is due. The tiers have a
+    // single delay each, so the records of a partition become due in their order.
+    public <T> void processRetries(List<ConsumerRecord<String, T>> records,
+                                   Acknowledgment acknowledgment,
+                                   Consumer<T> recordProcessor) {
+        long now = System.currentTimeMillis();
+        int dueRecords = 0;
+        while (dueRecords < records.size() && RetryTopics.dueAt(records.get(dueRecords)) <= now) {
+            dueRecords++;
+        }
+        List<ConsumerRecord<String, T>> due = records.subList(0, dueRecords);
+        process(due.stream().map(ConsumerRecord::value).toList(),
+                due.stream().map(ConsumerRecord::key).toList(),
+                due.stream().map(ConsumerRecord::partition).toList(),
+                recordProcessor);
+        if (dueRecords == records.size()) {
+            acknowledgment.acknowledge();
+        } else {
+            long delayMs = RetryTopics.dueAt(records.get(dueRecords)) - System.currentTimeMillis();
+            log.debug("{} retried records are not due yet, the next one in {} ms", records.size() - dueRecords,
+                    delayMs);
+            acknowledgment.nack(dueRecords, Math.max(delayMs, 0));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (executorService != null) {
+            executorService.shutdown();
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                // the container is stopping; the batch is not committed and is read again
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new KafkaConsumerException("Interrupted while waiting for the batch records to be processed!");
+            } catch (ExecutionException e) {
+                // the tasks record the failures of the records themselves
+                throw new KafkaConsumerException("Batch record processing failed unexpectedly!", e.getCause());
+            }
+        }
+    }
+
+    private static <T> void processSequentially(List<T> messages, List<String> keys, Consumer<T> recordProcessor) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                recordProcessor.accept(messages.get(i));
+            } catch (RuntimeException e) {
+                log.error("Record {} of the batch, key {}, failed", i, keys.get(i));
+                throw recordFailed(keys.get(i), e, i);
+            }
+        }
+    }
+
+    private static BatchListenerFailedException recordFailed(String key, RuntimeException cause, int index) {
+        return new BatchListenerFailedException(String.format("Processing of the record with key %s failed!", key),
+                cause, index);
+    }
+
+    private static int countCompleted(boolean[] completed) {
+        int count = 0;
+        for (boolean recordCompleted : completed) {
+            if (recordCompleted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static ThreadFactory processingThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "kafka-batch-processor-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.food.ordering.system.kafka.consumer.retry;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+
+// Names the retry topics of a topic, one per delay tier (<topic>-retry-<delay ms>), and its dead letter topic
+// (<topic>-dlt), and routes a failed record to the next of them: a record of the topic goes to the first tier, a record
+// of a tier to the next tier and a record of the last tier to the dead letter topic. The record keeps its key, so the
+// records of a key stay on one partition of each topic, and gets the time it is due for the retry in a header.
+// The retry listeners wait for that time on the consumer thread, so the longest delay has to stay below the max poll
+// interval.
+@Component
+public class RetryTopics {
+
+    public static final String RETRY_DUE_AT_HEADER = "retry-due-at";
+
+    private final List<Long> delaysMs;
+    private final String retryTopicSuffix;
+    private final String deadLetterTopicSuffix;
+
+    public RetryTopics(KafkaConsumerConfigData kafkaConsumerConfigData) {
+        List<Long> delaysMs = kafkaConsumerConfigData.getRetryTopicDelaysMs();
+        if (delaysMs.isEmpty() || new HashSet<>(delaysMs).size() != delaysMs.size() ||
+                delaysMs.stream().anyMatch(delayMs -> delayMs <= 0 ||
+                        delayMs >= kafkaConsumerConfigData.getMaxPollIntervalMs())) {
+            throw new IllegalArgumentException(String.format("Invalid retry topic delays %s, they have to be " +
+                    "distinct and between 0 and the max poll interval!", delaysMs));
+        }
+        this.delaysMs = List.copyOf(delaysMs);
+        this.retryTopicSuffix = kafkaConsumerConfigData.getRetryTopicSuffix();
+        this.deadLetterTopicSuffix = kafkaConsumerConfigData.getDeadLetterTopicSuffix();
+    }
+
+    public String[] retryTopics(String topicName) {
+        return delaysMs.stream().map(delayMs -> retryTopic(topicName, delayMs)).toArray(String[]::new);
+    }
+
+    public String deadLetterTopic(String topicName) {
+        return topicName + deadLetterTopicSuffix;
+    }
+
+    // the destination resolver of the dead letter publishing recoverer; no partition, the producer partitions by key
+    public TopicPartition destination(ConsumerRecord<?, ?> record, Exception e) {
+        int tier = tier(record.topic());
+        String topicName = tier < 0 ? record.topic() : record.topic().substring(0,
+                record.topic().length() - retryTopicSuffix.length() - 1 - delaysMs.get(tier).toString().length());
+        int nextTier = tier + 1;
+        return new TopicPartition(nextTier < delaysMs.size() ? retryTopic(topicName, delaysMs.get(nextTier)) :
+                deadLetterTopic(topicName), -1);
+    }
+
+    // the headers function of the dead letter publishing recoverer
+    public Headers headers(ConsumerRecord<?, ?> record, Exception e) {
+        Headers headers = new RecordHeaders();
+        int nextTier = tier(record.topic()) + 1;
+        if (nextTier < delaysMs.size()) {
+            headers.add(RETRY_DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES)
+                    .putLong(System.currentTimeMillis() + delaysMs.get(nextTier))
+                    .array());
+        }
+        return headers;
+    }
+
+    public static long dueAt(ConsumerRecord<?, ?> record) {
+        // the header of an earlier tier is kept by the recoverer, the last one is of the current tier
+        Header dueAt = record.headers().lastHeader(RETRY_DUE_AT_HEADER);
+        return dueAt == null ? 0 : ByteBuffer.wrap(dueAt.value()).getLong();
+    }
+
+    private String retryTopic(String topicName, long delayMs) {
+        return topicName + retryTopicSuffix + "-" + delayMs;
+    }
+
+    private int tier(String topicName) {
+        for (int tier = 0; tier < delaysMs.size(); tier++) {
+            if (topicName.endsWith(retryTopicSuffix + "-" + delaysMs.get(tier))) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,287 @@
+package com.food.ordering.system.kafka.consumer.adaptive;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+class AdaptiveConsumerControllerTest {
+
+    private static final String LISTENER_ID = "payment-topic-consumer";
+    private static final String GROUP_ID = "payment-topic-consumer";
+
+    private final KafkaListenerEndpointRegistry registry = Mockito.mock(KafkaListenerEndpointRegistry.class);
+    private final HikariPoolMXBean pool = Mockito.mock(HikariPoolMXBean.class);
+    private final AtomicReference<AdaptiveConsumerMetrics> metrics = new AtomicReference<>();
+
+    private ConcurrentMessageListenerContainer<String, String> container;
+    private AdaptiveConsumerController controller;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        container = container(LISTENER_ID, 2);
+        Mockito.when(registry.getListenerContainers()).thenReturn(List.of(container));
+        controller = controller(config());
+        controller.forEachContainerMetrics(metrics::set);
+    }
+
+    @AfterEach
+    void stopController() {
+        controller.stop();
+    }
+
+    @Test
+    void testContainerIsPausedWhileThePoolIsSaturatedAndResumedAfter() {
+        lag(500);
+        poolUsage(10);
+
+        controller.control();
+        Mockito.verify(container).pause();
+        Assertions.assertEquals(1.0, controller.getPoolUsage());
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.PAUSE));
+
+        // still above the resume threshold
+        poolUsage(8);
+        controller.control();
+        Mockito.verify(container, Mockito.never()).resume();
+
+        poolUsage(5);
+        controller.control();
+        Mockito.verify(container).resume();
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.RESUME));
+        Mockito.verify(container, Mockito.never()).stop(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    void testLagAboveTheScaleUpLagAddsAConsumer() {
+        lag(5000);
+        poolUsage(2);
+
+        controller.control();
+
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.SCALE_UP));
+        Assertions.assertEquals(0, metrics.get().getDecisions(AdaptiveDecision.GROW_POLL_RECORDS));
+        restartAfterResize();
+        awaitSize(3, 500);
+        Mockito.verify(container).setConcurrency(3);
+        Assertions.assertEquals("500", container.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+    }
+
+    @Test
+    void testLagAtTheScaleDownLagRemovesAConsumer() {
+        lag(100);
+        poolUsage(2);
+
+        controller.control();
+
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.SCALE_DOWN));
+        restartAfterResize();
+        awaitSize(1, 500);
+        Mockito.verify(container).setConcurrency(1);
+    }
+
+    @Test
+    void testConcurrencyStaysWithinItsBounds() {
+        Mockito.when(container.getConcurrency()).thenReturn(3);
+        lag(5000);
+        poolUsage(2);
+
+        controller.control();
+
+        Assertions.assertEquals(0, metrics.get().getDecisions(AdaptiveDecision.SCALE_UP));
+        Mockito.verify(container, Mockito.never()).stop(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    void testSlowBatchesShrinkTheMaxPollRecords() throws InterruptedException {
+        lag(500);
+        poolUsage(2);
+        batch(150);
+
+        controller.control();
+
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.SHRINK_POLL_RECORDS));
+        Assertions.assertEquals(0, metrics.get().getDecisions(AdaptiveDecision.SCALE_UP));
+        Assertions.assertEquals(0, metrics.get().getDecisions(AdaptiveDecision.SCALE_DOWN));
+        restartAfterResize();
+        awaitSize(2, 250);
+        Assertions.assertEquals("250", container.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+    }
+
+    @Test
+    void testFastBatchesGrowTheMaxPollRecordsWhileLagging() throws InterruptedException {
+        Mockito.when(container.getConcurrency()).thenReturn(3);
+        lag(5000);
+        poolUsage(2);
+        batch(0);
+
+        controller.control();
+
+        Assertions.assertEquals(1, metrics.get().getDecisions(AdaptiveDecision.GROW_POLL_RECORDS));
+        restartAfterResize();
+        awaitSize(3, 1000);
+        Assertions.assertEquals("1000", container.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+    }
+
+    @Test
+    void testContainerIsNotResizedWithinTheCooldown() throws SQLException {
+        controller.stop();
+        KafkaConsumerConfigData config = config();
+        config.setAdaptiveCooldownMs(3_600_000L);
+        controller = controller(config);
+        lag(5000);
+        poolUsage(2);
+
+        controller.control();
+
+        Mockito.verify(container, Mockito.never()).stop(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    void testOnlyTheConfiguredListenersAreControlled() throws SQLException {
+        controller.stop();
+        KafkaConsumerConfigData config = config();
+        config.setAdaptiveListenerIds(List.of("another-listener"));
+        controller = controller(config);
+        lag(5000);
+        poolUsage(10);
+
+        controller.control();
+
+        Mockito.verify(container, Mockito.never()).pause();
+        Mockito.verify(container, Mockito.never()).stop(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    void testInvalidBoundsAreRejected() {
+        KafkaConsumerConfigData concurrency = config();
+        concurrency.setAdaptiveMinConcurrency(4);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> controller(concurrency));
+
+        KafkaConsumerConfigData lag = config();
+        lag.setAdaptiveScaleDownLag(1000L);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> controller(lag));
+
+        KafkaConsumerConfigData poolUsage = config();
+        poolUsage.setAdaptiveResumePoolUsage(0.95);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> controller(poolUsage));
+    }
+
+    private AdaptiveConsumerController controller(KafkaConsumerConfigData config) throws SQLException {
+        HikariDataSource hikariDataSource = Mockito.mock(HikariDataSource.class);
+        Mockito.when(hikariDataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        Mockito.when(hikariDataSource.unwrap(HikariDataSource.class)).thenReturn(hikariDataSource);
+        Mockito.when(hikariDataSource.getHikariPoolMXBean()).thenReturn(pool);
+        Mockito.when(hikariDataSource.getMaximumPoolSize()).thenReturn(10);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<DataSource> dataSourceProvider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(dataSourceProvider.getIfUnique()).thenReturn(hikariDataSource);
+
+        AdaptiveConsumerController adaptiveConsumerController =
+                new AdaptiveConsumerController(config, registry, dataSourceProvider);
+        // the resizes restart the containers from the control thread; the runs are triggered by the tests
+        adaptiveConsumerController.start();
+        return adaptiveConsumerController;
+    }
+
+    private static KafkaConsumerConfigData config() {
+        KafkaConsumerConfigData config = new KafkaConsumerConfigData();
+        config.setMaxPollIntervalMs(300000);
+        config.setMaxPollRecords(500);
+        config.setAdaptiveEnabled(true);
+        config.setAdaptiveIntervalMs(3_600_000L);
+        config.setAdaptiveCooldownMs(0L);
+        config.setAdaptiveMinConcurrency(1);
+        config.setAdaptiveMaxConcurrency(3);
+        config.setAdaptiveMinPollRecords(50);
+        config.setAdaptiveMaxPollRecords(1000);
+        config.setAdaptiveTargetBatchTimeMs(100L); // well above the time of a batch that does not wait
+        config.setAdaptiveScaleUpLag(1000L);
+        config.setAdaptiveScaleDownLag(100L);
+        config.setAdaptivePausePoolUsage(0.9);
+        config.setAdaptiveResumePoolUsage(0.5);
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMessageListenerContainer<String, String> container(String listenerId, int concurrency) {
+        ConcurrentMessageListenerContainer<String, String> container =
+                Mockito.mock(ConcurrentMessageListenerContainer.class);
+        Mockito.when(container.getListenerId()).thenReturn(listenerId);
+        Mockito.when(container.getGroupId()).thenReturn(GROUP_ID);
+        Mockito.when(container.getConcurrency()).thenReturn(concurrency);
+        Mockito.when(container.isRunning()).thenReturn(true);
+        Mockito.when(container.getContainerProperties()).thenReturn(new ContainerProperties("payment-request"));
+        // start() is final, so it runs on the mock; with the container running it only takes the lifecycle monitor
+        ReflectionTestUtils.setField(container, "lifecycleMonitor", new Object());
+        return container;
+    }
+
+    // the records-lag of a single partition of the container's consumer
+    private void lag(double lag) {
+        Metric metric = Mockito.mock(Metric.class);
+        Mockito.when(metric.metricValue()).thenReturn(lag);
+        MetricName metricName = new MetricName("records-lag", "consumer-fetch-manager-metrics", "",
+                Map.of("partition", "0", "topic", "payment-request"));
+        Mockito.doReturn(Map.of("consumer-0", Map.of(metricName, metric))).when(container).metrics();
+    }
+
+    // active connections + threads waiting for one, of a pool of 10
+    private void poolUsage(int demand) {
+        Mockito.when(pool.getActiveConnections()).thenReturn(Math.min(demand, 10));
+        Mockito.when(pool.getThreadsAwaitingConnection()).thenReturn(Math.max(demand - 10, 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void batch(long processingMs) throws InterruptedException {
+        Consumer<String, String> consumer = Mockito.mock(Consumer.class);
+        Mockito.when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(GROUP_ID));
+        BatchInterceptor<String, String> batchInterceptor = controller.batchInterceptor();
+        batchInterceptor.intercept(ConsumerRecords.empty(), consumer);
+        Thread.sleep(processingMs);
+        batchInterceptor.success(ConsumerRecords.empty(), consumer);
+    }
+
+    // the size is recorded once the container is started again
+    private void awaitSize(int concurrency, int maxPollRecords) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.get().getConcurrency() != concurrency || metrics.get().getMaxPollRecords() != maxPollRecords) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, String.format("container size %d, %d",
+                    metrics.get().getConcurrency(), metrics.get().getMaxPollRecords()));
+            Thread.onSpinWait();
+        }
+    }
+
+    // the container calls back once its consumers have stopped
+    private void restartAfterResize() {
+        ArgumentCaptor<Runnable> stopCallback = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(container).stop(stopCallback.capture());
+        stopCallback.getValue().run();
+    }
+}
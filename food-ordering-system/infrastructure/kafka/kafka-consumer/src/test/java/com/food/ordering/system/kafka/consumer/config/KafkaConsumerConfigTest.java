@@ -0,0 +1,94 @@
+package com.food.ordering.system.kafka.consumer.config;
+
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.List;
+
+class KafkaConsumerConfigTest {
+
+    private static final String TOPIC = "payment-request";
+
+    private final KafkaConsumerConfigData kafkaConsumerConfigData = consumerConfig();
+    private final KafkaConsumerConfig<String, SpecificRecordBase> kafkaConsumerConfig = kafkaConsumerConfig();
+
+    @Test
+    void testContainerOfATopicWithRetryTopicsSendsTheFailedRecordsOn() {
+        ConcurrentMessageListenerContainer<String, SpecificRecordBase> container = listenerContainerFactory()
+                .createContainer(TOPIC);
+
+        Assertions.assertInstanceOf(DefaultErrorHandler.class, container.getCommonErrorHandler());
+    }
+
+    @Test
+    void testContainerOfATopicWithoutRetryTopicsKeepsTheInPlaceRetries() {
+        ConcurrentMessageListenerContainer<String, SpecificRecordBase> container = listenerContainerFactory()
+                .createContainer("customer");
+
+        Assertions.assertNull(container.getCommonErrorHandler());
+    }
+
+    @Test
+    void testRetryContainersSendTheFailedRecordsOn() {
+        ConcurrentKafkaListenerContainerFactory<String, SpecificRecordBase> factory =
+                (ConcurrentKafkaListenerContainerFactory<String, SpecificRecordBase>)
+                        kafkaConsumerConfig.kafkaRetryListenerContainerFactory();
+
+        Assertions.assertInstanceOf(DefaultErrorHandler.class,
+                factory.createContainer("payment-request-retry-1000").getCommonErrorHandler());
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, SpecificRecordBase> listenerContainerFactory() {
+        return (ConcurrentKafkaListenerContainerFactory<String, SpecificRecordBase>)
+                kafkaConsumerConfig.kafkaListenerContainerFactory();
+    }
+
+    @SuppressWarnings("unchecked")
+    private KafkaConsumerConfig<String, SpecificRecordBase> kafkaConsumerConfig() {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setBootstrapServers("localhost:19092");
+        kafkaConfigData.setSchemaRegistryUrlKey("schema.registry.url");
+        kafkaConfigData.setSchemaRegistryUrl("http://localhost:8081");
+        ObjectProvider<ProducerFactory<String, SpecificRecordBase>> producerFactoryProvider =
+                Mockito.mock(ObjectProvider.class);
+        Mockito.when(producerFactoryProvider.getIfAvailable()).thenReturn(Mockito.mock(ProducerFactory.class));
+        return new KafkaConsumerConfig<>(kafkaConfigData, kafkaConsumerConfigData, producerFactoryProvider,
+                new RetryTopics(kafkaConsumerConfigData), Mockito.mock(AdaptiveConsumerController.class));
+    }
+
+    private static KafkaConsumerConfigData consumerConfig() {
+        KafkaConsumerConfigData kafkaConsumerConfigData = new KafkaConsumerConfigData();
+        kafkaConsumerConfigData.setKeyDeserializer("org.apache.kafka.common.serialization.StringDeserializer");
+        kafkaConsumerConfigData.setValueDeserializer("io.confluent.kafka.serializers.KafkaAvroDeserializer");
+        kafkaConsumerConfigData.setAutoOffsetReset("earliest");
+        kafkaConsumerConfigData.setSpecificAvroReaderKey("specific.avro.reader");
+        kafkaConsumerConfigData.setSpecificAvroReader("true");
+        kafkaConsumerConfigData.setBatchListener(true);
+        kafkaConsumerConfigData.setAutoStartup(false);
+        kafkaConsumerConfigData.setConcurrencyLevel(1);
+        kafkaConsumerConfigData.setPollTimeoutMs(150L);
+        kafkaConsumerConfigData.setSessionTimeoutMs(10000);
+        kafkaConsumerConfigData.setHeartbeatIntervalMs(3000);
+        kafkaConsumerConfigData.setMaxPollIntervalMs(300000);
+        kafkaConsumerConfigData.setMaxPollRecords(500);
+        kafkaConsumerConfigData.setMaxPartitionFetchBytesDefault(1048576);
+        kafkaConsumerConfigData.setMaxPartitionFetchBytesBoostFactor(1);
+        kafkaConsumerConfigData.setExactlyOnce(false);
+        kafkaConsumerConfigData.setRetryTopicDelaysMs(List.of(1000L, 10000L, 60000L));
+        kafkaConsumerConfigData.setRetryTopicSuffix("-retry");
+        kafkaConsumerConfigData.setDeadLetterTopicSuffix("-dlt");
+        kafkaConsumerConfigData.setRetryTopicSourceTopics(List.of(TOPIC));
+        return kafkaConsumerConfigData;
+    }
+}
@@ -0,0 +1,99 @@
+package com.food.ordering.system.kafka.consumer.config;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpoint;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class KafkaRetryListenerConfigTest {
+
+    private final KafkaListenerContainerFactory<?> retryListenerContainerFactory =
+            Mockito.mock(KafkaListenerContainerFactory.class);
+    private final KafkaListenerEndpointRegistrar registrar = Mockito.mock(KafkaListenerEndpointRegistrar.class);
+
+    @Test
+    void testEachRetryTopicGetsAListenerOfItsOwn() {
+        kafkaRetryListenerConfig(new PaymentRequestListener()).configureKafkaListeners(registrar);
+
+        ArgumentCaptor<KafkaListenerEndpoint> endpoints = ArgumentCaptor.forClass(KafkaListenerEndpoint.class);
+        Mockito.verify(registrar, Mockito.times(2)).registerEndpoint(endpoints.capture(),
+                Mockito.same(retryListenerContainerFactory));
+        Assertions.assertEquals(List.of("payment-topic-consumer-payment-request-retry-1000",
+                        "payment-topic-consumer-payment-request-retry-60000"),
+                endpoints.getAllValues().stream().map(KafkaListenerEndpoint::getId).toList());
+        Assertions.assertEquals(List.of("payment-topic-consumer-payment-request-retry-1000",
+                        "payment-topic-consumer-payment-request-retry-60000"),
+                endpoints.getAllValues().stream().map(KafkaListenerEndpoint::getGroupId).toList());
+        Assertions.assertEquals(List.of(List.of("payment-request-retry-1000"), List.of("payment-request-retry-60000")),
+                endpoints.getAllValues().stream().map(endpoint -> List.copyOf(endpoint.getTopics())).toList());
+        MethodKafkaListenerEndpoint<?, ?> endpoint = (MethodKafkaListenerEndpoint<?, ?>) endpoints.getValue();
+        Assertions.assertEquals("receiveRetries", endpoint.getMethod().getName());
+    }
+
+    @Test
+    void testConsumerWithoutAReceiveListenerIsRejected() {
+        KafkaRetryListenerConfig kafkaRetryListenerConfig = kafkaRetryListenerConfig(new UnnamedListener());
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> kafkaRetryListenerConfig.configureKafkaListeners(registrar));
+    }
+
+    @SuppressWarnings("unchecked")
+    private KafkaRetryListenerConfig kafkaRetryListenerConfig(RetryingKafkaConsumer<SpecificRecordBase> consumer) {
+        KafkaConsumerConfigData kafkaConsumerConfigData = new KafkaConsumerConfigData();
+        kafkaConsumerConfigData.setMaxPollIntervalMs(300000);
+        kafkaConsumerConfigData.setRetryTopicDelaysMs(List.of(1000L, 60000L));
+        kafkaConsumerConfigData.setRetryTopicSuffix("-retry");
+        kafkaConsumerConfigData.setDeadLetterTopicSuffix("-dlt");
+        ObjectProvider<RetryingKafkaConsumer<?>> consumers = Mockito.mock(ObjectProvider.class);
+        Mockito.when(consumers.orderedStream()).thenAnswer(invocation -> Stream.of(consumer));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.addEmbeddedValueResolver(value -> value.replace("${group-id}", "payment-topic-consumer")
+                .replace("${topic-name}", "payment-request"));
+        return new KafkaRetryListenerConfig(consumers, retryListenerContainerFactory,
+                new RetryTopics(kafkaConsumerConfigData), beanFactory);
+    }
+
+    static class PaymentRequestListener implements RetryingKafkaConsumer<SpecificRecordBase> {
+
+        @Override
+        @KafkaListener(id = "${group-id}", topics = "${topic-name}")
+        public void receive(List<SpecificRecordBase> messages, List<String> keys, List<Integer> partitions,
+                            List<Long> offsets) {
+        }
+
+        @Override
+        public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                                   Acknowledgment acknowledgment) {
+        }
+    }
+
+    static class UnnamedListener implements RetryingKafkaConsumer<SpecificRecordBase> {
+
+        @Override
+        public void receive(List<SpecificRecordBase> messages, List<String> keys, List<Integer> partitions,
+                            List<Long> offsets) {
+        }
+
+        @Override
+        public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                                   Acknowledgment acknowledgment) {
+        }
+    }
+}
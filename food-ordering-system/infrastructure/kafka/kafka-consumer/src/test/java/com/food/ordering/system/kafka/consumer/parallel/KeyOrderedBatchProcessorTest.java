@@ -0,0 +1,215 @@
+package com.food.ordering.system.kafka.consumer.parallel;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import com.food.ordering.system.kafka.consumer.retry.RetryTopics;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+class KeyOrderedBatchProcessorTest {
+
+    private static final String TOPIC = "payment-request-retry-1000";
+
+    private KeyOrderedBatchProcessor processor;
+
+    @AfterEach
+    void destroyProcessor() throws InterruptedException {
+        if (processor != null) {
+            processor.destroy();
+        }
+    }
+
+    @Test
+    void testRecordsOfAKeyAreProcessedInOrder() {
+        processor = processor(4);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            messages.add("key" + i % 4 + ":" + i);
+        }
+        Map<String, List<Integer>> processedByKey = new ConcurrentHashMap<>();
+
+        processor.process(messages, keys(messages), partitions(messages, 0), message -> {
+            sleepBriefly();
+            processedByKey.computeIfAbsent(key(message), key -> new CopyOnWriteArrayList<>()).add(offset(message));
+        });
+
+        Assertions.assertEquals(4, processedByKey.size());
+        processedByKey.forEach((key, offsets) -> {
+            List<Integer> sorted = new ArrayList<>(offsets);
+            Collections.sort(sorted);
+            Assertions.assertEquals(10, offsets.size());
+            Assertions.assertEquals(sorted, offsets, "records of " + key);
+        });
+    }
+
+    @Test
+    void testLowestFailedRecordIsReported() {
+        processor = processor(4);
+        List<String> messages = List.of("a:0", "b:1", "a:2", "b:3", "a:4", "b:5");
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        BatchListenerFailedException exception = Assertions.assertThrows(BatchListenerFailedException.class,
+                () -> processor.process(messages, keys(messages), partitions(messages, 0), message -> {
+                    if (message.equals("b:3") || message.equals("a:4")) {
+                        throw new IllegalStateException("failed " + message);
+                    }
+                    processed.add(message);
+                }));
+
+        Assertions.assertEquals(3, exception.getIndex());
+        Assertions.assertEquals("failed b:3", exception.getCause().getMessage());
+        // the rest of a key is skipped once one of its records failed
+        Assertions.assertFalse(processed.contains("b:5"));
+        Assertions.assertTrue(processed.containsAll(List.of("a:0", "b:1", "a:2")));
+    }
+
+    @Test
+    void testSameKeyOnAnotherPartitionIsProcessedSeparately() {
+        processor = processor(2);
+        List<String> messages = List.of("a:0", "a:1");
+        List<Integer> partitions = List.of(0, 1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        processor.process(messages, keys(messages), partitions, message -> threads.add(Thread.currentThread()
+                .getName()));
+
+        Assertions.assertTrue(threads.stream().allMatch(thread -> thread.startsWith("kafka-batch-processor-")));
+    }
+
+    @Test
+    void testSequentialProcessingReportsTheFailedRecord() {
+        processor = processor(0);
+        List<String> messages = List.of("a:0", "b:1", "a:2");
+        List<String> processed = new ArrayList<>();
+
+        BatchListenerFailedException exception = Assertions.assertThrows(BatchListenerFailedException.class,
+                () -> processor.process(messages, keys(messages), partitions(messages, 0), message -> {
+                    if (message.equals("b:1")) {
+                        throw new IllegalStateException("failed " + message);
+                    }
+                    processed.add(message);
+                }));
+
+        Assertions.assertEquals(1, exception.getIndex());
+        Assertions.assertEquals(List.of("a:0"), processed);
+    }
+
+    @Test
+    void testNegativeThreadCountIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> processor(-1));
+    }
+
+    @Test
+    void testDueRetriesAreAcknowledged() {
+        processor = processor(0);
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, String>> records = List.of(
+                retryRecord(0, "a:0", now - 10), retryRecord(1, "b:1", now - 5));
+        RecordingAcknowledgment acknowledgment = new RecordingAcknowledgment();
+        List<String> processed = new ArrayList<>();
+
+        processor.processRetries(records, acknowledgment, processed::add);
+
+        Assertions.assertEquals(List.of("a:0", "b:1"), processed);
+        Assertions.assertTrue(acknowledgment.acknowledged);
+        Assertions.assertEquals(-1, acknowledgment.nackIndex);
+    }
+
+    @Test
+    void testRetriesThatAreNotDueAreDelayed() {
+        processor = processor(0);
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, String>> records = List.of(
+                retryRecord(0, "a:0", now - 10), retryRecord(1, "b:1", now + 10000),
+                retryRecord(2, "a:2", now + 10010));
+        RecordingAcknowledgment acknowledgment = new RecordingAcknowledgment();
+        List<String> processed = new ArrayList<>();
+
+        processor.processRetries(records, acknowledgment, processed::add);
+
+        Assertions.assertEquals(List.of("a:0"), processed);
+        Assertions.assertFalse(acknowledgment.acknowledged);
+        Assertions.assertEquals(1, acknowledgment.nackIndex);
+        Assertions.assertTrue(acknowledgment.nackSleepMs > 9000 && acknowledgment.nackSleepMs <= 10000,
+                "nack sleep " + acknowledgment.nackSleepMs);
+    }
+
+    @Test
+    void testRecordWithoutDueTimeIsDue() {
+        processor = processor(0);
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, 0, "a", "a:0");
+        RecordingAcknowledgment acknowledgment = new RecordingAcknowledgment();
+        List<String> processed = new ArrayList<>();
+
+        processor.processRetries(List.of(record), acknowledgment, processed::add);
+
+        Assertions.assertEquals(List.of("a:0"), processed);
+        Assertions.assertTrue(acknowledgment.acknowledged);
+    }
+
+    private static KeyOrderedBatchProcessor processor(int threads) {
+        KafkaConsumerConfigData kafkaConsumerConfigData = new KafkaConsumerConfigData();
+        kafkaConsumerConfigData.setParallelProcessingThreads(threads);
+        return new KeyOrderedBatchProcessor(kafkaConsumerConfigData);
+    }
+
+    private static ConsumerRecord<String, String> retryRecord(long offset, String message, long dueAt) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, offset, key(message), message);
+        record.headers().add(RetryTopics.RETRY_DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        return record;
+    }
+
+    private static List<String> keys(List<String> messages) {
+        return messages.stream().map(KeyOrderedBatchProcessorTest::key).collect(Collectors.toList());
+    }
+
+    private static List<Integer> partitions(List<String> messages, int partition) {
+        return messages.stream().map(message -> partition).collect(Collectors.toList());
+    }
+
+    private static String key(String message) {
+        return message.substring(0, message.indexOf(':'));
+    }
+
+    private static int offset(String message) {
+        return Integer.parseInt(message.substring(message.indexOf(':') + 1));
+    }
+
+    private static void sleepBriefly() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingAcknowledgment implements Acknowledgment {
+        private boolean acknowledged;
+        private int nackIndex = -1;
+        private long nackSleepMs;
+
+        @Override
+        public void acknowledge() {
+            acknowledged = true;
+        }
+
+        @Override
+        public void nack(int index, long sleepMillis) {
+            nackIndex = index;
+            nackSleepMs = sleepMillis;
+        }
+    }
+}
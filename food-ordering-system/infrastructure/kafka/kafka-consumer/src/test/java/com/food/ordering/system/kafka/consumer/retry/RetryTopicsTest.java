@@ -0,0 +1,99 @@
+package com.food.ordering.system.kafka.consumer.retry;
+
+import com.food.ordering.system.kafka.config.data.KafkaConsumerConfigData;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class RetryTopicsTest {
+
+    private static final String TOPIC = "payment-request";
+    private static final IllegalStateException FAILURE = new IllegalStateException("failed");
+
+    private final RetryTopics retryTopics = new RetryTopics(config(List.of(1000L, 10000L, 60000L)));
+
+    @Test
+    void testRetryTopicNames() {
+        Assertions.assertArrayEquals(new String[]{"payment-request-retry-1000", "payment-request-retry-10000",
+                "payment-request-retry-60000"}, retryTopics.retryTopics(TOPIC));
+        Assertions.assertEquals("payment-request-dlt", retryTopics.deadLetterTopic(TOPIC));
+    }
+
+    @Test
+    void testFailedRecordGoesToTheNextTier() {
+        Assertions.assertEquals(new TopicPartition("payment-request-retry-1000", -1),
+                retryTopics.destination(record(TOPIC), FAILURE));
+        Assertions.assertEquals(new TopicPartition("payment-request-retry-10000", -1),
+                retryTopics.destination(record("payment-request-retry-1000"), FAILURE));
+        Assertions.assertEquals(new TopicPartition("payment-request-retry-60000", -1),
+                retryTopics.destination(record("payment-request-retry-10000"), FAILURE));
+    }
+
+    @Test
+    void testRecordOfTheLastTierGoesToTheDeadLetterTopic() {
+        Assertions.assertEquals(new TopicPartition("payment-request-dlt", -1),
+                retryTopics.destination(record("payment-request-retry-60000"), FAILURE));
+    }
+
+    @Test
+    void testDueAtHeaderCarriesTheDelayOfTheNextTier() {
+        long before = System.currentTimeMillis();
+
+        ConsumerRecord<String, String> firstRetry = recordWithHeaders("payment-request-retry-1000",
+                retryTopics.headers(record(TOPIC), FAILURE));
+        ConsumerRecord<String, String> secondRetry = recordWithHeaders("payment-request-retry-10000",
+                firstRetry.headers());
+        retryTopics.headers(firstRetry, FAILURE).forEach(header -> secondRetry.headers().add(header));
+
+        long after = System.currentTimeMillis();
+        Assertions.assertTrue(RetryTopics.dueAt(firstRetry) >= before + 1000 &&
+                RetryTopics.dueAt(firstRetry) <= after + 1000);
+        // the recoverer keeps the header of the earlier tier, the last one is read
+        Assertions.assertTrue(RetryTopics.dueAt(secondRetry) >= before + 10000 &&
+                RetryTopics.dueAt(secondRetry) <= after + 10000);
+    }
+
+    @Test
+    void testNoDueAtHeaderForTheDeadLetterTopic() {
+        Headers headers = retryTopics.headers(record("payment-request-retry-60000"), FAILURE);
+
+        Assertions.assertNull(headers.lastHeader(RetryTopics.RETRY_DUE_AT_HEADER));
+    }
+
+    @Test
+    void testRecordWithoutDueAtHeaderIsDueRightAway() {
+        Assertions.assertEquals(0, RetryTopics.dueAt(record("payment-request-retry-1000")));
+    }
+
+    @Test
+    void testInvalidDelaysAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryTopics(config(List.of())));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RetryTopics(config(List.of(1000L, 1000L))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryTopics(config(List.of(0L))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryTopics(config(List.of(300000L))));
+    }
+
+    private static KafkaConsumerConfigData config(List<Long> delaysMs) {
+        KafkaConsumerConfigData kafkaConsumerConfigData = new KafkaConsumerConfigData();
+        kafkaConsumerConfigData.setRetryTopicDelaysMs(delaysMs);
+        kafkaConsumerConfigData.setRetryTopicSuffix("-retry");
+        kafkaConsumerConfigData.setDeadLetterTopicSuffix("-dlt");
+        kafkaConsumerConfigData.setMaxPollIntervalMs(300000);
+        return kafkaConsumerConfigData;
+    }
+
+    private static ConsumerRecord<String, String> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 0, "key", "value");
+    }
+
+    private static ConsumerRecord<String, String> recordWithHeaders(String topic, Headers headers) {
+        ConsumerRecord<String, String> record = record(topic);
+        headers.forEach(header -> record.headers().add(header));
+        return record;
+    }
+}
@@ -0,0 +1,47 @@
+package com.food.ordering.system.kafka.avro;
+
+import com.food.ordering.system.kafka.order.avro.model.Uuid;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+// Conversions between the domain values and the compact types of the v2 schemas: the fixed(16) Uuid and the long
+// amounts in minor units. The v1 schemas carry the UUIDs as 36-char strings and the amounts as decimals of scale 2.
+public final class AvroCompactTypes {
+
+    public static final int AMOUNT_SCALE = 2;
+
+    private AvroCompactTypes() {
+    }
+
+    public static Uuid toAvro(UUID uuid) {
+        return new Uuid(ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array());
+    }
+
+    public static Uuid toAvro(String uuid) {
+        return toAvro(UUID.fromString(uuid));
+    }
+
+    public static UUID toUuid(Uuid uuid) {
+        ByteBuffer bytes = ByteBuffer.wrap(uuid.bytes());
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    // the domain carries ids as strings
+    public static String toUuidString(Uuid uuid) {
+        return toUuid(uuid).toString();
+    }
+
+    // fails on an amount with more decimals than the scale instead of rounding it silently
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+}
@@ -0,0 +1,126 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import com.food.ordering.system.kafka.avro.serde.AvroSerdeConfig.SchemaIdSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resolves the schema ids of the wire format (magic byte, 4-byte schema id, avro binary) shared with the Confluent
+// serde. The schemas of the bundled .avsc files are known up front, under an id derived from their fingerprint, so
+// neither side needs a schema registry for them. The registry, when configured, is a stand-in: it is asked for the
+// schemas of unknown ids (records written by the Confluent serde or a newer producer) and, in the registry id source,
+// for the ids of the written schemas. Its answers are cached for the life of the process, as schema ids never change,
+// and it is only called on the first use of a schema, so the startup never waits on it.
+// A catalog is shared by all the serdes with the same configuration.
+@Slf4j
+public class AvroSchemaCatalog {
+
+    // in the order of their references: the v2 schemas refer to Uuid and to the enums of the v1 schemas
+    private static final List<String> BUNDLED_SCHEMAS = List.of(
+            "avro/uuid.avsc",
+            "avro/payment_request.avsc",
+            "avro/payment_response.avsc",
+            "avro/restaurant_approval_request.avsc",
+            "avro/restaurant_approval_response.avsc",
+            "avro/payment_request_v2.avsc",
+            "avro/payment_response_v2.avsc",
+            "avro/restaurant_approval_request_v2.avsc",
+            "avro/restaurant_approval_response_v2.avsc"
+    );
+    private static final Map<String, AvroSchemaCatalog> CATALOGS = new ConcurrentHashMap<>();
+
+    private final SchemaIdSource schemaIdSource;
+    private final SchemaRegistryRestClient schemaRegistryRestClient;
+    private final Map<Integer, Schema> schemasById = new ConcurrentHashMap<>();
+    private final Map<Schema, Integer> fingerprintIds = new ConcurrentHashMap<>();
+    private final Map<SubjectSchema, Integer> registeredIds = new ConcurrentHashMap<>();
+
+    private record SubjectSchema(String subject, Schema schema) {
+    }
+
+    AvroSchemaCatalog(SchemaIdSource schemaIdSource, String schemaRegistryUrl) {
+        if (schemaIdSource == SchemaIdSource.REGISTRY && schemaRegistryUrl == null) {
+            throw new IllegalArgumentException(String.format("The %s id source requires %s!",
+                    schemaIdSource, AvroSerdeConfig.SCHEMA_REGISTRY_URL));
+        }
+        this.schemaIdSource = schemaIdSource;
+        this.schemaRegistryRestClient = schemaRegistryUrl == null ? null :
+                new SchemaRegistryRestClient(schemaRegistryUrl);
+        Schema.Parser parser = new Schema.Parser();
+        BUNDLED_SCHEMAS.forEach(resource -> {
+            Schema schema = parseBundled(parser, resource);
+            if (schema.getType() != Schema.Type.RECORD) {
+                return;
+            }
+            Schema previous = schemasById.putIfAbsent(fingerprintId(schema), schema);
+            if (previous != null && !previous.equals(schema)) {
+                throw new IllegalStateException(String.format("The fingerprint ids of %s and %s collide!",
+                        previous.getFullName(), schema.getFullName()));
+            }
+        });
+    }
+
+    public static AvroSchemaCatalog forConfigs(Map<String, ?> configs) {
+        SchemaIdSource schemaIdSource = AvroSerdeConfig.schemaIdSource(configs);
+        String schemaRegistryUrl = AvroSerdeConfig.schemaRegistryUrl(configs);
+        return CATALOGS.computeIfAbsent(schemaIdSource + "|" + schemaRegistryUrl,
+                key -> new AvroSchemaCatalog(schemaIdSource, schemaRegistryUrl));
+    }
+
+    // the id written in front of a record of the schema on the subject
+    public int schemaId(String subject, Schema schema) {
+        if (schemaIdSource == SchemaIdSource.REGISTRY) {
+            return registeredIds.computeIfAbsent(new SubjectSchema(subject, schema), subjectSchema -> {
+                int schemaId = schemaRegistryRestClient.register(subject, schema);
+                schemasById.putIfAbsent(schemaId, schema);
+                log.info("Schema {} is registered under {} with id {}", schema.getFullName(), subject, schemaId);
+                return schemaId;
+            });
+        }
+        // a schema that is not bundled is readable in this process only
+        return fingerprintIds.computeIfAbsent(schema, writtenSchema -> {
+            int schemaId = fingerprintId(writtenSchema);
+            schemasById.putIfAbsent(schemaId, writtenSchema);
+            return schemaId;
+        });
+    }
+
+    // the schema a record was written with
+    public Schema schema(int schemaId) {
+        Schema schema = schemasById.get(schemaId);
+        if (schema != null) {
+            return schema;
+        }
+        if (schemaRegistryRestClient == null) {
+            throw new SerializationException(String.format("Unknown schema id %d and no schema registry to look it " +
+                    "up in!", schemaId));
+        }
+        return schemasById.computeIfAbsent(schemaId, schemaRegistryRestClient::schemaById);
+    }
+
+    // a registry id is a small sequence number, a fingerprint id is spread over all the positive ints, so the two
+    // practically never meet
+    static int fingerprintId(Schema schema) {
+        long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & Integer.MAX_VALUE;
+    }
+
+    private static Schema parseBundled(Schema.Parser parser, String resource) {
+        try (InputStream inputStream = AvroSchemaCatalog.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalStateException(String.format("Bundled schema %s is missing!", resource));
+            }
+            return parser.parse(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read the bundled schema %s!", resource), e);
+        }
+    }
+}
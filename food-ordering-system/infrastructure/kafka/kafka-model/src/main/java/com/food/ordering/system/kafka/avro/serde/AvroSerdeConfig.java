@@ -0,0 +1,50 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import java.util.Locale;
+import java.util.Map;
+
+// The client properties read by CachedAvroSerializer and CachedAvroDeserializer
+public final class AvroSerdeConfig {
+
+    // comma-separated, optional; only contacted on the first use of a schema, never on startup
+    public static final String SCHEMA_REGISTRY_URL = "schema.registry.url";
+    // fingerprint (default) or registry, see SchemaIdSource
+    public static final String SCHEMA_ID_SOURCE = "avro.schema.id.source";
+    // deserializer only - see CachedAvroDeserializer
+    public static final String REUSE_RECORDS = "avro.reuse.records";
+
+    public enum SchemaIdSource {
+        // the schema id is derived from the fingerprint of the bundled schema, no schema registry is needed; only
+        // readable by this serde
+        FINGERPRINT,
+        // the schema is registered under the subject of the topic and its id is the one the registry gave it, as the
+        // Confluent serde does, so both serdes can read each other's records
+        REGISTRY
+    }
+
+    private AvroSerdeConfig() {
+    }
+
+    static String schemaRegistryUrl(Map<String, ?> configs) {
+        Object schemaRegistryUrl = configs.get(SCHEMA_REGISTRY_URL);
+        return schemaRegistryUrl == null || schemaRegistryUrl.toString().isBlank() ? null :
+                schemaRegistryUrl.toString();
+    }
+
+    static SchemaIdSource schemaIdSource(Map<String, ?> configs) {
+        Object schemaIdSource = configs.get(SCHEMA_ID_SOURCE);
+        if (schemaIdSource == null || schemaIdSource.toString().isBlank()) {
+            return SchemaIdSource.FINGERPRINT;
+        }
+        try {
+            return SchemaIdSource.valueOf(schemaIdSource.toString().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unknown %s: %s!", SCHEMA_ID_SOURCE, schemaIdSource));
+        }
+    }
+
+    static boolean reuseRecords(Map<String, ?> configs) {
+        Object reuseRecords = configs.get(REUSE_RECORDS);
+        return reuseRecords != null && Boolean.parseBoolean(reuseRecords.toString());
+    }
+}
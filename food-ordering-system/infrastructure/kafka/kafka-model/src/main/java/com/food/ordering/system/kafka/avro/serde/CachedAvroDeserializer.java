@@ -0,0 +1,103 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// An alternative to the Confluent KafkaAvroDeserializer (with specific.avro.reader) for the wire format of
+// CachedAvroSerializer and the Confluent serializer. The writer schema comes from an AvroSchemaCatalog, the reader
+// schema is the one of the generated class with the same full name. The decoder and the datum readers are kept per
+// thread. With avro.reuse.records the records are decoded into instances of a per-thread ring of max.poll.records
+// instances per schema, so a poll allocates no new records once the ring is filled. A record is then overwritten by a
+// later poll, so the listeners must not keep the records, or anything mutable of them, after they return; a batch
+// listener gets at most max.poll.records records, which never share an instance.
+public class CachedAvroDeserializer implements Deserializer<SpecificRecord> {
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_LENGTH = 5;
+    private static final int DEFAULT_MAX_POLL_RECORDS = 500;
+
+    private final ThreadLocal<DecoderState> decoderState = ThreadLocal.withInitial(DecoderState::new);
+
+    private AvroSchemaCatalog avroSchemaCatalog;
+    private boolean reuseRecords;
+    private int reusedRecordsPerSchema;
+
+    private static class DecoderState {
+        private final Map<Schema, DatumReader<SpecificRecord>> datumReaders = new HashMap<>();
+        private final Map<Schema, RecordRing> recordRings = new HashMap<>();
+        private BinaryDecoder decoder;
+    }
+
+    private static class RecordRing {
+        private final SpecificRecord[] records;
+        private int next;
+
+        private RecordRing(int size) {
+            this.records = new SpecificRecord[size];
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        this.avroSchemaCatalog = AvroSchemaCatalog.forConfigs(configs);
+        this.reuseRecords = AvroSerdeConfig.reuseRecords(configs);
+        Object maxPollRecords = configs.get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG);
+        this.reusedRecordsPerSchema = maxPollRecords == null ? DEFAULT_MAX_POLL_RECORDS :
+                Integer.parseInt(maxPollRecords.toString());
+    }
+
+    @Override
+    public SpecificRecord deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < HEADER_LENGTH || data[0] != MAGIC_BYTE) {
+            throw new SerializationException(String.format("Record of topic %s is not in the avro wire format!",
+                    topic));
+        }
+        int schemaId = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+        Schema writerSchema = avroSchemaCatalog.schema(schemaId);
+        DecoderState state = decoderState.get();
+        state.decoder = DecoderFactory.get().binaryDecoder(data, HEADER_LENGTH, data.length - HEADER_LENGTH,
+                state.decoder);
+        try {
+            DatumReader<SpecificRecord> datumReader = state.datumReaders.computeIfAbsent(writerSchema,
+                    CachedAvroDeserializer::datumReader);
+            if (!reuseRecords) {
+                return datumReader.read(null, state.decoder);
+            }
+            RecordRing recordRing = state.recordRings.computeIfAbsent(writerSchema,
+                    schema -> new RecordRing(reusedRecordsPerSchema));
+            SpecificRecord avroModel = datumReader.read(recordRing.records[recordRing.next], state.decoder);
+            recordRing.records[recordRing.next] = avroModel;
+            recordRing.next = (recordRing.next + 1) % recordRing.records.length;
+            return avroModel;
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException(String.format("Could not deserialize %s with schema id %d from topic %s!",
+                    writerSchema.getFullName(), schemaId, topic), e);
+        }
+    }
+
+    private static DatumReader<SpecificRecord> datumReader(Schema writerSchema) {
+        Class<?> avroModelClass = SpecificData.get().getClass(writerSchema);
+        if (avroModelClass == null) {
+            throw new SerializationException(String.format("No generated class for schema %s!",
+                    writerSchema.getFullName()));
+        }
+        SpecificData specificData = SpecificData.getForClass(avroModelClass);
+        return new SpecificDatumReader<>(writerSchema, specificData.getSchema(avroModelClass), specificData);
+    }
+}
@@ -0,0 +1,73 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// An alternative to the Confluent KafkaAvroSerializer that writes the same wire format, with the schema ids of an
+// AvroSchemaCatalog, so it does not depend on a schema registry. The output buffer, the encoder and the datum writers
+// are kept per thread and reused from record to record; only the returned byte array is allocated per record.
+public class CachedAvroSerializer implements Serializer<SpecificRecord> {
+
+    private static final byte MAGIC_BYTE = 0;
+
+    private final ThreadLocal<EncoderState> encoderState = ThreadLocal.withInitial(EncoderState::new);
+
+    private AvroSchemaCatalog avroSchemaCatalog;
+    private boolean isKey;
+
+    private static class EncoderState {
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024);
+        // the schemas are the SCHEMA$ singletons of the generated classes
+        private final Map<Schema, DatumWriter<SpecificRecord>> datumWriters = new IdentityHashMap<>();
+        private BinaryEncoder encoder;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        this.avroSchemaCatalog = AvroSchemaCatalog.forConfigs(configs);
+        this.isKey = isKey;
+    }
+
+    @Override
+    public byte[] serialize(String topic, SpecificRecord avroModel) {
+        if (avroModel == null) {
+            return null;
+        }
+        Schema schema = avroModel.getSchema();
+        int schemaId = avroSchemaCatalog.schemaId(topic + (isKey ? "-key" : "-value"), schema);
+        EncoderState state = encoderState.get();
+        state.outputStream.reset();
+        state.outputStream.write(MAGIC_BYTE);
+        state.outputStream.write(schemaId >>> 24);
+        state.outputStream.write(schemaId >>> 16);
+        state.outputStream.write(schemaId >>> 8);
+        state.outputStream.write(schemaId);
+        state.encoder = EncoderFactory.get().binaryEncoder(state.outputStream, state.encoder);
+        try {
+            state.datumWriters.computeIfAbsent(schema, CachedAvroSerializer::datumWriter)
+                    .write(avroModel, state.encoder);
+            state.encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException(String.format("Could not serialize %s for topic %s!",
+                    schema.getFullName(), topic), e);
+        }
+        return state.outputStream.toByteArray();
+    }
+
+    private static DatumWriter<SpecificRecord> datumWriter(Schema schema) {
+        // the model of the generated class carries the conversions of its logical types, e.g. the decimal price
+        return new SpecificDatumWriter<>(schema, SpecificData.getForSchema(schema));
+    }
+}
@@ -0,0 +1,85 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+// The two calls of the schema registry REST API the cached serde needs; the urls are tried in order until one answers
+@Slf4j
+class SchemaRegistryRestClient {
+
+    private static final String CONTENT_TYPE = "application/vnd.schemaregistry.v1+json";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final List<String> baseUrls;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    SchemaRegistryRestClient(String schemaRegistryUrls) {
+        this.baseUrls = Arrays.stream(schemaRegistryUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .toList();
+        this.httpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    }
+
+    // registering an already registered schema returns its id
+    int register(String subject, Schema schema) {
+        String body = objectMapper.createObjectNode().put("schema", schema.toString()).toString();
+        JsonNode response = call(baseUrl -> HttpRequest.newBuilder(URI.create(baseUrl + "/subjects/" +
+                        URLEncoder.encode(subject, StandardCharsets.UTF_8) + "/versions"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+        return response.get("id").asInt();
+    }
+
+    Schema schemaById(int schemaId) {
+        JsonNode response = call(baseUrl -> HttpRequest.newBuilder(URI.create(baseUrl + "/schemas/ids/" + schemaId))
+                .timeout(TIMEOUT)
+                .header("Accept", CONTENT_TYPE)
+                .GET()
+                .build());
+        return new Schema.Parser().parse(response.get("schema").asText());
+    }
+
+    private JsonNode call(Function<String, HttpRequest> requestFactory) {
+        IOException lastError = null;
+        for (String baseUrl : baseUrls) {
+            HttpRequest request = requestFactory.apply(baseUrl);
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() / 100 != 2) {
+                    // the registry answered, another url would answer the same
+                    throw new SerializationException(String.format("Schema registry call %s %s failed with %d: %s",
+                            request.method(), request.uri(), response.statusCode(), response.body()));
+                }
+                return objectMapper.readTree(response.body());
+            } catch (IOException e) {
+                log.warn("Schema registry at {} could not be reached: {}", baseUrl, e.getMessage());
+                lastError = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SerializationException("Interrupted while calling the schema registry!", e);
+            }
+        }
+        throw new SerializationException(String.format("None of the schema registries %s could be reached!",
+                baseUrls), lastError);
+    }
+}
@@ -0,0 +1,63 @@
+package com.food.ordering.system.kafka.avro;
+
+import com.food.ordering.system.kafka.order.avro.model.Uuid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+class AvroCompactTypesTest {
+
+    private static final String UUID_STRING = "d215b5f8-0249-4dc5-89a3-51fd148cfb41";
+
+    @Test
+    void testUuidRoundTrip() {
+        UUID uuid = UUID.randomUUID();
+
+        Assertions.assertEquals(uuid, AvroCompactTypes.toUuid(AvroCompactTypes.toAvro(uuid)));
+        Assertions.assertEquals(UUID_STRING, AvroCompactTypes.toUuidString(AvroCompactTypes.toAvro(UUID_STRING)));
+    }
+
+    @Test
+    void testUuidIsWrittenMostSignificantBytesFirst() {
+        Uuid uuid = AvroCompactTypes.toAvro(UUID_STRING);
+
+        Assertions.assertEquals(16, uuid.bytes().length);
+        Assertions.assertEquals((byte) 0xd2, uuid.bytes()[0]);
+        Assertions.assertEquals((byte) 0x41, uuid.bytes()[15]);
+    }
+
+    @Test
+    void testMalformedUuidIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AvroCompactTypes.toAvro("not-a-uuid"));
+    }
+
+    @Test
+    void testAmountRoundTrip() {
+        Assertions.assertEquals(10050L, AvroCompactTypes.toMinorUnits(new BigDecimal("100.50")));
+        Assertions.assertEquals(new BigDecimal("100.50"), AvroCompactTypes.fromMinorUnits(10050L));
+        Assertions.assertEquals(new BigDecimal("-0.01"),
+                AvroCompactTypes.fromMinorUnits(AvroCompactTypes.toMinorUnits(new BigDecimal("-0.01"))));
+    }
+
+    // fewer decimals are padded, trailing zeros beyond the scale are dropped without rounding
+    @Test
+    void testAmountIsScaledToMinorUnits() {
+        Assertions.assertEquals(10000L, AvroCompactTypes.toMinorUnits(new BigDecimal("100")));
+        Assertions.assertEquals(150L, AvroCompactTypes.toMinorUnits(new BigDecimal("1.5")));
+        Assertions.assertEquals(150L, AvroCompactTypes.toMinorUnits(new BigDecimal("1.500")));
+    }
+
+    @Test
+    void testAmountWithMoreDecimalsThanTheScaleIsRejected() {
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> AvroCompactTypes.toMinorUnits(new BigDecimal("100.505")));
+    }
+
+    @Test
+    void testAmountBeyondALongIsRejected() {
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> AvroCompactTypes.toMinorUnits(new BigDecimal(Long.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModelV2;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaNormalization;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class AvroSchemaCatalogTest {
+
+    private final AvroSchemaCatalog avroSchemaCatalog = AvroSchemaCatalog.forConfigs(Map.of());
+
+    // the generated classes add the java string type to the bundled schemas, which the fingerprint leaves out
+    @Test
+    void testBundledSchemasAreKnownUnderTheirFingerprintId() {
+        for (Schema schema : new Schema[]{PaymentRequestAvroModel.SCHEMA$, PaymentRequestAvroModelV2.SCHEMA$,
+                RestaurantApprovalResponseAvroModelV2.SCHEMA$}) {
+            int schemaId = AvroSchemaCatalog.fingerprintId(schema);
+
+            Assertions.assertTrue(schemaId >= 0);
+            Assertions.assertEquals(SchemaNormalization.toParsingForm(schema),
+                    SchemaNormalization.toParsingForm(avroSchemaCatalog.schema(schemaId)));
+        }
+    }
+
+    @Test
+    void testFingerprintIdIsTheIdOfTheWrittenSchema() {
+        Schema schema = PaymentRequestAvroModel.SCHEMA$;
+
+        Assertions.assertEquals(AvroSchemaCatalog.fingerprintId(schema),
+                avroSchemaCatalog.schemaId("payment-request-value", schema));
+        // the id does not depend on the subject
+        Assertions.assertEquals(AvroSchemaCatalog.fingerprintId(schema),
+                avroSchemaCatalog.schemaId("other-topic-value", schema));
+    }
+
+    @Test
+    void testSchemaThatIsNotBundledIsKnownOnceWritten() {
+        Schema schema = SchemaBuilder.record("NotBundled").namespace("com.food.ordering.system.test")
+                .fields().requiredString("name").endRecord();
+
+        int schemaId = avroSchemaCatalog.schemaId("test-value", schema);
+
+        Assertions.assertEquals(schema, avroSchemaCatalog.schema(schemaId));
+    }
+
+    @Test
+    void testUnknownIdWithoutASchemaRegistryIsRejected() {
+        Assertions.assertThrows(SerializationException.class, () -> avroSchemaCatalog.schema(1));
+    }
+
+    @Test
+    void testRegistryIdSourceRequiresASchemaRegistry() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AvroSchemaCatalog.forConfigs(
+                Map.of(AvroSerdeConfig.SCHEMA_ID_SOURCE, "registry")));
+    }
+
+    @Test
+    void testUnknownIdSourceIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AvroSchemaCatalog.forConfigs(
+                Map.of(AvroSerdeConfig.SCHEMA_ID_SOURCE, "md5")));
+    }
+
+    @Test
+    void testCatalogIsSharedByTheSameConfiguration() {
+        Assertions.assertSame(avroSchemaCatalog, AvroSchemaCatalog.forConfigs(
+                Map.of(AvroSerdeConfig.SCHEMA_ID_SOURCE, "fingerprint")));
+    }
+}
@@ -0,0 +1,137 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+class CachedAvroSerdeTest {
+
+    private static final String TOPIC = "payment-request";
+
+    @Test
+    void testRecordIsWrittenInTheWireFormat() {
+        byte[] data = serializer().serialize(TOPIC, paymentRequest("100.00"));
+
+        Assertions.assertEquals(0, data[0]);
+        Assertions.assertEquals(AvroSchemaCatalog.fingerprintId(PaymentRequestAvroModel.SCHEMA$),
+                ByteBuffer.wrap(data, 1, Integer.BYTES).getInt());
+    }
+
+    @Test
+    void testRecordsAreReadBack() {
+        CachedAvroSerializer serializer = serializer();
+        CachedAvroDeserializer deserializer = deserializer(Map.of());
+        PaymentRequestAvroModel paymentRequest = paymentRequest("100.00");
+        PaymentRequestAvroModelV2 paymentRequestV2 = paymentRequestV2(10000L);
+
+        Assertions.assertEquals(paymentRequest, deserializer.deserialize(TOPIC,
+                serializer.serialize(TOPIC, paymentRequest)));
+        Assertions.assertEquals(paymentRequestV2, deserializer.deserialize(TOPIC,
+                serializer.serialize(TOPIC, paymentRequestV2)));
+    }
+
+    @Test
+    void testNullIsPassedThrough() {
+        Assertions.assertNull(serializer().serialize(TOPIC, null));
+        Assertions.assertNull(deserializer(Map.of()).deserialize(TOPIC, null));
+    }
+
+    @Test
+    void testDataWithoutTheMagicByteIsRejected() {
+        CachedAvroDeserializer deserializer = deserializer(Map.of());
+
+        Assertions.assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(TOPIC, new byte[]{1, 0, 0, 0, 1, 2}));
+        Assertions.assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(TOPIC, new byte[]{0, 0}));
+    }
+
+    @Test
+    void testRecordsAreNotReusedByDefault() {
+        CachedAvroDeserializer deserializer = deserializer(Map.of(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "1"));
+        byte[] data = serializer().serialize(TOPIC, paymentRequest("100.00"));
+
+        Assertions.assertNotSame(deserializer.deserialize(TOPIC, data), deserializer.deserialize(TOPIC, data));
+    }
+
+    // a ring of max.poll.records instances: the records of a poll never share one, the next poll reuses them
+    @Test
+    void testReusedRecordsAreTakenFromARingOfMaxPollRecords() {
+        CachedAvroDeserializer deserializer = deserializer(Map.of(AvroSerdeConfig.REUSE_RECORDS, "true",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "2"));
+        CachedAvroSerializer serializer = serializer();
+
+        SpecificRecord first = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, paymentRequest("1.00")));
+        SpecificRecord second = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, paymentRequest("2.00")));
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(new BigDecimal("1.00"), ((PaymentRequestAvroModel) first).getPrice());
+
+        PaymentRequestAvroModel third = paymentRequest("3.00");
+        SpecificRecord reused = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, third));
+        Assertions.assertSame(first, reused);
+        Assertions.assertEquals(third, reused);
+    }
+
+    // each schema has a ring of its own, so a v1 and a v2 record never overwrite each other
+    @Test
+    void testReusedRecordsAreKeptPerSchema() {
+        CachedAvroDeserializer deserializer = deserializer(Map.of(AvroSerdeConfig.REUSE_RECORDS, "true",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "1"));
+        CachedAvroSerializer serializer = serializer();
+        PaymentRequestAvroModel paymentRequest = paymentRequest("100.00");
+
+        SpecificRecord first = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, paymentRequest));
+        deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, paymentRequestV2(10000L)));
+
+        Assertions.assertEquals(paymentRequest, first);
+    }
+
+    private static CachedAvroSerializer serializer() {
+        CachedAvroSerializer serializer = new CachedAvroSerializer();
+        serializer.configure(Map.of(), false);
+        return serializer;
+    }
+
+    private static CachedAvroDeserializer deserializer(Map<String, String> configs) {
+        CachedAvroDeserializer deserializer = new CachedAvroDeserializer();
+        deserializer.configure(new HashMap<>(configs), false);
+        return deserializer;
+    }
+
+    private static PaymentRequestAvroModel paymentRequest(String price) {
+        return PaymentRequestAvroModel.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setSagaId(UUID.randomUUID().toString())
+                .setCustomerId(UUID.randomUUID().toString())
+                .setOrderId(UUID.randomUUID().toString())
+                .setPrice(new BigDecimal(price))
+                .setCreatedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+
+    private static PaymentRequestAvroModelV2 paymentRequestV2(long priceMinorUnits) {
+        return PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setCustomerId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setOrderId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setPriceMinorUnits(priceMinorUnits)
+                .setCreatedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+}
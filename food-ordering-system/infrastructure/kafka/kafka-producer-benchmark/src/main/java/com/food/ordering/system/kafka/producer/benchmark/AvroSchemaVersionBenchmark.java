@@ -0,0 +1,187 @@
+package com.food.ordering.system.kafka.producer.benchmark;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.avro.serde.AvroSerdeConfig;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroDeserializer;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroSerializer;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.Product;
+import com.food.ordering.system.kafka.order.avro.model.ProductV2;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModelV2;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+// Compares the v1 event schemas (UUIDs as 36-char strings, decimal amounts) with the compact v2 ones (fixed(16)
+// UUIDs, long amounts in minor units) on the order service's requests: the bytes per message as written by the
+// cached avro serializer, wire header included, and the time to decode a message and map its ids and amount to the
+// domain values, as the MessagingDataMapper classes do. No broker is involved; the records are the ones of
+// OrderTrafficGenerator.
+//
+// mvn -P benchmark -pl infrastructure/kafka/kafka-producer-benchmark exec:java
+// -Dexec.mainClass=com.food.ordering.system.kafka.producer.benchmark.AvroSchemaVersionBenchmark
+// benchmark.records and benchmark.rounds set the records encoded and the timed decode passes over them.
+@Slf4j
+public class AvroSchemaVersionBenchmark {
+
+    private static final String PAYMENT_REQUEST_TOPIC = "payment-request";
+    private static final String RESTAURANT_APPROVAL_REQUEST_TOPIC = "restaurant-approval-request";
+    private static final long TRAFFIC_SEED = 42L;
+
+    private final CachedAvroSerializer serializer = new CachedAvroSerializer();
+    private final CachedAvroDeserializer deserializer = new CachedAvroDeserializer();
+    private final int rounds;
+
+    // the sink of the mapped values, so the JIT cannot drop the mapping
+    private long checksum;
+
+    private record SchemaVersionResult(String event, double bytesPerMessage, double decodeNanosPerMessage) {
+    }
+
+    AvroSchemaVersionBenchmark(int rounds) {
+        Map<String, Object> configs = Map.of(AvroSerdeConfig.SCHEMA_ID_SOURCE,
+                AvroSerdeConfig.SchemaIdSource.FINGERPRINT.name());
+        this.serializer.configure(configs, false);
+        this.deserializer.configure(configs, false);
+        this.rounds = rounds;
+    }
+
+    public static void main(String[] args) {
+        int records = Integer.getInteger("benchmark.records", 100_000);
+        AvroSchemaVersionBenchmark benchmark = new AvroSchemaVersionBenchmark(
+                Integer.getInteger("benchmark.rounds", 5));
+        OrderTrafficGenerator trafficGenerator = new OrderTrafficGenerator(TRAFFIC_SEED);
+        List<PaymentRequestAvroModel> paymentRequests = new ArrayList<>(records);
+        List<RestaurantApprovalRequestAvroModel> approvalRequests = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            OrderTrafficGenerator.OrderRequests orderRequests = trafficGenerator.nextOrder();
+            paymentRequests.add(orderRequests.paymentRequest());
+            approvalRequests.add(orderRequests.approvalRequest());
+        }
+
+        List<SchemaVersionResult> results = List.of(
+                benchmark.run("payment-request v1", PAYMENT_REQUEST_TOPIC, paymentRequests,
+                        avroModel -> mapV1((PaymentRequestAvroModel) avroModel)),
+                benchmark.run("payment-request v2", PAYMENT_REQUEST_TOPIC,
+                        paymentRequests.stream().map(AvroSchemaVersionBenchmark::toV2).toList(),
+                        avroModel -> mapV2((PaymentRequestAvroModelV2) avroModel)),
+                benchmark.run("restaurant-approval-request v1", RESTAURANT_APPROVAL_REQUEST_TOPIC, approvalRequests,
+                        avroModel -> mapV1((RestaurantApprovalRequestAvroModel) avroModel)),
+                benchmark.run("restaurant-approval-request v2", RESTAURANT_APPROVAL_REQUEST_TOPIC,
+                        approvalRequests.stream().map(AvroSchemaVersionBenchmark::toV2).toList(),
+                        avroModel -> mapV2((RestaurantApprovalRequestAvroModelV2) avroModel)));
+        report(results);
+        log.debug("Checksum of the mapped values: {}", benchmark.checksum);
+    }
+
+    SchemaVersionResult run(String event, String topic, List<? extends SpecificRecord> avroModels,
+                            ToLongFunction<SpecificRecord> mapper) {
+        List<byte[]> messages = new ArrayList<>(avroModels.size());
+        long bytes = 0;
+        for (SpecificRecord avroModel : avroModels) {
+            byte[] message = serializer.serialize(topic, avroModel);
+            messages.add(message);
+            bytes += message.length;
+        }
+        // the first pass warms up the decoders and the JIT
+        decode(topic, messages, mapper);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            decode(topic, messages, mapper);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new SchemaVersionResult(event, (double) bytes / messages.size(),
+                (double) elapsedNanos / ((long) rounds * messages.size()));
+    }
+
+    private void decode(String topic, List<byte[]> messages, ToLongFunction<SpecificRecord> mapper) {
+        for (byte[] message : messages) {
+            checksum += mapper.applyAsLong(deserializer.deserialize(topic, message));
+        }
+    }
+
+    private static long mapV1(PaymentRequestAvroModel avroModel) {
+        return UUID.fromString(avroModel.getSagaId()).hashCode()
+                + UUID.fromString(avroModel.getCustomerId()).hashCode()
+                + UUID.fromString(avroModel.getOrderId()).hashCode()
+                + avroModel.getPrice().unscaledValue().longValue();
+    }
+
+    private static long mapV2(PaymentRequestAvroModelV2 avroModel) {
+        return AvroCompactTypes.toUuid(avroModel.getSagaId()).hashCode()
+                + AvroCompactTypes.toUuid(avroModel.getCustomerId()).hashCode()
+                + AvroCompactTypes.toUuid(avroModel.getOrderId()).hashCode()
+                + AvroCompactTypes.fromMinorUnits(avroModel.getPriceMinorUnits()).unscaledValue().longValue();
+    }
+
+    private static long mapV1(RestaurantApprovalRequestAvroModel avroModel) {
+        long mapped = UUID.fromString(avroModel.getSagaId()).hashCode()
+                + UUID.fromString(avroModel.getRestaurantId()).hashCode()
+                + UUID.fromString(avroModel.getOrderId()).hashCode()
+                + avroModel.getPrice().unscaledValue().longValue();
+        for (Product product : avroModel.getProducts()) {
+            mapped += UUID.fromString(product.getId()).hashCode() + product.getQuantity();
+        }
+        return mapped;
+    }
+
+    private static long mapV2(RestaurantApprovalRequestAvroModelV2 avroModel) {
+        long mapped = AvroCompactTypes.toUuid(avroModel.getSagaId()).hashCode()
+                + AvroCompactTypes.toUuid(avroModel.getRestaurantId()).hashCode()
+                + AvroCompactTypes.toUuid(avroModel.getOrderId()).hashCode()
+                + AvroCompactTypes.fromMinorUnits(avroModel.getPriceMinorUnits()).unscaledValue().longValue();
+        for (ProductV2 product : avroModel.getProducts()) {
+            mapped += AvroCompactTypes.toUuid(product.getId()).hashCode() + product.getQuantity();
+        }
+        return mapped;
+    }
+
+    private static PaymentRequestAvroModelV2 toV2(PaymentRequestAvroModel avroModel) {
+        return PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(avroModel.getId()))
+                .setSagaId(AvroCompactTypes.toAvro(avroModel.getSagaId()))
+                .setCustomerId(AvroCompactTypes.toAvro(avroModel.getCustomerId()))
+                .setOrderId(AvroCompactTypes.toAvro(avroModel.getOrderId()))
+                .setPriceMinorUnits(AvroCompactTypes.toMinorUnits(avroModel.getPrice()))
+                .setCreatedAt(avroModel.getCreatedAt())
+                .setPaymentOrderStatus(avroModel.getPaymentOrderStatus())
+                .build();
+    }
+
+    private static RestaurantApprovalRequestAvroModelV2 toV2(RestaurantApprovalRequestAvroModel avroModel) {
+        return RestaurantApprovalRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(avroModel.getId()))
+                .setSagaId(AvroCompactTypes.toAvro(avroModel.getSagaId()))
+                .setRestaurantId(AvroCompactTypes.toAvro(avroModel.getRestaurantId()))
+                .setOrderId(AvroCompactTypes.toAvro(avroModel.getOrderId()))
+                .setRestaurantOrderStatus(avroModel.getRestaurantOrderStatus())
+                .setProducts(avroModel.getProducts().stream()
+                        .map(product -> ProductV2.newBuilder()
+                                .setId(AvroCompactTypes.toAvro(product.getId()))
+                                .setQuantity(product.getQuantity())
+                                .build())
+                        .toList())
+                .setPriceMinorUnits(AvroCompactTypes.toMinorUnits(avroModel.getPrice()))
+                .setCreatedAt(avroModel.getCreatedAt())
+                .build();
+    }
+
+    private static void report(List<SchemaVersionResult> results) {
+        StringBuilder report = new StringBuilder(System.lineSeparator())
+                .append("event,bytes_per_message,decode_ns_per_message")
+                .append(System.lineSeparator());
+        for (SchemaVersionResult result : results) {
+            report.append(String.format("%s,%.1f,%.1f", result.event(), result.bytesPerMessage(),
+                            result.decodeNanosPerMessage()))
+                    .append(System.lineSeparator());
+        }
+        log.info("Avro schema version benchmark results:{}", report);
+    }
+}
@@ -0,0 +1,20 @@
+package com.food.ordering.system.kafka.producer.benchmark;
+
+// bytesSent is the producer's outgoing-byte-total, i.e. the compressed batches plus the request overhead
+public record BenchmarkResult(ProducerSettings settings,
+                              int records,
+                              int failed,
+                              long elapsedNanos,
+                              long bytesSent,
+                              double compressionRate,
+                              double p50AckLatencyMs,
+                              double p99AckLatencyMs) {
+
+    public double recordsPerSecond() {
+        return records * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double bytesPerRecord() {
+        return (double) bytesSent / records;
+    }
+}
@@ -0,0 +1,257 @@
+package com.food.ordering.system.kafka.producer.benchmark;
+
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import com.food.ordering.system.kafka.producer.KafkaProducerConfig;
+import com.food.ordering.system.kafka.producer.service.impl.KafkaProducerImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Sweeps the kafka-producer-config settings the services hard-code (compression type, batch size, linger and acks)
+// against an embedded Kafka cluster and reports the throughput, the bytes on the wire and the ack latency of each
+// combination. The traffic is the order service's: a PaymentRequestAvroModel and a RestaurantApprovalRequestAvroModel
+// per order, keyed by saga id and sent through KafkaProducerImpl with the Avro serializer (on a mock schema registry).
+// The other producer settings are the ones of the application.yml files.
+//
+// The sweep is set with system properties (comma separated lists): benchmark.compression-types,
+// benchmark.batch-size-boost-factors, benchmark.linger-ms and benchmark.acks; benchmark.records,
+// benchmark.warmup-records, benchmark.brokers, benchmark.partitions and benchmark.target-rate (records/s, 0 sends as
+// fast as the producer accepts them - the ack latency then includes the time spent in the producer's buffer) set
+// the run. The broker runs in the same JVM, so the numbers compare the settings with each other; they are not the
+// absolute numbers of a real cluster.
+@Slf4j
+public class KafkaProducerBenchmark {
+
+    private static final String PAYMENT_REQUEST_TOPIC = "payment-request";
+    private static final String RESTAURANT_APPROVAL_REQUEST_TOPIC = "restaurant-approval-request";
+    private static final long TRAFFIC_SEED = 42L;
+    private static final long ACK_TIMEOUT_SECONDS = 120;
+
+    private final EmbeddedKafkaBroker broker;
+    private final int records;
+    private final int warmupRecords;
+    private final int targetRate;
+
+    KafkaProducerBenchmark(EmbeddedKafkaBroker broker, int records, int warmupRecords, int targetRate) {
+        this.broker = broker;
+        this.records = records;
+        this.warmupRecords = warmupRecords;
+        this.targetRate = targetRate;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int brokers = Integer.getInteger("benchmark.brokers", 3);
+        int partitions = Integer.getInteger("benchmark.partitions", 3);
+        // the topics are replicated to all the brokers, so acks=all waits for the followers
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(brokers, false, partitions,
+                PAYMENT_REQUEST_TOPIC, RESTAURANT_APPROVAL_REQUEST_TOPIC);
+        broker.afterPropertiesSet();
+        try {
+            KafkaProducerBenchmark benchmark = new KafkaProducerBenchmark(broker,
+                    Integer.getInteger("benchmark.records", 50_000),
+                    Integer.getInteger("benchmark.warmup-records", 5_000),
+                    Integer.getInteger("benchmark.target-rate", 0));
+            List<BenchmarkResult> results = new ArrayList<>();
+            for (ProducerSettings settings : sweep()) {
+                results.add(benchmark.run(settings));
+            }
+            report(results);
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    BenchmarkResult run(ProducerSettings settings) throws InterruptedException {
+        KafkaProducerConfig<String, SpecificRecordBase> kafkaProducerConfig = new KafkaProducerConfig<>(
+                kafkaConfigData(), kafkaProducerConfigData(settings));
+        // a new producer per run, so the producer metrics are those of this run only
+        DefaultKafkaProducerFactory<String, SpecificRecordBase> producerFactory =
+                (DefaultKafkaProducerFactory<String, SpecificRecordBase>) kafkaProducerConfig.producerFactory();
+        KafkaTemplate<String, SpecificRecordBase> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        KafkaProducerImpl<String, SpecificRecordBase> kafkaProducer = new KafkaProducerImpl<>(kafkaTemplate);
+        try {
+            // a fresh generator per run, so every combination sends the same records
+            OrderTrafficGenerator trafficGenerator = new OrderTrafficGenerator(TRAFFIC_SEED);
+            // the warm-up fills the metadata cache, opens the connections and lets the JIT settle
+            send(kafkaProducer, trafficGenerator, warmupRecords, new long[warmupRecords]);
+            double bytesBefore = metric(kafkaTemplate, "outgoing-byte-total");
+
+            long[] ackLatencies = new long[records];
+            long startedAt = System.nanoTime();
+            int failed = send(kafkaProducer, trafficGenerator, records, ackLatencies);
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            BenchmarkResult result = new BenchmarkResult(settings, records, failed, elapsedNanos,
+                    (long) (metric(kafkaTemplate, "outgoing-byte-total") - bytesBefore),
+                    metric(kafkaTemplate, "compression-rate-avg"),
+                    percentileMs(ackLatencies, failed, 0.50),
+                    percentileMs(ackLatencies, failed, 0.99));
+            log.info("{}: {} records/s, {} bytes/record, p50 = {} ms, p99 = {} ms, {} failed",
+                    settings.label(), Math.round(result.recordsPerSecond()), Math.round(result.bytesPerRecord()),
+                    result.p50AckLatencyMs(), result.p99AckLatencyMs(), failed);
+            return result;
+        } finally {
+            kafkaProducer.close();
+            // the factory is not a bean here, so closing the template does not close its producer
+            producerFactory.destroy();
+        }
+    }
+
+    // sends `count` records, alternating the payment and the approval request of each order, and waits for all the
+    // acks; a failed send keeps Long.MAX_VALUE as its latency, so it sorts after the successful ones
+    private int send(KafkaProducerImpl<String, SpecificRecordBase> kafkaProducer,
+                     OrderTrafficGenerator trafficGenerator,
+                     int count,
+                     long[] ackLatencies) throws InterruptedException {
+        CountDownLatch acknowledged = new CountDownLatch(count);
+        AtomicInteger failed = new AtomicInteger();
+        long intervalNanos = targetRate > 0 ? 1_000_000_000L / targetRate : 0;
+        long nextSendAt = System.nanoTime();
+        OrderTrafficGenerator.OrderRequests order = null;
+        for (int i = 0; i < count; i++) {
+            if (intervalNanos > 0) {
+                LockSupport.parkNanos(nextSendAt - System.nanoTime());
+                nextSendAt += intervalNanos;
+            }
+            String topicName;
+            SpecificRecordBase message;
+            if (i % 2 == 0) {
+                order = trafficGenerator.nextOrder();
+                topicName = PAYMENT_REQUEST_TOPIC;
+                message = order.paymentRequest();
+            } else {
+                topicName = RESTAURANT_APPROVAL_REQUEST_TOPIC;
+                message = order.approvalRequest();
+            }
+            kafkaProducer.send(topicName, order.sagaId(), message,
+                    ackCallback(ackLatencies, i, System.nanoTime(), acknowledged, failed));
+        }
+        if (!acknowledged.await(ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(String.format("%d sends were not acknowledged in %d seconds!",
+                    acknowledged.getCount(), ACK_TIMEOUT_SECONDS));
+        }
+        return failed.get();
+    }
+
+    private static ListenableFutureCallback<SendResult<String, SpecificRecordBase>> ackCallback(
+            long[] ackLatencies,
+            int index,
+            long sentAt,
+            CountDownLatch acknowledged,
+            AtomicInteger failed) {
+        return new ListenableFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable ex) {
+                ackLatencies[index] = Long.MAX_VALUE;
+                failed.incrementAndGet();
+                acknowledged.countDown();
+            }
+
+            @Override
+            public void onSuccess(SendResult<String, SpecificRecordBase> result) {
+                ackLatencies[index] = System.nanoTime() - sentAt;
+                acknowledged.countDown();
+            }
+        };
+    }
+
+    private KafkaConfigData kafkaConfigData() {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setBootstrapServers(broker.getBrokersAsString());
+        kafkaConfigData.setSchemaRegistryUrlKey("schema.registry.url");
+        // an in-memory schema registry, the schemas are registered with the first send of the warm-up
+        kafkaConfigData.setSchemaRegistryUrl("mock://kafka-producer-benchmark");
+        return kafkaConfigData;
+    }
+
+    private static KafkaProducerConfigData kafkaProducerConfigData(ProducerSettings settings) {
+        KafkaProducerConfigData kafkaProducerConfigData = new KafkaProducerConfigData();
+        kafkaProducerConfigData.setKeySerializerClass("org.apache.kafka.common.serialization.StringSerializer");
+        kafkaProducerConfigData.setValueSerializerClass("io.confluent.kafka.serializers.KafkaAvroSerializer");
+        kafkaProducerConfigData.setBatchSize(16384);
+        kafkaProducerConfigData.setRequestTimeoutMs(60000);
+        kafkaProducerConfigData.setRetryCount(5);
+        kafkaProducerConfigData.setCompressionType(settings.compressionType());
+        kafkaProducerConfigData.setBatchSizeBoostFactor(settings.batchSizeBoostFactor());
+        kafkaProducerConfigData.setLingerMs(settings.lingerMs());
+        kafkaProducerConfigData.setAcks(settings.acks());
+        return kafkaProducerConfigData;
+    }
+
+    private static List<ProducerSettings> sweep() {
+        List<ProducerSettings> sweep = new ArrayList<>();
+        for (String compressionType : listProperty("benchmark.compression-types", "none,snappy,lz4,zstd,gzip")) {
+            for (String batchSizeBoostFactor : listProperty("benchmark.batch-size-boost-factors", "1,16,100")) {
+                for (String lingerMs : listProperty("benchmark.linger-ms", "0,5,20")) {
+                    for (String acks : listProperty("benchmark.acks", "1,all")) {
+                        sweep.add(new ProducerSettings(compressionType, Integer.parseInt(batchSizeBoostFactor),
+                                Integer.parseInt(lingerMs), acks));
+                    }
+                }
+            }
+        }
+        return sweep;
+    }
+
+    private static List<String> listProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+
+    private static double metric(KafkaTemplate<String, SpecificRecordBase> kafkaTemplate, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : kafkaTemplate.metrics().entrySet()) {
+            if ("producer-metrics".equals(metric.getKey().group()) && name.equals(metric.getKey().name())) {
+                Object value = metric.getValue().metricValue();
+                return value instanceof Number number ? number.doubleValue() : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double percentileMs(long[] ackLatencies, int failed, double percentile) {
+        int succeeded = ackLatencies.length - failed;
+        if (succeeded == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = ackLatencies.clone();
+        Arrays.sort(sorted);
+        int index = Math.min(succeeded - 1, (int) Math.ceil(percentile * succeeded) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    // a CSV table, so the sweep can be sorted and plotted
+    private static void report(List<BenchmarkResult> results) {
+        StringBuilder report = new StringBuilder(System.lineSeparator())
+                .append("compression,batch_size_boost_factor,linger_ms,acks,records_per_s,bytes_sent,bytes_per_record,")
+                .append("compression_rate,p50_ack_ms,p99_ack_ms,failed")
+                .append(System.lineSeparator());
+        for (BenchmarkResult result : results) {
+            ProducerSettings settings = result.settings();
+            report.append(String.format("%s,%d,%d,%s,%.0f,%d,%.1f,%.3f,%.2f,%.2f,%d",
+                            settings.compressionType(), settings.batchSizeBoostFactor(), settings.lingerMs(),
+                            settings.acks(), result.recordsPerSecond(), result.bytesSent(), result.bytesPerRecord(),
+                            result.compressionRate(), result.p50AckLatencyMs(), result.p99AckLatencyMs(),
+                            result.failed()))
+                    .append(System.lineSeparator());
+        }
+        log.info("Kafka producer benchmark results:{}", report);
+    }
+}
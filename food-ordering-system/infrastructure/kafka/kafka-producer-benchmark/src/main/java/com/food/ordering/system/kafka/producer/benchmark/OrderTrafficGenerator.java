@@ -0,0 +1,97 @@
+package com.food.ordering.system.kafka.producer.benchmark;
+
+import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.Product;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantOrderStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Builds the requests the order service sends for an order: a payment request and, once it is paid, a restaurant
+// approval request with the same saga, order and price. The customers and restaurants are drawn from small pools and
+// the products from the menus of the restaurants, so the records repeat ids the way real traffic does - which is what
+// the compression codecs feed on. The seed is fixed, so every sweep point sends the same records.
+class OrderTrafficGenerator {
+
+    private static final int CUSTOMER_COUNT = 1_000;
+    private static final int RESTAURANT_COUNT = 50;
+    private static final int PRODUCTS_PER_RESTAURANT = 20;
+    private static final int MAX_PRODUCTS_PER_ORDER = 5;
+
+    private final Random random;
+    private final List<String> customerIds;
+    private final List<String> restaurantIds;
+    private final List<List<String>> menus;
+
+    OrderTrafficGenerator(long seed) {
+        this.random = new Random(seed);
+        this.customerIds = randomIds(CUSTOMER_COUNT);
+        this.restaurantIds = randomIds(RESTAURANT_COUNT);
+        this.menus = new ArrayList<>(RESTAURANT_COUNT);
+        for (int i = 0; i < RESTAURANT_COUNT; i++) {
+            menus.add(randomIds(PRODUCTS_PER_RESTAURANT));
+        }
+    }
+
+    OrderRequests nextOrder() {
+        String sagaId = randomId();
+        String orderId = randomId();
+        int restaurant = random.nextInt(RESTAURANT_COUNT);
+        List<String> menu = menus.get(restaurant);
+        List<Product> products = new ArrayList<>();
+        int productCount = 1 + random.nextInt(MAX_PRODUCTS_PER_ORDER);
+        for (int i = 0; i < productCount; i++) {
+            products.add(Product.newBuilder()
+                    .setId(menu.get(random.nextInt(menu.size())))
+                    .setQuantity(1 + random.nextInt(3))
+                    .build());
+        }
+        BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(20_000), 2).setScale(2, RoundingMode.HALF_UP);
+        Instant createdAt = Instant.now();
+
+        PaymentRequestAvroModel paymentRequest = PaymentRequestAvroModel.newBuilder()
+                .setId(randomId())
+                .setSagaId(sagaId)
+                .setCustomerId(customerIds.get(random.nextInt(customerIds.size())))
+                .setOrderId(orderId)
+                .setPrice(price)
+                .setCreatedAt(createdAt)
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+        RestaurantApprovalRequestAvroModel approvalRequest = RestaurantApprovalRequestAvroModel.newBuilder()
+                .setId(randomId())
+                .setSagaId(sagaId)
+                .setRestaurantId(restaurantIds.get(restaurant))
+                .setOrderId(orderId)
+                .setRestaurantOrderStatus(RestaurantOrderStatus.PAID)
+                .setProducts(products)
+                .setPrice(price)
+                .setCreatedAt(createdAt)
+                .build();
+        return new OrderRequests(sagaId, paymentRequest, approvalRequest);
+    }
+
+    private List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(randomId());
+        }
+        return ids;
+    }
+
+    private String randomId() {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    record OrderRequests(String sagaId,
+                         PaymentRequestAvroModel paymentRequest,
+                         RestaurantApprovalRequestAvroModel approvalRequest) {
+    }
+}
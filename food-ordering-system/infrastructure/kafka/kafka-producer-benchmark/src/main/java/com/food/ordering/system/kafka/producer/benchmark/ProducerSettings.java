@@ -0,0 +1,10 @@
+package com.food.ordering.system.kafka.producer.benchmark;
+
+// one point of the sweep - the kafka-producer-config values the benchmark varies
+public record ProducerSettings(String compressionType, int batchSizeBoostFactor, int lingerMs, String acks) {
+
+    public String label() {
+        return String.format("compression=%s batch=%dx linger=%dms acks=%s",
+                compressionType, batchSizeBoostFactor, lingerMs, acks);
+    }
+}
@@ -0,0 +1,55 @@
+package com.food.ordering.system.kafka.producer;
+
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import com.food.ordering.system.kafka.producer.exception.KafkaProducerException;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// Serializes an avro model ahead of the send, with the value serializer of the producer (the Confluent
+// KafkaAvroSerializer or the cached avro serializer of kafka-model, both write the magic byte, the 4-byte schema id and
+// the avro binary), so the bytes can be stored in an outbox row and sent later as they are by
+// PreSerializedKafkaProducer. The schema id is resolved for the subject of the topic, as on a regular send.
+@Component
+public class KafkaAvroPayloadSerializer {
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_LENGTH = 5;
+
+    private final Serializer<SpecificRecordBase> valueSerializer;
+
+    @SuppressWarnings("unchecked")
+    public KafkaAvroPayloadSerializer(KafkaConfigData kafkaConfigData,
+                                      KafkaProducerConfigData kafkaProducerConfigData) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
+        if (StringUtils.hasText(kafkaConfigData.getSchemaIdSourceKey())) {
+            configs.put(kafkaConfigData.getSchemaIdSourceKey(), kafkaConfigData.getSchemaIdSource());
+        }
+        try {
+            this.valueSerializer = Utils.newInstance(kafkaProducerConfigData.getValueSerializerClass(),
+                    Serializer.class);
+        } catch (ClassNotFoundException e) {
+            throw new KafkaProducerException(String.format("Value serializer %s not found!",
+                    kafkaProducerConfigData.getValueSerializerClass()));
+        }
+        this.valueSerializer.configure(configs, false);
+    }
+
+    public OutboxBinaryPayload serialize(String topicName, SpecificRecordBase avroModel) {
+        byte[] bytes = valueSerializer.serialize(topicName, avroModel);
+        if (bytes == null || bytes.length < HEADER_LENGTH || bytes[0] != MAGIC_BYTE) {
+            throw new KafkaProducerException(String.format("Could not serialize %s for topic %s!",
+                    avroModel.getClass().getSimpleName(), topicName));
+        }
+        return new OutboxBinaryPayload(bytes, ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt());
+    }
+}
\ No newline at end of file
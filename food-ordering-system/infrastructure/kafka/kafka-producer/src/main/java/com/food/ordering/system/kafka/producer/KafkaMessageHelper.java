@@ -2,6 +2,8 @@ package com.food.ordering.system.kafka.producer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.food.ordering.system.kafka.producer.service.KafkaBatchResult;
+import com.food.ordering.system.kafka.producer.service.KafkaRecordResult;
 import com.food.ordering.system.order.service.domain.exception.OrderDomainException;
 import com.food.ordering.system.outbox.OutboxStatus;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +12,8 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -54,7 +58,7 @@ public class KafkaMessageHelper {
             @Override
             public void onSuccess(SendResult<String, T> result) {
                 RecordMetadata metadata = result.getRecordMetadata();
-                log.info("Received a successful response from Kafka for orderId = {}, topic = {}, partition = {}, " +
+                log.debug("Received a successful response from Kafka for orderId = {}, topic = {}, partition = {}, " +
                                 "offset = {}, timestamp = {}",
                         orderId,
                         metadata.topic(),
@@ -65,4 +69,61 @@ public class KafkaMessageHelper {
             }
         };
     }
+
+    // the pre-serialized message is not parsed again just to be logged, so the saga id (the message key) identifies it
+    public <U> ListenableFutureCallback<SendResult<String, byte[]>> getPreSerializedKafkaCallback(
+            String responseTopicName,
+            U outboxMessage,
+            BiConsumer<U, OutboxStatus> outboxCallback,
+            String sagaId,
+            String avroModelName) {
+
+        return new ListenableFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable ex) {
+                log.error("Error while sending pre-serialized {} for sagaId = {} and outbox type {} to topic {}",
+                        avroModelName, sagaId, outboxMessage.getClass().getName(), responseTopicName, ex
+                );
+                outboxCallback.accept(outboxMessage, OutboxStatus.FAILED);
+            }
+
+            @Override
+            public void onSuccess(SendResult<String, byte[]> result) {
+                RecordMetadata metadata = result.getRecordMetadata();
+                log.debug("Received a successful response from Kafka for sagaId = {}, topic = {}, partition = {}, " +
+                                "offset = {}, timestamp = {}",
+                        sagaId,
+                        metadata.topic(),
+                        metadata.partition(),
+                        metadata.offset(),
+                        metadata.timestamp());
+                outboxCallback.accept(outboxMessage, OutboxStatus.COMPLETED);
+            }
+        };
+    }
+
+    // hands the outcome of each record of a batch to the outbox callback of its message; `outboxMessages` are in the
+    // order of the records of the batch. Only the failed records are logged one by one, the batch logs its summary.
+    public <T, U> void completeBatch(CompletableFuture<KafkaBatchResult<String, T>> batchFuture,
+                                     List<U> outboxMessages,
+                                     BiConsumer<U, OutboxStatus> outboxCallback,
+                                     String avroModelName) {
+        batchFuture.whenComplete((batchResult, error) -> {
+            if (error != null) {
+                log.error("Error while sending a batch of {} {} messages", outboxMessages.size(), avroModelName, error);
+                outboxMessages.forEach(outboxMessage -> outboxCallback.accept(outboxMessage, OutboxStatus.FAILED));
+                return;
+            }
+            List<KafkaRecordResult<String, T>> results = batchResult.results();
+            for (int i = 0; i < results.size(); i++) {
+                KafkaRecordResult<String, T> result = results.get(i);
+                if (!result.isSuccess()) {
+                    log.error("Error while sending {} with key = {} to topic {}",
+                            avroModelName, result.record().key(), result.record().topic(), result.error());
+                }
+                outboxCallback.accept(outboxMessages.get(i),
+                        result.isSuccess() ? OutboxStatus.COMPLETED : OutboxStatus.FAILED);
+            }
+        });
+    }
 }
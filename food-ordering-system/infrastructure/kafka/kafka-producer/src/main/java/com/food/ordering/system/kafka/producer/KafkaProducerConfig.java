@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.util.StringUtils;
 
 import java.io.Serializable;
 
@@ -32,6 +33,9 @@ public class KafkaProducerConfig<K extends Serializable, V extends SpecificRecor
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers());
         props.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
+        if (StringUtils.hasText(kafkaConfigData.getSchemaIdSourceKey())) {
+            props.put(kafkaConfigData.getSchemaIdSourceKey(), kafkaConfigData.getSchemaIdSource());
+        }
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, kafkaProducerConfigData.getKeySerializerClass());
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, kafkaProducerConfigData.getValueSerializerClass());
         props.put(ProducerConfig.BATCH_SIZE_CONFIG, kafkaProducerConfigData.getBatchSize() *
@@ -41,16 +45,32 @@ public class KafkaProducerConfig<K extends Serializable, V extends SpecificRecor
         props.put(ProducerConfig.ACKS_CONFIG, kafkaProducerConfigData.getAcks());
         props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, kafkaProducerConfigData.getRequestTimeoutMs());
         props.put(ProducerConfig.RETRIES_CONFIG, kafkaProducerConfigData.getRetryCount());
+        if (isTransactional()) {
+            // transactions require an idempotent producer, so the broker drops the duplicates of the retried sends
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        }
         return props;
     }
 
     @Bean
     public ProducerFactory<K, V> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfig());
+        DefaultKafkaProducerFactory<K, V> producerFactory = new DefaultKafkaProducerFactory<>(producerConfig());
+        if (isTransactional()) {
+            producerFactory.setTransactionIdPrefix(kafkaProducerConfigData.getTransactionalIdPrefix());
+        }
+        return producerFactory;
     }
 
     @Bean
     public KafkaTemplate<K, V> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    public boolean isTransactional() {
+        return StringUtils.hasText(kafkaProducerConfigData.getTransactionalIdPrefix());
+    }
+
+    public String getTransactionalIdPrefix() {
+        return kafkaProducerConfigData.getTransactionalIdPrefix();
+    }
 }
@@ -0,0 +1,35 @@
+package com.food.ordering.system.kafka.producer.key;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.Uuid;
+import org.apache.avro.specific.SpecificRecordBase;
+
+// Keys a record by a field of its avro model, e.g. the customerId of a payment request. All the messages of a saga
+// carry the same customer and restaurant, so keying by either keeps them on one partition and in order, like the saga
+// id does. A model without a value in the field falls back to the saga id. The fixed(16) UUIDs of the v2 schemas are
+// keyed by their string form, like the string UUIDs of the v1 schemas, so both land on the same partition.
+public class AvroFieldPartitionKeyStrategy implements PartitionKeyStrategy {
+
+    private final String fieldName;
+
+    public AvroFieldPartitionKeyStrategy(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String partitionKey(SpecificRecordBase avroModel, String sagaId) {
+        if (avroModel.getSchema().getField(fieldName) == null) {
+            throw new IllegalArgumentException(String.format("%s has no field %s to key its records by!",
+                    avroModel.getSchema().getName(), fieldName));
+        }
+        Object value = avroModel.get(fieldName);
+        if (value instanceof Uuid uuid) {
+            return AvroCompactTypes.toUuidString(uuid);
+        }
+        return value == null ? sagaId : value.toString();
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+}
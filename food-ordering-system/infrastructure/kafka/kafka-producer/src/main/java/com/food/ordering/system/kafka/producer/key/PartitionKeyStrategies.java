@@ -0,0 +1,39 @@
+package com.food.ordering.system.kafka.producer.key;
+
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The key strategy of each topic, configured with kafka-producer-config.partition-key-fields; a strategy other than
+// an avro field can be registered in code. The topics without a strategy are keyed by saga id. There is no migration
+// between two keys of a topic: the earlier messages of a saga keep the partition of the old key, so the topic has to be
+// drained before its key changes.
+@Slf4j
+@Component
+public class PartitionKeyStrategies {
+
+    private final Map<String, PartitionKeyStrategy> strategies = new ConcurrentHashMap<>();
+
+    public PartitionKeyStrategies(KafkaProducerConfigData kafkaProducerConfigData) {
+        kafkaProducerConfigData.getPartitionKeyFields().forEach((topicName, fieldName) -> {
+            strategies.put(topicName, new AvroFieldPartitionKeyStrategy(fieldName));
+            log.info("The records of topic {} are keyed by {}", topicName, fieldName);
+        });
+    }
+
+    public void register(String topicName, PartitionKeyStrategy partitionKeyStrategy) {
+        strategies.put(topicName, partitionKeyStrategy);
+    }
+
+    public PartitionKeyStrategy forTopic(String topicName) {
+        return strategies.getOrDefault(topicName, PartitionKeyStrategy.SAGA_ID);
+    }
+
+    public String partitionKey(String topicName, SpecificRecordBase avroModel, String sagaId) {
+        return forTopic(topicName).partitionKey(avroModel, sagaId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.food.ordering.system.kafka.producer.key;
+
+import org.apache.avro.specific.SpecificRecordBase;
+
+// chooses the record key - and with it the partition - of the messages sent to a topic
+@FunctionalInterface
+public interface PartitionKeyStrategy {
+
+    // the publishers key their records by saga id
+    PartitionKeyStrategy SAGA_ID = (avroModel, sagaId) -> sagaId;
+
+    String partitionKey(SpecificRecordBase avroModel, String sagaId);
+}
@@ -0,0 +1,39 @@
+package com.food.ordering.system.kafka.producer.schema;
+
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// The version of the event schemas written to each topic, configured with kafka-producer-config.schema-versions.
+// A topic moves to the compact v2 schemas in two rolling deployments: the consumers, which read both versions, go
+// first, then the producers are switched to v2 with this setting.
+@Slf4j
+@Component
+public class EventSchemaVersions {
+
+    public static final int V1 = 1;
+    public static final int V2 = 2;
+
+    private final Map<String, Integer> schemaVersions;
+
+    public EventSchemaVersions(KafkaProducerConfigData kafkaProducerConfigData) {
+        kafkaProducerConfigData.getSchemaVersions().forEach((topicName, schemaVersion) -> {
+            if (schemaVersion == null || schemaVersion < V1 || schemaVersion > V2) {
+                throw new IllegalArgumentException(String.format("Unknown schema version %s for topic %s!",
+                        schemaVersion, topicName));
+            }
+            log.info("The records of topic {} are written with the v{} schemas", topicName, schemaVersion);
+        });
+        this.schemaVersions = Map.copyOf(kafkaProducerConfigData.getSchemaVersions());
+    }
+
+    public int forTopic(String topicName) {
+        return schemaVersions.getOrDefault(topicName, V1);
+    }
+
+    public boolean writesV2(String topicName) {
+        return forTopic(topicName) == V2;
+    }
+}
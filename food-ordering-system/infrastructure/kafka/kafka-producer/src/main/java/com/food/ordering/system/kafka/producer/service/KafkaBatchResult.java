@@ -0,0 +1,15 @@
+package com.food.ordering.system.kafka.producer.service;
+
+import java.util.List;
+
+// the outcomes of a batch, in the order of its records
+public record KafkaBatchResult<K, V>(List<KafkaRecordResult<K, V>> results) {
+
+    public long getSucceededCount() {
+        return results.stream().filter(KafkaRecordResult::isSuccess).count();
+    }
+
+    public long getFailedCount() {
+        return results.size() - getSucceededCount();
+    }
+}
@@ -1,12 +1,19 @@
 package com.food.ordering.system.kafka.producer.service;
 
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface KafkaProducer<K extends Serializable, V extends SpecificRecordBase> {
 
     void send(String topicName, K key, V message, ListenableFutureCallback<SendResult<K, V>> callback);
+
+    // sends all the records to the topic and flushes the producer once at the end; the future completes when every
+    // record has its outcome and never completes exceptionally - a failed record is reported in its result instead
+    CompletableFuture<KafkaBatchResult<K, V>> sendBatch(String topicName, List<ProducerRecord<K, V>> records);
 }
@@ -0,0 +1,12 @@
+package com.food.ordering.system.kafka.producer.service;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.support.SendResult;
+
+// the outcome of one record of a batch; sendResult is null when the send failed, error is null when it succeeded
+public record KafkaRecordResult<K, V>(ProducerRecord<K, V> record, SendResult<K, V> sendResult, Throwable error) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
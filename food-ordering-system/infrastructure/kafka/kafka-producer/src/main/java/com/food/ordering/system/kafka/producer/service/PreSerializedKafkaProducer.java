@@ -0,0 +1,18 @@
+package com.food.ordering.system.kafka.producer.service;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// sends values that are already serialized, e.g. by KafkaAvroPayloadSerializer when the outbox row was written
+public interface PreSerializedKafkaProducer<K extends Serializable> {
+
+    void send(String topicName, K key, byte[] message, ListenableFutureCallback<SendResult<K, byte[]>> callback);
+
+    // see KafkaProducer::sendBatch
+    CompletableFuture<KafkaBatchResult<K, byte[]>> sendBatch(String topicName, List<ProducerRecord<K, byte[]>> records);
+}
@@ -1,9 +1,11 @@
 package com.food.ordering.system.kafka.producer.service.impl;
 
 import com.food.ordering.system.kafka.producer.exception.KafkaProducerException;
+import com.food.ordering.system.kafka.producer.service.KafkaBatchResult;
 import com.food.ordering.system.kafka.producer.service.KafkaProducer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -13,6 +15,8 @@ import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import javax.annotation.PreDestroy;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 // generic producer that can be used from any service with any model
 @Slf4j
@@ -25,20 +29,30 @@ public class KafkaProducerImpl<K extends Serializable, V extends SpecificRecordB
         this.kafkaTemplate = kafkaTemplate;
     }
 
+    // only the record type and key are logged, at debug level: rendering the whole Avro message on every send costs
+    // more than the send itself under load; the partition and offset are logged by the callback
     @Override
     public void send(String topicName, K key, V message, ListenableFutureCallback<SendResult<K, V>> callback) {
-        log.info("Sending message={} to topic={}", message, topicName);
+        if (log.isDebugEnabled()) {
+            log.debug("Sending a {} message with key={} to topic={}", message.getSchema().getName(), key, topicName);
+        }
         ListenableFuture<SendResult<K, V>> kafkaResultFuture = null;
         try {
-            kafkaResultFuture = kafkaTemplate.send(topicName, key, message);
+            kafkaResultFuture = KafkaTemplateSender.send(kafkaTemplate, new ProducerRecord<>(topicName, key, message));
             kafkaResultFuture.addCallback(callback); // callback will get the result of the send method
         } catch (KafkaException e) {
-            String errMessage = String.format("Error on Kafka producer[key = %s, message = %s", key, message);
+            String errMessage = String.format("Error on Kafka producer[key = %s, %s message", key,
+                    message.getSchema().getName());
             log.error("{}. Exception: {}", errMessage, e.getMessage(), e);
             throw new KafkaProducerException(errMessage);
         }
     }
 
+    @Override
+    public CompletableFuture<KafkaBatchResult<K, V>> sendBatch(String topicName, List<ProducerRecord<K, V>> records) {
+        return KafkaTemplateSender.sendBatch(kafkaTemplate, topicName, records);
+    }
+
     @PreDestroy // called when the application is shutting down
     public void close() {
         if (kafkaTemplate != null) {
@@ -0,0 +1,123 @@
+package com.food.ordering.system.kafka.producer.service.impl;
+
+import com.food.ordering.system.kafka.producer.service.KafkaBatchResult;
+import com.food.ordering.system.kafka.producer.service.KafkaRecordResult;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// The sends shared by the producers. In a batch, the records are handed to the producer one after the other, so it can
+// fill its per-partition batches, and the producer is flushed once at the end instead of waiting for linger.ms. Only a
+// summary of the batch is logged, the per-record outcomes are left to the caller.
+// With a transactional template (the exactly-once mode), a send on a listener thread joins the transaction of its
+// listener container, so it is committed together with the consumed offsets; any other send runs in a transaction of
+// its own - one per batch - so a read_committed consumer sees all the records of a batch or none of them.
+@Slf4j
+final class KafkaTemplateSender {
+
+    private KafkaTemplateSender() {
+    }
+
+    static <K, V> ListenableFuture<SendResult<K, V>> send(KafkaTemplate<K, V> kafkaTemplate,
+                                                         ProducerRecord<K, V> record) {
+        if (kafkaTemplate.isTransactional() && !kafkaTemplate.inTransaction()) {
+            return kafkaTemplate.executeInTransaction(operations -> operations.send(record));
+        }
+        return kafkaTemplate.send(record);
+    }
+
+    static <K, V> CompletableFuture<KafkaBatchResult<K, V>> sendBatch(KafkaTemplate<K, V> kafkaTemplate,
+                                                                      String topicName,
+                                                                      List<ProducerRecord<K, V>> records) {
+        for (ProducerRecord<K, V> record : records) {
+            if (!topicName.equals(record.topic())) {
+                throw new IllegalArgumentException(String.format("A batch for topic %s got a record for topic %s!",
+                        topicName, record.topic()));
+            }
+        }
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(new KafkaBatchResult<>(List.of()));
+        }
+        if (kafkaTemplate.isTransactional() && !kafkaTemplate.inTransaction()) {
+            return sendBatchInTransaction(kafkaTemplate, topicName, records);
+        }
+
+        List<CompletableFuture<KafkaRecordResult<K, V>>> resultFutures = sendRecords(kafkaTemplate, records);
+        kafkaTemplate.flush();
+        return collectResults(topicName, resultFutures);
+    }
+
+    // committing the transaction flushes the producer, so the batch is complete once it returns
+    private static <K, V> CompletableFuture<KafkaBatchResult<K, V>> sendBatchInTransaction(
+            KafkaTemplate<K, V> kafkaTemplate,
+            String topicName,
+            List<ProducerRecord<K, V>> records) {
+        try {
+            List<CompletableFuture<KafkaRecordResult<K, V>>> resultFutures =
+                    kafkaTemplate.executeInTransaction(operations -> sendRecords(operations, records));
+            return collectResults(topicName, resultFutures);
+        } catch (RuntimeException e) {
+            // an aborted transaction fails all of its records, even the ones the broker has acknowledged
+            KafkaBatchResult<K, V> batchResult = new KafkaBatchResult<>(records.stream()
+                    .map(record -> new KafkaRecordResult<K, V>(record, null, e))
+                    .toList());
+            logSummary(topicName, batchResult);
+            return CompletableFuture.completedFuture(batchResult);
+        }
+    }
+
+    private static <K, V> List<CompletableFuture<KafkaRecordResult<K, V>>> sendRecords(
+            KafkaOperations<K, V> operations,
+            List<ProducerRecord<K, V>> records) {
+        List<CompletableFuture<KafkaRecordResult<K, V>>> resultFutures = new ArrayList<>(records.size());
+        for (ProducerRecord<K, V> record : records) {
+            resultFutures.add(sendRecord(operations, record));
+        }
+        return resultFutures;
+    }
+
+    private static <K, V> CompletableFuture<KafkaRecordResult<K, V>> sendRecord(KafkaOperations<K, V> operations,
+                                                                            ProducerRecord<K, V> record) {
+        try {
+            return operations.send(record).completable()
+                    .handle((sendResult, error) -> new KafkaRecordResult<>(record, sendResult, error));
+        } catch (RuntimeException e) {
+            // e.g. a serialization error - it fails this record only, the rest of the batch is still sent
+            return CompletableFuture.completedFuture(new KafkaRecordResult<>(record, null, e));
+        }
+    }
+
+    private static <K, V> CompletableFuture<KafkaBatchResult<K, V>> collectResults(
+            String topicName,
+            List<CompletableFuture<KafkaRecordResult<K, V>>> resultFutures) {
+        return CompletableFuture.allOf(resultFutures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    KafkaBatchResult<K, V> batchResult = new KafkaBatchResult<>(
+                            resultFutures.stream().map(CompletableFuture::join).toList());
+                    logSummary(topicName, batchResult);
+                    return batchResult;
+                });
+    }
+
+    private static <K, V> void logSummary(String topicName, KafkaBatchResult<K, V> batchResult) {
+        long failed = batchResult.getFailedCount();
+        if (failed == 0) {
+            log.info("Sent a batch of {} messages to topic={}", batchResult.results().size(), topicName);
+            return;
+        }
+        Throwable firstError = batchResult.results().stream()
+                .filter(result -> !result.isSuccess())
+                .findFirst()
+                .map(KafkaRecordResult::error)
+                .orElse(null);
+        log.warn("Sent a batch of {} messages to topic={}, {} of them failed. First error: {}",
+                batchResult.results().size(), topicName, failed, firstError == null ? null : firstError.getMessage());
+    }
+}
@@ -0,0 +1,75 @@
+package com.food.ordering.system.kafka.producer.service.impl;
+
+import com.food.ordering.system.kafka.producer.KafkaProducerConfig;
+import com.food.ordering.system.kafka.producer.exception.KafkaProducerException;
+import com.food.ordering.system.kafka.producer.service.KafkaBatchResult;
+import com.food.ordering.system.kafka.producer.service.PreSerializedKafkaProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import javax.annotation.PreDestroy;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Same producer settings as KafkaProducerImpl, but with a pass-through value serializer (ByteArraySerializer), so the
+// bytes reach the broker unchanged. It has its own template - a second KafkaTemplate bean would make the injection of
+// the generic one ambiguous.
+@Slf4j
+@Component
+public class PreSerializedKafkaProducerImpl<K extends Serializable> implements PreSerializedKafkaProducer<K> {
+
+    private final DefaultKafkaProducerFactory<K, byte[]> producerFactory;
+    private final KafkaTemplate<K, byte[]> kafkaTemplate;
+
+    public PreSerializedKafkaProducerImpl(KafkaProducerConfig<?, ?> kafkaProducerConfig) {
+        Map<String, Object> props = new HashMap<>(kafkaProducerConfig.producerConfig());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        this.producerFactory = new DefaultKafkaProducerFactory<>(props);
+        if (kafkaProducerConfig.isTransactional()) {
+            // the transactional ids of two factories must not overlap, or their producers would fence each other
+            producerFactory.setTransactionIdPrefix(kafkaProducerConfig.getTransactionalIdPrefix() + "pre-serialized-");
+        }
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    @Override
+    public void send(String topicName, K key, byte[] message, ListenableFutureCallback<SendResult<K, byte[]>> callback) {
+        log.debug("Sending a pre-serialized message of {} bytes with key={} to topic={}", message.length, key,
+                topicName);
+        try {
+            ListenableFuture<SendResult<K, byte[]>> kafkaResultFuture =
+                    KafkaTemplateSender.send(kafkaTemplate, new ProducerRecord<>(topicName, key, message));
+            kafkaResultFuture.addCallback(callback);
+        } catch (KafkaException e) {
+            String errMessage = String.format("Error on Kafka producer[key = %s, pre-serialized message of %d bytes",
+                    key, message.length);
+            log.error("{}. Exception: {}", errMessage, e.getMessage(), e);
+            throw new KafkaProducerException(errMessage);
+        }
+    }
+
+    @Override
+    public CompletableFuture<KafkaBatchResult<K, byte[]>> sendBatch(String topicName,
+                                                                    List<ProducerRecord<K, byte[]>> records) {
+        return KafkaTemplateSender.sendBatch(kafkaTemplate, topicName, records);
+    }
+
+    @PreDestroy
+    public void close() {
+        log.info("Closing pre-serialized Kafka producer...");
+        // the factory is not a bean, so it is not closed by the context
+        producerFactory.destroy();
+    }
+}
@@ -0,0 +1,175 @@
+package com.food.ordering.system.kafka.avro.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The cached serde against the Confluent one, sharing a minimal in-process schema registry: records of either
+// serializer have to be readable by the other deserializer.
+class CachedAvroConfluentSerdeTest {
+
+    private static final String TOPIC = "payment-request";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // a schema is registered once, under the id of its position, whatever the subject
+    private final List<Schema> schemas = new CopyOnWriteArrayList<>();
+    private final Map<Schema, Integer> schemaIds = new ConcurrentHashMap<>();
+    private HttpServer schemaRegistry;
+    private String schemaRegistryUrl;
+
+    @BeforeEach
+    void startSchemaRegistry() throws IOException {
+        schemaRegistry = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        schemaRegistry.createContext("/subjects/", this::register);
+        schemaRegistry.createContext("/schemas/ids/", this::schemaById);
+        schemaRegistry.start();
+        schemaRegistryUrl = "http://localhost:" + schemaRegistry.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopSchemaRegistry() {
+        schemaRegistry.stop(0);
+    }
+
+    @Test
+    void testConfluentRecordIsReadByTheCachedDeserializer() {
+        PaymentRequestAvroModel paymentRequest = paymentRequest();
+        PaymentRequestAvroModelV2 paymentRequestV2 = paymentRequestV2();
+        KafkaAvroSerializer confluentSerializer = confluentSerializer();
+        CachedAvroDeserializer cachedDeserializer = new CachedAvroDeserializer();
+        cachedDeserializer.configure(Map.of(AvroSerdeConfig.SCHEMA_REGISTRY_URL, schemaRegistryUrl), false);
+
+        Assertions.assertEquals(paymentRequest, cachedDeserializer.deserialize(TOPIC,
+                confluentSerializer.serialize(TOPIC, paymentRequest)));
+        Assertions.assertEquals(paymentRequestV2, cachedDeserializer.deserialize(TOPIC,
+                confluentSerializer.serialize(TOPIC, paymentRequestV2)));
+    }
+
+    @Test
+    void testCachedRecordIsReadByTheConfluentDeserializer() {
+        PaymentRequestAvroModel paymentRequest = paymentRequest();
+        PaymentRequestAvroModelV2 paymentRequestV2 = paymentRequestV2();
+        CachedAvroSerializer cachedSerializer = cachedRegistrySerializer();
+        KafkaAvroDeserializer confluentDeserializer = new KafkaAvroDeserializer();
+        confluentDeserializer.configure(Map.of("schema.registry.url", schemaRegistryUrl,
+                "specific.avro.reader", true), false);
+
+        Assertions.assertEquals(paymentRequest, confluentDeserializer.deserialize(TOPIC,
+                cachedSerializer.serialize(TOPIC, paymentRequest)));
+        Assertions.assertEquals(paymentRequestV2, confluentDeserializer.deserialize(TOPIC,
+                cachedSerializer.serialize(TOPIC, paymentRequestV2)));
+    }
+
+    // the magic byte, the 4-byte id the registry gave the schema and the same avro binary
+    @Test
+    void testBothSerializersWriteTheSameBytes() {
+        PaymentRequestAvroModel paymentRequest = paymentRequest();
+
+        byte[] confluentData = confluentSerializer().serialize(TOPIC, paymentRequest);
+        byte[] cachedData = cachedRegistrySerializer().serialize(TOPIC, paymentRequest);
+
+        Assertions.assertEquals(0, cachedData[0]);
+        Assertions.assertEquals(1, ByteBuffer.wrap(cachedData, 1, Integer.BYTES).getInt());
+        Assertions.assertArrayEquals(confluentData, cachedData);
+    }
+
+    // the fingerprint ids are not registered, only the cached deserializer reads them
+    @Test
+    void testFingerprintIdIsWrittenWithoutTheRegistry() {
+        PaymentRequestAvroModel paymentRequest = paymentRequest();
+        CachedAvroSerializer cachedSerializer = new CachedAvroSerializer();
+        cachedSerializer.configure(Map.of(AvroSerdeConfig.SCHEMA_REGISTRY_URL, schemaRegistryUrl), false);
+
+        byte[] data = cachedSerializer.serialize(TOPIC, paymentRequest);
+
+        Assertions.assertEquals(AvroSchemaCatalog.fingerprintId(PaymentRequestAvroModel.SCHEMA$),
+                ByteBuffer.wrap(data, 1, Integer.BYTES).getInt());
+        Assertions.assertTrue(schemas.isEmpty());
+    }
+
+    private KafkaAvroSerializer confluentSerializer() {
+        KafkaAvroSerializer confluentSerializer = new KafkaAvroSerializer();
+        confluentSerializer.configure(Map.of("schema.registry.url", schemaRegistryUrl,
+                "auto.register.schemas", true), false);
+        return confluentSerializer;
+    }
+
+    private CachedAvroSerializer cachedRegistrySerializer() {
+        CachedAvroSerializer cachedSerializer = new CachedAvroSerializer();
+        cachedSerializer.configure(Map.of(AvroSerdeConfig.SCHEMA_REGISTRY_URL, schemaRegistryUrl,
+                AvroSerdeConfig.SCHEMA_ID_SOURCE, "registry"), false);
+        return cachedSerializer;
+    }
+
+    private void register(HttpExchange exchange) throws IOException {
+        Schema schema = new Schema.Parser().parse(objectMapper.readTree(exchange.getRequestBody()).get("schema")
+                .asText());
+        int schemaId = schemaIds.computeIfAbsent(schema, registered -> {
+            schemas.add(registered);
+            return schemas.size();
+        });
+        respond(exchange, objectMapper.createObjectNode().put("id", schemaId).toString());
+    }
+
+    private void schemaById(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int schemaId = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+        respond(exchange, objectMapper.createObjectNode().put("schema", schemas.get(schemaId - 1).toString())
+                .toString());
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.schemaregistry.v1+json");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    private static PaymentRequestAvroModel paymentRequest() {
+        return PaymentRequestAvroModel.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setSagaId(UUID.randomUUID().toString())
+                .setCustomerId(UUID.randomUUID().toString())
+                .setOrderId(UUID.randomUUID().toString())
+                .setPrice(new BigDecimal("100.00"))
+                .setCreatedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+
+    private static PaymentRequestAvroModelV2 paymentRequestV2() {
+        return PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setCustomerId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setOrderId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setPriceMinorUnits(10000L)
+                .setCreatedAt(Instant.ofEpochMilli(1_700_000_000_000L))
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.food.ordering.system.kafka.producer.key;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+class PartitionKeyStrategiesTest {
+
+    private static final String TOPIC = "payment-request";
+    private static final String SAGA_ID = "15a497c1-0f4b-4eff-b9f4-c402c8c07afa";
+    private static final UUID CUSTOMER_ID = UUID.fromString("d215b5f8-0249-4dc5-89a3-51fd148cfb41");
+
+    @Test
+    void testTopicWithoutAKeyFieldIsKeyedBySagaId() {
+        PartitionKeyStrategies strategies = strategies(Map.of());
+
+        Assertions.assertSame(PartitionKeyStrategy.SAGA_ID, strategies.forTopic(TOPIC));
+        Assertions.assertEquals(SAGA_ID, strategies.partitionKey(TOPIC, paymentRequest(), SAGA_ID));
+    }
+
+    @Test
+    void testTopicIsKeyedByTheConfiguredField() {
+        PartitionKeyStrategies strategies = strategies(Map.of(TOPIC, "customerId"));
+
+        Assertions.assertEquals(CUSTOMER_ID.toString(), strategies.partitionKey(TOPIC, paymentRequest(), SAGA_ID));
+        // the other topics keep the saga id
+        Assertions.assertEquals(SAGA_ID, strategies.partitionKey("restaurant-approval-request", paymentRequest(),
+                SAGA_ID));
+    }
+
+    @Test
+    void testCompactUuidIsKeyedLikeTheStringUuid() {
+        PartitionKeyStrategies strategies = strategies(Map.of(TOPIC, "customerId"));
+
+        Assertions.assertEquals(strategies.partitionKey(TOPIC, paymentRequest(), SAGA_ID),
+                strategies.partitionKey(TOPIC, paymentRequestV2(), SAGA_ID));
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() {
+        PartitionKeyStrategies strategies = strategies(Map.of(TOPIC, "restaurantId"));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> strategies.partitionKey(TOPIC, paymentRequest(), SAGA_ID));
+    }
+
+    @Test
+    void testRegisteredStrategyReplacesTheConfiguredField() {
+        PartitionKeyStrategies strategies = strategies(Map.of(TOPIC, "customerId"));
+
+        strategies.register(TOPIC, (avroModel, sagaId) -> "fixed");
+
+        Assertions.assertEquals("fixed", strategies.partitionKey(TOPIC, paymentRequest(), SAGA_ID));
+    }
+
+    private static PartitionKeyStrategies strategies(Map<String, String> partitionKeyFields) {
+        KafkaProducerConfigData kafkaProducerConfigData = new KafkaProducerConfigData();
+        kafkaProducerConfigData.setPartitionKeyFields(partitionKeyFields);
+        return new PartitionKeyStrategies(kafkaProducerConfigData);
+    }
+
+    private static PaymentRequestAvroModel paymentRequest() {
+        return PaymentRequestAvroModel.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setSagaId(SAGA_ID)
+                .setCustomerId(CUSTOMER_ID.toString())
+                .setOrderId(UUID.randomUUID().toString())
+                .setPrice(new BigDecimal("100.00"))
+                .setCreatedAt(Instant.now())
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+
+    private static PaymentRequestAvroModelV2 paymentRequestV2() {
+        return PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(SAGA_ID))
+                .setCustomerId(AvroCompactTypes.toAvro(CUSTOMER_ID))
+                .setOrderId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setPriceMinorUnits(10000L)
+                .setCreatedAt(Instant.now())
+                .setPaymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+}
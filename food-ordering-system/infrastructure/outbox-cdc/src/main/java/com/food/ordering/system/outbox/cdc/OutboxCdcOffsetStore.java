@@ -0,0 +1,55 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.cdc.exception.OutboxCdcException;
+import org.postgresql.replication.LogSequenceNumber;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Keeps the last LSN whose outbox rows were all acknowledged by the broker, in the `outbox_cdc_offset` table of the
+// service schema (see init-schema.sql). It is stored after the LSN was confirmed to the replication slot and may lag
+// behind it - the server never streams from before the slot's confirmed position anyway - so it records how far the
+// relay got, while the slot itself keeps a restarted relay from starting past a row that was not published.
+public class OutboxCdcOffsetStore {
+
+    private static final String SELECT_OFFSET = "SELECT lsn FROM outbox_cdc_offset WHERE slot_name = ?";
+    private static final String UPSERT_OFFSET = "INSERT INTO outbox_cdc_offset (slot_name, lsn, updated_at) " +
+            "VALUES (?, ?, now()) ON CONFLICT (slot_name) DO UPDATE SET lsn = EXCLUDED.lsn, updated_at = now()";
+
+    private final DataSource dataSource;
+
+    public OutboxCdcOffsetStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // returns LogSequenceNumber.INVALID_LSN when nothing is stored yet, which makes the server start from the
+    // confirmed position of the replication slot
+    public LogSequenceNumber load(String slotName) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_OFFSET)) {
+            statement.setString(1, slotName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? LogSequenceNumber.valueOf(resultSet.getString(1))
+                        : LogSequenceNumber.INVALID_LSN;
+            }
+        } catch (SQLException e) {
+            throw new OutboxCdcException(String.format("Could not load the outbox CDC offset of slot %s!",
+                    slotName), e);
+        }
+    }
+
+    public void save(String slotName, LogSequenceNumber lsn) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPSERT_OFFSET)) {
+            statement.setString(1, slotName);
+            statement.setString(2, lsn.asString());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new OutboxCdcException(String.format("Could not save the outbox CDC offset %s of slot %s!",
+                    lsn.asString(), slotName), e);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.cdc.exception.OutboxCdcException;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+// Relays outbox rows by tailing the WAL through a logical replication slot (pgoutput) instead of polling the outbox
+// tables. Every inserted row of a table in the publication is handed to the handler registered for `<schema>.<table>`;
+// the LSN of a transaction is confirmed to the slot only after all of its rows (and of all the transactions before it)
+// were settled (see OutboxChangeHandler), so after a crash or an unsettled row the relay restarts from the confirmed
+// position and re-publishes - consumers have to be idempotent, as with the polling relay. Requires
+// `wal_level = logical` and a user with the REPLICATION attribute.
+// The confirmed LSN is also stored in the offset table, but only for transactions with relayed rows and at most once
+// per status interval: storing it is a transaction of its own, which would otherwise be streamed back, confirmed and
+// stored again in an endless loop. The slot's confirmed_flush_lsn covers the rest.
+@Slf4j
+public class OutboxCdcRelay implements SmartLifecycle {
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String SELECT_SLOT = "SELECT 1 FROM pg_replication_slots WHERE slot_name = ?";
+
+    private final String name;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final DataSource dataSource;
+    private final OutboxCdcOffsetStore offsetStore;
+    private final String slotName;
+    private final String publicationName;
+    private final Map<String, OutboxChangeHandler> handlers;
+    private final int maxInFlight;
+    private final Duration ackTimeout;
+    private final Duration idleDelay;
+    private final Duration statusInterval;
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private Thread relayThread;
+    // the confirmed LSN of the last transaction with relayed rows that is not stored yet, and when one was last stored;
+    // only used by the relay thread
+    private LogSequenceNumber unstoredLsn;
+    private long lastStoredAt = System.nanoTime();
+
+    @Builder
+    public OutboxCdcRelay(String name,
+                          String url,
+                          String username,
+                          String password,
+                          DataSource dataSource,
+                          String slotName,
+                          String publicationName,
+                          Map<String, OutboxChangeHandler> handlers,
+                          int maxInFlight,
+                          Duration ackTimeout,
+                          Duration idleDelay,
+                          Duration statusInterval,
+                          Duration reconnectDelay) {
+        if (slotName == null || !IDENTIFIER_PATTERN.matcher(slotName).matches()) {
+            throw new IllegalArgumentException(String.format("OutboxCdcRelay[name = %s] has an invalid replication " +
+                    "slot name: %s", name, slotName));
+        }
+        if (publicationName == null || handlers == null || handlers.isEmpty()) {
+            throw new IllegalArgumentException(String.format("OutboxCdcRelay[name = %s] requires a publication and " +
+                    "at least one handler!", name));
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException(String.format("OutboxCdcRelay[name = %s] requires a positive " +
+                    "in-flight limit, got %d!", name, maxInFlight));
+        }
+        this.name = name;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.dataSource = dataSource;
+        this.offsetStore = new OutboxCdcOffsetStore(dataSource);
+        this.slotName = slotName;
+        this.publicationName = publicationName;
+        this.handlers = Map.copyOf(handlers);
+        this.maxInFlight = maxInFlight;
+        this.ackTimeout = ackTimeout == null ? Duration.ofSeconds(30) : ackTimeout;
+        this.idleDelay = idleDelay == null ? Duration.ofMillis(10) : idleDelay;
+        this.statusInterval = statusInterval == null ? Duration.ofSeconds(10) : statusInterval;
+        this.reconnectDelay = reconnectDelay == null ? Duration.ofSeconds(5) : reconnectDelay;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        relayThread = new Thread(this::relay, "outbox-cdc-relay-" + slotName);
+        relayThread.setDaemon(true);
+        relayThread.start();
+        log.info("OutboxCdcRelay[name = {}] started on slot {} for tables {}", name, slotName, handlers.keySet());
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+            relayThread = null;
+        }
+        log.info("OutboxCdcRelay[name = {}] stopped.", name);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void relay() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, replicationProperties())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                createSlotIfMissing(pgConnection);
+                LogSequenceNumber startLsn = offsetStore.load(slotName);
+                try (PGReplicationStream stream = pgConnection.getReplicationAPI()
+                        .replicationStream()
+                        .logical()
+                        .withSlotName(slotName)
+                        .withSlotOption("proto_version", 1)
+                        .withSlotOption("publication_names", publicationName)
+                        .withStartPosition(startLsn)
+                        .withStatusInterval((int) statusInterval.toMillis(), TimeUnit.MILLISECONDS)
+                        .start()) {
+                    log.info("OutboxCdcRelay[name = {}] is streaming slot {} from LSN {}", name, slotName,
+                            startLsn.asString());
+                    stream(stream);
+                }
+            } catch (SQLException | OutboxCdcException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("OutboxCdcRelay[name = {}] failed, restarting from the confirmed LSN in {} ms!",
+                        name, reconnectDelay.toMillis(), e);
+                sleep(reconnectDelay);
+            }
+        }
+    }
+
+    // the stream is read without blocking, so acknowledgements of earlier transactions are confirmed while it is idle
+    private void stream(PGReplicationStream stream) throws SQLException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        Deque<PendingTransaction> pendingTransactions = new ArrayDeque<>();
+        List<CompletableFuture<OutboxStatus>> currentTransaction = new ArrayList<>();
+        while (running) {
+            ByteBuffer buffer = stream.readPending();
+            if (buffer == null) {
+                confirmAcknowledged(stream, pendingTransactions);
+                sleep(idleDelay);
+                continue;
+            }
+            PgOutputMessage message = decoder.decode(buffer);
+            switch (message.getKind()) {
+                case BEGIN:
+                    currentTransaction = new ArrayList<>();
+                    break;
+                case INSERT:
+                    handle(message.getChange()).ifPresent(currentTransaction::add);
+                    break;
+                case COMMIT:
+                    pendingTransactions.addLast(new PendingTransaction(message.getCommitLsn(), currentTransaction,
+                            System.nanoTime() + ackTimeout.toNanos()));
+                    currentTransaction = new ArrayList<>();
+                    confirmAcknowledged(stream, pendingTransactions);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private Optional<CompletableFuture<OutboxStatus>> handle(OutboxChange change) {
+        OutboxChangeHandler handler = handlers.get(change.getSchema() + "." + change.getTable());
+        if (handler == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<OutboxStatus> acknowledgement = new CompletableFuture<>();
+        try {
+            handler.handle(change, acknowledgement::complete);
+        } catch (RuntimeException e) {
+            log.error("OutboxCdcRelay[name = {}] could not publish a row of {}.{}!", name, change.getSchema(),
+                    change.getTable(), e);
+            // nothing took the row over, so it is published again after a reconnect
+            acknowledgement.completeExceptionally(e);
+        }
+        return Optional.of(acknowledgement);
+    }
+
+    // confirms the LSN of the longest prefix of acknowledged transactions; as back pressure, it waits for the oldest
+    // transactions while more rows than the in-flight limit are waiting for the broker
+    private void confirmAcknowledged(PGReplicationStream stream, Deque<PendingTransaction> pendingTransactions) {
+        LogSequenceNumber confirmedLsn = null;
+        boolean relayed = false;
+        int inFlight = pendingTransactions.stream().mapToInt(PendingTransaction::size).sum();
+        while (!pendingTransactions.isEmpty()) {
+            PendingTransaction oldest = pendingTransactions.peekFirst();
+            if (!oldest.isDone()) {
+                if (inFlight <= maxInFlight && !oldest.isExpired()) {
+                    break;
+                }
+                oldest.await();
+            }
+            // a FAILED row is settled as well - its handler handed it over to be retried, replaying the stream for it
+            // would send it twice and a row that keeps failing would block the stream
+            if (!oldest.isSettled()) {
+                throw new OutboxCdcException(String.format("OutboxCdcRelay[name = %s] could not publish all rows " +
+                        "of the transaction ending at LSN %s!", name, oldest.lsn.asString()));
+            }
+            pendingTransactions.pollFirst();
+            inFlight -= oldest.size();
+            confirmedLsn = oldest.lsn;
+            relayed |= oldest.size() > 0;
+        }
+        if (confirmedLsn != null) {
+            stream.setAppliedLSN(confirmedLsn);
+            stream.setFlushedLSN(confirmedLsn);
+            if (relayed) {
+                unstoredLsn = confirmedLsn;
+            }
+        }
+        storeOffsetIfDue();
+    }
+
+    private void storeOffsetIfDue() {
+        if (unstoredLsn == null || System.nanoTime() - lastStoredAt < statusInterval.toNanos()) {
+            return;
+        }
+        offsetStore.save(slotName, unstoredLsn);
+        unstoredLsn = null;
+        lastStoredAt = System.nanoTime();
+    }
+
+    private void createSlotIfMissing(PGConnection pgConnection) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SLOT)) {
+            statement.setString(1, slotName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+        }
+        pgConnection.getReplicationAPI()
+                .createReplicationSlot()
+                .logical()
+                .withSlotName(slotName)
+                .withOutputPlugin("pgoutput")
+                .make();
+        log.info("OutboxCdcRelay[name = {}] created replication slot {}", name, slotName);
+    }
+
+    private Properties replicationProperties() {
+        Properties properties = new Properties();
+        PGProperty.USER.set(properties, username);
+        PGProperty.PASSWORD.set(properties, password);
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+        return properties;
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private class PendingTransaction {
+        private final LogSequenceNumber lsn;
+        private final List<CompletableFuture<OutboxStatus>> acknowledgements;
+        private final long deadline;
+
+        private PendingTransaction(LogSequenceNumber lsn,
+                                   List<CompletableFuture<OutboxStatus>> acknowledgements,
+                                   long deadline) {
+            this.lsn = lsn;
+            this.acknowledgements = acknowledgements;
+            this.deadline = deadline;
+        }
+
+        private int size() {
+            return acknowledgements.size();
+        }
+
+        private boolean isDone() {
+            return acknowledgements.stream().allMatch(CompletableFuture::isDone);
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - deadline > 0;
+        }
+
+        private boolean isSettled() {
+            return acknowledgements.stream().allMatch(acknowledgement ->
+                    acknowledgement.isDone() && !acknowledgement.isCompletedExceptionally());
+        }
+
+        private void await() {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            try {
+                CompletableFuture.allOf(acknowledgements.toArray(CompletableFuture[]::new))
+                        .get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new OutboxCdcException(String.format("OutboxCdcRelay[name = %s] timed out waiting for the " +
+                        "broker acknowledgements of the transaction ending at LSN %s!", name, lsn.asString()), e);
+            } catch (ExecutionException e) {
+                throw new OutboxCdcException(String.format("OutboxCdcRelay[name = %s] got a failed acknowledgement " +
+                        "for the transaction ending at LSN %s!", name, lsn.asString()), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OutboxCdcException(String.format("OutboxCdcRelay[name = %s] was interrupted!", name), e);
+            }
+        }
+    }
+}
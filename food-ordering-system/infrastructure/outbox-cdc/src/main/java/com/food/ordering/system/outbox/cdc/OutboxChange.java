@@ -0,0 +1,88 @@
+package com.food.ordering.system.outbox.cdc;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+// A row inserted into an outbox table, as decoded from the pgoutput stream. pgoutput sends every column in its text
+// representation, so the typed getters parse the Postgres text format (e.g. `2022-05-01 10:15:30.123456+02` for a
+// TIMESTAMP WITH TIME ZONE column, `\x0a1b...` for a bytea column in the default hex output).
+public class OutboxChange {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .appendOffset("+HH:mm:ss", "+00")
+            .toFormatter();
+
+    private final String schema;
+    private final String table;
+    private final Map<String, String> columns;
+
+    public OutboxChange(String schema, String table, Map<String, String> columns) {
+        this.schema = schema;
+        this.table = table;
+        this.columns = Collections.unmodifiableMap(columns);
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Map<String, String> getColumns() {
+        return columns;
+    }
+
+    public String getString(String column) {
+        return columns.get(column);
+    }
+
+    public UUID getUUID(String column) {
+        String value = columns.get(column);
+        return value == null ? null : UUID.fromString(value);
+    }
+
+    public int getInt(String column) {
+        String value = columns.get(column);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    // null for a NULL column, unlike getInt
+    public Integer getInteger(String column) {
+        String value = columns.get(column);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    public byte[] getBytes(String column) {
+        String value = columns.get(column);
+        if (value == null) {
+            return null;
+        }
+        if (!value.startsWith("\\x")) {
+            throw new IllegalArgumentException(String.format("Column %s of %s.%s is not in the bytea hex format!",
+                    column, schema, table));
+        }
+        return HexFormat.of().parseHex(value, 2, value.length());
+    }
+
+    public ZonedDateTime getZonedDateTime(String column) {
+        String value = columns.get(column);
+        return value == null ? null : ZonedDateTime.parse(value, TIMESTAMP_FORMATTER);
+    }
+
+    public <E extends Enum<E>> E getEnum(String column, Class<E> enumType) {
+        String value = columns.get(column);
+        return value == null ? null : Enum.valueOf(enumType, value);
+    }
+}
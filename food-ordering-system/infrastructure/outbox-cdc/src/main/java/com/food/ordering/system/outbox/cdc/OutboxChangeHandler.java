@@ -0,0 +1,16 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.OutboxStatus;
+
+import java.util.function.Consumer;
+
+// Publishes an outbox row captured from the WAL. The callback has to be called exactly once, with COMPLETED once the
+// broker has acknowledged the message (or the row is not meant to be published at all), or with FAILED once the failed
+// row was handed over to be retried some other way (e.g. written as FAILED for the retry stage of the polling relay) -
+// the CDC relay confirms the LSN of a transaction once all of its rows were settled either way. A row that is not
+// settled within the acknowledgement timeout, or whose handler throws, makes the relay reconnect and publish it again.
+@FunctionalInterface
+public interface OutboxChangeHandler {
+
+    void handle(OutboxChange change, Consumer<OutboxStatus> callback);
+}
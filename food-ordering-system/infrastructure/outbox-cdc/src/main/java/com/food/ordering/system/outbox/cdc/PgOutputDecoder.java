@@ -0,0 +1,113 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.cdc.exception.OutboxCdcException;
+import org.postgresql.replication.LogSequenceNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Decodes the messages of the pgoutput logical decoding plugin (protocol version 1). Only what the outbox relay needs is
+// decoded: transaction boundaries, relations (to know the table and column names of a relation id) and inserts; every
+// other message is reported as OTHER. The relation cache is per replication stream, since Postgres sends a relation
+// message before the first change of a relation in every new stream.
+class PgOutputDecoder {
+
+    private static final char BEGIN = 'B';
+    private static final char COMMIT = 'C';
+    private static final char RELATION = 'R';
+    private static final char INSERT = 'I';
+
+    private static final char NULL_VALUE = 'n';
+    private static final char UNCHANGED_TOAST_VALUE = 'u';
+    private static final char TEXT_VALUE = 't';
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    PgOutputMessage decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        switch (type) {
+            case BEGIN:
+                return PgOutputMessage.begin();
+            case COMMIT:
+                buffer.get(); // flags, currently unused
+                buffer.getLong(); // LSN of the commit record
+                // the end LSN of the transaction is the position the slot can be confirmed up to
+                return PgOutputMessage.commit(LogSequenceNumber.valueOf(buffer.getLong()));
+            case RELATION:
+                decodeRelation(buffer);
+                return PgOutputMessage.other();
+            case INSERT:
+                return PgOutputMessage.insert(decodeInsert(buffer));
+            default:
+                return PgOutputMessage.other();
+        }
+    }
+
+    private void decodeRelation(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        String schema = readString(buffer);
+        String table = readString(buffer);
+        buffer.get(); // replica identity
+        short columnCount = buffer.getShort();
+        String[] columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags, 1 marks a key column
+            columnNames[i] = readString(buffer);
+            buffer.getInt(); // type oid
+            buffer.getInt(); // type modifier
+        }
+        relations.put(relationId, new Relation(schema, table, List.of(columnNames)));
+    }
+
+    private OutboxChange decodeInsert(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        Relation relation = relations.get(relationId);
+        if (relation == null) {
+            throw new OutboxCdcException(String.format("Insert for unknown relation id %d in the pgoutput stream!",
+                    relationId));
+        }
+        buffer.get(); // 'N', marks the new tuple
+        short columnCount = buffer.getShort();
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            String value = null;
+            if (kind == TEXT_VALUE) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            } else if (kind != NULL_VALUE && kind != UNCHANGED_TOAST_VALUE) {
+                throw new OutboxCdcException(String.format("Unsupported tuple value kind '%s' for %s.%s!",
+                        kind, relation.schema, relation.table));
+            }
+            columns.put(relation.columnNames.get(i), value);
+        }
+        return new OutboxChange(relation.schema, relation.table, columns);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte b;
+        while ((b = buffer.get()) != 0) {
+            bytes.write(b);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static class Relation {
+        private final String schema;
+        private final String table;
+        private final List<String> columnNames;
+
+        private Relation(String schema, String table, List<String> columnNames) {
+            this.schema = schema;
+            this.table = table;
+            this.columnNames = columnNames;
+        }
+    }
+}
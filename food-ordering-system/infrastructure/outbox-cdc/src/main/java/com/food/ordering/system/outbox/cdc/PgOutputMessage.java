@@ -0,0 +1,51 @@
+package com.food.ordering.system.outbox.cdc;
+
+import org.postgresql.replication.LogSequenceNumber;
+
+class PgOutputMessage {
+
+    enum Kind {
+        BEGIN, COMMIT, INSERT, OTHER
+    }
+
+    private static final PgOutputMessage BEGIN_MESSAGE = new PgOutputMessage(Kind.BEGIN, null, null);
+    private static final PgOutputMessage OTHER_MESSAGE = new PgOutputMessage(Kind.OTHER, null, null);
+
+    private final Kind kind;
+    private final LogSequenceNumber commitLsn;
+    private final OutboxChange change;
+
+    private PgOutputMessage(Kind kind, LogSequenceNumber commitLsn, OutboxChange change) {
+        this.kind = kind;
+        this.commitLsn = commitLsn;
+        this.change = change;
+    }
+
+    static PgOutputMessage begin() {
+        return BEGIN_MESSAGE;
+    }
+
+    static PgOutputMessage commit(LogSequenceNumber commitLsn) {
+        return new PgOutputMessage(Kind.COMMIT, commitLsn, null);
+    }
+
+    static PgOutputMessage insert(OutboxChange change) {
+        return new PgOutputMessage(Kind.INSERT, null, change);
+    }
+
+    static PgOutputMessage other() {
+        return OTHER_MESSAGE;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    LogSequenceNumber getCommitLsn() {
+        return commitLsn;
+    }
+
+    OutboxChange getChange() {
+        return change;
+    }
+}
@@ -0,0 +1,71 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.OutboxAckFlusher;
+import com.food.ordering.system.outbox.OutboxAckStrategy;
+import com.food.ordering.system.outbox.OutboxPublishStrategy;
+import com.food.ordering.system.outbox.OutboxStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Consumer;
+
+// The CDC counterpart of an outbox scheduler - it gets the rows of one outbox table straight from the WAL, so the
+// table is only written to, never queried, to publish them. The subclasses only map a row to the outbox message of
+// their table and tell which of the STARTED rows are to be published; the broker outcomes are written back with the
+// same ack strategy as the polling relay's.
+@Slf4j
+public abstract class PublishingOutboxChangeHandler<M> implements OutboxChangeHandler {
+
+    private final String name;
+    // the broker outcomes are written in bulk on the flusher thread, not on the producer I/O thread calling back
+    private final OutboxAckFlusher<M> outboxAckFlusher;
+    private final OutboxPublishStrategy<M> publishStrategy;
+
+    protected PublishingOutboxChangeHandler(String name,
+                                            OutboxAckStrategy<M> ackStrategy,
+                                            OutboxPublishStrategy<M> publishStrategy) {
+        this.name = name;
+        this.outboxAckFlusher = OutboxAckFlusher.<M>builder()
+                .name(name)
+                .ackStrategy(ackStrategy)
+                .build();
+        this.publishStrategy = publishStrategy;
+    }
+
+    protected abstract M toOutboxMessage(OutboxChange change);
+
+    // the same rows the polling relay would claim, apart from the outbox status checked before
+    protected abstract boolean isPublished(M message);
+
+    @Override
+    public void handle(OutboxChange change, Consumer<OutboxStatus> callback) {
+        if (change.getEnum("outbox_status", OutboxStatus.class) != OutboxStatus.STARTED) {
+            callback.accept(OutboxStatus.COMPLETED);
+            return;
+        }
+        M message = toOutboxMessage(change);
+        if (!isPublished(message)) {
+            callback.accept(OutboxStatus.COMPLETED);
+            return;
+        }
+        try {
+            publishStrategy.publish(message, (published, outboxStatus) -> acknowledge(published, outboxStatus,
+                    callback));
+        } catch (RuntimeException e) {
+            log.error("{}: outbox row {} of {}.{} could not be published!", name, change.getUUID("id"),
+                    change.getSchema(), change.getTable(), e);
+            acknowledge(message, OutboxStatus.FAILED, callback);
+        }
+    }
+
+    // A FAILED outcome is only reported once the row is written as FAILED: the relay moves past it then and leaves it
+    // to the retry stage of the polling relay, which would never see a row that is still STARTED - so a failed write
+    // is not reported, and the relay publishes the row again once the acknowledgement times out. A COMPLETED outcome
+    // is reported either way, the message is already published.
+    private void acknowledge(M message, OutboxStatus outboxStatus, Consumer<OutboxStatus> callback) {
+        outboxAckFlusher.acknowledge(message, outboxStatus, written -> {
+            if (written || outboxStatus == OutboxStatus.COMPLETED) {
+                callback.accept(outboxStatus);
+            }
+        });
+    }
+}
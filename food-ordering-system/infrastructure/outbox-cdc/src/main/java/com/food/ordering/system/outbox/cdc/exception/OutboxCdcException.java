@@ -0,0 +1,12 @@
+package com.food.ordering.system.outbox.cdc.exception;
+
+public class OutboxCdcException extends RuntimeException {
+
+    public OutboxCdcException(String message) {
+        super(message);
+    }
+
+    public OutboxCdcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,178 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.cdc.exception.OutboxCdcException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.postgresql.replication.LogSequenceNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+class PgOutputDecoderTest {
+
+    private static final int RELATION_ID = 16384;
+    private static final UUID SAGA_ID = UUID.fromString("d215b5f8-0249-4dc5-89a3-51fd148cfb41");
+
+    private final PgOutputDecoder decoder = new PgOutputDecoder();
+
+    @Test
+    void testBegin() throws IOException {
+        PgOutputMessage message = decode(begin());
+
+        Assertions.assertEquals(PgOutputMessage.Kind.BEGIN, message.getKind());
+    }
+
+    @Test
+    void testCommitCarriesTheEndLsnOfTheTransaction() throws IOException {
+        PgOutputMessage message = decode(commit(0x16B3748L, 0x16B3790L));
+
+        Assertions.assertEquals(PgOutputMessage.Kind.COMMIT, message.getKind());
+        Assertions.assertEquals(LogSequenceNumber.valueOf(0x16B3790L), message.getCommitLsn());
+    }
+
+    @Test
+    void testInsertIsDecodedWithTheColumnNamesOfItsRelation() throws IOException {
+        Assertions.assertEquals(PgOutputMessage.Kind.OTHER,
+                decode(relation("order", "payment_outbox", "id", "saga_id", "created_at", "payload", "version"))
+                        .getKind());
+
+        PgOutputMessage message = decode(insert(text("1"), text(SAGA_ID.toString()),
+                text("2022-05-01 10:15:30.123456+02"), text("{\"price\": 100}"), nullValue()));
+
+        Assertions.assertEquals(PgOutputMessage.Kind.INSERT, message.getKind());
+        OutboxChange change = message.getChange();
+        Assertions.assertEquals("order", change.getSchema());
+        Assertions.assertEquals("payment_outbox", change.getTable());
+        Assertions.assertEquals(List.of("id", "saga_id", "created_at", "payload", "version"),
+                List.copyOf(change.getColumns().keySet()));
+        Assertions.assertEquals(1, change.getInt("id"));
+        Assertions.assertEquals(SAGA_ID, change.getUUID("saga_id"));
+        Assertions.assertEquals(ZonedDateTime.of(2022, 5, 1, 10, 15, 30, 123456000, ZoneOffset.ofHours(2)),
+                change.getZonedDateTime("created_at"));
+        Assertions.assertEquals("{\"price\": 100}", change.getString("payload"));
+        Assertions.assertNull(change.getInteger("version"));
+    }
+
+    @Test
+    void testUnchangedToastValueIsNull() throws IOException {
+        decode(relation("order", "payment_outbox", "id", "payload"));
+
+        OutboxChange change = decode(insert(text("1"), unchangedToastValue())).getChange();
+
+        Assertions.assertNull(change.getString("payload"));
+    }
+
+    @Test
+    void testByteaValueInTheHexFormat() throws IOException {
+        decode(relation("order", "payment_outbox", "payload"));
+
+        OutboxChange change = decode(insert(text("\\x0a1bff"))).getChange();
+
+        Assertions.assertArrayEquals(new byte[]{0x0a, 0x1b, (byte) 0xff}, change.getBytes("payload"));
+    }
+
+    @Test
+    void testInsertForAnUnknownRelationIsRejected() {
+        Assertions.assertThrows(OutboxCdcException.class, () -> decode(insert(text("1"))));
+    }
+
+    @Test
+    void testOtherMessagesAreSkipped() throws IOException {
+        // an update of a row, which the outbox relay does not follow
+        Assertions.assertEquals(PgOutputMessage.Kind.OTHER, decode(new byte[]{'U', 0, 0, 0x40, 0}).getKind());
+    }
+
+    private PgOutputMessage decode(byte[] message) {
+        return decoder.decode(ByteBuffer.wrap(message));
+    }
+
+    private static byte[] begin() throws IOException {
+        return message(out -> {
+            out.writeByte('B');
+            out.writeLong(0x16B3790L); // final LSN
+            out.writeLong(0L); // commit timestamp
+            out.writeInt(750); // xid
+        });
+    }
+
+    private static byte[] commit(long commitLsn, long endLsn) throws IOException {
+        return message(out -> {
+            out.writeByte('C');
+            out.writeByte(0); // flags
+            out.writeLong(commitLsn);
+            out.writeLong(endLsn);
+            out.writeLong(0L); // commit timestamp
+        });
+    }
+
+    private static byte[] relation(String schema, String table, String... columnNames) throws IOException {
+        return message(out -> {
+            out.writeByte('R');
+            out.writeInt(RELATION_ID);
+            writeString(out, schema);
+            writeString(out, table);
+            out.writeByte('d'); // replica identity
+            out.writeShort(columnNames.length);
+            for (String columnName : columnNames) {
+                out.writeByte(0); // flags
+                writeString(out, columnName);
+                out.writeInt(25); // type oid
+                out.writeInt(-1); // type modifier
+            }
+        });
+    }
+
+    private static byte[] insert(byte[]... values) throws IOException {
+        return message(out -> {
+            out.writeByte('I');
+            out.writeInt(RELATION_ID);
+            out.writeByte('N');
+            out.writeShort(values.length);
+            for (byte[] value : values) {
+                out.write(value);
+            }
+        });
+    }
+
+    private static byte[] text(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return message(out -> {
+            out.writeByte('t');
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        });
+    }
+
+    private static byte[] nullValue() {
+        return new byte[]{'n'};
+    }
+
+    private static byte[] unchangedToastValue() {
+        return new byte[]{'u'};
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+
+    private static byte[] message(MessageWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface MessageWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,91 @@
+package com.food.ordering.system.outbox.cdc;
+
+import com.food.ordering.system.outbox.OutboxPublishStrategy;
+import com.food.ordering.system.outbox.OutboxStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+class PublishingOutboxChangeHandlerTest {
+
+    private static final UUID ID = UUID.fromString("d215b5f8-0249-4dc5-89a3-51fd148cfb41");
+
+    private final List<String> acknowledged = new CopyOnWriteArrayList<>();
+    private final List<UUID> published = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testRowThatIsNotStartedIsSettledWithoutBeingPublished() throws Exception {
+        CompletableFuture<OutboxStatus> outcome = new CompletableFuture<>();
+
+        handler((message, callback) -> published.add(message.getUUID("id"))).handle(change("COMPLETED", "OrderProcessingSaga"),
+                outcome::complete);
+
+        Assertions.assertEquals(OutboxStatus.COMPLETED, outcome.get(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void testRowThatIsNotPublishedIsSettledWithoutBeingPublished() throws Exception {
+        CompletableFuture<OutboxStatus> outcome = new CompletableFuture<>();
+
+        handler((message, callback) -> published.add(message.getUUID("id"))).handle(change("STARTED", "OtherSaga"),
+                outcome::complete);
+
+        Assertions.assertEquals(OutboxStatus.COMPLETED, outcome.get(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void testOutcomeIsReportedOnceItIsWritten() throws Exception {
+        CompletableFuture<OutboxStatus> outcome = new CompletableFuture<>();
+
+        handler((message, callback) -> {
+            published.add(message.getUUID("id"));
+            callback.accept(message, OutboxStatus.COMPLETED);
+        }).handle(change("STARTED", "OrderProcessingSaga"), outcome::complete);
+
+        Assertions.assertEquals(OutboxStatus.COMPLETED, outcome.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(ID), published);
+        Assertions.assertEquals(List.of(ID + ":COMPLETED"), acknowledged);
+    }
+
+    @Test
+    void testRowThatCouldNotBePublishedIsWrittenAsFailed() throws Exception {
+        CompletableFuture<OutboxStatus> outcome = new CompletableFuture<>();
+
+        handler((message, callback) -> {
+            throw new IllegalStateException("broker unavailable");
+        }).handle(change("STARTED", "OrderProcessingSaga"), outcome::complete);
+
+        Assertions.assertEquals(OutboxStatus.FAILED, outcome.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(ID + ":FAILED"), acknowledged);
+    }
+
+    // the rows are published as they are, the ones of the order saga only
+    private PublishingOutboxChangeHandler<OutboxChange> handler(OutboxPublishStrategy<OutboxChange> publishStrategy) {
+        return new PublishingOutboxChangeHandler<>("test", (messages, outboxStatus) -> messages.forEach(message ->
+                acknowledged.add(message.getUUID("id") + ":" + outboxStatus)), publishStrategy) {
+
+            @Override
+            protected OutboxChange toOutboxMessage(OutboxChange change) {
+                return change;
+            }
+
+            @Override
+            protected boolean isPublished(OutboxChange message) {
+                return "OrderProcessingSaga".equals(message.getString("type"));
+            }
+        };
+    }
+
+    private static OutboxChange change(String outboxStatus, String type) {
+        return new OutboxChange("order", "payment_outbox", Map.of("id", ID.toString(), "type", type,
+                "outbox_status", outboxStatus));
+    }
+}
@@ -0,0 +1,149 @@
+package com.food.ordering.system.outbox.metrics;
+
+import com.food.ordering.system.outbox.OutboxCleaner;
+import com.food.ordering.system.outbox.OutboxRelay;
+import com.food.ordering.system.outbox.OutboxRelayMetrics;
+import com.food.ordering.system.outbox.backlog.OutboxBacklogSampler;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Binds the plain counters of the outbox relays and cleaners and the last backlog samples to Micrometer. Every meter
+// reads a value that is already maintained (an atomic counter or the last sample), so a scrape never queries the
+// database. The relay meters are tagged with the relay name, the backlog meters with the outbox table, the meters of
+// the processed saga caches in front of the outbox duplicate checks with the cache name.
+public class OutboxMeterBinder implements MeterBinder {
+
+    private final List<OutboxRelay<?>> relays;
+    private final List<OutboxCleaner> cleaners;
+    private final OutboxBacklogSampler backlogSampler;
+    private final List<ProcessedSagaCache> processedSagaCaches;
+
+    // backlogSampler - optional
+    @Builder
+    public OutboxMeterBinder(List<OutboxRelay<?>> relays,
+                             List<OutboxCleaner> cleaners,
+                             OutboxBacklogSampler backlogSampler,
+                             List<ProcessedSagaCache> processedSagaCaches) {
+        this.relays = relays == null ? List.of() : List.copyOf(relays);
+        this.cleaners = cleaners == null ? List.of() : List.copyOf(cleaners);
+        this.backlogSampler = backlogSampler;
+        this.processedSagaCaches = processedSagaCaches == null ? List.of() : List.copyOf(processedSagaCaches);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        relays.forEach(relay -> bindRelay(registry, relay.getName(), relay.getMetrics()));
+        cleaners.forEach(cleaner -> bindCleaner(registry, cleaner));
+        if (backlogSampler != null) {
+            backlogSampler.getTables().forEach(table -> bindBacklog(registry, table));
+        }
+        processedSagaCaches.forEach(cache -> bindProcessedSagaCache(registry, cache));
+    }
+
+    private void bindRelay(MeterRegistry registry, String relay, OutboxRelayMetrics metrics) {
+        FunctionCounter.builder("outbox.relay.published", metrics,
+                        relayMetrics -> relayMetrics.getPublished() + relayMetrics.getDirectPublished())
+                .description("Outbox messages handed to the message bus")
+                .tag("relay", relay)
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.acknowledged", metrics, OutboxRelayMetrics::getCompleted)
+                .description("Broker outcomes of the published outbox messages")
+                .tags("relay", relay, "status", "completed")
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.acknowledged", metrics, OutboxRelayMetrics::getFailed)
+                .description("Broker outcomes of the published outbox messages")
+                .tags("relay", relay, "status", "failed")
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.retried", metrics, OutboxRelayMetrics::getRetried)
+                .description("FAILED outbox messages fetched again once their backoff was over")
+                .tag("relay", relay)
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.publish.errors", metrics, OutboxRelayMetrics::getPublishErrors)
+                .description("Outbox messages the publisher threw on")
+                .tag("relay", relay)
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.abandoned", metrics, OutboxRelayMetrics::getAbandoned)
+                .description("Sends a relay run stopped waiting for")
+                .tag("relay", relay)
+                .register(registry);
+        FunctionCounter.builder("outbox.relay.runs", metrics, OutboxRelayMetrics::getRuns)
+                .tag("relay", relay)
+                .register(registry);
+        Gauge.builder("outbox.relay.in.flight", metrics, OutboxRelayMetrics::getInFlight)
+                .description("Sends waiting for a broker acknowledgement")
+                .tag("relay", relay)
+                .register(registry);
+        Gauge.builder("outbox.relay.last.batch.size", metrics, OutboxRelayMetrics::getLastBatchSize)
+                .tag("relay", relay)
+                .register(registry);
+        FunctionTimer.builder("outbox.relay.ack.latency", metrics,
+                        OutboxRelayMetrics::getAckLatencyCount,
+                        OutboxRelayMetrics::getAckLatencyTotalNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time from publishing an outbox message until its broker outcome arrives")
+                .tag("relay", relay)
+                .register(registry);
+    }
+
+    private void bindCleaner(MeterRegistry registry, OutboxCleaner cleaner) {
+        FunctionCounter.builder("outbox.cleaner.deleted", cleaner, OutboxCleaner::getDeletedTotal)
+                .description("Processed outbox messages deleted by the clean-ups")
+                .tag("cleaner", cleaner.getName())
+                .register(registry);
+        FunctionTimer.builder("outbox.cleaner.duration", cleaner,
+                        OutboxCleaner::getCleanups,
+                        OutboxCleaner::getCleanupTotalNanos,
+                        TimeUnit.NANOSECONDS)
+                .tag("cleaner", cleaner.getName())
+                .register(registry);
+    }
+
+    private void bindBacklog(MeterRegistry registry, String table) {
+        Gauge.builder("outbox.backlog.started", backlogSampler,
+                        sampler -> sampler.getBacklog(table).startedCount())
+                .description("STARTED outbox rows at the last sample, bounded by the count limit of the sampler")
+                .tag("table", table)
+                .register(registry);
+        Gauge.builder("outbox.backlog.failed", backlogSampler,
+                        sampler -> sampler.getBacklog(table).failedCount())
+                .description("FAILED outbox rows at the last sample, bounded by the count limit of the sampler")
+                .tag("table", table)
+                .register(registry);
+        Gauge.builder("outbox.backlog.parked", backlogSampler,
+                        sampler -> sampler.getBacklog(table).parkedCount())
+                .description("Outbox rows that used up their send attempts and wait for an operator")
+                .tag("table", table)
+                .register(registry);
+        TimeGauge.builder("outbox.backlog.oldest.age", backlogSampler, TimeUnit.MILLISECONDS,
+                        sampler -> sampler.getOldestStartedAge(table).toMillis())
+                .description("Age of the oldest STARTED outbox row")
+                .tag("table", table)
+                .register(registry);
+    }
+
+    private void bindProcessedSagaCache(MeterRegistry registry, ProcessedSagaCache cache) {
+        FunctionCounter.builder("saga.processed.cache.lookups", cache, ProcessedSagaCache::getHits)
+                .description("Incoming saga messages checked against the recently committed steps")
+                .tags("cache", cache.getName(), "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("saga.processed.cache.lookups", cache, ProcessedSagaCache::getMisses)
+                .description("Incoming saga messages checked against the recently committed steps")
+                .tags("cache", cache.getName(), "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("saga.processed.cache.evictions", cache, ProcessedSagaCache::getEvictions)
+                .tag("cache", cache.getName())
+                .register(registry);
+        Gauge.builder("saga.processed.cache.size", cache, ProcessedSagaCache::getSize)
+                .tag("cache", cache.getName())
+                .register(registry);
+    }
+}
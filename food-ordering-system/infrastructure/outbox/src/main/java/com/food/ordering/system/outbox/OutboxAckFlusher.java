@@ -0,0 +1,120 @@
+package com.food.ordering.system.outbox;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Writes the broker outcomes of outbox messages published one by one (the direct publishes of OutboxRelay, the CDC
+// change handlers) with one acknowledgement per status, like OutboxRelay does for the messages of its runs. The
+// producer callbacks only queue the outcomes; they are written on the flusher's own thread every `flushInterval`, so
+// the producer I/O thread never waits for the database. The thread is started with the first outcome.
+@Slf4j
+public class OutboxAckFlusher<M> {
+
+    private final String name;
+    private final OutboxAckStrategy<M> ackStrategy;
+    private final Duration flushInterval;
+    private final Queue<Acknowledgement<M>> pendingAcknowledgements = new ConcurrentLinkedQueue<>();
+
+    private volatile ScheduledExecutorService executor;
+
+    @Builder
+    public OutboxAckFlusher(String name, OutboxAckStrategy<M> ackStrategy, Duration flushInterval) {
+        if (ackStrategy == null) {
+            throw new IllegalArgumentException(String.format("OutboxAckFlusher[name = %s] requires an ack strategy!",
+                    name));
+        }
+        this.name = name;
+        this.ackStrategy = ackStrategy;
+        this.flushInterval = flushInterval == null ? Duration.ofMillis(100) : flushInterval;
+    }
+
+    // queues the outcome of a message; `written` is called on the flusher thread once the write was attempted, with
+    // whether it succeeded
+    public void acknowledge(M message, OutboxStatus outboxStatus, Consumer<Boolean> written) {
+        pendingAcknowledgements.add(new Acknowledgement<>(message, outboxStatus, written));
+        if (executor == null) {
+            start();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void flush() {
+        Map<OutboxStatus, List<Acknowledgement<M>>> acknowledgementsByStatus = new EnumMap<>(OutboxStatus.class);
+        Acknowledgement<M> acknowledgement;
+        while ((acknowledgement = pendingAcknowledgements.poll()) != null) {
+            acknowledgementsByStatus.computeIfAbsent(acknowledgement.outboxStatus, outboxStatus -> new ArrayList<>())
+                    .add(acknowledgement);
+        }
+        acknowledgementsByStatus.forEach(this::write);
+    }
+
+    private void write(OutboxStatus outboxStatus, List<Acknowledgement<M>> acknowledgements) {
+        List<M> messages = new ArrayList<>(acknowledgements.size());
+        acknowledgements.forEach(acknowledgement -> messages.add(acknowledgement.message));
+        boolean succeeded;
+        try {
+            ackStrategy.acknowledge(messages, outboxStatus);
+            succeeded = true;
+        } catch (RuntimeException e) {
+            succeeded = false;
+            log.error("OutboxAckFlusher[name = {}] could not update {} outbox messages with status {}!",
+                    name, messages.size(), outboxStatus.name(), e);
+        }
+        for (Acknowledgement<M> acknowledgement : acknowledgements) {
+            try {
+                acknowledgement.written.accept(succeeded);
+            } catch (RuntimeException e) {
+                log.error("OutboxAckFlusher[name = {}] got an error from an acknowledgement callback!", name, e);
+            }
+        }
+    }
+
+    private synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-ack-flusher-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushSafely, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // an exception would cancel the periodic flush
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("OutboxAckFlusher[name = {}] flush failed!", name, e);
+        }
+    }
+
+    private static class Acknowledgement<M> {
+        private final M message;
+        private final OutboxStatus outboxStatus;
+        private final Consumer<Boolean> written;
+
+        private Acknowledgement(M message, OutboxStatus outboxStatus, Consumer<Boolean> written) {
+            this.message = message;
+            this.outboxStatus = outboxStatus;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.food.ordering.system.outbox;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface OutboxAckStrategy<M> {
+
+    // the relay collects the broker outcomes of a run and acknowledges them in bulk, once per outcome status, so an
+    // implementation is expected to update all the messages with a single statement. Any status releases the lease of
+    // the messages; STARTED hands back the claimed messages a run could not send, for the next run to claim them again
+    void acknowledge(List<M> messages, OutboxStatus outboxStatus);
+}
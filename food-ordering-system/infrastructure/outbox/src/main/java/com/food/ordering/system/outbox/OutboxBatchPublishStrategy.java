@@ -0,0 +1,12 @@
+package com.food.ordering.system.outbox;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+@FunctionalInterface
+public interface OutboxBatchPublishStrategy<M> {
+
+    // publishes the messages as one batch; the callback is invoked once per message, with the same contract as
+    // OutboxPublishStrategy
+    void publish(List<M> messages, BiConsumer<M, OutboxStatus> outboxCallback);
+}
@@ -0,0 +1,14 @@
+package com.food.ordering.system.outbox;
+
+// an already serialized outbox message, together with the id of the registered schema it was written with and the key
+// it is sent with (null - the saga id)
+public record OutboxBinaryPayload(byte[] bytes, int schemaId, String partitionKey) {
+
+    public OutboxBinaryPayload(byte[] bytes, int schemaId) {
+        this(bytes, schemaId, null);
+    }
+
+    public OutboxBinaryPayload withPartitionKey(String partitionKey) {
+        return new OutboxBinaryPayload(bytes, schemaId, partitionKey);
+    }
+}
@@ -0,0 +1,9 @@
+package com.food.ordering.system.outbox;
+
+@FunctionalInterface
+public interface OutboxChunkDeleteStrategy {
+
+    // deletes at most `chunkSize` of the oldest cleanable messages in a transaction of its own and returns how many
+    // were deleted
+    int deleteChunk(int chunkSize);
+}
@@ -0,0 +1,101 @@
+package com.food.ordering.system.outbox;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Deletes the processed outbox messages in bounded chunks instead of loading and deleting the whole result at once, so
+// a clean-up after a busy day neither needs the rows in memory nor holds one long transaction. It pauses between the
+// chunks to leave room for the regular load and only logs counts.
+@Slf4j
+public class OutboxCleaner {
+
+    private final String name;
+    private final OutboxChunkDeleteStrategy deleteStrategy;
+    private final int chunkSize;
+    private final Duration pauseBetweenChunks;
+    // totals over all the clean-ups, for the throughput metrics of the service
+    private final AtomicLong cleanups = new AtomicLong();
+    private final AtomicLong deletedTotal = new AtomicLong();
+    private final AtomicLong cleanupTotalNanos = new AtomicLong();
+
+    @Builder
+    public OutboxCleaner(String name,
+                         OutboxChunkDeleteStrategy deleteStrategy,
+                         int chunkSize,
+                         Duration pauseBetweenChunks) {
+        if (deleteStrategy == null) {
+            throw new IllegalArgumentException(String.format("OutboxCleaner[name = %s] requires a delete strategy!",
+                    name));
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(String.format("OutboxCleaner[name = %s] requires a positive chunk " +
+                    "size, got %d!", name, chunkSize));
+        }
+        this.name = name;
+        this.deleteStrategy = deleteStrategy;
+        this.chunkSize = chunkSize;
+        this.pauseBetweenChunks = pauseBetweenChunks == null ? Duration.ZERO : pauseBetweenChunks;
+    }
+
+    // deletes chunks until a chunk comes back partially filled and returns the total number of deleted messages
+    public long clean() {
+        long startedAt = System.nanoTime();
+        long deleted = 0;
+        int chunks = 0;
+        int lastChunk;
+        do {
+            if (chunks > 0 && !pause()) {
+                log.warn("OutboxCleaner[name = {}] was interrupted after {} chunks.", name, chunks);
+                break;
+            }
+            lastChunk = deleteStrategy.deleteChunk(chunkSize);
+            deleted += lastChunk;
+            chunks++;
+        } while (lastChunk >= chunkSize);
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        cleanups.incrementAndGet();
+        deletedTotal.addAndGet(deleted);
+        cleanupTotalNanos.addAndGet(elapsedNanos);
+        long elapsedMs = Math.max(1, Duration.ofNanos(elapsedNanos).toMillis());
+        if (deleted > 0) {
+            log.info("OutboxCleaner[name = {}] deleted {} outbox messages in {} chunks and {} ms ({} rows/sec).",
+                    name, deleted, chunks, elapsedMs, deleted * 1000 / elapsedMs);
+        } else {
+            log.debug("OutboxCleaner[name = {}] found no outbox messages to delete.", name);
+        }
+        return deleted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCleanups() {
+        return cleanups.get();
+    }
+
+    public long getDeletedTotal() {
+        return deletedTotal.get();
+    }
+
+    public long getCleanupTotalNanos() {
+        return cleanupTotalNanos.get();
+    }
+
+    private boolean pause() {
+        if (pauseBetweenChunks.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseBetweenChunks.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.food.ordering.system.outbox;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+// A position in the (created_at, id) order the outbox rows are claimed in. A relay run pages through the table by
+// claiming the rows after the last one of its previous page (keyset pagination), so every page is an index range scan
+// that starts where the previous one stopped, instead of skipping the rows the run has already gone through.
+public record OutboxCursor(ZonedDateTime createdAt, UUID id) {
+
+    // before every row, the position a run starts from
+    public static final OutboxCursor START =
+            new OutboxCursor(ZonedDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC), new UUID(0L, 0L));
+}
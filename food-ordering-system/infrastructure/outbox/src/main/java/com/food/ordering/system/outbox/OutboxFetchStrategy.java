@@ -0,0 +1,11 @@
+package com.food.ordering.system.outbox;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface OutboxFetchStrategy<M> {
+
+    // returns at most `batchSize` messages that are ready to be published and come after `after`, in the (created_at,
+    // id) order; an empty list means there is nothing to do
+    List<M> fetch(OutboxCursor after, int batchSize);
+}
@@ -0,0 +1,8 @@
+package com.food.ordering.system.outbox;
+
+// JSON - the event payload is stored as JSON and mapped to the message model on every publish; AVRO - the final message
+// bytes are stored when the outbox row is written, so the relay hands them to the broker as they are
+public enum OutboxPayloadFormat {
+
+    JSON, AVRO
+}
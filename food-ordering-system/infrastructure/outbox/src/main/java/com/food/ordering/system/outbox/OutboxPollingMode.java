@@ -0,0 +1,6 @@
+package com.food.ordering.system.outbox;
+
+public enum OutboxPollingMode {
+
+    FIXED, ADAPTIVE
+}
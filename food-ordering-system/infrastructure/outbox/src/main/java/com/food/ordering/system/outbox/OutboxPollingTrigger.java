@@ -0,0 +1,89 @@
+package com.food.ordering.system.outbox;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Computes the delay before the next relay run from the outcome of the previous one. In the FIXED mode it always waits
+// the same delay (the same as @Scheduled(fixedDelay)). In the ADAPTIVE mode a full batch means there is a backlog, so
+// the relay runs again right away; a partial batch means the backlog is drained, so it waits the min delay; an empty
+// batch multiplies the delay up to the max delay, so an idle outbox table is not polled too often.
+public class OutboxPollingTrigger implements Trigger {
+
+    private final OutboxPollingMode mode;
+    private final long initialDelayMs;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final double backoffMultiplier;
+    private final AtomicLong currentDelayMs;
+
+    private OutboxPollingTrigger(OutboxPollingMode mode,
+                                 long initialDelayMs,
+                                 long minDelayMs,
+                                 long maxDelayMs,
+                                 double backoffMultiplier) {
+        this.mode = mode;
+        this.initialDelayMs = initialDelayMs;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = Math.max(minDelayMs, maxDelayMs);
+        this.backoffMultiplier = Math.max(1.0, backoffMultiplier);
+        this.currentDelayMs = new AtomicLong(mode == OutboxPollingMode.ADAPTIVE ? minDelayMs : maxDelayMs);
+    }
+
+    public static OutboxPollingTrigger fixed(long delayMs, long initialDelayMs) {
+        return new OutboxPollingTrigger(OutboxPollingMode.FIXED, initialDelayMs, delayMs, delayMs, 1.0);
+    }
+
+    public static OutboxPollingTrigger adaptive(long initialDelayMs,
+                                                long minDelayMs,
+                                                long maxDelayMs,
+                                                double backoffMultiplier) {
+        return new OutboxPollingTrigger(OutboxPollingMode.ADAPTIVE, initialDelayMs, minDelayMs, maxDelayMs,
+                backoffMultiplier);
+    }
+
+    // a missing mode keeps the previous behaviour - a fixed delay equal to the max delay
+    public static OutboxPollingTrigger of(OutboxPollingMode mode,
+                                          long initialDelayMs,
+                                          long minDelayMs,
+                                          long maxDelayMs,
+                                          double backoffMultiplier) {
+        return mode == OutboxPollingMode.ADAPTIVE ?
+                adaptive(initialDelayMs, minDelayMs, maxDelayMs, backoffMultiplier) :
+                fixed(maxDelayMs, initialDelayMs);
+    }
+
+    public void onRelayCompleted(int fetched, int batchSize) {
+        if (mode == OutboxPollingMode.FIXED) {
+            return;
+        }
+
+        if (fetched >= batchSize) {
+            currentDelayMs.set(0);
+        } else if (fetched > 0) {
+            currentDelayMs.set(minDelayMs);
+        } else {
+            currentDelayMs.updateAndGet(delay ->
+                    Math.min(maxDelayMs, Math.max(minDelayMs, (long) Math.ceil(delay * backoffMultiplier))));
+        }
+    }
+
+    public long getCurrentDelayMs() {
+        return currentDelayMs.get();
+    }
+
+    public OutboxPollingMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public Date nextExecutionTime(TriggerContext triggerContext) {
+        Date lastCompletionTime = triggerContext.lastCompletionTime();
+        if (lastCompletionTime == null) {
+            return new Date(System.currentTimeMillis() + initialDelayMs);
+        }
+        return new Date(lastCompletionTime.getTime() + currentDelayMs.get());
+    }
+}
@@ -0,0 +1,11 @@
+package com.food.ordering.system.outbox;
+
+import java.util.function.BiConsumer;
+
+@FunctionalInterface
+public interface OutboxPublishStrategy<M> {
+
+    // the same contract as the message publisher ports - the callback is invoked once the broker has acknowledged
+    // (COMPLETED) or rejected (FAILED) the message
+    void publish(M message, BiConsumer<M, OutboxStatus> outboxCallback);
+}
@@ -0,0 +1,424 @@
+package com.food.ordering.system.outbox;
+
+import com.food.ordering.system.outbox.shard.OutboxShardCoordinator;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Fetches a batch of outbox messages, publishes them and acknowledges the broker outcome back to the outbox table.
+// A run pages through a backlog in batches - each page is claimed, published and acknowledged before the next one is
+// claimed after it - so neither the heap nor a database transaction grows with the size of the backlog.
+// It is not a Spring bean on purpose - each service's outbox scheduler builds one from its own fetch/publish/ack
+// strategies and triggers it, so the relay logic (batching, in-flight limit, metrics) lives in one place.
+@Slf4j
+public class OutboxRelay<M> {
+
+    private final String name;
+    private final OutboxFetchStrategy<M> fetchStrategy;
+    private final OutboxPublishStrategy<M> publishStrategy;
+    // optional - when set, the runs hand their messages to it in batches of up to `maxInFlight`, so the publisher can
+    // send and flush them together; `publishDirectly` keeps using the single-message strategy
+    private final OutboxBatchPublishStrategy<M> batchPublishStrategy;
+    private final OutboxAckStrategy<M> ackStrategy;
+    // the position of a message in the claim order, where the next page of a run starts
+    private final Function<M, OutboxCursor> cursorExtractor;
+    private final int batchSize;
+    // a run stops after this many full pages, so it does not hold on to the run lock (and the owned shards) for the
+    // whole backlog; the adaptive polling trigger starts the next run right away after a full page
+    private final int maxPagesPerRun;
+    private final int maxInFlight;
+    private final Duration drainTimeout;
+    private final OutboxPollingTrigger pollingTrigger;
+    // optional - when set, the fetch strategy only claims the rows of the shards owned by this instance
+    private final OutboxShardCoordinator shardCoordinator;
+    // optional - fetches the FAILED messages whose backoff is over; a run only retries them with the capacity left
+    // over by the fresh messages, at most `retryBatchSize` of them
+    private final OutboxFetchStrategy<M> retryFetchStrategy;
+    private final int retryBatchSize;
+    private final OutboxRelayMetrics metrics = new OutboxRelayMetrics();
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+    // broker outcomes waiting to be written back; filled by the producer callbacks, drained by the relay thread
+    private final Queue<Acknowledgement<M>> pendingAcknowledgements = new ConcurrentLinkedQueue<>();
+    // writes the outcomes of the direct publishes within a bounded delay, so their rows are not left STARTED until
+    // the next run - which can be far off with the adaptive backoff - and published again once their lease expires
+    private final OutboxAckFlusher<M> directAckFlusher;
+
+    @Builder
+    public OutboxRelay(String name,
+                       OutboxFetchStrategy<M> fetchStrategy,
+                       OutboxPublishStrategy<M> publishStrategy,
+                       OutboxBatchPublishStrategy<M> batchPublishStrategy,
+                       OutboxAckStrategy<M> ackStrategy,
+                       Function<M, OutboxCursor> cursorExtractor,
+                       int batchSize,
+                       int maxPagesPerRun,
+                       int maxInFlight,
+                       Duration drainTimeout,
+                       OutboxPollingTrigger pollingTrigger,
+                       OutboxShardCoordinator shardCoordinator,
+                       OutboxFetchStrategy<M> retryFetchStrategy,
+                       int retryBatchSize) {
+        if (fetchStrategy == null || publishStrategy == null || ackStrategy == null || cursorExtractor == null) {
+            throw new IllegalArgumentException(String.format("OutboxRelay[name = %s] requires fetch, publish and ack " +
+                    "strategies and a cursor extractor!", name));
+        }
+        if (batchSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException(String.format("OutboxRelay[name = %s] requires a positive batch size " +
+                    "and in-flight limit, got %d and %d!", name, batchSize, maxInFlight));
+        }
+        this.name = name;
+        this.fetchStrategy = fetchStrategy;
+        this.publishStrategy = publishStrategy;
+        this.batchPublishStrategy = batchPublishStrategy;
+        this.ackStrategy = ackStrategy;
+        this.cursorExtractor = cursorExtractor;
+        this.batchSize = batchSize;
+        this.maxPagesPerRun = Math.max(maxPagesPerRun, 1);
+        this.maxInFlight = maxInFlight;
+        this.drainTimeout = drainTimeout == null ? Duration.ofSeconds(30) : drainTimeout;
+        this.pollingTrigger = pollingTrigger;
+        this.shardCoordinator = shardCoordinator;
+        this.retryFetchStrategy = retryFetchStrategy;
+        this.retryBatchSize = retryBatchSize > 0 ? Math.min(retryBatchSize, batchSize) : batchSize;
+        this.directAckFlusher = OutboxAckFlusher.<M>builder()
+                .name(name)
+                .ackStrategy(ackStrategy)
+                .build();
+    }
+
+    // runs a fetch-publish-ack cycle and returns the number of fetched messages of its last page; only one cycle of a
+    // relay runs at a time - if another thread is already running it, this call returns 0 right away
+    public int relay() {
+        int fetched = 0;
+        while (runLock.tryLock()) {
+            try {
+                wakeUpRequested.set(false);
+                // the owned shards are not given up while the run is publishing their rows
+                fetched = shardCoordinator == null ? relayPages() : shardCoordinator.whileOwning(this::relayPages);
+                if (pollingTrigger != null) {
+                    pollingTrigger.onRelayCompleted(fetched, batchSize);
+                    metrics.recordPollDelay(pollingTrigger.getCurrentDelayMs());
+                }
+            } finally {
+                runLock.unlock();
+            }
+            // a wake-up that arrived during this cycle could be about rows committed after the fetch, so run again
+            if (!wakeUpRequested.get()) {
+                break;
+            }
+        }
+        return fetched;
+    }
+
+    // called when new outbox rows are known to be committed (e.g. on a database notification); it runs a cycle on the
+    // calling thread, or makes the cycle in progress run once more
+    public void wakeUp() {
+        metrics.recordWakeUp();
+        wakeUpRequested.set(true);
+        relay();
+    }
+
+    // publishes a single message outside of a run, e.g. right after the transaction that wrote it has committed. The
+    // caller leases the row beforehand, so the runs skip it while the send is in flight. A COMPLETED outcome is written
+    // by the direct ack flusher shortly after; a FAILED (or lost) one is not written at all - the row stays STARTED and
+    // is fetched by a run once its lease expires.
+    public void publishDirectly(M message) {
+        metrics.recordDirectPublished();
+        long publishedAt = System.nanoTime();
+        try {
+            publishStrategy.publish(message, (outboxMessage, outboxStatus) -> {
+                metrics.recordAcknowledged(outboxStatus, false);
+                metrics.recordAckLatency(System.nanoTime() - publishedAt);
+                if (outboxStatus == OutboxStatus.COMPLETED) {
+                    directAckFlusher.acknowledge(outboxMessage, outboxStatus, written -> { });
+                } else {
+                    log.warn("OutboxRelay[name = {}] direct publish failed, the outbox message is left for a run.",
+                            name);
+                }
+            });
+        } catch (RuntimeException e) {
+            metrics.recordPublishErrors(1);
+            log.error("OutboxRelay[name = {}] could not publish an outbox message directly, it is left for a run!",
+                    name, e);
+        }
+    }
+
+    // runs only the retry stage, for a relay whose fresh messages are published by something else (e.g. from the WAL);
+    // like `relay`, it returns 0 right away if a cycle of this relay is running already
+    public int retry() {
+        if (retryFetchStrategy == null || !runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return shardCoordinator == null ? retryBatch() : shardCoordinator.whileOwning(this::retryBatch);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public OutboxRelayMetrics getMetrics() {
+        return metrics;
+    }
+
+    public OutboxPollingTrigger getPollingTrigger() {
+        return pollingTrigger;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private int relayPages() {
+        OutboxCursor after = OutboxCursor.START;
+        for (int page = 1; ; page++) {
+            // outcomes that arrived after the previous page stopped waiting are written before their rows could be
+            // fetched
+            flushAcknowledgements();
+            List<M> messages = new ArrayList<>(fetchStrategy.fetch(after, batchSize));
+            if (messages.size() == batchSize && page < maxPagesPerRun) {
+                relayPage(messages, List.of());
+                after = cursorExtractor.apply(messages.get(messages.size() - 1));
+                continue;
+            }
+            // the retries only fill up the last page of a run, the one the fresh messages left room in, and they are
+            // sent after them, so a backlog of failed messages never delays the fresh ones
+            List<M> retries = fetchRetries(batchSize - messages.size());
+            return relayPage(messages, retries);
+        }
+    }
+
+    private int relayPage(List<M> messages, List<M> retries) {
+        messages.addAll(retries);
+        metrics.recordRun(messages.size());
+        metrics.recordRetried(retries.size());
+        if (messages.isEmpty()) {
+            log.debug("OutboxRelay[name = {}] found no outbox messages to publish.", name);
+            return 0;
+        }
+
+        log.info("OutboxRelay[name = {}] fetched {} outbox messages ({} retries), sending them to the message bus!",
+                name, messages.size(), retries.size());
+        publishBatch(messages);
+        return messages.size();
+    }
+
+    private int retryBatch() {
+        flushAcknowledgements();
+        List<M> retries = fetchRetries(batchSize);
+        metrics.recordRetried(retries.size());
+        if (retries.isEmpty()) {
+            log.debug("OutboxRelay[name = {}] found no failed outbox messages to retry.", name);
+            return 0;
+        }
+
+        log.info("OutboxRelay[name = {}] fetched {} failed outbox messages, sending them to the message bus again!",
+                name, retries.size());
+        publishBatch(retries);
+        return retries.size();
+    }
+
+    private List<M> fetchRetries(int capacity) {
+        if (retryFetchStrategy == null || capacity <= 0) {
+            return List.of();
+        }
+        // the retries are due by their backoff rather than by their position, they are not paged through
+        return retryFetchStrategy.fetch(OutboxCursor.START, Math.min(retryBatchSize, capacity));
+    }
+
+    private void publishBatch(List<M> messages) {
+        // the permits bound the number of sends waiting for a broker acknowledgement; they are scoped to this run, so
+        // a publisher that swallows an error without calling back cannot starve the next runs
+        Semaphore inFlightPermits = new Semaphore(maxInFlight);
+        List<AtomicBoolean> settledFlags = new ArrayList<>(messages.size());
+        int sent = batchPublishStrategy == null
+                ? publishOneByOne(messages, inFlightPermits, settledFlags)
+                : publishInChunks(messages, inFlightPermits, settledFlags);
+
+        awaitInFlight(inFlightPermits, settledFlags);
+        flushAcknowledgements();
+        log.info("OutboxRelay[name = {}] sent {} outbox messages to the message bus!", name, sent);
+    }
+
+    private int publishOneByOne(List<M> messages, Semaphore inFlightPermits, List<AtomicBoolean> settledFlags) {
+        int sent = 0;
+        for (M message : messages) {
+            if (!acquirePermits(inFlightPermits, 1)) {
+                releaseUnsent(messages.subList(sent, messages.size()));
+                break;
+            }
+            AtomicBoolean settled = new AtomicBoolean();
+            settledFlags.add(settled);
+            metrics.recordPublished(1);
+            BiConsumer<M, OutboxStatus> callback = acknowledgementCallback(settled, inFlightPermits);
+            try {
+                publishStrategy.publish(message, callback);
+            } catch (RuntimeException e) {
+                metrics.recordPublishErrors(1);
+                // a send that failed before reaching the broker is a failed attempt like a rejected one, so it gets
+                // the backoff (or is parked) instead of staying leased; a publisher that called back before throwing
+                // keeps that outcome
+                if (!settled.get()) {
+                    callback.accept(message, OutboxStatus.FAILED);
+                }
+                log.error("OutboxRelay[name = {}] could not publish an outbox message!", name, e);
+            }
+            sent++;
+        }
+        return sent;
+    }
+
+    // a chunk takes as many permits as it has messages, so a chunk is only handed over once the previous ones have
+    // room left for all of its sends
+    private int publishInChunks(List<M> messages, Semaphore inFlightPermits, List<AtomicBoolean> settledFlags) {
+        int sent = 0;
+        while (sent < messages.size()) {
+            List<M> chunk = messages.subList(sent, Math.min(sent + maxInFlight, messages.size()));
+            if (!acquirePermits(inFlightPermits, chunk.size())) {
+                releaseUnsent(messages.subList(sent, messages.size()));
+                break;
+            }
+            // the batch publisher calls back with the message instances it was given, so they are looked up by identity
+            Map<M, BiConsumer<M, OutboxStatus>> callbacks = new IdentityHashMap<>(chunk.size());
+            List<AtomicBoolean> chunkSettledFlags = new ArrayList<>(chunk.size());
+            for (M message : chunk) {
+                AtomicBoolean settled = new AtomicBoolean();
+                chunkSettledFlags.add(settled);
+                callbacks.put(message, acknowledgementCallback(settled, inFlightPermits));
+            }
+            settledFlags.addAll(chunkSettledFlags);
+            metrics.recordPublished(chunk.size());
+            try {
+                batchPublishStrategy.publish(List.copyOf(chunk), (outboxMessage, outboxStatus) -> {
+                    BiConsumer<M, OutboxStatus> callback = callbacks.get(outboxMessage);
+                    if (callback == null) {
+                        log.warn("OutboxRelay[name = {}] got an outcome for a message it did not publish.", name);
+                        return;
+                    }
+                    callback.accept(outboxMessage, outboxStatus);
+                });
+            } catch (RuntimeException e) {
+                // the messages already called back keep their outcome, the rest of the chunk failed like a rejected
+                // send, see publishOneByOne
+                int failed = 0;
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (!chunkSettledFlags.get(i).get()) {
+                        M message = chunk.get(i);
+                        callbacks.get(message).accept(message, OutboxStatus.FAILED);
+                        failed++;
+                    }
+                }
+                metrics.recordPublishErrors(failed);
+                log.error("OutboxRelay[name = {}] could not publish a batch of {} outbox messages!",
+                        name, chunk.size(), e);
+            }
+            sent += chunk.size();
+        }
+        return sent;
+    }
+
+    // the messages a run claimed but could not send within the in-flight limit are handed back as STARTED, which
+    // releases their lease, so the next run picks them up instead of waiting for the lease to expire; they were never
+    // sent, so this is no attempt
+    private void releaseUnsent(List<M> unsent) {
+        log.warn("OutboxRelay[name = {}] reached the in-flight limit of {} sends, {} messages are released for the " +
+                "next run.", name, maxInFlight, unsent.size());
+        unsent.forEach(message -> pendingAcknowledgements.add(new Acknowledgement<>(message, OutboxStatus.STARTED)));
+    }
+
+    private BiConsumer<M, OutboxStatus> acknowledgementCallback(AtomicBoolean settled, Semaphore inFlightPermits) {
+        long publishedAt = System.nanoTime();
+        return (outboxMessage, outboxStatus) -> {
+            boolean settlesInFlight = settled.compareAndSet(false, true);
+            try {
+                metrics.recordAcknowledged(outboxStatus, settlesInFlight);
+                metrics.recordAckLatency(System.nanoTime() - publishedAt);
+                // only queued here - the callback runs on the producer I/O thread, which should not wait for the
+                // database
+                pendingAcknowledgements.add(new Acknowledgement<>(outboxMessage, outboxStatus));
+            } finally {
+                if (settlesInFlight) {
+                    inFlightPermits.release();
+                }
+            }
+        };
+    }
+
+    private boolean acquirePermits(Semaphore inFlightPermits, int permits) {
+        try {
+            return inFlightPermits.tryAcquire(permits, drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void awaitInFlight(Semaphore inFlightPermits, List<AtomicBoolean> settledFlags) {
+        boolean drained;
+        try {
+            drained = inFlightPermits.tryAcquire(maxInFlight, drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+        if (drained) {
+            return;
+        }
+
+        // the acknowledgements that still arrive later are written at the start of the next run, they are just not
+        // waited for
+        int abandoned = (int) settledFlags.stream().filter(settled -> settled.compareAndSet(false, true)).count();
+        if (abandoned > 0) {
+            metrics.recordAbandoned(abandoned);
+            log.warn("OutboxRelay[name = {}] stopped waiting for {} unacknowledged sends after {} ms.",
+                    name, abandoned, drainTimeout.toMillis());
+        }
+    }
+
+    // writes the collected outcomes with one acknowledgement per status instead of one per message; a failed write
+    // leaves the rows leased, so they are published again once the lease expires
+    private void flushAcknowledgements() {
+        Map<OutboxStatus, List<M>> messagesByStatus = new EnumMap<>(OutboxStatus.class);
+        Acknowledgement<M> acknowledgement;
+        while ((acknowledgement = pendingAcknowledgements.poll()) != null) {
+            messagesByStatus.computeIfAbsent(acknowledgement.outboxStatus, outboxStatus -> new ArrayList<>())
+                    .add(acknowledgement.message);
+        }
+        messagesByStatus.forEach((outboxStatus, messages) -> {
+            try {
+                ackStrategy.acknowledge(messages, outboxStatus);
+            } catch (RuntimeException e) {
+                log.error("OutboxRelay[name = {}] could not update {} outbox messages with status {}!",
+                        name, messages.size(), outboxStatus.name(), e);
+            }
+        });
+    }
+
+    private static class Acknowledgement<M> {
+        private final M message;
+        private final OutboxStatus outboxStatus;
+
+        private Acknowledgement(M message, OutboxStatus outboxStatus) {
+            this.message = message;
+            this.outboxStatus = outboxStatus;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.food.ordering.system.outbox;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// plain counters, so the relay does not depend on any metrics library; they can be bound to a registry by the service
+public class OutboxRelayMetrics {
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong directPublished = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong publishErrors = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong wakeUps = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicLong pollDelayMs = new AtomicLong();
+    // from handing a message to the publisher until its broker outcome arrives
+    private final AtomicLong ackLatencyCount = new AtomicLong();
+    private final AtomicLong ackLatencyTotalNanos = new AtomicLong();
+
+    // recorded for every page of a run, a run that pages through a backlog counts as several runs
+    void recordRun(int batchSize) {
+        runs.incrementAndGet();
+        fetched.addAndGet(batchSize);
+        lastBatchSize.set(batchSize);
+    }
+
+    void recordPublished(int count) {
+        published.addAndGet(count);
+        inFlight.addAndGet(count);
+    }
+
+    // direct publishes are not part of a run, so they are not counted as in flight
+    void recordDirectPublished() {
+        directPublished.incrementAndGet();
+    }
+
+    // the FAILED messages a run fetched again; they are counted as fetched and published as well
+    void recordRetried(int count) {
+        retried.addAndGet(count);
+    }
+
+    void recordPublishErrors(int count) {
+        publishErrors.addAndGet(count);
+    }
+
+    void recordAcknowledged(OutboxStatus outboxStatus, boolean settlesInFlight) {
+        // a late acknowledgement (after the run stopped waiting for it) was already taken out of in-flight
+        if (settlesInFlight) {
+            inFlight.decrementAndGet();
+        }
+        if (outboxStatus == OutboxStatus.COMPLETED) {
+            completed.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    void recordAckLatency(long latencyNanos) {
+        ackLatencyCount.incrementAndGet();
+        ackLatencyTotalNanos.addAndGet(latencyNanos);
+    }
+
+    void recordWakeUp() {
+        wakeUps.incrementAndGet();
+    }
+
+    void recordPollDelay(long delayMs) {
+        pollDelayMs.set(delayMs);
+    }
+
+    void recordAbandoned(int count) {
+        abandoned.addAndGet(count);
+        inFlight.addAndGet(-count);
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getDirectPublished() {
+        return directPublished.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getPublishErrors() {
+        return publishErrors.get();
+    }
+
+    public long getAbandoned() {
+        return abandoned.get();
+    }
+
+    public long getWakeUps() {
+        return wakeUps.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize.get();
+    }
+
+    public long getAckLatencyCount() {
+        return ackLatencyCount.get();
+    }
+
+    public long getAckLatencyTotalNanos() {
+        return ackLatencyTotalNanos.get();
+    }
+
+    // the delay before the next relay run, as decided by the polling trigger after the last run
+    public long getPollDelayMs() {
+        return pollDelayMs.get();
+    }
+}
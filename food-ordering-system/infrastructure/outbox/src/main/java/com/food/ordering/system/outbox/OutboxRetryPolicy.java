@@ -0,0 +1,34 @@
+package com.food.ordering.system.outbox;
+
+import java.time.Duration;
+
+// How the failed sends of an outbox message are retried: the n-th failure (n starting at 1) schedules the next attempt
+// after min(maxBackoff, initialBackoff * 2^(n - 1)), scaled by a random factor in [0.5, 1), so the messages failed by
+// the same broker outage do not come back at the same moment; the failure that uses up `maxAttempts` parks the message
+// instead. The backoff is computed by the acknowledging update of the outbox table, this only carries the settings.
+public record OutboxRetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public OutboxRetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException(String.format("Outbox retry policy requires a positive number of " +
+                    "attempts, got %d!", maxAttempts));
+        }
+        if (initialBackoff == null || maxBackoff == null || initialBackoff.isNegative()
+                || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException(String.format("Outbox retry policy requires a non-negative initial " +
+                    "backoff not above the max backoff, got %s and %s!", initialBackoff, maxBackoff));
+        }
+    }
+
+    public static OutboxRetryPolicy ofMillis(int maxAttempts, long initialBackoffMs, long maxBackoffMs) {
+        return new OutboxRetryPolicy(maxAttempts, Duration.ofMillis(initialBackoffMs), Duration.ofMillis(maxBackoffMs));
+    }
+
+    public double initialBackoffSeconds() {
+        return initialBackoff.toMillis() / 1000.0;
+    }
+
+    public double maxBackoffSeconds() {
+        return maxBackoff.toMillis() / 1000.0;
+    }
+}
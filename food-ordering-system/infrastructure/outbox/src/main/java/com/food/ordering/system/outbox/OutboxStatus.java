@@ -2,5 +2,6 @@ package com.food.ordering.system.outbox;
 
 public enum OutboxStatus {
 
-    STARTED, COMPLETED, FAILED
+    // PARKED - the message failed on every one of its send attempts, it is not retried until an operator resets it
+    STARTED, COMPLETED, FAILED, PARKED
 }
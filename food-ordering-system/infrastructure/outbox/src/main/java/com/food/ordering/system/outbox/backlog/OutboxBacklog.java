@@ -0,0 +1,14 @@
+package com.food.ordering.system.outbox.backlog;
+
+import java.time.Instant;
+
+// a sample of an outbox table; the counts stop at the count limit of the sampler, oldestStartedAt is null when there is
+// no STARTED row
+public record OutboxBacklog(long startedCount,
+                            long failedCount,
+                            long parkedCount,
+                            Instant oldestStartedAt,
+                            Instant sampledAt) {
+
+    public static final OutboxBacklog EMPTY = new OutboxBacklog(0, 0, 0, null, null);
+}
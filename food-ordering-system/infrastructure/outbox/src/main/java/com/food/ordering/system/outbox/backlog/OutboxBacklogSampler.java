@@ -0,0 +1,161 @@
+package com.food.ordering.system.outbox.backlog;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Samples the backlog of the outbox tables - the STARTED, FAILED and PARKED rows and the creation time of the oldest
+// STARTED one - on its own thread, so a metrics scrape only reads the last sample instead of counting the rows. The
+// counts are bounded by `countLimit`, which keeps a sample cheap even when a relay has been stalled for a long time;
+// the age of the oldest row is computed from the sample at read time, so it keeps growing between the samples while
+// the relay stalls.
+@Slf4j
+public class OutboxBacklogSampler implements SmartLifecycle {
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String SAMPLE_QUERY = "SELECT " +
+            "(SELECT count(*) FROM (SELECT 1 FROM %1$s WHERE outbox_status = 'STARTED' LIMIT ?) started), " +
+            "(SELECT count(*) FROM (SELECT 1 FROM %1$s WHERE outbox_status = 'FAILED' LIMIT ?) failed), " +
+            "(SELECT count(*) FROM (SELECT 1 FROM %1$s WHERE outbox_status = 'PARKED' LIMIT ?) parked), " +
+            "(SELECT min(created_at) FROM %1$s WHERE outbox_status = 'STARTED')";
+
+    private final String name;
+    private final DataSource dataSource;
+    private final String schema;
+    private final List<String> tables;
+    private final int countLimit;
+    private final Duration sampleInterval;
+    private final Clock clock;
+    private final Map<String, OutboxBacklog> backlogs = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    @Builder
+    public OutboxBacklogSampler(String name,
+                                DataSource dataSource,
+                                String schema,
+                                List<String> tables,
+                                int countLimit,
+                                Duration sampleInterval,
+                                Clock clock) {
+        // identifiers are concatenated into the sample query, so only plain identifiers are allowed
+        validateIdentifier(name, schema);
+        tables.forEach(table -> validateIdentifier(name, table));
+        if (countLimit < 1) {
+            throw new IllegalArgumentException(String.format("OutboxBacklogSampler[name = %s] requires a positive " +
+                    "count limit, got %d!", name, countLimit));
+        }
+        this.name = name;
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.tables = List.copyOf(tables);
+        this.countLimit = countLimit;
+        this.sampleInterval = sampleInterval == null ? Duration.ofSeconds(15) : sampleInterval;
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+        this.tables.forEach(table -> backlogs.put(table, OutboxBacklog.EMPTY));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-backlog-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sample, 0, sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("OutboxBacklogSampler[name = {}] started for tables {}.", name, tables);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        log.info("OutboxBacklogSampler[name = {}] stopped.", name);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public List<String> getTables() {
+        return tables;
+    }
+
+    public OutboxBacklog getBacklog(String table) {
+        return backlogs.getOrDefault(table, OutboxBacklog.EMPTY);
+    }
+
+    // 0 when the table has no STARTED row
+    public Duration getOldestStartedAge(String table) {
+        Instant oldestStartedAt = getBacklog(table).oldestStartedAt();
+        if (oldestStartedAt == null) {
+            return Duration.ZERO;
+        }
+        Duration age = Duration.between(oldestStartedAt, clock.instant());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    public void sample() {
+        for (String table : tables) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(String.format(SAMPLE_QUERY,
+                         qualified(table)))) {
+                statement.setInt(1, countLimit);
+                statement.setInt(2, countLimit);
+                statement.setInt(3, countLimit);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    Timestamp oldestStartedAt = resultSet.getTimestamp(4);
+                    backlogs.put(table, new OutboxBacklog(
+                            resultSet.getLong(1),
+                            resultSet.getLong(2),
+                            resultSet.getLong(3),
+                            oldestStartedAt == null ? null : oldestStartedAt.toInstant(),
+                            clock.instant()
+                    ));
+                }
+            } catch (SQLException e) {
+                // the previous sample is kept, its sampledAt shows how stale it is
+                log.error("OutboxBacklogSampler[name = {}] could not sample {}.{}!", name, schema, table, e);
+            }
+        }
+    }
+
+    private String qualified(String table) {
+        // the schema name can be a reserved word, like "order"
+        return "\"" + schema + "\".\"" + table + "\"";
+    }
+
+    private static void validateIdentifier(String name, String identifier) {
+        if (identifier == null || !IDENTIFIER_PATTERN.matcher(identifier).matches()) {
+            throw new IllegalArgumentException(String.format("OutboxBacklogSampler[name = %s] got an invalid " +
+                    "identifier: %s", name, identifier));
+        }
+    }
+}
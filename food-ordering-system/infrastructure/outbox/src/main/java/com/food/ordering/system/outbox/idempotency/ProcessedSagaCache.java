@@ -0,0 +1,108 @@
+package com.food.ordering.system.outbox.idempotency;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Remembers the (sagaId, step) keys of the saga steps the service has recently committed, so a redelivered or resent
+// message of such a step is dropped before a transaction is opened and the outbox is queried for it. It only ever
+// answers for the keys it holds: a miss falls through to the outbox check, which stays the source of truth - after a
+// restart, on another instance and once a key is evicted. A key is added once the step's transaction has committed,
+// never before, so a step that rolled back is processed again.
+// Bounded by `capacity`, the oldest keys are evicted first; a capacity of 0 disables the cache.
+@Slf4j
+public class ProcessedSagaCache {
+
+    private final String name;
+    private final int capacity;
+    private final Set<Key> keys = ConcurrentHashMap.newKeySet();
+    private final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Key(UUID sagaId, String step) {
+    }
+
+    @Builder
+    public ProcessedSagaCache(String name, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format("ProcessedSagaCache[name = %s] requires a non-negative " +
+                    "capacity, got %d!", name, capacity));
+        }
+        this.name = name;
+        this.capacity = capacity;
+        log.info("ProcessedSagaCache[name = {}] is {}", name, capacity == 0 ? "disabled" :
+                String.format("bounded to %d keys", capacity));
+    }
+
+    public boolean isProcessed(UUID sagaId, String step) {
+        if (capacity == 0) {
+            return false;
+        }
+        if (keys.contains(new Key(sagaId, step))) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    // to be called after the transaction of the step has committed
+    public void markProcessed(UUID sagaId, String step) {
+        if (capacity == 0) {
+            return;
+        }
+        Key key = new Key(sagaId, step);
+        if (!keys.add(key)) {
+            return;
+        }
+        // queued before it is counted, so the queue never holds fewer keys than the size says
+        insertionOrder.add(key);
+        size.incrementAndGet();
+        evictOverflow();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private void evictOverflow() {
+        int current;
+        while ((current = size.get()) > capacity) {
+            // each decrement pays for exactly one eviction, so concurrent callers never evict more than the overflow
+            if (size.compareAndSet(current, current - 1)) {
+                keys.remove(insertionOrder.poll());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
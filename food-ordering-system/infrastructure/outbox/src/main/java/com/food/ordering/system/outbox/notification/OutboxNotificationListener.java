@@ -0,0 +1,174 @@
+package com.food.ordering.system.outbox.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Listens on Postgres notification channels (fed by the outbox insert triggers in init-schema.sql) and runs the matching
+// handler - usually OutboxRelay::wakeUp - as soon as an outbox row is committed. It uses its own connection outside of
+// the connection pool, since a listening connection is never given back. Notifications sent while the listener is
+// disconnected are lost, so the handlers are run once after every (re)connect and the relays keep polling as a safety
+// net.
+// The handlers run on a pool with a thread per channel, so the listener thread only drains the notifications and a
+// long relay run of one channel does not hold back the others. A channel has at most one run queued behind the one in
+// progress; the notifications arriving meanwhile are covered by that queued run.
+@Slf4j
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Map<String, Runnable> channelHandlers;
+    // per channel, whether a handler run is queued and not started yet
+    private final Map<String, AtomicBoolean> queuedRuns;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+    private volatile ExecutorService handlerExecutor;
+
+    public OutboxNotificationListener(String url,
+                                      String username,
+                                      String password,
+                                      Map<String, Runnable> channelHandlers,
+                                      Duration pollTimeout,
+                                      Duration reconnectDelay) {
+        channelHandlers.keySet().forEach(channel -> {
+            // channel names are concatenated into LISTEN statements, so only plain identifiers are allowed
+            if (!CHANNEL_NAME_PATTERN.matcher(channel).matches()) {
+                throw new IllegalArgumentException(String.format("Invalid outbox notification channel name: %s",
+                        channel));
+            }
+        });
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channelHandlers = Map.copyOf(channelHandlers);
+        this.queuedRuns = channelHandlers.keySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), channel -> new AtomicBoolean()));
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        AtomicInteger handlerThreads = new AtomicInteger();
+        handlerExecutor = Executors.newFixedThreadPool(channelHandlers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-notification-handler-" + handlerThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        listenerThread = new Thread(this::listen, "outbox-notification-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Outbox notification listener started for channels {}", channelHandlers.keySet());
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+            handlerExecutor = null;
+        }
+        log.info("Outbox notification listener stopped.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : channelHandlers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                // rows could have been committed while there was no listening connection
+                channelHandlers.keySet().forEach(this::runHandler);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    // several commits on the same channel are handled with a single relay run
+                    Arrays.stream(notifications)
+                            .map(PGNotification::getName)
+                            .distinct()
+                            .forEach(this::runHandler);
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Outbox notification listener lost its connection, reconnecting in {} ms!",
+                        reconnectDelay.toMillis(), e);
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void runHandler(String channel) {
+        Runnable handler = channelHandlers.get(channel);
+        ExecutorService executor = handlerExecutor;
+        if (handler == null || executor == null || !queuedRuns.get(channel).compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                // cleared before the run, so a notification arriving during it queues the next one
+                queuedRuns.get(channel).set(false);
+                try {
+                    handler.run();
+                } catch (RuntimeException e) {
+                    log.error("Outbox notification handler of channel {} failed!", channel, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the listener is stopping
+            queuedRuns.get(channel).set(false);
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.food.ordering.system.outbox.partition;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Maintains the daily range partitions (by created_at, in UTC) of the outbox tables declared with
+// `PARTITION BY RANGE (created_at)` in init-schema.sql. Partitions are named `<table>_p<yyyyMMdd>`; the ones of the
+// upcoming days are created ahead, so the rows never land in the default partition, and the ones older than the
+// retention are detached (and dropped) as a whole instead of deleting their rows one by one. A partition is kept while
+// any of its rows still matches the active row condition of its table (e.g. a STARTED outbox row or a saga in
+// progress), since the relays and the sagas still need it. The saga step keys of a retired partition's rows, kept in a
+// plain table because the unique indexes of a partitioned table have to contain created_at, are deleted with it.
+// The maintenance runs once when the context starts - before the Kafka listeners and the relays, see getPhase() - and
+// then periodically on its own thread.
+@Slf4j
+public class OutboxPartitionManager implements SmartLifecycle {
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final DateTimeFormatter PARTITION_SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String SELECT_PARTITIONS = "SELECT child.relname FROM pg_inherits " +
+            "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid " +
+            "JOIN pg_class child ON pg_inherits.inhrelid = child.oid " +
+            "JOIN pg_namespace ns ON parent.relnamespace = ns.oid " +
+            "WHERE ns.nspname = ? AND parent.relname = ?";
+    private static final String SELECT_DEFAULT_PARTITION = "SELECT child.relname FROM pg_partitioned_table " +
+            "JOIN pg_class parent ON pg_partitioned_table.partrelid = parent.oid " +
+            "JOIN pg_class child ON pg_partitioned_table.partdefid = child.oid " +
+            "JOIN pg_namespace ns ON parent.relnamespace = ns.oid " +
+            "WHERE ns.nspname = ? AND parent.relname = ?";
+    // how long a maintenance transaction waits for a lock before it gives up until the next run
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String name;
+    private final DataSource dataSource;
+    private final String schema;
+    private final Map<String, String> activeRowConditions;
+    private final Map<String, String> sagaStepTables;
+    private final int precreateDays;
+    private final int retentionDays;
+    private final boolean dropExpired;
+    private final Duration maintenanceInterval;
+    private final Clock clock;
+
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    // activeRowConditions - SQL conditions keyed by table name; a partition with a row matching the condition of its
+    // table is never detached
+    // sagaStepTables - the tables holding the saga step keys of the rows, keyed by table name; optional
+    @Builder
+    public OutboxPartitionManager(String name,
+                                  DataSource dataSource,
+                                  String schema,
+                                  Map<String, String> activeRowConditions,
+                                  Map<String, String> sagaStepTables,
+                                  int precreateDays,
+                                  int retentionDays,
+                                  boolean dropExpired,
+                                  Duration maintenanceInterval,
+                                  Clock clock) {
+        // identifiers are concatenated into DDL statements, so only plain identifiers are allowed
+        validateIdentifier(name, schema);
+        activeRowConditions.keySet().forEach(table -> validateIdentifier(name, table));
+        Map<String, String> stepTables = sagaStepTables == null ? Map.of() : sagaStepTables;
+        stepTables.values().forEach(table -> validateIdentifier(name, table));
+        if (precreateDays < 1 || retentionDays < 1) {
+            throw new IllegalArgumentException(String.format("OutboxPartitionManager[name = %s] requires positive " +
+                    "pre-create and retention days, got %d and %d!", name, precreateDays, retentionDays));
+        }
+        this.name = name;
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.activeRowConditions = Map.copyOf(activeRowConditions);
+        this.sagaStepTables = Map.copyOf(stepTables);
+        this.precreateDays = precreateDays;
+        this.retentionDays = retentionDays;
+        this.dropExpired = dropExpired;
+        this.maintenanceInterval = maintenanceInterval == null ? Duration.ofHours(1) : maintenanceInterval;
+        this.clock = clock == null ? Clock.systemUTC() : clock;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        maintain();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-partition-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::maintain, maintenanceInterval.toMillis(),
+                maintenanceInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("OutboxPartitionManager[name = {}] started for tables {}.", name, activeRowConditions.keySet());
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        log.info("OutboxPartitionManager[name = {}] stopped.", name);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // the partitions of today have to exist before anything writes into the outbox tables
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    public void maintain() {
+        LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+        activeRowConditions.forEach((table, activeRowCondition) -> {
+            try {
+                List<String> partitions = findDailyPartitions(table);
+                String defaultPartition = findDefaultPartition(table);
+                createUpcomingPartitions(table, defaultPartition, partitions, today);
+                reportDefaultPartitionRows(defaultPartition);
+                retireExpiredPartitions(table, activeRowCondition, partitions, today);
+            } catch (SQLException e) {
+                // the default partition catches the rows if a partition could not be created, the next run retries
+                log.error("OutboxPartitionManager[name = {}] could not maintain the partitions of {}.{}!",
+                        name, schema, table, e);
+            }
+        });
+    }
+
+    // each day is created on its own, so a day that fails (e.g. on the lock timeout) does not keep the later days from
+    // being created; the next run retries it
+    private void createUpcomingPartitions(String table, String defaultPartition, List<String> partitions,
+                                          LocalDate today) {
+        for (int day = 0; day <= precreateDays; day++) {
+            LocalDate from = today.plusDays(day);
+            String partition = partitionName(table, from);
+            if (partitions.contains(partition)) {
+                continue;
+            }
+            try {
+                createPartition(table, partition, defaultPartition, from);
+            } catch (SQLException e) {
+                log.error("OutboxPartitionManager[name = {}] could not create partition {}.{}!", name, schema,
+                        partition, e);
+            }
+        }
+    }
+
+    // the rows of the day that were caught by the default partition are moved into the new partition in the same
+    // transaction, since Postgres refuses a partition whose rows are in the default partition; the default partition
+    // is locked against writes meanwhile, so no row of the day can land there before the partition is attached
+    private void createPartition(String table, String partition, String defaultPartition, LocalDate from)
+            throws SQLException {
+        String bounds = String.format("FROM ('%s 00:00:00+00') TO ('%s 00:00:00+00')", from, from.plusDays(1));
+        inTransaction(statement -> {
+            long defaultRows = 0;
+            if (defaultPartition != null) {
+                statement.execute(String.format("LOCK TABLE %s IN EXCLUSIVE MODE", qualified(defaultPartition)));
+                defaultRows = count(statement, String.format("SELECT count(*) FROM %s WHERE %s",
+                        qualified(defaultPartition), createdAtRange(from)));
+            }
+            if (defaultRows == 0) {
+                statement.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES %s",
+                        qualified(partition), qualified(table), bounds));
+                log.info("OutboxPartitionManager[name = {}] created partition {}.{}.", name, schema, partition);
+                return true;
+            }
+            statement.execute(String.format("CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                    qualified(partition), qualified(table)));
+            statement.execute(String.format("WITH moved AS (DELETE FROM %s WHERE %s RETURNING *) " +
+                    "INSERT INTO %s SELECT * FROM moved", qualified(defaultPartition), createdAtRange(from),
+                    qualified(partition)));
+            statement.execute(String.format("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES %s",
+                    qualified(table), qualified(partition), bounds));
+            log.warn("OutboxPartitionManager[name = {}] created partition {}.{} and moved its {} rows out of the " +
+                    "default partition.", name, schema, partition, defaultRows);
+            return true;
+        });
+    }
+
+    // the rows of the days before the pre-created ones stay in the default partition, they are only reported
+    private void reportDefaultPartitionRows(String defaultPartition) throws SQLException {
+        if (defaultPartition == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            long defaultRows = count(statement, String.format("SELECT count(*) FROM %s", qualified(defaultPartition)));
+            if (defaultRows > 0) {
+                log.warn("OutboxPartitionManager[name = {}] found {} rows in the default partition {}.{}, they are " +
+                        "never retired!", name, defaultRows, schema, defaultPartition);
+            }
+        }
+    }
+
+    private void retireExpiredPartitions(String table, String activeRowCondition, List<String> partitions,
+                                         LocalDate today) {
+        // a partition is expired once its whole day is older than the retention
+        LocalDate oldestKept = today.minusDays(retentionDays);
+        for (String partition : partitions) {
+            LocalDate day = partitionDay(table, partition);
+            if (day == null || !day.isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                retirePartition(table, partition, activeRowCondition, day);
+            } catch (SQLException e) {
+                log.error("OutboxPartitionManager[name = {}] could not retire partition {}.{}!", name, schema,
+                        partition, e);
+            }
+        }
+    }
+
+    // the partition is locked against writes before it is checked for active rows, and detached, cleaned up and
+    // dropped in the same transaction, so no row can become active in between. DETACH PARTITION ... CONCURRENTLY would
+    // take a weaker lock on the parent table, but it cannot run in a transaction block, which would reopen that gap;
+    // the plain DETACH holds the ACCESS EXCLUSIVE lock on the parent only until the commit right after it, and the
+    // lock timeout keeps it from queuing the relays and the sagas behind a long transaction
+    private void retirePartition(String table, String partition, String activeRowCondition, LocalDate day)
+            throws SQLException {
+        boolean retired = inTransaction(statement -> {
+            statement.execute(String.format("LOCK TABLE %s IN SHARE MODE", qualified(partition)));
+            try (ResultSet resultSet = statement.executeQuery(String.format("SELECT 1 FROM %s WHERE %s LIMIT 1",
+                    qualified(partition), activeRowCondition))) {
+                if (resultSet.next()) {
+                    return false;
+                }
+            }
+            statement.execute(String.format("ALTER TABLE %s DETACH PARTITION %s",
+                    qualified(table), qualified(partition)));
+            if (sagaStepTables.containsKey(table)) {
+                statement.execute(String.format("DELETE FROM %s WHERE %s", qualified(sagaStepTables.get(table)),
+                        createdAtRange(day)));
+            }
+            if (dropExpired) {
+                statement.execute(String.format("DROP TABLE %s", qualified(partition)));
+            }
+            return true;
+        });
+        if (retired) {
+            log.info("OutboxPartitionManager[name = {}] {} expired partition {}.{}.", name,
+                    dropExpired ? "dropped" : "detached", schema, partition);
+        } else {
+            log.info("OutboxPartitionManager[name = {}] keeps expired partition {}.{}, it still has active rows.",
+                    name, schema, partition);
+        }
+    }
+
+    // runs the work in one transaction, committed when the work returns true and rolled back otherwise
+    private boolean inTransaction(TransactionWork work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(String.format("SET LOCAL lock_timeout = %d", LOCK_TIMEOUT.toMillis()));
+                if (work.execute(statement)) {
+                    connection.commit();
+                    return true;
+                }
+                connection.rollback();
+                return false;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<String> findDailyPartitions(String table) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_PARTITIONS)) {
+            statement.setString(1, schema);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    partitions.add(resultSet.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private String findDefaultPartition(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_DEFAULT_PARTITION)) {
+            statement.setString(1, schema);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static String createdAtRange(LocalDate day) {
+        return String.format("created_at >= '%s 00:00:00+00' AND created_at < '%s 00:00:00+00'", day,
+                day.plusDays(1));
+    }
+
+    // partitions not named by this manager (e.g. the default partition) are never touched
+    private static LocalDate partitionDay(String table, String partition) {
+        Matcher matcher = Pattern.compile(Pattern.quote(table) + "_p(\\d{8})").matcher(partition);
+        return matcher.matches() ? LocalDate.parse(matcher.group(1), PARTITION_SUFFIX_FORMATTER) : null;
+    }
+
+    private static String partitionName(String table, LocalDate day) {
+        return table + "_p" + day.format(PARTITION_SUFFIX_FORMATTER);
+    }
+
+    private String qualified(String table) {
+        // the schema name can be a reserved word, like "order"
+        return "\"" + schema + "\".\"" + table + "\"";
+    }
+
+    private static void validateIdentifier(String name, String identifier) {
+        if (identifier == null || !IDENTIFIER_PATTERN.matcher(identifier).matches()) {
+            throw new IllegalArgumentException(String.format("OutboxPartitionManager[name = %s] got an invalid " +
+                    "identifier: %s", name, identifier));
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionWork {
+        boolean execute(Statement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,227 @@
+package com.food.ordering.system.outbox.shard;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Splits the saga id space into `shardCount` shards and coordinates their ownership between the running instances
+// with Postgres advisory locks: a shard is owned by the instance holding the session lock (lockNamespace, shard), so
+// the rows of a saga are relayed by a single instance, in created_at order, and a compensating request cannot overtake
+// the original one on another instance. Every instance also holds a shared member lock, which lets them count each
+// other and take a fair share (ceil(shardCount / members)) of the shards; the surplus is given up on the next
+// rebalance and picked up by the instances below their share. The locks of an instance that died are released with
+// its connection, so its shards are taken over by the others.
+// It uses its own connection outside of the connection pool, since the session locks live as long as the connection.
+@Slf4j
+public class OutboxShardCoordinator implements SmartLifecycle {
+
+    // the second key of the member lock, above all shard keys
+    private static final int MEMBER_KEY = OutboxShards.MAX_SHARD_COUNT;
+    private static final String COUNT_MEMBERS = "SELECT count(*) FROM pg_locks " +
+            "WHERE locktype = 'advisory' AND classid = ?::oid AND objid = ?::oid AND objsubid = 2 AND granted";
+
+    private final String name;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int shardCount;
+    private final int lockNamespace;
+    private final Duration rebalanceInterval;
+    // relay runs hold the read lock, so a shard is only given up once the runs that could be publishing its rows are
+    // over
+    private final ReentrantReadWriteLock runLock = new ReentrantReadWriteLock();
+
+    private volatile OutboxShards ownedShards;
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+    // only used by the rebalance, under the monitor of this coordinator
+    private Connection connection;
+
+    // lockNamespace - the first key of the advisory locks, it defaults to a value derived from the name
+    @Builder
+    public OutboxShardCoordinator(String name,
+                                  String url,
+                                  String username,
+                                  String password,
+                                  int shardCount,
+                                  Integer lockNamespace,
+                                  Duration rebalanceInterval) {
+        this.ownedShards = new OutboxShards(shardCount, Set.of());
+        this.name = name;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.shardCount = shardCount;
+        // the key is compared with the (unsigned) classid of pg_locks, so it is kept positive
+        this.lockNamespace = lockNamespace == null ? name.hashCode() & Integer.MAX_VALUE : lockNamespace;
+        this.rebalanceInterval = rebalanceInterval == null ? Duration.ofSeconds(10) : rebalanceInterval;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        rebalance();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-shard-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rebalance, rebalanceInterval.toMillis(), rebalanceInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("OutboxShardCoordinator[name = {}] started with {} shards.", name, shardCount);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        // closing the connection releases all the locks, so the other instances take the shards over right away
+        ownedShards = new OutboxShards(shardCount, Set.of());
+        closeConnection();
+        log.info("OutboxShardCoordinator[name = {}] stopped.", name);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public OutboxShards getOwnedShards() {
+        return ownedShards;
+    }
+
+    public boolean owns(UUID sagaId) {
+        return ownedShards.contains(sagaId);
+    }
+
+    // runs a relay cycle; none of the shards it fetched is given up while it runs
+    public <T> T whileOwning(Supplier<T> relayRun) {
+        runLock.readLock().lock();
+        try {
+            return relayRun.get();
+        } finally {
+            runLock.readLock().unlock();
+        }
+    }
+
+    public synchronized void rebalance() {
+        try {
+            if (connection == null || connection.isClosed()) {
+                connect();
+            }
+            int members = countMembers();
+            int fairShare = (shardCount + members - 1) / members;
+            Set<Integer> shards = new TreeSet<>(ownedShards.shards());
+            if (shards.size() > fairShare) {
+                releaseSurplus(shards, fairShare);
+            } else if (shards.size() < fairShare) {
+                acquireFree(shards, fairShare);
+            }
+        } catch (SQLException e) {
+            // the session locks are gone with the connection, another instance may own the shards already
+            ownedShards = new OutboxShards(shardCount, Set.of());
+            closeConnection();
+            log.error("OutboxShardCoordinator[name = {}] lost its connection, its shards are given up!", name, e);
+        }
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_lock_shared(?, ?)")) {
+            statement.setInt(1, lockNamespace);
+            statement.setInt(2, MEMBER_KEY);
+            statement.execute();
+        }
+    }
+
+    private int countMembers() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_MEMBERS)) {
+            statement.setInt(1, lockNamespace);
+            statement.setInt(2, MEMBER_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                // this instance holds the member lock as well
+                return Math.max(resultSet.getInt(1), 1);
+            }
+        }
+    }
+
+    private void acquireFree(Set<Integer> shards, int fairShare) throws SQLException {
+        // the scan starts at a random shard, so instances joining together do not compete for the same locks
+        int offset = ThreadLocalRandom.current().nextInt(shardCount);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            for (int i = 0; i < shardCount && shards.size() < fairShare; i++) {
+                int shard = (offset + i) % shardCount;
+                if (shards.contains(shard)) {
+                    continue;
+                }
+                statement.setInt(1, lockNamespace);
+                statement.setInt(2, shard);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next() && resultSet.getBoolean(1)) {
+                        shards.add(shard);
+                        // published right away, the relay runs pick the shard up with their next fetch
+                        ownedShards = new OutboxShards(shardCount, shards);
+                        log.info("OutboxShardCoordinator[name = {}] acquired shard {}.", name, shard);
+                    }
+                }
+            }
+        }
+    }
+
+    private void releaseSurplus(Set<Integer> shards, int fairShare) throws SQLException {
+        Set<Integer> released = new TreeSet<>();
+        shards.stream().skip(fairShare).forEach(released::add);
+        shards.removeAll(released);
+        runLock.writeLock().lock();
+        try {
+            ownedShards = new OutboxShards(shardCount, shards);
+        } finally {
+            runLock.writeLock().unlock();
+        }
+        // no relay run of this instance fetches the released shards anymore, so they can be handed over
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?, ?)")) {
+            for (int shard : released) {
+                statement.setInt(1, lockNamespace);
+                statement.setInt(2, shard);
+                statement.execute();
+            }
+        }
+        log.info("OutboxShardCoordinator[name = {}] released shards {} over its fair share of {}.",
+                name, released, fairShare);
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("OutboxShardCoordinator[name = {}] could not close its connection.", name, e);
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.food.ordering.system.outbox.shard;
+
+import java.util.Set;
+import java.util.UUID;
+
+// The shards of the saga id space a relay publishes; a row belongs to shard `hash(saga_id) % shardCount`, where the
+// hash is the last two bytes of the (random) saga id - the sharded claim queries compute the same expression in SQL:
+// `(get_byte(uuid_send(saga_id), 14) * 256 + get_byte(uuid_send(saga_id), 15)) % shardCount`
+public record OutboxShards(int shardCount, Set<Integer> shards) {
+
+    public static final int MAX_SHARD_COUNT = 65536;
+
+    // a single shard holding every saga, i.e. no sharding at all
+    public static final OutboxShards ALL = new OutboxShards(1, Set.of(0));
+
+    public OutboxShards {
+        if (shardCount < 1 || shardCount > MAX_SHARD_COUNT) {
+            throw new IllegalArgumentException(String.format("Outbox shard count must be between 1 and %d, got %d!",
+                    MAX_SHARD_COUNT, shardCount));
+        }
+        shards = Set.copyOf(shards);
+    }
+
+    public static int shardOf(UUID sagaId, int shardCount) {
+        return (int) (sagaId.getLeastSignificantBits() & 0xFFFF) % shardCount;
+    }
+
+    public boolean contains(UUID sagaId) {
+        return shards.contains(shardOf(sagaId, shardCount));
+    }
+
+    public boolean isAll() {
+        return shardCount == 1 && shards.contains(0);
+    }
+
+    public boolean isEmpty() {
+        return shards.isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package com.food.ordering.system.outbox;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+
+class OutboxPollingTriggerTest {
+
+    @Test
+    void testFullBatchRunsAgainRightAway() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.adaptive(0, 100, 10000, 2.0);
+
+        trigger.onRelayCompleted(50, 50);
+
+        Assertions.assertEquals(0, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testPartialBatchWaitsTheMinDelay() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.adaptive(0, 100, 10000, 2.0);
+        trigger.onRelayCompleted(50, 50);
+
+        trigger.onRelayCompleted(10, 50);
+
+        Assertions.assertEquals(100, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testEmptyBatchesBackOffUpToTheMaxDelay() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.adaptive(0, 100, 1000, 2.0);
+
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(200, trigger.getCurrentDelayMs());
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(400, trigger.getCurrentDelayMs());
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(800, trigger.getCurrentDelayMs());
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(1000, trigger.getCurrentDelayMs());
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(1000, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testEmptyBatchAfterAFullOneWaitsAtLeastTheMinDelay() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.adaptive(0, 100, 1000, 2.0);
+        trigger.onRelayCompleted(50, 50);
+
+        trigger.onRelayCompleted(0, 50);
+
+        Assertions.assertEquals(100, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testFixedModeIgnoresTheRunOutcome() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.fixed(500, 0);
+
+        trigger.onRelayCompleted(50, 50);
+        Assertions.assertEquals(500, trigger.getCurrentDelayMs());
+        trigger.onRelayCompleted(0, 50);
+        Assertions.assertEquals(500, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testMissingModeIsAFixedMaxDelay() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.of(null, 0, 100, 1000, 2.0);
+
+        Assertions.assertEquals(OutboxPollingMode.FIXED, trigger.getMode());
+        Assertions.assertEquals(1000, trigger.getCurrentDelayMs());
+    }
+
+    @Test
+    void testNextExecutionTime() {
+        OutboxPollingTrigger trigger = OutboxPollingTrigger.adaptive(5000, 100, 1000, 2.0);
+        long before = System.currentTimeMillis();
+        Date first = trigger.nextExecutionTime(new SimpleTriggerContext());
+        Assertions.assertTrue(first.getTime() >= before + 5000);
+
+        trigger.onRelayCompleted(10, 50);
+        Date lastCompletion = new Date(1_000_000L);
+        Date next = trigger.nextExecutionTime(new SimpleTriggerContext(lastCompletion, lastCompletion,
+                lastCompletion));
+
+        Assertions.assertEquals(1_000_100L, next.getTime());
+    }
+}
@@ -0,0 +1,323 @@
+package com.food.ordering.system.outbox;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class OutboxRelayTest {
+
+    private static final ZonedDateTime CREATED_AT = ZonedDateTime.of(2022, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final List<OutboxCursor> fetchedAfter = new CopyOnWriteArrayList<>();
+    private final List<Ack> acks = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testRelayPagesThroughTheBacklogByCursor() {
+        List<TestMessage> backlog = messages(5);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .batchSize(2)
+                .maxPagesPerRun(10)
+                .build();
+
+        int fetched = relay.relay();
+
+        Assertions.assertEquals(1, fetched);
+        Assertions.assertEquals(List.of(OutboxCursor.START, backlog.get(1).cursor(), backlog.get(3).cursor()),
+                fetchedAfter);
+        Assertions.assertEquals(backlog, acknowledged(OutboxStatus.COMPLETED));
+    }
+
+    @Test
+    void testRelayStopsAfterMaxPagesPerRun() {
+        List<TestMessage> backlog = messages(10);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .batchSize(2)
+                .maxPagesPerRun(2)
+                .build();
+
+        int fetched = relay.relay();
+
+        Assertions.assertEquals(2, fetched);
+        Assertions.assertEquals(2, fetchedAfter.size());
+        Assertions.assertEquals(backlog.subList(0, 4), acknowledged(OutboxStatus.COMPLETED));
+    }
+
+    @Test
+    void testAcknowledgementsAreGroupedByStatus() {
+        List<TestMessage> backlog = messages(4);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> callback.accept(message,
+                        message.index() % 2 == 0 ? OutboxStatus.COMPLETED : OutboxStatus.FAILED))
+                .batchSize(10)
+                .build();
+
+        relay.relay();
+
+        Assertions.assertEquals(2, acks.size());
+        Assertions.assertEquals(List.of(backlog.get(0), backlog.get(2)), acknowledged(OutboxStatus.COMPLETED));
+        Assertions.assertEquals(List.of(backlog.get(1), backlog.get(3)), acknowledged(OutboxStatus.FAILED));
+        Assertions.assertEquals(2, relay.getMetrics().getCompleted());
+        Assertions.assertEquals(2, relay.getMetrics().getFailed());
+    }
+
+    @Test
+    void testBatchPublishAcknowledgementsAreGroupedByStatus() {
+        List<TestMessage> backlog = messages(6);
+        List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .batchPublishStrategy((messages, callback) -> {
+                    chunkSizes.add(messages.size());
+                    messages.forEach(message -> callback.accept(message,
+                            message.index() < 4 ? OutboxStatus.COMPLETED : OutboxStatus.FAILED));
+                })
+                .batchSize(10)
+                .maxInFlight(4)
+                .build();
+
+        relay.relay();
+
+        Assertions.assertEquals(List.of(4, 2), chunkSizes);
+        Assertions.assertEquals(2, acks.size());
+        Assertions.assertEquals(backlog.subList(0, 4), acknowledged(OutboxStatus.COMPLETED));
+        Assertions.assertEquals(backlog.subList(4, 6), acknowledged(OutboxStatus.FAILED));
+    }
+
+    @Test
+    void testRetriesFillTheLastPageAfterTheFreshMessages() {
+        List<TestMessage> backlog = messages(1);
+        List<TestMessage> failed = messages(5).subList(1, 5);
+        List<Integer> retryBatchSizes = new ArrayList<>();
+        List<TestMessage> published = new CopyOnWriteArrayList<>();
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> {
+                    published.add(message);
+                    callback.accept(message, OutboxStatus.COMPLETED);
+                })
+                .retryFetchStrategy((after, batchSize) -> {
+                    retryBatchSizes.add(batchSize);
+                    return failed.subList(0, Math.min(batchSize, failed.size()));
+                })
+                .retryBatchSize(2)
+                .batchSize(4)
+                .build();
+
+        int fetched = relay.relay();
+
+        Assertions.assertEquals(3, fetched);
+        Assertions.assertEquals(List.of(2), retryBatchSizes);
+        Assertions.assertEquals(List.of(backlog.get(0), failed.get(0), failed.get(1)), published);
+        Assertions.assertEquals(2, relay.getMetrics().getRetried());
+    }
+
+    @Test
+    void testRetriesAreNotFetchedForAFullPage() {
+        List<TestMessage> backlog = messages(4);
+        List<Integer> retryBatchSizes = new ArrayList<>();
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .retryFetchStrategy((after, batchSize) -> {
+                    retryBatchSizes.add(batchSize);
+                    return List.of();
+                })
+                .batchSize(4)
+                .maxPagesPerRun(1)
+                .build();
+
+        relay.relay();
+
+        Assertions.assertTrue(retryBatchSizes.isEmpty());
+    }
+
+    @Test
+    void testMessageThatCouldNotBePublishedIsAcknowledgedAsFailed() {
+        List<TestMessage> backlog = messages(3);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> {
+                    if (message.index() == 1) {
+                        throw new IllegalStateException("broker is not available");
+                    }
+                    callback.accept(message, OutboxStatus.COMPLETED);
+                })
+                .batchSize(10)
+                .build();
+
+        relay.relay();
+
+        Assertions.assertEquals(List.of(backlog.get(0), backlog.get(2)), acknowledged(OutboxStatus.COMPLETED));
+        Assertions.assertEquals(List.of(backlog.get(1)), acknowledged(OutboxStatus.FAILED));
+        Assertions.assertEquals(1, relay.getMetrics().getPublishErrors());
+        Assertions.assertEquals(0, relay.getMetrics().getAbandoned());
+        Assertions.assertEquals(0, relay.getMetrics().getInFlight());
+    }
+
+    @Test
+    void testMessageCalledBackBeforeThePublisherThrewKeepsItsOutcome() {
+        List<TestMessage> backlog = messages(1);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> {
+                    callback.accept(message, OutboxStatus.FAILED);
+                    throw new IllegalStateException("broker is not available");
+                })
+                .batchSize(10)
+                .build();
+
+        relay.relay();
+
+        // a single failed attempt, not two
+        Assertions.assertEquals(1, acks.size());
+        Assertions.assertEquals(backlog, acknowledged(OutboxStatus.FAILED));
+    }
+
+    @Test
+    void testRestOfAChunkThatCouldNotBePublishedIsAcknowledgedAsFailed() {
+        List<TestMessage> backlog = messages(3);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .batchPublishStrategy((messages, callback) -> {
+                    callback.accept(messages.get(0), OutboxStatus.COMPLETED);
+                    throw new IllegalStateException("broker is not available");
+                })
+                .batchSize(10)
+                .build();
+
+        relay.relay();
+
+        Assertions.assertEquals(backlog.subList(0, 1), acknowledged(OutboxStatus.COMPLETED));
+        Assertions.assertEquals(backlog.subList(1, 3), acknowledged(OutboxStatus.FAILED));
+        Assertions.assertEquals(2, relay.getMetrics().getPublishErrors());
+    }
+
+    @Test
+    void testRunStopsWaitingForUnacknowledgedSendsAfterTheDrainTimeout() {
+        List<TestMessage> backlog = messages(2);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> { })
+                .batchSize(10)
+                .drainTimeout(Duration.ofMillis(50))
+                .build();
+
+        relay.relay();
+
+        Assertions.assertTrue(acks.isEmpty());
+        Assertions.assertEquals(2, relay.getMetrics().getAbandoned());
+    }
+
+    @Test
+    void testMessagesLeftOverAtTheInFlightLimitAreReleased() {
+        List<TestMessage> backlog = messages(3);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) -> {
+                    if (message.index() > 0) {
+                        callback.accept(message, OutboxStatus.COMPLETED);
+                    }
+                })
+                .batchSize(10)
+                .maxInFlight(1)
+                .drainTimeout(Duration.ofMillis(50))
+                .build();
+
+        relay.relay();
+
+        // the first send holds the only permit, the others are handed back without being sent
+        Assertions.assertEquals(backlog.subList(1, 3), acknowledged(OutboxStatus.STARTED));
+        Assertions.assertTrue(acknowledged(OutboxStatus.COMPLETED).isEmpty());
+        Assertions.assertEquals(1, relay.getMetrics().getPublished());
+    }
+
+    @Test
+    void testChunksLeftOverAtTheInFlightLimitAreReleased() {
+        List<TestMessage> backlog = messages(5);
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .batchPublishStrategy((messages, callback) -> { })
+                .batchSize(10)
+                .maxInFlight(2)
+                .drainTimeout(Duration.ofMillis(50))
+                .build();
+
+        relay.relay();
+
+        Assertions.assertEquals(backlog.subList(2, 5), acknowledged(OutboxStatus.STARTED));
+        Assertions.assertEquals(2, relay.getMetrics().getAbandoned());
+    }
+
+    @Test
+    void testLateAcknowledgementIsWrittenByTheNextRun() {
+        List<TestMessage> backlog = messages(1);
+        List<Runnable> lateCallbacks = new ArrayList<>();
+        OutboxRelay<TestMessage> relay = relayBuilder(backlog)
+                .publishStrategy((message, callback) ->
+                        lateCallbacks.add(() -> callback.accept(message, OutboxStatus.COMPLETED)))
+                .batchSize(10)
+                .drainTimeout(Duration.ofMillis(50))
+                .build();
+
+        relay.relay();
+        lateCallbacks.forEach(Runnable::run);
+        Assertions.assertTrue(acks.isEmpty());
+        relay.relay();
+
+        Assertions.assertEquals(backlog, acknowledged(OutboxStatus.COMPLETED));
+    }
+
+    @Test
+    void testRelayRequiresItsStrategies() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OutboxRelay.<TestMessage>builder()
+                .name("test")
+                .batchSize(10)
+                .maxInFlight(10)
+                .build());
+    }
+
+    private OutboxRelay.OutboxRelayBuilder<TestMessage> relayBuilder(List<TestMessage> backlog) {
+        return OutboxRelay.<TestMessage>builder()
+                .name("test")
+                .fetchStrategy((after, batchSize) -> {
+                    fetchedAfter.add(after);
+                    return backlog.stream()
+                            .filter(message -> isAfter(message.cursor(), after))
+                            .limit(batchSize)
+                            .collect(Collectors.toList());
+                })
+                .publishStrategy((message, callback) -> callback.accept(message, OutboxStatus.COMPLETED))
+                .ackStrategy((messages, outboxStatus) -> acks.add(new Ack(List.copyOf(messages), outboxStatus)))
+                .cursorExtractor(TestMessage::cursor)
+                .maxPagesPerRun(1)
+                .maxInFlight(10)
+                .drainTimeout(Duration.ofSeconds(5));
+    }
+
+    private List<TestMessage> acknowledged(OutboxStatus outboxStatus) {
+        return acks.stream()
+                .filter(ack -> ack.outboxStatus() == outboxStatus)
+                .flatMap(ack -> ack.messages().stream())
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isAfter(OutboxCursor cursor, OutboxCursor after) {
+        int byCreatedAt = cursor.createdAt().compareTo(after.createdAt());
+        return byCreatedAt > 0 || byCreatedAt == 0 && cursor.id().compareTo(after.id()) > 0;
+    }
+
+    private static List<TestMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(index -> new TestMessage(index, CREATED_AT.plusSeconds(index), UUID.randomUUID()))
+                .collect(Collectors.toList());
+    }
+
+    private record TestMessage(int index, ZonedDateTime createdAt, UUID id) {
+
+        OutboxCursor cursor() {
+            return new OutboxCursor(createdAt, id);
+        }
+    }
+
+    private record Ack(List<TestMessage> messages, OutboxStatus outboxStatus) {
+    }
+}
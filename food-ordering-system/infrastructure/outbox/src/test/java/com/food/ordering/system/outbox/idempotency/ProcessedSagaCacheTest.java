@@ -0,0 +1,100 @@
+package com.food.ordering.system.outbox.idempotency;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class ProcessedSagaCacheTest {
+
+    private static final String STEP = "COMPLETED";
+
+    @Test
+    void testMarkedStepIsProcessed() {
+        ProcessedSagaCache cache = ProcessedSagaCache.builder().name("test").capacity(10).build();
+        UUID sagaId = UUID.randomUUID();
+
+        Assertions.assertFalse(cache.isProcessed(sagaId, STEP));
+        cache.markProcessed(sagaId, STEP);
+
+        Assertions.assertTrue(cache.isProcessed(sagaId, STEP));
+        Assertions.assertFalse(cache.isProcessed(sagaId, "CANCELLED"));
+        Assertions.assertFalse(cache.isProcessed(UUID.randomUUID(), STEP));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void testMarkingAStepTwiceKeepsOneKey() {
+        ProcessedSagaCache cache = ProcessedSagaCache.builder().name("test").capacity(10).build();
+        UUID sagaId = UUID.randomUUID();
+
+        cache.markProcessed(sagaId, STEP);
+        cache.markProcessed(sagaId, STEP);
+
+        Assertions.assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void testOldestKeysAreEvictedFirst() {
+        ProcessedSagaCache cache = ProcessedSagaCache.builder().name("test").capacity(2).build();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        cache.markProcessed(first, STEP);
+        cache.markProcessed(second, STEP);
+        cache.markProcessed(third, STEP);
+
+        Assertions.assertFalse(cache.isProcessed(first, STEP));
+        Assertions.assertTrue(cache.isProcessed(second, STEP));
+        Assertions.assertTrue(cache.isProcessed(third, STEP));
+        Assertions.assertEquals(2, cache.getSize());
+        Assertions.assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testCapacityOfZeroDisablesTheCache() {
+        ProcessedSagaCache cache = ProcessedSagaCache.builder().name("test").capacity(0).build();
+        UUID sagaId = UUID.randomUUID();
+
+        cache.markProcessed(sagaId, STEP);
+
+        Assertions.assertFalse(cache.isProcessed(sagaId, STEP));
+        Assertions.assertEquals(0, cache.getSize());
+        Assertions.assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testNegativeCapacityIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ProcessedSagaCache.builder().name("test").capacity(-1).build());
+    }
+
+    @Test
+    void testConcurrentMarksStayWithinTheCapacity() throws Exception {
+        ProcessedSagaCache cache = ProcessedSagaCache.builder().name("test").capacity(100).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(Executors.callable(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        cache.markProcessed(UUID.randomUUID(), STEP);
+                    }
+                }));
+            }
+            executor.invokeAll(tasks);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(100, cache.getSize());
+        Assertions.assertEquals(8000 - 100, cache.getEvictions());
+    }
+}
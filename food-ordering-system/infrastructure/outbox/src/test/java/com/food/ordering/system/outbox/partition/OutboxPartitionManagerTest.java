@@ -0,0 +1,190 @@
+package com.food.ordering.system.outbox.partition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class OutboxPartitionManagerTest {
+
+    private static final String TABLE = "payment_outbox";
+    private static final String DEFAULT_PARTITION = "payment_outbox_default";
+    // today is 2024-03-10, so with a retention of 7 days the partitions before 2024-03-03 are expired
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T12:00:00Z"), ZoneOffset.UTC);
+
+    private final List<String> executed = new ArrayList<>();
+    private List<String> partitions = List.of();
+    private String defaultPartition;
+    private Function<String, List<Object>> queryResults = sql -> List.of();
+    private String failingStatement;
+
+    private OutboxPartitionManager outboxPartitionManager;
+
+    @BeforeEach
+    void init() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.doAnswer(invocation -> executed.add("COMMIT")).when(connection).commit();
+        Mockito.doAnswer(invocation -> executed.add("ROLLBACK")).when(connection).rollback();
+        Mockito.when(statement.execute(Mockito.anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            executed.add(sql);
+            if (failingStatement != null && sql.contains(failingStatement)) {
+                throw new SQLException("canceling statement due to lock timeout");
+            }
+            return false;
+        });
+        Mockito.when(statement.executeQuery(Mockito.anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            executed.add(sql);
+            return resultSet(queryResults.apply(sql));
+        });
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+            Mockito.when(preparedStatement.executeQuery()).thenAnswer(query -> sql.contains("partdefid") ?
+                    resultSet(defaultPartition == null ? List.of() : List.of(defaultPartition)) :
+                    resultSet(new ArrayList<>(partitions)));
+            return preparedStatement;
+        });
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        outboxPartitionManager = OutboxPartitionManager.builder()
+                .name("Test")
+                .dataSource(dataSource)
+                .schema("order")
+                .activeRowConditions(Map.of(TABLE, "outbox_status = 'STARTED'"))
+                .sagaStepTables(Map.of(TABLE, "payment_outbox_saga_step"))
+                .precreateDays(1)
+                .retentionDays(7)
+                .dropExpired(true)
+                .clock(CLOCK)
+                .build();
+    }
+
+    @Test
+    void testMissingUpcomingPartitionsAreCreated() {
+        partitions = List.of("payment_outbox_p20240310");
+
+        outboxPartitionManager.maintain();
+
+        Assertions.assertFalse(executed.stream().anyMatch(sql -> sql.contains("payment_outbox_p20240310")));
+        Assertions.assertTrue(executed.contains("CREATE TABLE IF NOT EXISTS \"order\".\"payment_outbox_p20240311\" " +
+                "PARTITION OF \"order\".\"payment_outbox\" " +
+                "FOR VALUES FROM ('2024-03-11 00:00:00+00') TO ('2024-03-12 00:00:00+00')"));
+        Assertions.assertEquals("COMMIT", executed.get(executed.size() - 1));
+    }
+
+    @Test
+    void testDayThatCouldNotBeCreatedDoesNotKeepTheLaterDaysFromBeingCreated() {
+        failingStatement = "payment_outbox_p20240310";
+
+        outboxPartitionManager.maintain();
+
+        int failed = indexOf("CREATE TABLE IF NOT EXISTS \"order\".\"payment_outbox_p20240310\"");
+        Assertions.assertEquals("ROLLBACK", executed.get(failed + 1));
+        int created = indexOf("CREATE TABLE IF NOT EXISTS \"order\".\"payment_outbox_p20240311\"");
+        Assertions.assertTrue(created > failed);
+        Assertions.assertEquals("COMMIT", executed.get(created + 1));
+    }
+
+    @Test
+    void testRowsCaughtByTheDefaultPartitionAreMovedIntoTheNewPartition() {
+        partitions = List.of(DEFAULT_PARTITION, "payment_outbox_p20240311");
+        defaultPartition = DEFAULT_PARTITION;
+        queryResults = sql -> sql.contains("created_at >= '2024-03-10 00:00:00+00'") ? List.of(3L) : List.of(0L);
+
+        outboxPartitionManager.maintain();
+
+        int locked = indexOf("LOCK TABLE \"order\".\"payment_outbox_default\" IN EXCLUSIVE MODE");
+        Assertions.assertEquals(List.of(
+                        "SELECT count(*) FROM \"order\".\"payment_outbox_default\" " +
+                                "WHERE created_at >= '2024-03-10 00:00:00+00' AND created_at < '2024-03-11 00:00:00+00'",
+                        "CREATE TABLE \"order\".\"payment_outbox_p20240310\" " +
+                                "(LIKE \"order\".\"payment_outbox\" INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                        "WITH moved AS (DELETE FROM \"order\".\"payment_outbox_default\" " +
+                                "WHERE created_at >= '2024-03-10 00:00:00+00' AND created_at < '2024-03-11 00:00:00+00' " +
+                                "RETURNING *) INSERT INTO \"order\".\"payment_outbox_p20240310\" SELECT * FROM moved",
+                        "ALTER TABLE \"order\".\"payment_outbox\" ATTACH PARTITION \"order\".\"payment_outbox_p20240310\" " +
+                                "FOR VALUES FROM ('2024-03-10 00:00:00+00') TO ('2024-03-11 00:00:00+00')",
+                        "COMMIT"),
+                executed.subList(locked + 1, locked + 6));
+    }
+
+    @Test
+    void testExpiredPartitionIsCheckedAndRetiredInOneTransaction() {
+        partitions = List.of("payment_outbox_p20240301", "payment_outbox_p20240303", "payment_outbox_p20240310",
+                "payment_outbox_p20240311");
+
+        outboxPartitionManager.maintain();
+
+        int locked = indexOf("SET LOCAL lock_timeout");
+        Assertions.assertEquals(List.of(
+                        "LOCK TABLE \"order\".\"payment_outbox_p20240301\" IN SHARE MODE",
+                        "SELECT 1 FROM \"order\".\"payment_outbox_p20240301\" WHERE outbox_status = 'STARTED' LIMIT 1",
+                        "ALTER TABLE \"order\".\"payment_outbox\" DETACH PARTITION \"order\".\"payment_outbox_p20240301\"",
+                        "DELETE FROM \"order\".\"payment_outbox_saga_step\" " +
+                                "WHERE created_at >= '2024-03-01 00:00:00+00' AND created_at < '2024-03-02 00:00:00+00'",
+                        "DROP TABLE \"order\".\"payment_outbox_p20240301\"",
+                        "COMMIT"),
+                executed.subList(locked + 1, locked + 7));
+        // the partition of the oldest kept day is not expired yet
+        Assertions.assertFalse(executed.stream().anyMatch(sql -> sql.contains("DETACH PARTITION \"order\"." +
+                "\"payment_outbox_p20240303\"")));
+    }
+
+    @Test
+    void testExpiredPartitionWithActiveRowsIsKept() {
+        partitions = List.of("payment_outbox_p20240301", "payment_outbox_p20240310", "payment_outbox_p20240311");
+        queryResults = sql -> sql.startsWith("SELECT 1 FROM") ? List.of(1) : List.of();
+
+        outboxPartitionManager.maintain();
+
+        Assertions.assertFalse(executed.stream().anyMatch(sql -> sql.contains("DETACH PARTITION")));
+        Assertions.assertFalse(executed.stream().anyMatch(sql -> sql.startsWith("DROP TABLE")));
+        Assertions.assertEquals("ROLLBACK", executed.get(executed.size() - 1));
+    }
+
+    private int indexOf(String sqlPrefix) {
+        for (int i = 0; i < executed.size(); i++) {
+            if (executed.get(i).startsWith(sqlPrefix)) {
+                return i;
+            }
+        }
+        return Assertions.fail("not executed: " + sqlPrefix);
+    }
+
+    private static ResultSet resultSet(List<?> rows) throws SQLException {
+        Iterator<?> iterator = rows.iterator();
+        Object[] current = new Object[1];
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current[0] = iterator.next();
+            return true;
+        });
+        Mockito.when(resultSet.getString(1)).thenAnswer(invocation -> current[0]);
+        Mockito.when(resultSet.getLong(1)).thenAnswer(invocation -> ((Number) current[0]).longValue());
+        return resultSet;
+    }
+}
@@ -0,0 +1,62 @@
+package com.food.ordering.system.outbox.shard;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+class OutboxShardsTest {
+
+    @Test
+    void testShardOfMatchesTheSqlShardExpression() {
+        Random random = new Random(42);
+        for (int shardCount : new int[]{1, 2, 3, 7, 16, 1000, OutboxShards.MAX_SHARD_COUNT}) {
+            for (int i = 0; i < 1000; i++) {
+                UUID sagaId = new UUID(random.nextLong(), random.nextLong());
+                Assertions.assertEquals(sqlShardOf(sagaId, shardCount), OutboxShards.shardOf(sagaId, shardCount),
+                        String.format("saga id %s, shard count %d", sagaId, shardCount));
+            }
+        }
+    }
+
+    @Test
+    void testShardOfUsesTheLastTwoBytesOfTheSagaId() {
+        UUID sagaId = UUID.fromString("d215b5f8-0249-4dc5-89a3-0000000001ff");
+        Assertions.assertEquals(511, OutboxShards.shardOf(sagaId, 1000));
+        Assertions.assertEquals(3, OutboxShards.shardOf(sagaId, 4));
+        Assertions.assertEquals(0, OutboxShards.shardOf(sagaId, 1));
+        // a last byte of 0xff must not be taken as a negative number
+        Assertions.assertEquals(65535, OutboxShards.shardOf(UUID.fromString("d215b5f8-0249-4dc5-89a3-00000000ffff"),
+                OutboxShards.MAX_SHARD_COUNT));
+    }
+
+    @Test
+    void testContains() {
+        OutboxShards outboxShards = new OutboxShards(4, Set.of(1, 3));
+        Assertions.assertTrue(outboxShards.contains(UUID.fromString("d215b5f8-0249-4dc5-89a3-000000000001")));
+        Assertions.assertFalse(outboxShards.contains(UUID.fromString("d215b5f8-0249-4dc5-89a3-000000000002")));
+        Assertions.assertTrue(outboxShards.contains(UUID.fromString("d215b5f8-0249-4dc5-89a3-000000000007")));
+        Assertions.assertTrue(OutboxShards.ALL.isAll());
+        Assertions.assertFalse(outboxShards.isAll());
+    }
+
+    @Test
+    void testShardCountMustBeInRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OutboxShards(0, Set.of()));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new OutboxShards(OutboxShards.MAX_SHARD_COUNT + 1, Set.of()));
+    }
+
+    // (get_byte(uuid_send(saga_id), 14) * 256 + get_byte(uuid_send(saga_id), 15)) % shardCount, with uuid_send giving
+    // the 16 bytes of the uuid in network order and get_byte an unsigned byte
+    private static int sqlShardOf(UUID sagaId, int shardCount) {
+        byte[] uuidSend = ByteBuffer.allocate(16)
+                .putLong(sagaId.getMostSignificantBits())
+                .putLong(sagaId.getLeastSignificantBits())
+                .array();
+        return (Byte.toUnsignedInt(uuidSend[14]) * 256 + Byte.toUnsignedInt(uuidSend[15])) % shardCount;
+    }
+}
@@ -1,13 +1,190 @@
 package com.food.ordering.system.order.service.domain;
 
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.metrics.KafkaConsumerMeterBinder;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.RestaurantApprovalOutboxChangeHandler;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.RestaurantApprovalOutboxCleanerScheduler;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.RestaurantApprovalOutboxScheduler;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxChangeHandler;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxCleanerScheduler;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxScheduler;
+import com.food.ordering.system.outbox.backlog.OutboxBacklogSampler;
+import com.food.ordering.system.outbox.cdc.OutboxCdcRelay;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
+import com.food.ordering.system.outbox.metrics.OutboxMeterBinder;
+import com.food.ordering.system.outbox.notification.OutboxNotificationListener;
+import com.food.ordering.system.outbox.partition.OutboxPartitionManager;
+import com.food.ordering.system.outbox.shard.OutboxShardCoordinator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class BeanConfiguration {
 
+    // the FAILED rows that are still retried belong to active sagas; PARKED rows keep their partition until an
+    // operator resolves them
+    private static final String SAGA_OUTBOX_ACTIVE_ROW_CONDITION =
+            "outbox_status IN ('STARTED', 'PARKED') OR saga_status IN ('STARTED', 'PROCESSING', 'COMPENSATING')";
+
     @Bean // in domain-core we don't have any Spring dependency, so we have to define a Spring bean here
     public OrderDomainService orderDomainService() {
         return new OrderDomainServiceImpl();
     }
+
+    // channel names are `<schema>_<table>`, as sent by the outbox insert triggers in init-schema.sql; the polling
+    // relays it wakes up are not used with the WAL-based relay
+    @Bean
+    @ConditionalOnExpression("${order-service.outbox-notification-enabled:false} && " +
+            "!${order-service.outbox-cdc-enabled:false}")
+    public OutboxNotificationListener outboxNotificationListener(DataSourceProperties dataSourceProperties,
+                                                                 OrderServiceConfigData orderServiceConfigData,
+                                                                 PaymentOutboxScheduler paymentOutboxScheduler,
+                                                                 RestaurantApprovalOutboxScheduler
+                                                                         restaurantApprovalOutboxScheduler) {
+        return new OutboxNotificationListener(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                Map.of(
+                        "order_payment_outbox", paymentOutboxScheduler.getOutboxRelay()::wakeUp,
+                        "order_restaurant_approval_outbox", restaurantApprovalOutboxScheduler.getOutboxRelay()::wakeUp
+                ),
+                Duration.ofMillis(orderServiceConfigData.getOutboxNotificationPollTimeoutMs()),
+                Duration.ofMillis(orderServiceConfigData.getOutboxNotificationReconnectDelayMs())
+        );
+    }
+
+    // shared by the payment and the restaurant approval relays, so all the rows of a saga are relayed by one instance;
+    // the WAL-based relay streams the rows from a single replication slot, so there is nothing to shard there
+    @Bean
+    @ConditionalOnExpression("${order-service.outbox-shard-enabled:false} && " +
+            "!${order-service.outbox-cdc-enabled:false}")
+    public OutboxShardCoordinator outboxShardCoordinator(DataSourceProperties dataSourceProperties,
+                                                         OrderServiceConfigData orderServiceConfigData) {
+        return OutboxShardCoordinator.builder()
+                .name("OrderOutbox")
+                .url(dataSourceProperties.determineUrl())
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .shardCount(orderServiceConfigData.getOutboxShardCount())
+                .rebalanceInterval(Duration.ofMillis(orderServiceConfigData.getOutboxShardRebalanceIntervalMs()))
+                .build();
+    }
+
+    // handlers are keyed by `<schema>.<table>` of the tables in the publication created in init-schema.sql
+    @Bean
+    @ConditionalOnProperty(name = "order-service.outbox-cdc-enabled", havingValue = "true")
+    public OutboxCdcRelay outboxCdcRelay(DataSourceProperties dataSourceProperties,
+                                         DataSource dataSource,
+                                         OrderServiceConfigData orderServiceConfigData,
+                                         PaymentOutboxChangeHandler paymentOutboxChangeHandler,
+                                         RestaurantApprovalOutboxChangeHandler restaurantApprovalOutboxChangeHandler) {
+        return OutboxCdcRelay.builder()
+                .name("OrderOutbox")
+                .url(dataSourceProperties.determineUrl())
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .dataSource(dataSource)
+                .slotName(orderServiceConfigData.getOutboxCdcSlotName())
+                .publicationName(orderServiceConfigData.getOutboxCdcPublicationName())
+                .handlers(Map.of(
+                        "order.payment_outbox", paymentOutboxChangeHandler,
+                        "order.restaurant_approval_outbox", restaurantApprovalOutboxChangeHandler
+                ))
+                .maxInFlight(orderServiceConfigData.getOutboxMaxInFlight())
+                .ackTimeout(Duration.ofMillis(orderServiceConfigData.getOutboxCdcAckTimeoutMs()))
+                .statusInterval(Duration.ofMillis(orderServiceConfigData.getOutboxCdcStatusIntervalMs()))
+                .reconnectDelay(Duration.ofMillis(orderServiceConfigData.getOutboxCdcReconnectDelayMs()))
+                .build();
+    }
+
+    // the tables are the ones declared with `PARTITION BY RANGE (created_at)` in init-schema.sql, each with the
+    // condition of the rows that are still needed by the relay or by a saga in progress
+    @Bean
+    @ConditionalOnProperty(name = "order-service.outbox-partition-enabled", havingValue = "true")
+    public OutboxPartitionManager outboxPartitionManager(DataSource dataSource,
+                                                         OrderServiceConfigData orderServiceConfigData) {
+        return OutboxPartitionManager.builder()
+                .name("OrderOutbox")
+                .dataSource(dataSource)
+                .schema("order")
+                .activeRowConditions(Map.of(
+                        "payment_outbox", SAGA_OUTBOX_ACTIVE_ROW_CONDITION,
+                        "restaurant_approval_outbox", SAGA_OUTBOX_ACTIVE_ROW_CONDITION
+                ))
+                .sagaStepTables(Map.of(
+                        "payment_outbox", "payment_outbox_saga_step",
+                        "restaurant_approval_outbox", "restaurant_approval_outbox_saga_step"
+                ))
+                .precreateDays(orderServiceConfigData.getOutboxPartitionPrecreateDays())
+                .retentionDays(orderServiceConfigData.getOutboxPartitionRetentionDays())
+                .dropExpired(orderServiceConfigData.isOutboxPartitionDropExpired())
+                .maintenanceInterval(Duration.ofMillis(
+                        orderServiceConfigData.getOutboxPartitionMaintenanceIntervalMs()))
+                .build();
+    }
+
+    // the backlog gauges read the last sample of the outbox tables, so the metrics scrapes never query the database
+    @Bean
+    public OutboxBacklogSampler outboxBacklogSampler(DataSource dataSource,
+                                                     OrderServiceConfigData orderServiceConfigData) {
+        return OutboxBacklogSampler.builder()
+                .name("OrderOutbox")
+                .dataSource(dataSource)
+                .schema("order")
+                .tables(List.of("payment_outbox", "restaurant_approval_outbox"))
+                .countLimit(orderServiceConfigData.getOutboxMetricsCountLimit())
+                .sampleInterval(Duration.ofMillis(
+                        orderServiceConfigData.getOutboxMetricsSampleIntervalMs()))
+                .build();
+    }
+
+    // shared by the payment and the restaurant approval response listeners, their steps are keyed apart
+    @Bean
+    public ProcessedSagaCache processedSagaCache(OrderServiceConfigData orderServiceConfigData) {
+        return ProcessedSagaCache.builder()
+                .name("OrderSaga")
+                .capacity(orderServiceConfigData.getProcessedSagaCacheCapacity())
+                .build();
+    }
+
+    // bound to the registry of the actuator, which exposes the meters on /actuator/metrics and /actuator/prometheus
+    @Bean
+    public OutboxMeterBinder outboxMeterBinder(PaymentOutboxScheduler paymentOutboxScheduler,
+                                               RestaurantApprovalOutboxScheduler restaurantApprovalOutboxScheduler,
+                                               PaymentOutboxCleanerScheduler paymentOutboxCleanerScheduler,
+                                               RestaurantApprovalOutboxCleanerScheduler
+                                                       restaurantApprovalOutboxCleanerScheduler,
+                                               OutboxBacklogSampler outboxBacklogSampler,
+                                               ProcessedSagaCache processedSagaCache) {
+        return OutboxMeterBinder.builder()
+                .relays(List.of(
+                        paymentOutboxScheduler.getOutboxRelay(),
+                        restaurantApprovalOutboxScheduler.getOutboxRelay()
+                ))
+                .cleaners(List.of(
+                        paymentOutboxCleanerScheduler.getOutboxCleaner(),
+                        restaurantApprovalOutboxCleanerScheduler.getOutboxCleaner()
+                ))
+                .backlogSampler(outboxBacklogSampler)
+                .processedSagaCaches(List.of(processedSagaCache))
+                .build();
+    }
+
+    // the meters of the adaptive consumer controller, bound to the same registry; none while it is disabled
+    @Bean
+    public KafkaConsumerMeterBinder kafkaConsumerMeterBinder(AdaptiveConsumerController adaptiveConsumerController) {
+        return KafkaConsumerMeterBinder.builder()
+                .adaptiveConsumerController(adaptiveConsumerController)
+                .build();
+    }
 }
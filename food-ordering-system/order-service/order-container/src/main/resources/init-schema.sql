@@ -64,7 +64,7 @@ DROP TYPE IF EXISTS saga_status;
 CREATE TYPE saga_status AS ENUM ('STARTED', 'FAILED', 'SUCCEEDED', 'PROCESSING', 'COMPENSATING', 'COMPENSATED');
 
 DROP TYPE IF EXISTS outbox_status;
-CREATE TYPE outbox_status AS ENUM ('STARTED', 'COMPLETED', 'FAILED');
+CREATE TYPE outbox_status AS ENUM ('STARTED', 'COMPLETED', 'FAILED', 'PARKED');
 
 DROP TABLE IF EXISTS "order".payment_outbox CASCADE;
 
@@ -76,22 +76,89 @@ CREATE TABLE "order".payment_outbox
     created_at TIMESTAMP WITH TIME ZONE NOT NULL,
     processed_at TIMESTAMP WITH TIME ZONE,
     type character varying COLLATE pg_catalog."default" NOT NULL,
-    payload jsonb NOT NULL,
+    payload jsonb,
+    -- the serialized message, the id of its registered schema and its record key (`order-service.outbox-payload-format:
+    -- avro`); a row without a key is sent with the saga id
+    payload_bytes bytea,
+    payload_schema_id integer,
+    partition_key character varying COLLATE pg_catalog."default",
     outbox_status outbox_status NOT NULL,
     saga_status saga_status NOT NULL,
     order_status order_status NOT NULL,
     version integer NOT NULL,
-    CONSTRAINT payment_outbox_pkey PRIMARY KEY (id)
-);
+    lease_owner character varying COLLATE pg_catalog."default",
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    -- failed send attempts so far and, while the row is FAILED, the earliest time of the next one; a row that used up
+    -- its attempts is PARKED without a next attempt
+    attempt_count integer NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT payment_outbox_payload_check CHECK (payload IS NOT NULL OR payload_bytes IS NOT NULL),
+    CONSTRAINT payment_outbox_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- daily partitions `payment_outbox_p<yyyyMMdd>` are created ahead and dropped after the retention by the outbox
+-- partition manager; the default partition only catches rows for which no partition was created in time
+CREATE TABLE "order".payment_outbox_default PARTITION OF "order".payment_outbox DEFAULT;
 
 CREATE INDEX "payment_outbox_saga_status"
     ON "order".payment_outbox
     (type, outbox_status, saga_status);
 
-CREATE UNIQUE INDEX "payment_outbox_saga_id"
+-- oldest-first access for the relay claims and the chunked clean-up
+CREATE INDEX "payment_outbox_outbox_status_created_at"
+    ON "order".payment_outbox
+    (type, outbox_status, created_at, id);
+
+-- lookups of the rows of a saga; uniqueness is kept by the saga step keys below
+CREATE INDEX "payment_outbox_saga_id"
     ON "order".payment_outbox
     (type, saga_id, saga_status);
 
+-- the saga step keys of the payment outbox rows, kept unique outside the partitioned table (its unique indexes have to
+-- contain created_at, which is stamped when the step is processed, so they can't tell a resent step from a new one);
+-- maintained by the trigger below in the transaction writing the outbox row, so a duplicate step fails with a unique
+-- violation, and deleted by the outbox partition manager with the partition of their rows
+DROP TABLE IF EXISTS "order".payment_outbox_saga_step CASCADE;
+
+CREATE TABLE "order".payment_outbox_saga_step
+(
+    type character varying COLLATE pg_catalog."default" NOT NULL,
+    saga_id uuid NOT NULL,
+    saga_status saga_status NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT payment_outbox_saga_step_pkey PRIMARY KEY (type, saga_id, saga_status)
+);
+
+CREATE INDEX "payment_outbox_saga_step_created_at"
+    ON "order".payment_outbox_saga_step
+    (created_at);
+
+CREATE OR REPLACE FUNCTION "order".payment_outbox_saga_step()
+returns trigger
+AS '
+BEGIN
+    IF TG_OP = ''UPDATE''
+        AND (OLD.type, OLD.saga_id, OLD.saga_status)
+        IS NOT DISTINCT FROM (NEW.type, NEW.saga_id, NEW.saga_status) THEN
+        return null;
+    END IF;
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        DELETE FROM "order".payment_outbox_saga_step
+        WHERE type = OLD.type AND saga_id = OLD.saga_id
+        AND saga_status = OLD.saga_status;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        INSERT INTO "order".payment_outbox_saga_step (type, saga_id, saga_status, created_at)
+        VALUES (NEW.type, NEW.saga_id, NEW.saga_status, NEW.created_at);
+    END IF;
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER payment_outbox_saga_step
+AFTER INSERT OR UPDATE OR DELETE ON "order".payment_outbox
+FOR EACH ROW EXECUTE PROCEDURE "order".payment_outbox_saga_step();
+
 DROP TABLE IF EXISTS "order".restaurant_approval_outbox CASCADE;
 
 CREATE TABLE "order".restaurant_approval_outbox
@@ -101,22 +168,110 @@ CREATE TABLE "order".restaurant_approval_outbox
     created_at TIMESTAMP WITH TIME ZONE NOT NULL,
     processed_at TIMESTAMP WITH TIME ZONE,
     type character varying COLLATE pg_catalog."default" NOT NULL,
-    payload jsonb NOT NULL,
+    payload jsonb,
+    -- the serialized message, the id of its registered schema and its record key (`order-service.outbox-payload-format:
+    -- avro`); a row without a key is sent with the saga id
+    payload_bytes bytea,
+    payload_schema_id integer,
+    partition_key character varying COLLATE pg_catalog."default",
     outbox_status outbox_status NOT NULL,
     saga_status saga_status NOT NULL,
     order_status order_status NOT NULL,
     version integer NOT NULL,
-    CONSTRAINT restaurant_approval_outbox_pkey PRIMARY KEY (id)
-);
+    lease_owner character varying COLLATE pg_catalog."default",
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    -- failed send attempts so far and, while the row is FAILED, the earliest time of the next one; a row that used up
+    -- its attempts is PARKED without a next attempt
+    attempt_count integer NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT restaurant_approval_outbox_payload_check CHECK (payload IS NOT NULL OR payload_bytes IS NOT NULL),
+    CONSTRAINT restaurant_approval_outbox_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- daily partitions `restaurant_approval_outbox_p<yyyyMMdd>` are created ahead and dropped after the retention by the
+-- outbox partition manager; the default partition only catches rows for which no partition was created in time
+CREATE TABLE "order".restaurant_approval_outbox_default PARTITION OF "order".restaurant_approval_outbox DEFAULT;
 
 CREATE INDEX "restaurant_approval_outbox_saga_status"
     ON "order".restaurant_approval_outbox
     (type, outbox_status, saga_status);
 
-CREATE UNIQUE INDEX "restaurant_approval_outbox_saga_id"
+-- oldest-first access for the relay claims and the chunked clean-up
+CREATE INDEX "restaurant_approval_outbox_outbox_status_created_at"
+    ON "order".restaurant_approval_outbox
+    (type, outbox_status, created_at, id);
+
+-- lookups of the rows of a saga; uniqueness is kept by the saga step keys below
+CREATE INDEX "restaurant_approval_outbox_saga_id"
     ON "order".restaurant_approval_outbox
     (type, saga_id, saga_status);
 
+-- the saga step keys of the restaurant approval outbox rows, like payment_outbox_saga_step
+DROP TABLE IF EXISTS "order".restaurant_approval_outbox_saga_step CASCADE;
+
+CREATE TABLE "order".restaurant_approval_outbox_saga_step
+(
+    type character varying COLLATE pg_catalog."default" NOT NULL,
+    saga_id uuid NOT NULL,
+    saga_status saga_status NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT restaurant_approval_outbox_saga_step_pkey PRIMARY KEY (type, saga_id, saga_status)
+);
+
+CREATE INDEX "restaurant_approval_outbox_saga_step_created_at"
+    ON "order".restaurant_approval_outbox_saga_step
+    (created_at);
+
+CREATE OR REPLACE FUNCTION "order".restaurant_approval_outbox_saga_step()
+returns trigger
+AS '
+BEGIN
+    IF TG_OP = ''UPDATE''
+        AND (OLD.type, OLD.saga_id, OLD.saga_status)
+        IS NOT DISTINCT FROM (NEW.type, NEW.saga_id, NEW.saga_status) THEN
+        return null;
+    END IF;
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        DELETE FROM "order".restaurant_approval_outbox_saga_step
+        WHERE type = OLD.type AND saga_id = OLD.saga_id
+        AND saga_status = OLD.saga_status;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        INSERT INTO "order".restaurant_approval_outbox_saga_step (type, saga_id, saga_status, created_at)
+        VALUES (NEW.type, NEW.saga_id, NEW.saga_status, NEW.created_at);
+    END IF;
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER restaurant_approval_outbox_saga_step
+AFTER INSERT OR UPDATE OR DELETE ON "order".restaurant_approval_outbox
+FOR EACH ROW EXECUTE PROCEDURE "order".restaurant_approval_outbox_saga_step();
+
+DROP FUNCTION IF EXISTS "order".notify_outbox_started CASCADE;
+
+-- wakes up the outbox relay listening on the `<schema>_<table>` channel, passed as the trigger argument (TG_TABLE_NAME
+-- would be the name of the partition); the notification is delivered only when the inserting transaction commits, and
+-- the same notification is sent only once per transaction
+CREATE OR REPLACE FUNCTION "order".notify_outbox_started()
+returns trigger
+AS '
+BEGIN
+    PERFORM pg_notify(TG_ARGV[0], '''');
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER payment_outbox_notify_started
+AFTER INSERT ON "order".payment_outbox
+FOR EACH ROW WHEN (NEW.outbox_status = 'STARTED')
+EXECUTE PROCEDURE "order".notify_outbox_started('order_payment_outbox');
+
+CREATE TRIGGER restaurant_approval_outbox_notify_started
+AFTER INSERT ON "order".restaurant_approval_outbox
+FOR EACH ROW WHEN (NEW.outbox_status = 'STARTED')
+EXECUTE PROCEDURE "order".notify_outbox_started('order_restaurant_approval_outbox');
+
 --DROP TABLE IF EXISTS "order".customers CASCADE;
 --
 --CREATE TABLE "order".customers
@@ -126,4 +281,23 @@ CREATE UNIQUE INDEX "restaurant_approval_outbox_saga_id"
 --    first_name character varying COLLATE pg_catalog."default" NOT NULL,
 --    last_name character varying COLLATE pg_catalog."default" NOT NULL,
 --    CONSTRAINT customers_pkey PRIMARY KEY (id)
---);
\ No newline at end of file
+--);
+-- WAL-based relay (`order-service.outbox-cdc-enabled`): the outbox inserts are streamed through this publication, and
+-- the last LSN whose rows were all published is kept in outbox_cdc_offset (the replication slot itself outlives the
+-- schema, so it is created by the relay and never dropped here). Requires `wal_level = logical` on the server. The
+-- changes of the partitions are published as changes of their partitioned table.
+DROP TABLE IF EXISTS "order".outbox_cdc_offset CASCADE;
+
+CREATE TABLE "order".outbox_cdc_offset
+(
+    slot_name character varying COLLATE pg_catalog."default" NOT NULL,
+    lsn character varying COLLATE pg_catalog."default" NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT outbox_cdc_offset_pkey PRIMARY KEY (slot_name)
+);
+
+DROP PUBLICATION IF EXISTS order_outbox_publication;
+
+CREATE PUBLICATION order_outbox_publication
+    FOR TABLE "order".payment_outbox, "order".restaurant_approval_outbox
+    WITH (publish = 'insert', publish_via_partition_root = true);
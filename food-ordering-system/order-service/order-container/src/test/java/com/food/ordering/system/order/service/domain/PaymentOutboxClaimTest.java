@@ -0,0 +1,244 @@
+package com.food.ordering.system.order.service.domain;
+
+import com.food.ordering.system.order.service.dataaccess.outbox.payment.entity.PaymentOutboxEntity;
+import com.food.ordering.system.order.service.dataaccess.outbox.payment.repository.PaymentOutboxJpaRepository;
+import com.food.ordering.system.outbox.OutboxStatus;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// The claim, lease and acknowledgement statements of the payment outbox against the database; the approval outbox
+// and the outboxes of the other services use the same statements on their own tables.
+@SpringBootTest(classes = OrderServiceApplication.class)
+@Sql(value = "classpath:sql/payment_outbox_claim_test_cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class PaymentOutboxClaimTest {
+
+    private static final String TYPE = "PaymentOutboxClaimTest";
+    private static final ZonedDateTime FIRST_PAGE = ZonedDateTime.parse("1970-01-01T00:00:00Z");
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    @Autowired
+    private PaymentOutboxJpaRepository paymentOutboxJpaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testClaimSkipsLeasedRows() {
+        UUID unleased = insert(UUID.randomUUID(), "STARTED", "STARTED", 30);
+        UUID leased = insert(UUID.randomUUID(), "STARTED", "STARTED", 20);
+        UUID leaseExpired = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        lease(leased, 60);
+        lease(leaseExpired, -60);
+
+        Assertions.assertThat(claim("STARTED", List.of("STARTED"), 10)).containsExactly(unleased, leaseExpired);
+    }
+
+    // a row locked by the claim of another instance is skipped rather than waited on
+    @Test
+    void testClaimSkipsRowsLockedByAnotherClaim() throws Exception {
+        UUID first = insert(UUID.randomUUID(), "STARTED", "STARTED", 20);
+        UUID second = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<UUID>> otherClaim = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    List<UUID> ids = ids(paymentOutboxJpaRepository.findClaimableForUpdateSkipLocked(TYPE, "STARTED",
+                            List.of("STARTED"), FIRST_PAGE, FIRST_ID, 1));
+                    claimed.countDown();
+                    await(release);
+                    return ids;
+                }));
+        try {
+            Assertions.assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+            Assertions.assertThat(claim("STARTED", List.of("STARTED"), 10)).containsExactly(second);
+        } finally {
+            release.countDown();
+        }
+        Assertions.assertThat(otherClaim.get(10, TimeUnit.SECONDS)).containsExactly(first);
+    }
+
+    @Test
+    void testClaimPagesAfterTheCursor() {
+        UUID first = insert(UUID.randomUUID(), "STARTED", "STARTED", 20);
+        UUID second = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        PaymentOutboxEntity firstEntity = paymentOutboxJpaRepository.findById(first).orElseThrow();
+
+        List<UUID> nextPage = new TransactionTemplate(transactionManager).execute(status ->
+                ids(paymentOutboxJpaRepository.findClaimableForUpdateSkipLocked(TYPE, "STARTED", List.of("STARTED"),
+                        firstEntity.getCreatedAt(), first, 10)));
+
+        Assertions.assertThat(nextPage).containsExactly(second);
+    }
+
+    // the later step of a saga is held back while an earlier one is still to be sent, even if that one is leased
+    @Test
+    void testLaterStepWaitsForTheEarlierStepOfItsSaga() {
+        UUID sagaId = UUID.randomUUID();
+        UUID earlier = insert(sagaId, "STARTED", "STARTED", 20);
+        insert(sagaId, "STARTED", "PROCESSING", 10);
+        lease(earlier, 60);
+
+        Assertions.assertThat(claim("STARTED", List.of("STARTED", "PROCESSING"), 10)).isEmpty();
+        Assertions.assertThat(paymentOutboxJpaRepository.existsUnsettledBefore(TYPE, sagaId, ZonedDateTime.now(),
+                UUID.randomUUID())).isTrue();
+    }
+
+    @Test
+    void testLeaseIsTakenForTheLeaseTime() {
+        UUID id = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+
+        int leased = new TransactionTemplate(transactionManager).execute(status ->
+                paymentOutboxJpaRepository.updateLeaseByIdIn(List.of(id), "relay-1", 30));
+
+        Assertions.assertThat(leased).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT lease_owner FROM payment_outbox WHERE id = ?",
+                String.class, id)).isEqualTo("relay-1");
+        Assertions.assertThat(secondsFromNow("lease_expires_at", id)).isBetween(25.0, 30.0);
+        Assertions.assertThat(claim("STARTED", List.of("STARTED"), 10)).isEmpty();
+    }
+
+    @Test
+    void testAcknowledgementSetsTheStatusAndReleasesTheLease() {
+        UUID id = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        lease(id, 60);
+
+        int acknowledged = new TransactionTemplate(transactionManager).execute(status ->
+                paymentOutboxJpaRepository.updateOutboxStatusByIdIn(List.of(id), "COMPLETED"));
+
+        Assertions.assertThat(acknowledged).isEqualTo(1);
+        PaymentOutboxEntity paymentOutboxEntity = paymentOutboxJpaRepository.findById(id).orElseThrow();
+        Assertions.assertThat(paymentOutboxEntity.getOutboxStatus()).isEqualTo(OutboxStatus.COMPLETED);
+        // a save of the message read before the acknowledgement fails on the optimistic lock
+        Assertions.assertThat(paymentOutboxEntity.getVersion()).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT lease_owner IS NULL AND lease_expires_at IS NULL " +
+                "FROM payment_outbox WHERE id = ?", Boolean.class, id)).isTrue();
+    }
+
+    @Test
+    void testFailedSendIsScheduledAfterTheBackoff() {
+        UUID id = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        jdbcTemplate.update("UPDATE payment_outbox SET attempt_count = 2 WHERE id = ?", id);
+
+        new TransactionTemplate(transactionManager).execute(status ->
+                paymentOutboxJpaRepository.updateFailedOutboxStatusByIdIn(List.of(id), 5, 10, 300));
+
+        Assertions.assertThat(paymentOutboxJpaRepository.findById(id).orElseThrow().getOutboxStatus())
+                .isEqualTo(OutboxStatus.FAILED);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT attempt_count FROM payment_outbox WHERE id = ?",
+                Integer.class, id)).isEqualTo(3);
+        // the third attempt waits 10 * 2^2 seconds, jittered down to half of it
+        Assertions.assertThat(secondsFromNow("next_attempt_at", id)).isBetween(15.0, 40.0);
+    }
+
+    @Test
+    void testBackoffIsCappedByTheMaxBackoff() {
+        UUID id = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        jdbcTemplate.update("UPDATE payment_outbox SET attempt_count = 20 WHERE id = ?", id);
+
+        new TransactionTemplate(transactionManager).execute(status ->
+                paymentOutboxJpaRepository.updateFailedOutboxStatusByIdIn(List.of(id), 50, 10, 300));
+
+        Assertions.assertThat(secondsFromNow("next_attempt_at", id)).isBetween(145.0, 300.0);
+    }
+
+    @Test
+    void testFailedSendIsParkedOnceItUsedUpItsAttempts() {
+        UUID id = insert(UUID.randomUUID(), "STARTED", "STARTED", 10);
+        jdbcTemplate.update("UPDATE payment_outbox SET attempt_count = 4 WHERE id = ?", id);
+
+        new TransactionTemplate(transactionManager).execute(status ->
+                paymentOutboxJpaRepository.updateFailedOutboxStatusByIdIn(List.of(id), 5, 10, 300));
+
+        Assertions.assertThat(paymentOutboxJpaRepository.findById(id).orElseThrow().getOutboxStatus())
+                .isEqualTo(OutboxStatus.PARKED);
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT next_attempt_at IS NULL FROM payment_outbox " +
+                "WHERE id = ?", Boolean.class, id)).isTrue();
+    }
+
+    @Test
+    void testFailedRowIsClaimedOnlyOnceItsBackoffIsOver() {
+        UUID due = insert(UUID.randomUUID(), "FAILED", "STARTED", 20);
+        UUID waiting = insert(UUID.randomUUID(), "FAILED", "STARTED", 10);
+        // written as FAILED by the service itself, without a next attempt
+        insert(UUID.randomUUID(), "FAILED", "STARTED", 5);
+        nextAttempt(due, -1);
+        nextAttempt(waiting, 60);
+
+        Assertions.assertThat(claim("FAILED", List.of("STARTED"), 10)).containsExactly(due);
+    }
+
+    // a retry never lets a later step of the saga overtake it, while a parked step no longer holds the saga back
+    @Test
+    void testFailedRowWaitingForItsBackoffHoldsBackTheLaterStep() {
+        UUID sagaId = UUID.randomUUID();
+        UUID earlier = insert(sagaId, "FAILED", "STARTED", 20);
+        UUID later = insert(sagaId, "STARTED", "PROCESSING", 10);
+        nextAttempt(earlier, 60);
+
+        Assertions.assertThat(claim("STARTED", List.of("PROCESSING"), 10)).isEmpty();
+
+        jdbcTemplate.update("UPDATE payment_outbox SET outbox_status = 'PARKED', next_attempt_at = NULL WHERE id = ?",
+                earlier);
+
+        Assertions.assertThat(claim("STARTED", List.of("PROCESSING"), 10)).containsExactly(later);
+    }
+
+    private List<UUID> claim(String outboxStatus, List<String> sagaStatus, int batchSize) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                ids(paymentOutboxJpaRepository.findClaimableForUpdateSkipLocked(TYPE, outboxStatus, sagaStatus,
+                        FIRST_PAGE, FIRST_ID, batchSize)));
+    }
+
+    private UUID insert(UUID sagaId, String outboxStatus, String sagaStatus, int ageSeconds) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO payment_outbox (id, saga_id, created_at, type, payload, outbox_status, " +
+                        "saga_status, order_status, version) " +
+                        "VALUES (?, ?, now() - make_interval(secs => ?), ?, '{}', CAST(? AS outbox_status), " +
+                        "CAST(? AS saga_status), 'PENDING', 0)",
+                id, sagaId, ageSeconds, TYPE, outboxStatus, sagaStatus);
+        return id;
+    }
+
+    private void lease(UUID id, int seconds) {
+        jdbcTemplate.update("UPDATE payment_outbox SET lease_owner = 'other-relay', " +
+                "lease_expires_at = now() + make_interval(secs => ?) WHERE id = ?", seconds, id);
+    }
+
+    private void nextAttempt(UUID id, int seconds) {
+        jdbcTemplate.update("UPDATE payment_outbox SET attempt_count = 1, " +
+                "next_attempt_at = now() + make_interval(secs => ?) WHERE id = ?", seconds, id);
+    }
+
+    private double secondsFromNow(String column, UUID id) {
+        return jdbcTemplate.queryForObject("SELECT EXTRACT(EPOCH FROM " + column + " - now()) FROM payment_outbox " +
+                "WHERE id = ?", Double.class, id);
+    }
+
+    private static List<UUID> ids(List<PaymentOutboxEntity> paymentOutboxEntities) {
+        return paymentOutboxEntities.stream().map(PaymentOutboxEntity::getId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
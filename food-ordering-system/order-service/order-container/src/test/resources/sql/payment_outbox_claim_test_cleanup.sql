@@ -0,0 +1 @@
+delete from "order".payment_outbox where type = 'PaymentOutboxClaimTest';
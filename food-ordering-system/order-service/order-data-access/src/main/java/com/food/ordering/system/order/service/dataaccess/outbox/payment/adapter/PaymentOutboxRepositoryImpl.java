@@ -1,16 +1,21 @@
 package com.food.ordering.system.order.service.dataaccess.outbox.payment.adapter;
 
 
-import com.food.ordering.system.order.service.dataaccess.outbox.payment.exception.PaymentOutboxNotFoundException;
+import com.food.ordering.system.order.service.dataaccess.outbox.payment.entity.PaymentOutboxEntity;
 import com.food.ordering.system.order.service.dataaccess.outbox.payment.mapper.PaymentOutboxDataAccessMapper;
 import com.food.ordering.system.order.service.dataaccess.outbox.payment.repository.PaymentOutboxJpaRepository;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.order.service.domain.port.output.repository.PaymentOutboxRepository;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import org.springframework.stereotype.Component;
 
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,23 +42,64 @@ public class PaymentOutboxRepositoryImpl implements PaymentOutboxRepository {
     }
 
     @Override
-    public List<OrderPaymentOutboxMessage> findByTypeAndOutboxStatusAndSagaStatus(String sagaType,
-                                                                                  OutboxStatus outboxStatus,
-                                                                                  SagaStatus... sagaStatus) {
-        List<OrderPaymentOutboxMessage> paymentOutboxMessages = paymentOutboxJpaRepository.findByTypeAndOutboxStatusAndSagaStatusIn(sagaType,
-                        outboxStatus,
-                        Arrays.asList(sagaStatus))
-                .stream()
+    public List<OrderPaymentOutboxMessage> claimByTypeAndOutboxStatusAndSagaStatus(String type,
+                                                                                   OutboxStatus outboxStatus,
+                                                                                   String leaseOwner,
+                                                                                   OutboxCursor after,
+                                                                                   int batchSize,
+                                                                                   long leaseSeconds,
+                                                                                   OutboxShards shards,
+                                                                                   SagaStatus... sagaStatus) {
+        // an instance that owns no shard at the moment has nothing to claim
+        if (shards.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> sagaStatuses = Arrays.stream(sagaStatus).map(SagaStatus::name).collect(Collectors.toList());
+        List<PaymentOutboxEntity> paymentOutboxEntities;
+        if (shards.isAll()) {
+            paymentOutboxEntities = paymentOutboxJpaRepository.findClaimableForUpdateSkipLocked(
+                    type, outboxStatus.name(), sagaStatuses, after.createdAt(), after.id(), batchSize
+            );
+        } else {
+            paymentOutboxEntities = paymentOutboxJpaRepository.findClaimableInShardsForUpdateSkipLocked(
+                    type, outboxStatus.name(), sagaStatuses, shards.shardCount(), List.copyOf(shards.shards()),
+                    after.createdAt(), after.id(), batchSize
+            );
+        }
+        // an empty claim is a regular outcome here (nothing pending or everything leased by other instances)
+        if (paymentOutboxEntities.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        paymentOutboxJpaRepository.updateLeaseByIdIn(
+                paymentOutboxEntities.stream().map(PaymentOutboxEntity::getId).collect(Collectors.toList()),
+                leaseOwner,
+                leaseSeconds
+        );
+        return paymentOutboxEntities.stream()
                 .map(paymentOutboxDataAccessMapper::paymentOutboxEntityToOrderPaymentOutboxMessage)
                 .collect(Collectors.toList());
+    }
 
-        if (paymentOutboxMessages.isEmpty()) {
-            throw new PaymentOutboxNotFoundException(
-                    String.format("Payment outbox object " +
-                            "could not be found for saga type %s", sagaType)
-            );
-        }
-        return paymentOutboxMessages;
+    @Override
+    public boolean existsUnsettledBefore(String type, UUID sagaId, ZonedDateTime createdAt, UUID id) {
+        return paymentOutboxJpaRepository.existsUnsettledBefore(type, sagaId, createdAt, id);
+    }
+
+    @Override
+    public int updateLeaseByIds(List<UUID> ids, String leaseOwner, long leaseSeconds) {
+        return paymentOutboxJpaRepository.updateLeaseByIdIn(ids, leaseOwner, leaseSeconds);
+    }
+
+    @Override
+    public int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus) {
+        return paymentOutboxJpaRepository.updateOutboxStatusByIdIn(ids, outboxStatus.name());
+    }
+
+    @Override
+    public int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy) {
+        return paymentOutboxJpaRepository.updateFailedOutboxStatusByIdIn(ids, retryPolicy.maxAttempts(),
+                retryPolicy.initialBackoffSeconds(), retryPolicy.maxBackoffSeconds());
     }
 
     @Override
@@ -70,4 +116,13 @@ public class PaymentOutboxRepositoryImpl implements PaymentOutboxRepository {
         paymentOutboxJpaRepository.deleteByTypeAndOutboxStatusAndSagaStatusIn(type, outboxStatus,
                 Arrays.asList(sagaStatus));
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteChunkByTypeAndOutboxStatusAndSagaStatus(String type,
+                                                             OutboxStatus outboxStatus,
+                                                             int chunkSize,
+                                                             SagaStatus... sagaStatus) {
+        return paymentOutboxJpaRepository.deleteChunkByTypeAndOutboxStatusAndSagaStatusIn(type, outboxStatus.name(),
+                Arrays.stream(sagaStatus).map(SagaStatus::name).collect(Collectors.toList()), chunkSize);
+    }
+}
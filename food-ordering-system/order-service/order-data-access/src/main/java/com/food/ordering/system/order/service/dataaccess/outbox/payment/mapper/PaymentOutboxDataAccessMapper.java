@@ -15,6 +15,9 @@ public class PaymentOutboxDataAccessMapper {
                 .createdAt(orderPaymentOutboxMessage.getCreatedAt())
                 .type(orderPaymentOutboxMessage.getType())
                 .payload(orderPaymentOutboxMessage.getPayload())
+                .payloadBytes(orderPaymentOutboxMessage.getPayloadBytes())
+                .payloadSchemaId(orderPaymentOutboxMessage.getPayloadSchemaId())
+                .partitionKey(orderPaymentOutboxMessage.getPartitionKey())
                 .orderStatus(orderPaymentOutboxMessage.getOrderStatus())
                 .sagaStatus(orderPaymentOutboxMessage.getSagaStatus())
                 .outboxStatus(orderPaymentOutboxMessage.getOutboxStatus())
@@ -30,6 +33,9 @@ public class PaymentOutboxDataAccessMapper {
                 .createdAt(paymentOutboxEntity.getCreatedAt())
                 .type(paymentOutboxEntity.getType())
                 .payload(paymentOutboxEntity.getPayload())
+                .payloadBytes(paymentOutboxEntity.getPayloadBytes())
+                .payloadSchemaId(paymentOutboxEntity.getPayloadSchemaId())
+                .partitionKey(paymentOutboxEntity.getPartitionKey())
                 .orderStatus(paymentOutboxEntity.getOrderStatus())
                 .sagaStatus(paymentOutboxEntity.getSagaStatus())
                 .outboxStatus(paymentOutboxEntity.getOutboxStatus())
@@ -4,8 +4,12 @@ import com.food.ordering.system.order.service.dataaccess.outbox.payment.entity.P
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.saga.SagaStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,10 +17,6 @@ import java.util.UUID;
 @Repository
 public interface PaymentOutboxJpaRepository extends JpaRepository<PaymentOutboxEntity, UUID> {
 
-    List<PaymentOutboxEntity> findByTypeAndOutboxStatusAndSagaStatusIn(String type,
-                                                                       OutboxStatus outboxStatus,
-                                                                       List<SagaStatus> sagaStatus);
-
     Optional<PaymentOutboxEntity> findByTypeAndSagaIdAndSagaStatusIn(String type,
                                                                      UUID sagaId,
                                                                      List<SagaStatus> sagaStatus);
@@ -25,4 +25,121 @@ public interface PaymentOutboxJpaRepository extends JpaRepository<PaymentOutboxE
                                                     OutboxStatus outboxStatus,
                                                     List<SagaStatus> sagaStatus);
 
+    // rows locked by another relay instance are skipped instead of waited on; rows whose lease is still valid belong
+    // to another instance that is currently publishing them
+    // FAILED rows are claimed (by the retry stage of the relay) only once their backoff is over; a row the service
+    // wrote as FAILED itself has no next attempt, so it is never claimed
+    // a relay run pages through the rows after its cursor (the last row of its previous page), so every page is a range
+    // of the (type, outbox_status, created_at, id) index
+    // a message is only claimed once the earlier ones of its saga are settled - one still STARTED (e.g. leased by a
+    // direct publish) or FAILED and waiting for its backoff holds the later ones back, so a retry never lets a later
+    // step of the saga overtake it. PARKED rows and the FAILED rows without a next attempt are never sent again, so
+    // they do not hold the saga back; the parked ones are counted by the outbox.backlog.parked gauge instead
+    @Query(value = "SELECT * FROM payment_outbox outbox " +
+            "WHERE type = :type AND outbox_status = :outboxStatus AND saga_status IN (:sagaStatus) " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at < now()) " +
+            "AND (outbox_status <> 'FAILED' OR next_attempt_at <= now()) " +
+            "AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_outbox earlier " +
+            "WHERE earlier.type = outbox.type AND earlier.saga_id = outbox.saga_id " +
+            "AND (earlier.outbox_status = 'STARTED' " +
+            "OR (earlier.outbox_status = 'FAILED' AND earlier.next_attempt_at IS NOT NULL)) " +
+            "AND (earlier.created_at, earlier.id) < (outbox.created_at, outbox.id)) " +
+            "ORDER BY created_at, id " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PaymentOutboxEntity> findClaimableForUpdateSkipLocked(@Param("type") String type,
+                                                               @Param("outboxStatus") String outboxStatus,
+                                                               @Param("sagaStatus") List<String> sagaStatus,
+                                                               @Param("afterCreatedAt") ZonedDateTime afterCreatedAt,
+                                                               @Param("afterId") UUID afterId,
+                                                               @Param("batchSize") int batchSize);
+
+    // the claim of a relay that owns only some of the shards of the saga id space (see OutboxShards); all the messages
+    // of a saga belong to the same shard, and they are held back like in findClaimableForUpdateSkipLocked
+    @Query(value = "SELECT * FROM payment_outbox outbox " +
+            "WHERE type = :type AND outbox_status = :outboxStatus AND saga_status IN (:sagaStatus) " +
+            "AND (get_byte(uuid_send(saga_id), 14) * 256 + get_byte(uuid_send(saga_id), 15)) % :shardCount " +
+            "IN (:shards) " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at < now()) " +
+            "AND (outbox_status <> 'FAILED' OR next_attempt_at <= now()) " +
+            "AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_outbox earlier " +
+            "WHERE earlier.type = outbox.type AND earlier.saga_id = outbox.saga_id " +
+            "AND (earlier.outbox_status = 'STARTED' " +
+            "OR (earlier.outbox_status = 'FAILED' AND earlier.next_attempt_at IS NOT NULL)) " +
+            "AND (earlier.created_at, earlier.id) < (outbox.created_at, outbox.id)) " +
+            "ORDER BY created_at, id " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PaymentOutboxEntity> findClaimableInShardsForUpdateSkipLocked(
+            @Param("type") String type,
+            @Param("outboxStatus") String outboxStatus,
+            @Param("sagaStatus") List<String> sagaStatus,
+            @Param("shardCount") int shardCount,
+            @Param("shards") List<Integer> shards,
+            @Param("afterCreatedAt") ZonedDateTime afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            @Param("batchSize") int batchSize);
+
+    // whether an earlier row of the saga is still to be sent, the guard of the claim queries above
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM payment_outbox earlier " +
+            "WHERE earlier.type = :type AND earlier.saga_id = :sagaId " +
+            "AND (earlier.outbox_status = 'STARTED' " +
+            "OR (earlier.outbox_status = 'FAILED' AND earlier.next_attempt_at IS NOT NULL)) " +
+            "AND (earlier.created_at, earlier.id) < (:createdAt, :id))", nativeQuery = true)
+    boolean existsUnsettledBefore(@Param("type") String type,
+                                  @Param("sagaId") UUID sagaId,
+                                  @Param("createdAt") ZonedDateTime createdAt,
+                                  @Param("id") UUID id);
+
+    // native bulk update - it does not bump the entity version, so the claimed messages can still be saved with the
+    // version they were read with; the session is flushed first, since a message saved in the same transaction may
+    // not be inserted yet
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE payment_outbox " +
+            "SET lease_owner = :leaseOwner, lease_expires_at = now() + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateLeaseByIdIn(@Param("ids") List<UUID> ids,
+                          @Param("leaseOwner") String leaseOwner,
+                          @Param("leaseSeconds") long leaseSeconds);
+
+    // bulk acknowledgement of the broker outcomes, which also releases the lease; the version is bumped, so a
+    // concurrent save of a message read before this update fails on the optimistic lock instead of overwriting it
+    @Modifying
+    @Query(value = "UPDATE payment_outbox " +
+            "SET outbox_status = :outboxStatus, version = version + 1, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateOutboxStatusByIdIn(@Param("ids") List<UUID> ids, @Param("outboxStatus") String outboxStatus);
+
+    // acknowledges failed sends: the attempt is counted and the next one is scheduled after the jittered exponential
+    // backoff of OutboxRetryPolicy, or the row is parked once it used up its attempts; the lease is released and the
+    // version bumped like in updateOutboxStatusByIdIn
+    @Modifying
+    @Query(value = "UPDATE payment_outbox " +
+            "SET outbox_status = CAST(CASE WHEN attempt_count + 1 >= :maxAttempts THEN 'PARKED' ELSE 'FAILED' END " +
+            "AS outbox_status), " +
+            "next_attempt_at = CASE WHEN attempt_count + 1 >= :maxAttempts THEN NULL ELSE now() + make_interval(" +
+            "secs => least(:maxBackoffSeconds, :initialBackoffSeconds * power(2, least(attempt_count, 30))) " +
+            "* (0.5 + random() / 2)) END, " +
+            "attempt_count = attempt_count + 1, version = version + 1, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateFailedOutboxStatusByIdIn(@Param("ids") List<UUID> ids,
+                                       @Param("maxAttempts") int maxAttempts,
+                                       @Param("initialBackoffSeconds") double initialBackoffSeconds,
+                                       @Param("maxBackoffSeconds") double maxBackoffSeconds);
+
+    // deletes a chunk of the oldest matching rows, so the index on (type, outbox_status, created_at, id) is read as a
+    // range; rows locked by a relay or a saga at the moment are skipped and left for the next clean-up
+    @Modifying
+    @Query(value = "DELETE FROM payment_outbox WHERE id IN (" +
+            "SELECT id FROM payment_outbox " +
+            "WHERE type = :type AND outbox_status = :outboxStatus AND saga_status IN (:sagaStatus) " +
+            "ORDER BY created_at, id " +
+            "LIMIT :chunkSize " +
+            "FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteChunkByTypeAndOutboxStatusAndSagaStatusIn(@Param("type") String type,
+                                                        @Param("outboxStatus") String outboxStatus,
+                                                        @Param("sagaStatus") List<String> sagaStatus,
+                                                        @Param("chunkSize") int chunkSize);
 }
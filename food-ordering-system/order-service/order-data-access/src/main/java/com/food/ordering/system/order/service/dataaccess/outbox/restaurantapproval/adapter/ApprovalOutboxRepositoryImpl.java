@@ -1,16 +1,21 @@
 package com.food.ordering.system.order.service.dataaccess.outbox.restaurantapproval.adapter;
 
 
-import com.food.ordering.system.order.service.dataaccess.outbox.restaurantapproval.exception.ApprovalOutboxNotFoundException;
+import com.food.ordering.system.order.service.dataaccess.outbox.restaurantapproval.entity.ApprovalOutboxEntity;
 import com.food.ordering.system.order.service.dataaccess.outbox.restaurantapproval.mapper.ApprovalOutboxDataAccessMapper;
 import com.food.ordering.system.order.service.dataaccess.outbox.restaurantapproval.repository.ApprovalOutboxJpaRepository;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
 import com.food.ordering.system.order.service.domain.port.output.repository.ApprovalOutboxRepository;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import org.springframework.stereotype.Component;
 
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,24 +42,63 @@ public class ApprovalOutboxRepositoryImpl implements ApprovalOutboxRepository {
     }
 
     @Override
-    public List<OrderApprovalOutboxMessage> findByTypeAndOutboxStatusAndSagaStatus(String sagaType,
-                                                                                   OutboxStatus outboxStatus,
-                                                                                   SagaStatus... sagaStatus) {
-        List<OrderApprovalOutboxMessage> approvalOutboxMessages = approvalOutboxJpaRepository.findByTypeAndOutboxStatusAndSagaStatusIn(sagaType, outboxStatus,
-                        Arrays.asList(sagaStatus))
+    public List<OrderApprovalOutboxMessage> claimByTypeAndOutboxStatusAndSagaStatus(String type,
+                                                                                    OutboxStatus outboxStatus,
+                                                                                    String leaseOwner,
+                                                                                    OutboxCursor after,
+                                                                                    int batchSize,
+                                                                                    long leaseSeconds,
+                                                                                    OutboxShards shards,
+                                                                                    SagaStatus... sagaStatus) {
+        // an instance that owns no shard at the moment has nothing to claim
+        if (shards.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> sagaStatuses = Arrays.stream(sagaStatus).map(SagaStatus::name).collect(Collectors.toList());
+        List<ApprovalOutboxEntity> approvalOutboxEntities;
+        if (shards.isAll()) {
+            approvalOutboxEntities = approvalOutboxJpaRepository.findClaimableForUpdateSkipLocked(
+                    type, outboxStatus.name(), sagaStatuses, after.createdAt(), after.id(), batchSize
+            );
+        } else {
+            approvalOutboxEntities = approvalOutboxJpaRepository.findClaimableInShardsForUpdateSkipLocked(
+                    type, outboxStatus.name(), sagaStatuses, shards.shardCount(), List.copyOf(shards.shards()),
+                    after.createdAt(), after.id(), batchSize
+            );
+        }
+        if (approvalOutboxEntities.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                .stream()
+        approvalOutboxJpaRepository.updateLeaseByIdIn(
+                approvalOutboxEntities.stream().map(ApprovalOutboxEntity::getId).collect(Collectors.toList()),
+                leaseOwner,
+                leaseSeconds
+        );
+        return approvalOutboxEntities.stream()
                 .map(approvalOutboxDataAccessMapper::approvalOutboxEntityToOrderApprovalOutboxMessage)
                 .collect(Collectors.toList());
+    }
 
-        if (approvalOutboxMessages.isEmpty()) {
-            throw new ApprovalOutboxNotFoundException(
-                    String.format("Approval outbox object " +
-                            "could be found for saga type %s", sagaType)
-            );
-        }
+    @Override
+    public boolean existsUnsettledBefore(String type, UUID sagaId, ZonedDateTime createdAt, UUID id) {
+        return approvalOutboxJpaRepository.existsUnsettledBefore(type, sagaId, createdAt, id);
+    }
 
-        return approvalOutboxMessages;
+    @Override
+    public int updateLeaseByIds(List<UUID> ids, String leaseOwner, long leaseSeconds) {
+        return approvalOutboxJpaRepository.updateLeaseByIdIn(ids, leaseOwner, leaseSeconds);
+    }
+
+    @Override
+    public int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus) {
+        return approvalOutboxJpaRepository.updateOutboxStatusByIdIn(ids, outboxStatus.name());
+    }
+
+    @Override
+    public int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy) {
+        return approvalOutboxJpaRepository.updateFailedOutboxStatusByIdIn(ids, retryPolicy.maxAttempts(),
+                retryPolicy.initialBackoffSeconds(), retryPolicy.maxBackoffSeconds());
     }
 
     @Override
@@ -73,4 +117,13 @@ public class ApprovalOutboxRepositoryImpl implements ApprovalOutboxRepository {
         approvalOutboxJpaRepository.deleteByTypeAndOutboxStatusAndSagaStatusIn(type, outboxStatus,
                 Arrays.asList(sagaStatus));
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteChunkByTypeAndOutboxStatusAndSagaStatus(String type,
+                                                             OutboxStatus outboxStatus,
+                                                             int chunkSize,
+                                                             SagaStatus... sagaStatus) {
+        return approvalOutboxJpaRepository.deleteChunkByTypeAndOutboxStatusAndSagaStatusIn(type, outboxStatus.name(),
+                Arrays.stream(sagaStatus).map(SagaStatus::name).collect(Collectors.toList()), chunkSize);
+    }
+}
@@ -26,6 +26,9 @@ public class ApprovalOutboxEntity {
     private ZonedDateTime processedAt;
     private String type;
     private String payload;
+    private byte[] payloadBytes;
+    private Integer payloadSchemaId;
+    private String partitionKey;
     @Enumerated(EnumType.STRING)
     private SagaStatus sagaStatus;
     @Enumerated(EnumType.STRING)
@@ -15,6 +15,9 @@ public class ApprovalOutboxDataAccessMapper {
                 .createdAt(orderApprovalOutboxMessage.getCreatedAt())
                 .type(orderApprovalOutboxMessage.getType())
                 .payload(orderApprovalOutboxMessage.getPayload())
+                .payloadBytes(orderApprovalOutboxMessage.getPayloadBytes())
+                .payloadSchemaId(orderApprovalOutboxMessage.getPayloadSchemaId())
+                .partitionKey(orderApprovalOutboxMessage.getPartitionKey())
                 .orderStatus(orderApprovalOutboxMessage.getOrderStatus())
                 .sagaStatus(orderApprovalOutboxMessage.getSagaStatus())
                 .outboxStatus(orderApprovalOutboxMessage.getOutboxStatus())
@@ -30,6 +33,9 @@ public class ApprovalOutboxDataAccessMapper {
                 .createdAt(approvalOutboxEntity.getCreatedAt())
                 .type(approvalOutboxEntity.getType())
                 .payload(approvalOutboxEntity.getPayload())
+                .payloadBytes(approvalOutboxEntity.getPayloadBytes())
+                .payloadSchemaId(approvalOutboxEntity.getPayloadSchemaId())
+                .partitionKey(approvalOutboxEntity.getPartitionKey())
                 .orderStatus(approvalOutboxEntity.getOrderStatus())
                 .sagaStatus(approvalOutboxEntity.getSagaStatus())
                 .outboxStatus(approvalOutboxEntity.getOutboxStatus())
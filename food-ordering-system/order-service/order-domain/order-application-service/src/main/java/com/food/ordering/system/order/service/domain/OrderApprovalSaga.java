@@ -12,6 +12,7 @@ import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderP
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.ApprovalOutboxHelper;
 import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxHelper;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.saga.SagaStatus;
 import com.food.ordering.system.saga.SagaStep;
@@ -34,17 +35,20 @@ public class OrderApprovalSaga implements SagaStep<RestaurantApprovalResponse> {
     private final PaymentOutboxHelper paymentOutboxHelper;
     private final ApprovalOutboxHelper approvalOutboxHelper;
     private final OrderDataMapper orderDataMapper;
+    private final PaymentOutboxScheduler paymentOutboxScheduler;
 
     public OrderApprovalSaga(OrderDomainService orderDomainService,
                              OrderSagaHelper orderSagaHelper,
                              PaymentOutboxHelper paymentOutboxHelper,
                              ApprovalOutboxHelper approvalOutboxHelper,
-                             OrderDataMapper orderDataMapper) {
+                             OrderDataMapper orderDataMapper,
+                             PaymentOutboxScheduler paymentOutboxScheduler) {
         this.orderDomainService = orderDomainService;
         this.orderSagaHelper = orderSagaHelper;
         this.paymentOutboxHelper = paymentOutboxHelper;
         this.approvalOutboxHelper = approvalOutboxHelper;
         this.orderDataMapper = orderDataMapper;
+        this.paymentOutboxScheduler = paymentOutboxScheduler;
     }
 
     @Override
@@ -98,13 +102,14 @@ public class OrderApprovalSaga implements SagaStep<RestaurantApprovalResponse> {
         OrderPaymentEventPayload orderPaymentEventPayload = orderDataMapper.orderCancelledEventToOrderPaymentEventPayload(
                 orderCancelledEvent
         );
-        paymentOutboxHelper.savePaymentOutboxMessage(
+        OrderPaymentOutboxMessage orderPaymentOutboxMessage = paymentOutboxHelper.savePaymentOutboxMessage(
                 orderPaymentEventPayload,
                 orderCancelledEvent.getOrder().getStatus(),
                 sagaStatus,
                 OutboxStatus.STARTED, // new object
                 UUID.fromString(restaurantApprovalResponse.sagaId())
         );
+        paymentOutboxScheduler.publishAfterCommit(orderPaymentOutboxMessage);
 
         // duplicates are not possible
         // 1. we have an optimistic locking when the outbox message is updated
@@ -4,7 +4,9 @@ import com.food.ordering.system.order.service.domain.dto.create.CreateOrderComma
 import com.food.ordering.system.order.service.domain.dto.create.CreateOrderResponse;
 import com.food.ordering.system.order.service.domain.event.OrderCreatedEvent;
 import com.food.ordering.system.order.service.domain.mapper.OrderDataMapper;
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxHelper;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -21,14 +23,17 @@ public class OrderCreateCommandHandler {
     private final OrderDataMapper orderDataMapper;
     private final PaymentOutboxHelper paymentOutboxHelper;
     private final OrderSagaHelper orderSagaHelper;
+    private final PaymentOutboxScheduler paymentOutboxScheduler;
 
     public OrderCreateCommandHandler(OrderCreateHelper orderCreateHelper,
                                      OrderDataMapper orderDataMapper, PaymentOutboxHelper paymentOutboxHelper,
-                                     OrderSagaHelper orderSagaHelper) {
+                                     OrderSagaHelper orderSagaHelper,
+                                     PaymentOutboxScheduler paymentOutboxScheduler) {
         this.orderCreateHelper = orderCreateHelper;
         this.orderDataMapper = orderDataMapper;
         this.paymentOutboxHelper = paymentOutboxHelper;
         this.orderSagaHelper = orderSagaHelper;
+        this.paymentOutboxScheduler = paymentOutboxScheduler;
     }
 
     @Transactional
@@ -39,13 +44,14 @@ public class OrderCreateCommandHandler {
         CreateOrderResponse createOrderResponse = orderDataMapper.orderToCreateOrderResponse(
                 orderCreatedEvent.getOrder(), ORDER_CREATED_MESSAGE
         );
-        paymentOutboxHelper.savePaymentOutboxMessage(
+        OrderPaymentOutboxMessage orderPaymentOutboxMessage = paymentOutboxHelper.savePaymentOutboxMessage(
                 orderDataMapper.orderCreatedEventToOrderPaymentEventPayload(orderCreatedEvent),
                 orderCreatedEvent.getOrder().getStatus(),
                 orderSagaHelper.orderStatusToSagaStatus(orderCreatedEvent.getOrder().getStatus()),
                 OutboxStatus.STARTED,
                 UUID.randomUUID()
         );
+        paymentOutboxScheduler.publishAfterCommit(orderPaymentOutboxMessage);
         log.info("Returning CreateOrderResponse with order id: {}", orderCreatedEvent.getOrder().getId());
         return createOrderResponse;
     }
@@ -11,6 +11,7 @@ import com.food.ordering.system.order.service.domain.mapper.OrderDataMapper;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.ApprovalOutboxHelper;
+import com.food.ordering.system.order.service.domain.outbox.scheduler.approval.RestaurantApprovalOutboxScheduler;
 import com.food.ordering.system.order.service.domain.outbox.scheduler.payment.PaymentOutboxHelper;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.saga.SagaStatus;
@@ -34,7 +35,8 @@ import java.util.UUID;
 
 // How is Saga processed?
 // 1. OrderCreateCommandHandler::createOrder -> creates an outbox object with STARTED OutboxStatus
-// 2. PaymentOutboxScheduler::processOutboxMessage -> fetches that outbox message and publishes it to Kafka topic
+// 2. PaymentOutboxScheduler::publishAfterCommit -> publishes that outbox message to Kafka topic once the order is
+// committed; PaymentOutboxScheduler::processOutboxMessage fetches and publishes the ones that could not be sent then
 // 3. PaymentResponseKafkaListener::receive -> listens to payment response topic and process the payment
 // 4. OrderPaymentSaga::process -> updates an outbox message (its Saga status and Order status); need to fire an event
 // to trigger the restaurant approval flow (save it to local database)
@@ -45,17 +47,20 @@ public class OrderPaymentSaga implements SagaStep<PaymentResponse> {
     private final ApprovalOutboxHelper approvalOutboxHelper;
     private final OrderSagaHelper orderSagaHelper;
     private final OrderDataMapper orderDataMapper;
+    private final RestaurantApprovalOutboxScheduler restaurantApprovalOutboxScheduler;
 
     public OrderPaymentSaga(OrderDomainService orderDomainService,
                             PaymentOutboxHelper paymentOutboxHelper,
                             ApprovalOutboxHelper approvalOutboxHelper,
                             OrderSagaHelper orderSagaHelper,
-                            OrderDataMapper orderDataMapper) {
+                            OrderDataMapper orderDataMapper,
+                            RestaurantApprovalOutboxScheduler restaurantApprovalOutboxScheduler) {
         this.orderDomainService = orderDomainService;
         this.approvalOutboxHelper = approvalOutboxHelper;
         this.orderSagaHelper = orderSagaHelper;
         this.paymentOutboxHelper = paymentOutboxHelper;
         this.orderDataMapper = orderDataMapper;
+        this.restaurantApprovalOutboxScheduler = restaurantApprovalOutboxScheduler;
     }
 
     @Override
@@ -87,13 +92,14 @@ public class OrderPaymentSaga implements SagaStep<PaymentResponse> {
                 sagaStatus
         );
         paymentOutboxHelper.save(updatedPaymentOutboxMessage);
-        approvalOutboxHelper.saveApprovalOutboxMessage(
+        OrderApprovalOutboxMessage orderApprovalOutboxMessage = approvalOutboxHelper.saveApprovalOutboxMessage(
                 orderDataMapper.orderPaidEventToOrderApprovalEventPayload(orderPaidEvent),
                 orderPaidEvent.getOrder().getStatus(),
                 sagaStatus,
                 OutboxStatus.STARTED,
                 UUID.fromString(paymentResponse.sagaId())
         );
+        restaurantApprovalOutboxScheduler.publishAfterCommit(orderApprovalOutboxMessage);
         log.info("Order[id = {}] is paid", orderPaidEvent.getOrder().getId().getValue());
     }
 
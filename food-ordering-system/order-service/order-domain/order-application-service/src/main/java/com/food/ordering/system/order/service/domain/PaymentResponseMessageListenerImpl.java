@@ -3,34 +3,71 @@ package com.food.ordering.system.order.service.domain;
 import com.food.ordering.system.order.service.domain.constant.MessageConstant;
 import com.food.ordering.system.order.service.domain.dto.message.PaymentResponse;
 import com.food.ordering.system.order.service.domain.port.input.message.listener.payment.PaymentResponseMessageListener;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.UUID;
+
 @Slf4j
 @Validated
 @Service
 // listener implementations will be triggered by the domain events from other bonded contexts
+// The saga steps are their own transactions, so a step that returned has committed and its response is remembered in
+// the processed saga cache; a resent response of such a step is dropped here, before the saga opens a transaction to
+// find its outbox message already processed.
 public class PaymentResponseMessageListenerImpl implements PaymentResponseMessageListener {
 
+    private static final String PAYMENT_STEP_PREFIX = "payment-";
+
     private final OrderPaymentSaga orderPaymentSaga;
+    private final ProcessedSagaCache processedSagaCache;
 
-    public PaymentResponseMessageListenerImpl(OrderPaymentSaga orderPaymentSaga) {
+    public PaymentResponseMessageListenerImpl(OrderPaymentSaga orderPaymentSaga,
+                                              ProcessedSagaCache processedSagaCache) {
         this.orderPaymentSaga = orderPaymentSaga;
+        this.processedSagaCache = processedSagaCache;
     }
 
     @Override
     public void paymentCompleted(PaymentResponse paymentResponse) {
+        if (isProcessed(paymentResponse)) {
+            return;
+        }
         orderPaymentSaga.process(paymentResponse);
+        markProcessed(paymentResponse);
         log.info("Order payment saga process operation is completed for order with id = {}", paymentResponse.orderId());
     }
 
     @Override
     public void paymentCancelled(PaymentResponse paymentResponse) {
+        if (isProcessed(paymentResponse)) {
+            return;
+        }
         orderPaymentSaga.rollback(paymentResponse);
+        markProcessed(paymentResponse);
         log.info("Order[id = {}] is rollback with failure messages: {}",
                 paymentResponse.orderId(),
                 String.join(MessageConstant.FAILURE_MESSAGE_DELIMITER, paymentResponse.failureMessages())
         );
     }
+
+    private boolean isProcessed(PaymentResponse paymentResponse) {
+        if (processedSagaCache.isProcessed(UUID.fromString(paymentResponse.sagaId()), step(paymentResponse))) {
+            log.info("Payment response with sagaId {} and status {} is already processed", paymentResponse.sagaId(),
+                    paymentResponse.paymentStatus());
+            return true;
+        }
+        return false;
+    }
+
+    private void markProcessed(PaymentResponse paymentResponse) {
+        processedSagaCache.markProcessed(UUID.fromString(paymentResponse.sagaId()), step(paymentResponse));
+    }
+
+    // a saga gets one completed and at most one cancelled or failed payment response
+    private static String step(PaymentResponse paymentResponse) {
+        return PAYMENT_STEP_PREFIX + paymentResponse.paymentStatus();
+    }
 }
@@ -3,33 +3,70 @@ package com.food.ordering.system.order.service.domain;
 import com.food.ordering.system.order.service.domain.constant.MessageConstant;
 import com.food.ordering.system.order.service.domain.dto.message.RestaurantApprovalResponse;
 import com.food.ordering.system.order.service.domain.port.input.message.listener.restaurantapproval.RestaurantApprovalResponseMessageListener;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.UUID;
+
 @Slf4j
 @Validated
 @Service
+// resent responses of the committed steps are dropped before a transaction is opened, see
+// PaymentResponseMessageListenerImpl
 public class RestaurantApprovalResponseMessageListenerImpl implements RestaurantApprovalResponseMessageListener {
 
+    private static final String APPROVAL_STEP_PREFIX = "approval-";
+
     private final OrderApprovalSaga orderApprovalSaga;
+    private final ProcessedSagaCache processedSagaCache;
 
-    public RestaurantApprovalResponseMessageListenerImpl(OrderApprovalSaga orderApprovalSaga) {
+    public RestaurantApprovalResponseMessageListenerImpl(OrderApprovalSaga orderApprovalSaga,
+                                                         ProcessedSagaCache processedSagaCache) {
         this.orderApprovalSaga = orderApprovalSaga;
+        this.processedSagaCache = processedSagaCache;
     }
 
     @Override
     public void orderApproved(RestaurantApprovalResponse restaurantApprovalResponse) {
+        if (isProcessed(restaurantApprovalResponse)) {
+            return;
+        }
         orderApprovalSaga.process(restaurantApprovalResponse);
+        markProcessed(restaurantApprovalResponse);
         log.info("Order[id = {}] is approved", restaurantApprovalResponse.orderId());
     }
 
     @Override
     public void orderRejected(RestaurantApprovalResponse restaurantApprovalResponse) {
+        if (isProcessed(restaurantApprovalResponse)) {
+            return;
+        }
         orderApprovalSaga.rollback(restaurantApprovalResponse);
+        markProcessed(restaurantApprovalResponse);
         log.info("Order approval saga rollback operation is complete for order[id = {}] with failure messages: {}.",
                 restaurantApprovalResponse.orderId(),
                 String.join(MessageConstant.FAILURE_MESSAGE_DELIMITER, restaurantApprovalResponse.failureMessages())
         );
     }
+
+    private boolean isProcessed(RestaurantApprovalResponse restaurantApprovalResponse) {
+        if (processedSagaCache.isProcessed(UUID.fromString(restaurantApprovalResponse.sagaId()),
+                step(restaurantApprovalResponse))) {
+            log.info("Restaurant approval response with sagaId {} and status {} is already processed",
+                    restaurantApprovalResponse.sagaId(), restaurantApprovalResponse.orderApprovalStatus());
+            return true;
+        }
+        return false;
+    }
+
+    private void markProcessed(RestaurantApprovalResponse restaurantApprovalResponse) {
+        processedSagaCache.markProcessed(UUID.fromString(restaurantApprovalResponse.sagaId()),
+                step(restaurantApprovalResponse));
+    }
+
+    private static String step(RestaurantApprovalResponse restaurantApprovalResponse) {
+        return APPROVAL_STEP_PREFIX + restaurantApprovalResponse.orderApprovalStatus();
+    }
 }
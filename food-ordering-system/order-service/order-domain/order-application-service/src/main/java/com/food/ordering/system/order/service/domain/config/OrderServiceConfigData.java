@@ -1,5 +1,7 @@
 package com.food.ordering.system.order.service.domain.config;
 
+import com.food.ordering.system.outbox.OutboxPayloadFormat;
+import com.food.ordering.system.outbox.OutboxPollingMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -13,4 +15,43 @@ public class OrderServiceConfigData {
     private String paymentResponseTopicName;
     private String restaurantApprovalRequestTopicName;
     private String restaurantApprovalResponseTopicName;
+    private OutboxPollingMode outboxSchedulerMode;
+    private long outboxSchedulerFixedRate;
+    private long outboxSchedulerInitialDelay;
+    private long outboxSchedulerMinDelay;
+    private double outboxSchedulerBackoffMultiplier;
+    private String outboxInstanceId;
+    private int outboxBatchSize;
+    private int outboxMaxPagesPerRun;
+    private long outboxLeaseSeconds;
+    private int outboxMaxInFlight;
+    private long outboxDrainTimeoutMs;
+    private int outboxRetryMaxAttempts;
+    private long outboxRetryInitialBackoffMs;
+    private long outboxRetryMaxBackoffMs;
+    private int outboxRetryBatchSize;
+    private int outboxCleanerChunkSize;
+    private long outboxCleanerPauseMs;
+    private OutboxPayloadFormat outboxPayloadFormat;
+    private boolean outboxDirectPublishEnabled;
+    private boolean outboxShardEnabled;
+    private int outboxShardCount;
+    private long outboxShardRebalanceIntervalMs;
+    private boolean outboxPartitionEnabled;
+    private int outboxPartitionPrecreateDays;
+    private int outboxPartitionRetentionDays;
+    private boolean outboxPartitionDropExpired;
+    private long outboxPartitionMaintenanceIntervalMs;
+    private long outboxMetricsSampleIntervalMs;
+    private int outboxMetricsCountLimit;
+    private boolean outboxNotificationEnabled;
+    private long outboxNotificationPollTimeoutMs;
+    private long outboxNotificationReconnectDelayMs;
+    private boolean outboxCdcEnabled;
+    private String outboxCdcSlotName;
+    private String outboxCdcPublicationName;
+    private long outboxCdcAckTimeoutMs;
+    private long outboxCdcStatusIntervalMs;
+    private long outboxCdcReconnectDelayMs;
+    private int processedSagaCacheCapacity;
 }
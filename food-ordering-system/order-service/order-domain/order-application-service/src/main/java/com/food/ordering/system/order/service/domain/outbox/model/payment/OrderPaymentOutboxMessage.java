@@ -20,7 +20,10 @@ public class OrderPaymentOutboxMessage {
     private ZonedDateTime createdAt;
     private ZonedDateTime processedAt;
     private String type;
-    private String payload; // OrderPaymentEventPayload
+    private String payload; // OrderPaymentEventPayload (JSON payload format)
+    private byte[] payloadBytes; // the serialized payment request (AVRO payload format)
+    private Integer payloadSchemaId;
+    private String partitionKey; // the record key of the serialized message (AVRO payload format)
     private SagaStatus sagaStatus;
     private OrderStatus orderStatus;
     private OutboxStatus outboxStatus;
@@ -3,11 +3,18 @@ package com.food.ordering.system.order.service.domain.outbox.scheduler.approval;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.food.ordering.system.domain.valueobject.OrderStatus;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.exception.OrderDomainException;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestPayloadEncoder;
 import com.food.ordering.system.order.service.domain.port.output.repository.ApprovalOutboxRepository;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import com.food.ordering.system.outbox.OutboxPayloadFormat;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import com.food.ordering.system.saga.order.SagaConstants;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -24,17 +32,38 @@ public class ApprovalOutboxHelper {
 
     private final ApprovalOutboxRepository approvalOutboxRepository;
     private final ObjectMapper objectMapper;
+    private final OrderServiceConfigData orderServiceConfigData;
+    private final OutboxRetryPolicy retryPolicy;
+    private final RestaurantApprovalRequestPayloadEncoder restaurantApprovalRequestPayloadEncoder;
 
-    public ApprovalOutboxHelper(ApprovalOutboxRepository approvalOutboxRepository, ObjectMapper objectMapper) {
+    public ApprovalOutboxHelper(ApprovalOutboxRepository approvalOutboxRepository,
+                                ObjectMapper objectMapper,
+                                OrderServiceConfigData orderServiceConfigData,
+                                RestaurantApprovalRequestPayloadEncoder restaurantApprovalRequestPayloadEncoder) {
         this.approvalOutboxRepository = approvalOutboxRepository;
         this.objectMapper = objectMapper;
+        this.orderServiceConfigData = orderServiceConfigData;
+        this.retryPolicy = OutboxRetryPolicy.ofMillis(
+                orderServiceConfigData.getOutboxRetryMaxAttempts(),
+                orderServiceConfigData.getOutboxRetryInitialBackoffMs(),
+                orderServiceConfigData.getOutboxRetryMaxBackoffMs()
+        );
+        this.restaurantApprovalRequestPayloadEncoder = restaurantApprovalRequestPayloadEncoder;
     }
 
-    @Transactional(readOnly = true)
-    public List<OrderApprovalOutboxMessage> getApprovalOutboxMessageByOutboxStatusAndSagaStatus(
-            OutboxStatus outboxStatus, SagaStatus... sagaStatuses) {
-        return approvalOutboxRepository.findByTypeAndOutboxStatusAndSagaStatus(
-                SagaConstants.ORDER_SAGA_NAME, outboxStatus, sagaStatuses
+    @Transactional
+    public List<OrderApprovalOutboxMessage> claimApprovalOutboxMessagesByOutboxStatusAndSagaStatus(
+            OutboxCursor after, int batchSize, OutboxShards shards, OutboxStatus outboxStatus,
+            SagaStatus... sagaStatuses) {
+        return approvalOutboxRepository.claimByTypeAndOutboxStatusAndSagaStatus(
+                SagaConstants.ORDER_SAGA_NAME,
+                outboxStatus,
+                orderServiceConfigData.getOutboxInstanceId(),
+                after,
+                batchSize,
+                orderServiceConfigData.getOutboxLeaseSeconds(),
+                shards,
+                sagaStatuses
         );
     }
 
@@ -60,21 +89,35 @@ public class ApprovalOutboxHelper {
     }
 
     @Transactional
-    public void saveApprovalOutboxMessage(OrderApprovalEventPayload orderApprovalEventPayload,
-                                          OrderStatus orderStatus,
-                                          SagaStatus sagaStatus,
-                                          OutboxStatus outboxStatus,
-                                          UUID sagaId) {
-        save(OrderApprovalOutboxMessage.builder()
-                .id(UUID.randomUUID())
-                .sagaId(sagaId)
-                .createdAt(orderApprovalEventPayload.getCreatedAt())
-                .type(SagaConstants.ORDER_SAGA_NAME)
-                .payload(createPayload(orderApprovalEventPayload))
-                .orderStatus(orderStatus)
-                .outboxStatus(outboxStatus)
-                .sagaStatus(sagaStatus)
-                .build());
+    public OrderApprovalOutboxMessage saveApprovalOutboxMessage(OrderApprovalEventPayload orderApprovalEventPayload,
+                                                                OrderStatus orderStatus,
+                                                                SagaStatus sagaStatus,
+                                                                OutboxStatus outboxStatus,
+                                                                UUID sagaId) {
+        OrderApprovalOutboxMessage.OrderApprovalOutboxMessageBuilder orderApprovalOutboxMessageBuilder =
+                OrderApprovalOutboxMessage.builder()
+                        .id(UUID.randomUUID())
+                        .sagaId(sagaId)
+                        .createdAt(orderApprovalEventPayload.getCreatedAt())
+                        .type(SagaConstants.ORDER_SAGA_NAME)
+                        .orderStatus(orderStatus)
+                        .outboxStatus(outboxStatus)
+                        .sagaStatus(sagaStatus);
+        // with the AVRO format the relay publishes the stored bytes as they are, without mapping the payload again
+        if (orderServiceConfigData.getOutboxPayloadFormat() == OutboxPayloadFormat.AVRO) {
+            OutboxBinaryPayload binaryPayload = restaurantApprovalRequestPayloadEncoder.encode(
+                    sagaId, orderApprovalEventPayload
+            );
+            orderApprovalOutboxMessageBuilder
+                    .payloadBytes(binaryPayload.bytes())
+                    .payloadSchemaId(binaryPayload.schemaId())
+                    .partitionKey(binaryPayload.partitionKey());
+        } else {
+            orderApprovalOutboxMessageBuilder.payload(createPayload(orderApprovalEventPayload));
+        }
+        OrderApprovalOutboxMessage orderApprovalOutboxMessage = orderApprovalOutboxMessageBuilder.build();
+        save(orderApprovalOutboxMessage);
+        return orderApprovalOutboxMessage;
     }
 
     public void deleteOrderApprovalOutboxMessageByOutboxStatusAndSagaStatus(OutboxStatus outboxStatus,
@@ -84,6 +127,51 @@ public class ApprovalOutboxHelper {
         );
     }
 
+    @Transactional
+    public int deleteOrderApprovalOutboxMessageChunkByOutboxStatusAndSagaStatus(int chunkSize,
+                                                                                OutboxStatus outboxStatus,
+                                                                                SagaStatus... sagaStatuses) {
+        return approvalOutboxRepository.deleteChunkByTypeAndOutboxStatusAndSagaStatus(
+                SagaConstants.ORDER_SAGA_NAME, outboxStatus, chunkSize, sagaStatuses
+        );
+    }
+
+    // an earlier message of the same saga that is still to be sent has to go first, so the given one is left to the
+    // relay runs, which claim it only after that
+    @Transactional(readOnly = true)
+    public boolean hasUnsettledEarlierMessage(OrderApprovalOutboxMessage orderApprovalOutboxMessage) {
+        return approvalOutboxRepository.existsUnsettledBefore(SagaConstants.ORDER_SAGA_NAME, orderApprovalOutboxMessage.getSagaId(),
+                orderApprovalOutboxMessage.getCreatedAt(), orderApprovalOutboxMessage.getId());
+    }
+
+    // leases the given messages to this instance, so the relay runs do not claim them while they are being published
+    // right after the commit; an expired lease hands them over to the relay runs
+    @Transactional
+    public void leaseOutboxMessages(List<OrderApprovalOutboxMessage> orderApprovalOutboxMessages) {
+        List<UUID> ids = orderApprovalOutboxMessages.stream()
+                .map(OrderApprovalOutboxMessage::getId)
+                .collect(Collectors.toList());
+        approvalOutboxRepository.updateLeaseByIds(ids, orderServiceConfigData.getOutboxInstanceId(),
+                orderServiceConfigData.getOutboxLeaseSeconds());
+    }
+
+    // used by the outbox relay to acknowledge a whole batch of broker outcomes with one update
+    @Transactional
+    public void bulkUpdateOutboxStatus(List<OrderApprovalOutboxMessage> orderApprovalOutboxMessages,
+                                       OutboxStatus outboxStatus) {
+        List<UUID> ids = orderApprovalOutboxMessages.stream()
+                .map(OrderApprovalOutboxMessage::getId)
+                .collect(Collectors.toList());
+        // a failed send is scheduled for a retry after its backoff, or parked once it used up its attempts (the status
+        // of the message objects stays FAILED then)
+        int updated = outboxStatus == OutboxStatus.FAILED
+                ? approvalOutboxRepository.updateFailedOutboxStatusByIds(ids, retryPolicy)
+                : approvalOutboxRepository.updateOutboxStatusByIds(ids, outboxStatus);
+        orderApprovalOutboxMessages.forEach(outboxMessage -> outboxMessage.setOutboxStatus(outboxStatus));
+        log.info("{} of {} OrderApprovalOutboxMessages are updated with status {}", updated, ids.size(),
+                outboxStatus.name());
+    }
+
     private String createPayload(OrderApprovalEventPayload orderApprovalEventPayload) {
         try {
             return objectMapper.writeValueAsString(orderApprovalEventPayload);
@@ -0,0 +1,56 @@
+package com.food.ordering.system.order.service.domain.outbox.scheduler.approval;
+
+import com.food.ordering.system.domain.valueobject.OrderStatus;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestMessagePublisher;
+import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.cdc.OutboxChange;
+import com.food.ordering.system.outbox.cdc.PublishingOutboxChangeHandler;
+import com.food.ordering.system.saga.SagaStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.food.ordering.system.saga.order.SagaConstants.ORDER_SAGA_NAME;
+
+// The CDC counterpart of RestaurantApprovalOutboxScheduler - it gets the restaurant approval outbox rows straight from
+// the WAL (see `order-service.outbox-cdc-enabled`).
+@Component
+public class RestaurantApprovalOutboxChangeHandler extends PublishingOutboxChangeHandler<OrderApprovalOutboxMessage> {
+
+    // the same rows the polling relay would claim: paid orders waiting for the restaurant approval
+    private static final Set<SagaStatus> PUBLISHED_SAGA_STATUSES = EnumSet.of(SagaStatus.PROCESSING);
+
+    public RestaurantApprovalOutboxChangeHandler(ApprovalOutboxHelper approvalOutboxHelper,
+                                                 RestaurantApprovalRequestMessagePublisher
+                                                         restaurantApprovalRequestMessagePublisher) {
+        super("ApprovalOutboxCdc", approvalOutboxHelper::bulkUpdateOutboxStatus,
+                restaurantApprovalRequestMessagePublisher::publish);
+    }
+
+    @Override
+    protected OrderApprovalOutboxMessage toOutboxMessage(OutboxChange change) {
+        return OrderApprovalOutboxMessage.builder()
+                .id(change.getUUID("id"))
+                .sagaId(change.getUUID("saga_id"))
+                .createdAt(change.getZonedDateTime("created_at"))
+                .processedAt(change.getZonedDateTime("processed_at"))
+                .type(change.getString("type"))
+                .payload(change.getString("payload"))
+                .payloadBytes(change.getBytes("payload_bytes"))
+                .payloadSchemaId(change.getInteger("payload_schema_id"))
+                .partitionKey(change.getString("partition_key"))
+                .sagaStatus(change.getEnum("saga_status", SagaStatus.class))
+                .orderStatus(change.getEnum("order_status", OrderStatus.class))
+                .outboxStatus(change.getEnum("outbox_status", OutboxStatus.class))
+                .version(change.getInt("version"))
+                .build();
+    }
+
+    @Override
+    protected boolean isPublished(OrderApprovalOutboxMessage orderApprovalOutboxMessage) {
+        return ORDER_SAGA_NAME.equals(orderApprovalOutboxMessage.getType()) &&
+                PUBLISHED_SAGA_STATUSES.contains(orderApprovalOutboxMessage.getSagaStatus());
+    }
+}
@@ -1,6 +1,7 @@
 package com.food.ordering.system.order.service.domain.outbox.scheduler.approval;
 
-import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.outbox.OutboxCleaner;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.saga.SagaStatus;
@@ -8,39 +9,45 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 @Slf4j
 @Component
 public class RestaurantApprovalOutboxCleanerScheduler implements OutboxScheduler {
 
-    private final ApprovalOutboxHelper approvalOutboxHelper;
+    private final OutboxCleaner outboxCleaner;
+    private final boolean partitionRetention;
 
-    public RestaurantApprovalOutboxCleanerScheduler(ApprovalOutboxHelper approvalOutboxHelper) {
-        this.approvalOutboxHelper = approvalOutboxHelper;
+    public RestaurantApprovalOutboxCleanerScheduler(ApprovalOutboxHelper approvalOutboxHelper,
+                                                    OrderServiceConfigData orderServiceConfigData) {
+        // only the messages of finished sagas are removed, each chunk is deleted (and committed) on its own
+        this.outboxCleaner = OutboxCleaner.builder()
+                .name("RestaurantApprovalOutbox")
+                .deleteStrategy(chunkSize ->
+                        approvalOutboxHelper.deleteOrderApprovalOutboxMessageChunkByOutboxStatusAndSagaStatus(
+                                chunkSize,
+                                // FAILED messages are still retried and PARKED ones wait for an operator
+                                OutboxStatus.COMPLETED,
+                                SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
+                        ))
+                .chunkSize(orderServiceConfigData.getOutboxCleanerChunkSize())
+                .pauseBetweenChunks(Duration.ofMillis(orderServiceConfigData.getOutboxCleanerPauseMs()))
+                .build();
+        this.partitionRetention = orderServiceConfigData.isOutboxPartitionEnabled();
     }
 
     @Override
     @Scheduled(cron = "@midnight")
     public void processOutboxMessage() {
-        List<OrderApprovalOutboxMessage> outboxMessages = approvalOutboxHelper.getApprovalOutboxMessageByOutboxStatusAndSagaStatus(
-                OutboxStatus.COMPLETED,
-                SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
-        );
-
-        if (outboxMessages != null && !outboxMessages.isEmpty()) {
-            log.info("Received {} OrderApprovalOutboxMessage for clean-up. Payloads: {}",
-                    outboxMessages.size(),
-                    outboxMessages.stream()
-                            .map(OrderApprovalOutboxMessage::getPayload)
-                            .collect(Collectors.joining("\n"))
-            );
-            approvalOutboxHelper.deleteOrderApprovalOutboxMessageByOutboxStatusAndSagaStatus(
-                    OutboxStatus.COMPLETED, // OutboxStatus.FAILED is set only if Kafka cannot sent the message
-                    SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
-            );
-            log.info("{} OrderApprovalOutboxMessage records have been deleted.", outboxMessages.size());
+        // the expired partitions are dropped as a whole by the OutboxPartitionManager instead
+        if (partitionRetention) {
+            log.debug("{} clean-up skipped, the outbox is retained by partitions.", outboxCleaner.getName());
+            return;
         }
+        outboxCleaner.clean();
+    }
+
+    public OutboxCleaner getOutboxCleaner() {
+        return outboxCleaner;
     }
-}
\ No newline at end of file
+}
@@ -1,69 +1,136 @@
 package com.food.ordering.system.order.service.domain.outbox.scheduler.approval;
 
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
-import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
-import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestMessagePublisher;
 import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestMessagePublisher;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxPollingTrigger;
+import com.food.ordering.system.outbox.OutboxRelay;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShardCoordinator;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Slf4j
 @Component
-public class RestaurantApprovalOutboxScheduler implements OutboxScheduler {
+public class RestaurantApprovalOutboxScheduler implements OutboxScheduler, SchedulingConfigurer {
 
+    private final boolean cdcEnabled;
+    private final boolean directPublishEnabled;
+    private final long retryDelayMs;
     private final ApprovalOutboxHelper approvalOutboxHelper;
-    private final RestaurantApprovalRequestMessagePublisher restaurantApprovalRequestMessagePublisher;
+    // present when the saga ids are sharded between the running instances
+    private final OutboxShardCoordinator shardCoordinator;
+    private final OutboxRelay<OrderApprovalOutboxMessage> outboxRelay;
 
     public RestaurantApprovalOutboxScheduler(ApprovalOutboxHelper approvalOutboxHelper,
-                                             RestaurantApprovalRequestMessagePublisher restaurantApprovalRequestMessagePublisher) {
+                                             RestaurantApprovalRequestMessagePublisher restaurantApprovalRequestMessagePublisher,
+                                             OrderServiceConfigData orderServiceConfigData,
+                                             Optional<OutboxShardCoordinator> outboxShardCoordinator) {
+        this.cdcEnabled = orderServiceConfigData.isOutboxCdcEnabled();
+        this.shardCoordinator = outboxShardCoordinator.orElse(null);
+        // the WAL-based relay already publishes a row as soon as it is committed
+        this.directPublishEnabled = orderServiceConfigData.isOutboxDirectPublishEnabled() && !cdcEnabled;
+        this.retryDelayMs = orderServiceConfigData.getOutboxSchedulerFixedRate();
         this.approvalOutboxHelper = approvalOutboxHelper;
-        this.restaurantApprovalRequestMessagePublisher = restaurantApprovalRequestMessagePublisher;
+        // in the approval outbox table, we will have the domain events for OrderPaid event
+        this.outboxRelay = OutboxRelay.<OrderApprovalOutboxMessage>builder()
+                .name("RestaurantApprovalOutbox")
+                .fetchStrategy((after, batchSize) ->
+                        approvalOutboxHelper.claimApprovalOutboxMessagesByOutboxStatusAndSagaStatus(
+                                // processing means the order is paid and waits for the restaurant approval
+                                after, batchSize, getOwnedShards(), OutboxStatus.STARTED, SagaStatus.PROCESSING
+                        ))
+                // the failed messages are retried once their backoff is over, with what is left of a batch
+                .retryFetchStrategy((after, batchSize) ->
+                        approvalOutboxHelper.claimApprovalOutboxMessagesByOutboxStatusAndSagaStatus(
+                                after, batchSize, getOwnedShards(), OutboxStatus.FAILED, SagaStatus.PROCESSING
+                        ))
+                .retryBatchSize(orderServiceConfigData.getOutboxRetryBatchSize())
+                .cursorExtractor(outboxMessage -> new OutboxCursor(outboxMessage.getCreatedAt(), outboxMessage.getId()))
+                .publishStrategy(restaurantApprovalRequestMessagePublisher::publish)
+                .batchPublishStrategy(restaurantApprovalRequestMessagePublisher::publishBatch)
+                .ackStrategy(approvalOutboxHelper::bulkUpdateOutboxStatus)
+                .batchSize(orderServiceConfigData.getOutboxBatchSize())
+                .maxPagesPerRun(orderServiceConfigData.getOutboxMaxPagesPerRun())
+                .maxInFlight(orderServiceConfigData.getOutboxMaxInFlight())
+                .drainTimeout(Duration.ofMillis(orderServiceConfigData.getOutboxDrainTimeoutMs()))
+                .shardCoordinator(shardCoordinator)
+                .pollingTrigger(OutboxPollingTrigger.of(
+                        orderServiceConfigData.getOutboxSchedulerMode(),
+                        orderServiceConfigData.getOutboxSchedulerInitialDelay(),
+                        orderServiceConfigData.getOutboxSchedulerMinDelay(),
+                        orderServiceConfigData.getOutboxSchedulerFixedRate(),
+                        orderServiceConfigData.getOutboxSchedulerBackoffMultiplier()
+                ))
+                .build();
     }
 
     @Override
-    @Transactional
-    @Scheduled(
-            fixedDelayString = "${order-service.outbox-scheduler-fixed-rate}",
-            initialDelayString = "${order-service.outbox-scheduler-initial-delay}"
-    )
     public void processOutboxMessage() {
-        // in the payment outbox table, we will have the domain events for OrderPaid event:
-        List<OrderApprovalOutboxMessage> orderApprovalOutboxMessages =
-                approvalOutboxHelper.getApprovalOutboxMessageByOutboxStatusAndSagaStatus(
-                        // paid means pending and cancelling events
-                        OutboxStatus.STARTED, SagaStatus.PROCESSING
-                );
-        if (orderApprovalOutboxMessages == null || orderApprovalOutboxMessages.isEmpty()) {
-            log.error("No OrderApprovalOutboxMessage in the outbox table with the given statuses.");
+        outboxRelay.relay();
+    }
+
+    // the relay is triggered by its polling trigger instead of @Scheduled, so the delay between runs can follow the
+    // outcome of the previous run (see `order-service.outbox-scheduler-mode`)
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        // with the WAL-based relay the rows are published by the change handler, polling them as well would only
+        // produce duplicates
+        if (cdcEnabled) {
+            log.info("{} polling is disabled, the outbox is relayed from the WAL.", outboxRelay.getName());
+            // the change handlers write failed sends as FAILED and the WAL-based relay moves past them, so their
+            // retries are still polled
+            taskRegistrar.addFixedDelayTask(outboxRelay::retry, retryDelayMs);
             return;
         }
+        taskRegistrar.addTriggerTask(this::processOutboxMessage, outboxRelay.getPollingTrigger());
+    }
 
-        log.info("Received {} OrderApprovalOutboxMessage items with ids: {}",
-                orderApprovalOutboxMessages.size(),
-                orderApprovalOutboxMessages.stream()
-                        .map(outboxMessage -> outboxMessage.getId().toString())
-                        .collect(Collectors.joining(","))
-        );
+    // Publishes a message saved in the current transaction right after that transaction commits, so the happy path does
+    // not wait for the next relay run. The message is leased in the same transaction, so the relay runs (e.g. woken up
+    // by the outbox notification) skip it meanwhile; the broker outcome is acknowledged with the next relay run, and a
+    // message whose send failed or was lost (e.g. the instance died) is relayed again once its lease expires.
+    public void publishAfterCommit(OrderApprovalOutboxMessage outboxMessage) {
+        if (!directPublishEnabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // the message of a saga whose shard is owned by another instance is left to the relay of that instance
+        if (shardCoordinator != null && !shardCoordinator.owns(outboxMessage.getSagaId())) {
+            return;
+        }
+        // the direct publish has no ordering guard of its own, so while an earlier message of the saga is still to be
+        // sent (e.g. a request that failed and waits for its retry), the claims of the relay keep the order instead
+        if (approvalOutboxHelper.hasUnsettledEarlierMessage(outboxMessage)) {
+            log.debug("Outbox message {} of saga {} is left to the relay, an earlier message of the saga is unsent",
+                    outboxMessage.getId(), outboxMessage.getSagaId());
+            return;
+        }
+        approvalOutboxHelper.leaseOutboxMessages(List.of(outboxMessage));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.publishDirectly(outboxMessage);
+            }
+        });
+    }
 
-        orderApprovalOutboxMessages.forEach(orderPaymentOutboxMessage ->
-                restaurantApprovalRequestMessagePublisher.publish(orderPaymentOutboxMessage, this::updateOutboxStatus)
-        );
-        log.info("{} OrderPaymentOutboxMessage items sent to the message bus!", orderApprovalOutboxMessages.size());
+    private OutboxShards getOwnedShards() {
+        return shardCoordinator == null ? OutboxShards.ALL : shardCoordinator.getOwnedShards();
     }
 
-    private void updateOutboxStatus(OrderApprovalOutboxMessage orderApprovalOutboxMessage, OutboxStatus outboxStatus) {
-        orderApprovalOutboxMessage.setOutboxStatus(outboxStatus);
-        approvalOutboxHelper.save(orderApprovalOutboxMessage);
-        log.info("OrderApprovalOutboxMessage[id = {}] is updated with status {}",
-                orderApprovalOutboxMessage.getId(), outboxStatus.name()
-        );
+    public OutboxRelay<OrderApprovalOutboxMessage> getOutboxRelay() {
+        return outboxRelay;
     }
 }
@@ -0,0 +1,56 @@
+package com.food.ordering.system.order.service.domain.outbox.scheduler.payment;
+
+import com.food.ordering.system.domain.valueobject.OrderStatus;
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestMessagePublisher;
+import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.cdc.OutboxChange;
+import com.food.ordering.system.outbox.cdc.PublishingOutboxChangeHandler;
+import com.food.ordering.system.saga.SagaStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.food.ordering.system.saga.order.SagaConstants.ORDER_SAGA_NAME;
+
+// The CDC counterpart of PaymentOutboxScheduler - it gets the payment outbox rows straight from the WAL (see
+// `order-service.outbox-cdc-enabled`).
+@Component
+public class PaymentOutboxChangeHandler extends PublishingOutboxChangeHandler<OrderPaymentOutboxMessage> {
+
+    // the same rows the polling relay would claim: pending and cancelling events
+    private static final Set<SagaStatus> PUBLISHED_SAGA_STATUSES = EnumSet.of(SagaStatus.STARTED,
+            SagaStatus.COMPENSATING);
+
+    public PaymentOutboxChangeHandler(PaymentOutboxHelper paymentOutboxHelper,
+                                      PaymentRequestMessagePublisher paymentRequestMessagePublisher) {
+        super("PaymentOutboxCdc", paymentOutboxHelper::bulkUpdateOutboxStatus,
+                paymentRequestMessagePublisher::publish);
+    }
+
+    @Override
+    protected OrderPaymentOutboxMessage toOutboxMessage(OutboxChange change) {
+        return OrderPaymentOutboxMessage.builder()
+                .id(change.getUUID("id"))
+                .sagaId(change.getUUID("saga_id"))
+                .createdAt(change.getZonedDateTime("created_at"))
+                .processedAt(change.getZonedDateTime("processed_at"))
+                .type(change.getString("type"))
+                .payload(change.getString("payload"))
+                .payloadBytes(change.getBytes("payload_bytes"))
+                .payloadSchemaId(change.getInteger("payload_schema_id"))
+                .partitionKey(change.getString("partition_key"))
+                .sagaStatus(change.getEnum("saga_status", SagaStatus.class))
+                .orderStatus(change.getEnum("order_status", OrderStatus.class))
+                .outboxStatus(change.getEnum("outbox_status", OutboxStatus.class))
+                .version(change.getInt("version"))
+                .build();
+    }
+
+    @Override
+    protected boolean isPublished(OrderPaymentOutboxMessage orderPaymentOutboxMessage) {
+        return ORDER_SAGA_NAME.equals(orderPaymentOutboxMessage.getType()) &&
+                PUBLISHED_SAGA_STATUSES.contains(orderPaymentOutboxMessage.getSagaStatus());
+    }
+}
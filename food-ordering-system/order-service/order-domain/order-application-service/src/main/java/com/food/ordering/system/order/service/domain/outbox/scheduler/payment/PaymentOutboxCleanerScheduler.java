@@ -1,6 +1,7 @@
 package com.food.ordering.system.order.service.domain.outbox.scheduler.payment;
 
-import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.outbox.OutboxCleaner;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.saga.SagaStatus;
@@ -8,39 +9,44 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 @Slf4j
 @Component
 public class PaymentOutboxCleanerScheduler implements OutboxScheduler {
 
-    private final PaymentOutboxHelper paymentOutboxHelper;
+    private final OutboxCleaner outboxCleaner;
+    private final boolean partitionRetention;
 
-    public PaymentOutboxCleanerScheduler(PaymentOutboxHelper paymentOutboxHelper) {
-        this.paymentOutboxHelper = paymentOutboxHelper;
+    public PaymentOutboxCleanerScheduler(PaymentOutboxHelper paymentOutboxHelper,
+                                         OrderServiceConfigData orderServiceConfigData) {
+        // only the messages of finished sagas are removed, each chunk is deleted (and committed) on its own
+        this.outboxCleaner = OutboxCleaner.builder()
+                .name("PaymentOutbox")
+                .deleteStrategy(chunkSize ->
+                        paymentOutboxHelper.deletePaymentOutboxMessageChunkByOutboxStatusAndSagaStatus(
+                                chunkSize,
+                                OutboxStatus.COMPLETED,
+                                SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
+                        ))
+                .chunkSize(orderServiceConfigData.getOutboxCleanerChunkSize())
+                .pauseBetweenChunks(Duration.ofMillis(orderServiceConfigData.getOutboxCleanerPauseMs()))
+                .build();
+        this.partitionRetention = orderServiceConfigData.isOutboxPartitionEnabled();
     }
 
     @Override
     @Scheduled(cron = "@midnight")
     public void processOutboxMessage() {
-        List<OrderPaymentOutboxMessage> outboxMessages = paymentOutboxHelper.getPaymentOutboxMessageByOutboxStatusAndSagaStatus(
-                OutboxStatus.COMPLETED,
-                SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
-        );
-
-        if (outboxMessages != null && !outboxMessages.isEmpty()) {
-            log.info("Received {} OrderPaymentOutboxMessage for clean-up. Payloads: {}",
-                    outboxMessages.size(),
-                    outboxMessages.stream()
-                            .map(OrderPaymentOutboxMessage::getPayload)
-                            .collect(Collectors.joining("\n"))
-            );
-            paymentOutboxHelper.deletePaymentOutboxMessageByOutboxStatusAndSagaStatus(
-                    OutboxStatus.COMPLETED,
-                    SagaStatus.SUCCEEDED, SagaStatus.FAILED, SagaStatus.COMPENSATED
-            );
-            log.info("{} OrderPaymentOutboxMessage records have been deleted.", outboxMessages.size());
+        // the expired partitions are dropped as a whole by the OutboxPartitionManager instead
+        if (partitionRetention) {
+            log.debug("{} clean-up skipped, the outbox is retained by partitions.", outboxCleaner.getName());
+            return;
         }
+        outboxCleaner.clean();
+    }
+
+    public OutboxCleaner getOutboxCleaner() {
+        return outboxCleaner;
     }
 }
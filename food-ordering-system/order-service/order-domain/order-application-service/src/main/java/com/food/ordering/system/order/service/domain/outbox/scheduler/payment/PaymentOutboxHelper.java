@@ -3,11 +3,18 @@ package com.food.ordering.system.order.service.domain.outbox.scheduler.payment;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.food.ordering.system.domain.valueobject.OrderStatus;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.exception.OrderDomainException;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestPayloadEncoder;
 import com.food.ordering.system.order.service.domain.port.output.repository.PaymentOutboxRepository;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import com.food.ordering.system.outbox.OutboxPayloadFormat;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import com.food.ordering.system.saga.order.SagaConstants;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -24,18 +32,38 @@ public class PaymentOutboxHelper {
 
     private final PaymentOutboxRepository paymentOutboxRepository;
     private final ObjectMapper objectMapper;
+    private final OrderServiceConfigData orderServiceConfigData;
+    private final OutboxRetryPolicy retryPolicy;
+    private final PaymentRequestPayloadEncoder paymentRequestPayloadEncoder;
 
     public PaymentOutboxHelper(PaymentOutboxRepository paymentOutboxRepository,
-                               ObjectMapper objectMapper) {
+                               ObjectMapper objectMapper,
+                               OrderServiceConfigData orderServiceConfigData,
+                               PaymentRequestPayloadEncoder paymentRequestPayloadEncoder) {
         this.paymentOutboxRepository = paymentOutboxRepository;
         this.objectMapper = objectMapper;
+        this.orderServiceConfigData = orderServiceConfigData;
+        this.retryPolicy = OutboxRetryPolicy.ofMillis(
+                orderServiceConfigData.getOutboxRetryMaxAttempts(),
+                orderServiceConfigData.getOutboxRetryInitialBackoffMs(),
+                orderServiceConfigData.getOutboxRetryMaxBackoffMs()
+        );
+        this.paymentRequestPayloadEncoder = paymentRequestPayloadEncoder;
     }
 
-    @Transactional(readOnly = true)
-    public List<OrderPaymentOutboxMessage> getPaymentOutboxMessageByOutboxStatusAndSagaStatus(OutboxStatus outboxStatus,
-                                                                                              SagaStatus... sagaStatuses) {
-        return paymentOutboxRepository.findByTypeAndOutboxStatusAndSagaStatus(
-                SagaConstants.ORDER_SAGA_NAME, outboxStatus, sagaStatuses
+    @Transactional
+    public List<OrderPaymentOutboxMessage> claimPaymentOutboxMessagesByOutboxStatusAndSagaStatus(
+            OutboxCursor after, int batchSize, OutboxShards shards, OutboxStatus outboxStatus,
+            SagaStatus... sagaStatuses) {
+        return paymentOutboxRepository.claimByTypeAndOutboxStatusAndSagaStatus(
+                SagaConstants.ORDER_SAGA_NAME,
+                outboxStatus,
+                orderServiceConfigData.getOutboxInstanceId(),
+                after,
+                batchSize,
+                orderServiceConfigData.getOutboxLeaseSeconds(),
+                shards,
+                sagaStatuses
         );
     }
 
@@ -61,22 +89,33 @@ public class PaymentOutboxHelper {
     }
 
     @Transactional
-    public void savePaymentOutboxMessage(OrderPaymentEventPayload paymentEventPayload,
-                                         OrderStatus orderStatus,
-                                         SagaStatus sagaStatus,
-                                         OutboxStatus outboxStatus,
-                                         UUID sagaId) {
-        save(OrderPaymentOutboxMessage.builder()
-                .id(UUID.randomUUID())
-                .sagaId(sagaId)
-                .createdAt(paymentEventPayload.getCreatedAt())
-                .type(SagaConstants.ORDER_SAGA_NAME)
-                .payload(createPayload(paymentEventPayload))
-                .orderStatus(orderStatus)
-                .sagaStatus(sagaStatus)
-                .outboxStatus(outboxStatus)
-                .build()
-        );
+    public OrderPaymentOutboxMessage savePaymentOutboxMessage(OrderPaymentEventPayload paymentEventPayload,
+                                                              OrderStatus orderStatus,
+                                                              SagaStatus sagaStatus,
+                                                              OutboxStatus outboxStatus,
+                                                              UUID sagaId) {
+        OrderPaymentOutboxMessage.OrderPaymentOutboxMessageBuilder orderPaymentOutboxMessageBuilder =
+                OrderPaymentOutboxMessage.builder()
+                        .id(UUID.randomUUID())
+                        .sagaId(sagaId)
+                        .createdAt(paymentEventPayload.getCreatedAt())
+                        .type(SagaConstants.ORDER_SAGA_NAME)
+                        .orderStatus(orderStatus)
+                        .sagaStatus(sagaStatus)
+                        .outboxStatus(outboxStatus);
+        // with the AVRO format the relay publishes the stored bytes as they are, without mapping the payload again
+        if (orderServiceConfigData.getOutboxPayloadFormat() == OutboxPayloadFormat.AVRO) {
+            OutboxBinaryPayload binaryPayload = paymentRequestPayloadEncoder.encode(sagaId, paymentEventPayload);
+            orderPaymentOutboxMessageBuilder
+                    .payloadBytes(binaryPayload.bytes())
+                    .payloadSchemaId(binaryPayload.schemaId())
+                    .partitionKey(binaryPayload.partitionKey());
+        } else {
+            orderPaymentOutboxMessageBuilder.payload(createPayload(paymentEventPayload));
+        }
+        OrderPaymentOutboxMessage orderPaymentOutboxMessage = orderPaymentOutboxMessageBuilder.build();
+        save(orderPaymentOutboxMessage);
+        return orderPaymentOutboxMessage;
     }
 
     @Transactional
@@ -87,6 +126,51 @@ public class PaymentOutboxHelper {
         );
     }
 
+    @Transactional
+    public int deletePaymentOutboxMessageChunkByOutboxStatusAndSagaStatus(int chunkSize,
+                                                                          OutboxStatus outboxStatus,
+                                                                          SagaStatus... sagaStatuses) {
+        return paymentOutboxRepository.deleteChunkByTypeAndOutboxStatusAndSagaStatus(
+                SagaConstants.ORDER_SAGA_NAME, outboxStatus, chunkSize, sagaStatuses
+        );
+    }
+
+    // an earlier message of the same saga that is still to be sent has to go first, so the given one is left to the
+    // relay runs, which claim it only after that
+    @Transactional(readOnly = true)
+    public boolean hasUnsettledEarlierMessage(OrderPaymentOutboxMessage orderPaymentOutboxMessage) {
+        return paymentOutboxRepository.existsUnsettledBefore(SagaConstants.ORDER_SAGA_NAME, orderPaymentOutboxMessage.getSagaId(),
+                orderPaymentOutboxMessage.getCreatedAt(), orderPaymentOutboxMessage.getId());
+    }
+
+    // leases the given messages to this instance, so the relay runs do not claim them while they are being published
+    // right after the commit; an expired lease hands them over to the relay runs
+    @Transactional
+    public void leaseOutboxMessages(List<OrderPaymentOutboxMessage> orderPaymentOutboxMessages) {
+        List<UUID> ids = orderPaymentOutboxMessages.stream()
+                .map(OrderPaymentOutboxMessage::getId)
+                .collect(Collectors.toList());
+        paymentOutboxRepository.updateLeaseByIds(ids, orderServiceConfigData.getOutboxInstanceId(),
+                orderServiceConfigData.getOutboxLeaseSeconds());
+    }
+
+    // used by the outbox relay to acknowledge a whole batch of broker outcomes with one update
+    @Transactional
+    public void bulkUpdateOutboxStatus(List<OrderPaymentOutboxMessage> orderPaymentOutboxMessages,
+                                       OutboxStatus outboxStatus) {
+        List<UUID> ids = orderPaymentOutboxMessages.stream()
+                .map(OrderPaymentOutboxMessage::getId)
+                .collect(Collectors.toList());
+        // a failed send is scheduled for a retry after its backoff, or parked once it used up its attempts (the status
+        // of the message objects stays FAILED then)
+        int updated = outboxStatus == OutboxStatus.FAILED
+                ? paymentOutboxRepository.updateFailedOutboxStatusByIds(ids, retryPolicy)
+                : paymentOutboxRepository.updateOutboxStatusByIds(ids, outboxStatus);
+        orderPaymentOutboxMessages.forEach(outboxMessage -> outboxMessage.setOutboxStatus(outboxStatus));
+        log.info("{} of {} OrderPaymentOutboxMessages are updated with status {}", updated, ids.size(),
+                outboxStatus.name());
+    }
+
     private String createPayload(OrderPaymentEventPayload paymentEventPayload) {
         try {
             return objectMapper.writeValueAsString(paymentEventPayload);
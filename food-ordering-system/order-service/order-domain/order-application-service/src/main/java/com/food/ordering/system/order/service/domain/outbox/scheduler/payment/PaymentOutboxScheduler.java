@@ -1,77 +1,150 @@
 package com.food.ordering.system.order.service.domain.outbox.scheduler.payment;
 
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestMessagePublisher;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxPollingTrigger;
+import com.food.ordering.system.outbox.OutboxRelay;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShardCoordinator;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Slf4j
 @Component
-public class PaymentOutboxScheduler implements OutboxScheduler {
+public class PaymentOutboxScheduler implements OutboxScheduler, SchedulingConfigurer {
 
+    private final boolean cdcEnabled;
+    private final boolean directPublishEnabled;
+    private final long retryDelayMs;
     private final PaymentOutboxHelper paymentOutboxHelper;
-    private final PaymentRequestMessagePublisher paymentRequestMessagePublisher;
+    // present when the saga ids are sharded between the running instances
+    private final OutboxShardCoordinator shardCoordinator;
+    private final OutboxRelay<OrderPaymentOutboxMessage> outboxRelay;
 
     public PaymentOutboxScheduler(PaymentOutboxHelper paymentOutboxHelper,
-                                  PaymentRequestMessagePublisher paymentRequestMessagePublisher) {
+                                  PaymentRequestMessagePublisher paymentRequestMessagePublisher,
+                                  OrderServiceConfigData orderServiceConfigData,
+                                  Optional<OutboxShardCoordinator> outboxShardCoordinator) {
+        this.cdcEnabled = orderServiceConfigData.isOutboxCdcEnabled();
+        this.shardCoordinator = outboxShardCoordinator.orElse(null);
+        // the WAL-based relay already publishes a row as soon as it is committed
+        this.directPublishEnabled = orderServiceConfigData.isOutboxDirectPublishEnabled() && !cdcEnabled;
+        this.retryDelayMs = orderServiceConfigData.getOutboxSchedulerFixedRate();
         this.paymentOutboxHelper = paymentOutboxHelper;
-        this.paymentRequestMessagePublisher = paymentRequestMessagePublisher;
-    }
-
-    @Override
-    @Transactional
-    @Scheduled(
-            fixedDelayString = "${order-service.outbox-scheduler-fixed-rate}",
-            initialDelayString = "${order-service.outbox-scheduler-initial-delay}"
-    )
-    public void processOutboxMessage() {
         // in the payment outbox table, we will have the domain events for 2 types of events:
         // 1. order created
         // 2. order cancelling
         // order service triggers the payment service for these 2 types of events
 
         // we are updating the outbox status of messages sent to Kafka, so we do not poll them multiple times
-        // only those message that are in `STARTED` state are polled. Still, if Kafka producer-consumer mechanism is
-        // slower than the rate of a polling scheduler, the same outbox message could be processed multiple times (i.e.
-        // sent multiple times). This cannot be avoided with the strict lock-and-wait approach (that would just slow
-        // down the whole delivery). On the consumer side we have to pay attention not to process duplicate messages
-        // multiple times (idempotent messages).
-        List<OrderPaymentOutboxMessage> orderPaymentOutboxMessages =
-                paymentOutboxHelper.getPaymentOutboxMessageByOutboxStatusAndSagaStatus(
-                        // started and compensating means pending and cancelling events
-                        OutboxStatus.STARTED, SagaStatus.STARTED, SagaStatus.COMPENSATING
-                );
-        if (orderPaymentOutboxMessages == null || orderPaymentOutboxMessages.isEmpty()) {
-            log.error("No OrderPaymentOutboxMessage in the outbox table with the given statuses.");
+        // only those message that are in `STARTED` state are polled. The messages are claimed in bounded batches with
+        // `FOR UPDATE SKIP LOCKED` and stamped with a lease, so other order service instances skip them instead of
+        // waiting on the row locks, and a message whose callback has not arrived yet is not picked up again until its
+        // lease expires (e.g. the instance holding it died). Duplicates are still possible after a lease expiry, so on
+        // the consumer side we have to pay attention not to process duplicate messages multiple times (idempotent
+        // messages).
+        this.outboxRelay = OutboxRelay.<OrderPaymentOutboxMessage>builder()
+                .name("PaymentOutbox")
+                .fetchStrategy((after, batchSize) ->
+                        paymentOutboxHelper.claimPaymentOutboxMessagesByOutboxStatusAndSagaStatus(
+                                // started and compensating means pending and cancelling events
+                                after, batchSize, getOwnedShards(), OutboxStatus.STARTED,
+                                SagaStatus.STARTED, SagaStatus.COMPENSATING
+                        ))
+                // the failed messages are retried once their backoff is over, with what is left of a batch
+                .retryFetchStrategy((after, batchSize) ->
+                        paymentOutboxHelper.claimPaymentOutboxMessagesByOutboxStatusAndSagaStatus(
+                                after, batchSize, getOwnedShards(), OutboxStatus.FAILED,
+                                SagaStatus.STARTED, SagaStatus.COMPENSATING
+                        ))
+                .retryBatchSize(orderServiceConfigData.getOutboxRetryBatchSize())
+                .cursorExtractor(outboxMessage -> new OutboxCursor(outboxMessage.getCreatedAt(), outboxMessage.getId()))
+                .publishStrategy(paymentRequestMessagePublisher::publish)
+                .batchPublishStrategy(paymentRequestMessagePublisher::publishBatch)
+                .ackStrategy(paymentOutboxHelper::bulkUpdateOutboxStatus)
+                .batchSize(orderServiceConfigData.getOutboxBatchSize())
+                .maxPagesPerRun(orderServiceConfigData.getOutboxMaxPagesPerRun())
+                .maxInFlight(orderServiceConfigData.getOutboxMaxInFlight())
+                .drainTimeout(Duration.ofMillis(orderServiceConfigData.getOutboxDrainTimeoutMs()))
+                .shardCoordinator(shardCoordinator)
+                .pollingTrigger(OutboxPollingTrigger.of(
+                        orderServiceConfigData.getOutboxSchedulerMode(),
+                        orderServiceConfigData.getOutboxSchedulerInitialDelay(),
+                        orderServiceConfigData.getOutboxSchedulerMinDelay(),
+                        orderServiceConfigData.getOutboxSchedulerFixedRate(),
+                        orderServiceConfigData.getOutboxSchedulerBackoffMultiplier()
+                ))
+                .build();
+    }
+
+    // not transactional on purpose - the claim commits on its own (the lease protects the claimed rows afterwards) and
+    // the broker outcomes are written in bulk once the batch is drained, so no database connection is held while
+    // waiting for Kafka
+    @Override
+    public void processOutboxMessage() {
+        outboxRelay.relay();
+    }
+
+    // the relay is triggered by its polling trigger instead of @Scheduled, so the delay between runs can follow the
+    // outcome of the previous run (see `order-service.outbox-scheduler-mode`)
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        // with the WAL-based relay the rows are published by the change handler, polling them as well would only
+        // produce duplicates
+        if (cdcEnabled) {
+            log.info("{} polling is disabled, the outbox is relayed from the WAL.", outboxRelay.getName());
+            // the change handlers write failed sends as FAILED and the WAL-based relay moves past them, so their
+            // retries are still polled
+            taskRegistrar.addFixedDelayTask(outboxRelay::retry, retryDelayMs);
             return;
         }
+        taskRegistrar.addTriggerTask(this::processOutboxMessage, outboxRelay.getPollingTrigger());
+    }
 
-        log.info("Received {} OrderPaymentOutboxMessage items with ids: {}",
-                orderPaymentOutboxMessages.size(),
-                orderPaymentOutboxMessages.stream()
-                        .map(outboxMessage -> outboxMessage.getId().toString())
-                        .collect(Collectors.joining(","))
-        );
+    // publishes a message saved in the current transaction once that transaction commits; the relay runs only pick it
+    // up if that publish fails or is lost, see RestaurantApprovalOutboxScheduler::publishAfterCommit
+    public void publishAfterCommit(OrderPaymentOutboxMessage outboxMessage) {
+        if (!directPublishEnabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // the message of a saga whose shard is owned by another instance is left to the relay of that instance
+        if (shardCoordinator != null && !shardCoordinator.owns(outboxMessage.getSagaId())) {
+            return;
+        }
+        // the direct publish has no ordering guard of its own, so while an earlier message of the saga is still to be
+        // sent (e.g. a request that failed and waits for its retry), the claims of the relay keep the order instead
+        if (paymentOutboxHelper.hasUnsettledEarlierMessage(outboxMessage)) {
+            log.debug("Outbox message {} of saga {} is left to the relay, an earlier message of the saga is unsent",
+                    outboxMessage.getId(), outboxMessage.getSagaId());
+            return;
+        }
+        paymentOutboxHelper.leaseOutboxMessages(List.of(outboxMessage));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.publishDirectly(outboxMessage);
+            }
+        });
+    }
 
-        orderPaymentOutboxMessages.forEach(orderPaymentOutboxMessage ->
-                paymentRequestMessagePublisher.publish(orderPaymentOutboxMessage, this::updateOutboxStatus)
-        );
-        log.info("{} OrderPaymentOutboxMessage items sent to the message bus!", orderPaymentOutboxMessages.size());
+    private OutboxShards getOwnedShards() {
+        return shardCoordinator == null ? OutboxShards.ALL : shardCoordinator.getOwnedShards();
     }
 
-    private void updateOutboxStatus(OrderPaymentOutboxMessage orderPaymentOutboxMessage, OutboxStatus outboxStatus) {
-        orderPaymentOutboxMessage.setOutboxStatus(outboxStatus);
-        paymentOutboxHelper.save(orderPaymentOutboxMessage);
-        log.info("OrderPaymentOutboxMessage[id = {}] is updated with status {}",
-                orderPaymentOutboxMessage.getId(), outboxStatus.name()
-        );
+    public OutboxRelay<OrderPaymentOutboxMessage> getOutboxRelay() {
+        return outboxRelay;
     }
 }
@@ -3,6 +3,7 @@ package com.food.ordering.system.order.service.domain.port.output.message.publis
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
 import com.food.ordering.system.outbox.OutboxStatus;
 
+import java.util.List;
 import java.util.function.BiConsumer;
 
 public interface PaymentRequestMessagePublisher {
@@ -10,4 +11,10 @@ public interface PaymentRequestMessagePublisher {
     void publish(OrderPaymentOutboxMessage orderPaymentOutboxMessage,
                  // will tell if Kafka publisher has sent the event successfully
                  BiConsumer<OrderPaymentOutboxMessage, OutboxStatus> outboxCallback);
+
+    // publishes the messages of a relay run together; a publisher that can batch its sends overrides it
+    default void publishBatch(List<OrderPaymentOutboxMessage> outboxMessages,
+                              BiConsumer<OrderPaymentOutboxMessage, OutboxStatus> outboxCallback) {
+        outboxMessages.forEach(outboxMessage -> publish(outboxMessage, outboxCallback));
+    }
 }
@@ -0,0 +1,12 @@
+package com.food.ordering.system.order.service.domain.port.output.message.publisher.payment;
+
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+
+import java.util.UUID;
+
+public interface PaymentRequestPayloadEncoder {
+
+    // serializes the payment request exactly as it is published, so it can be stored in the outbox row
+    OutboxBinaryPayload encode(UUID sagaId, OrderPaymentEventPayload orderPaymentEventPayload);
+}
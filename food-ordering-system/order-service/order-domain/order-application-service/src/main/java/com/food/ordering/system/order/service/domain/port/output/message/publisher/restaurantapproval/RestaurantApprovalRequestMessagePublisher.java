@@ -3,6 +3,7 @@ package com.food.ordering.system.order.service.domain.port.output.message.publis
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
 import com.food.ordering.system.outbox.OutboxStatus;
 
+import java.util.List;
 import java.util.function.BiConsumer;
 
 public interface RestaurantApprovalRequestMessagePublisher {
@@ -10,4 +11,10 @@ public interface RestaurantApprovalRequestMessagePublisher {
     void publish(OrderApprovalOutboxMessage orderApprovalOutboxMessage,
                  // will tell if Kafka publisher has sent the event successfully
                  BiConsumer<OrderApprovalOutboxMessage, OutboxStatus> outboxCallback);
+
+    // publishes the messages of a relay run together; a publisher that can batch its sends overrides it
+    default void publishBatch(List<OrderApprovalOutboxMessage> outboxMessages,
+                              BiConsumer<OrderApprovalOutboxMessage, OutboxStatus> outboxCallback) {
+        outboxMessages.forEach(outboxMessage -> publish(outboxMessage, outboxCallback));
+    }
 }
@@ -0,0 +1,12 @@
+package com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval;
+
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+
+import java.util.UUID;
+
+public interface RestaurantApprovalRequestPayloadEncoder {
+
+    // serializes the restaurant approval request exactly as it is published, so it can be stored in the outbox row
+    OutboxBinaryPayload encode(UUID sagaId, OrderApprovalEventPayload orderApprovalEventPayload);
+}
@@ -1,9 +1,13 @@
 package com.food.ordering.system.order.service.domain.port.output.repository;
 
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.outbox.shard.OutboxShards;
 import com.food.ordering.system.saga.SagaStatus;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,9 +16,32 @@ public interface ApprovalOutboxRepository {
 
     OrderApprovalOutboxMessage save(OrderApprovalOutboxMessage orderApprovalOutboxMessage);
 
-    List<OrderApprovalOutboxMessage> findByTypeAndOutboxStatusAndSagaStatus(String type,
-                                                                            OutboxStatus outboxStatus,
-                                                                            SagaStatus... sagaStatuses);
+    // locks at most `batchSize` unleased (or expired) messages with SKIP LOCKED and stamps them with a lease owned by
+    // `leaseOwner` for `leaseSeconds`, so concurrent relay instances never fetch the same messages; only the messages
+    // whose saga id falls into one of the given shards are claimed
+    // the claim starts after the `after` cursor, in (created_at, id) order, so a relay run can page through the outbox
+    List<OrderApprovalOutboxMessage> claimByTypeAndOutboxStatusAndSagaStatus(String type,
+                                     OutboxStatus outboxStatus,
+                                     String leaseOwner,
+                                     OutboxCursor after,
+                                     int batchSize,
+                                     long leaseSeconds,
+                                     OutboxShards shards,
+                                     SagaStatus... sagaStatuses);
+
+    // whether an earlier message of the saga than the given one is still to be sent (STARTED, or FAILED with a next
+    // attempt); the claims hold a message back while this is the case
+    boolean existsUnsettledBefore(String type, UUID sagaId, ZonedDateTime createdAt, UUID id);
+
+    // stamps the given messages with a lease owned by `leaseOwner` for `leaseSeconds`, so the relay runs skip them
+    int updateLeaseByIds(List<UUID> ids, String leaseOwner, long leaseSeconds);
+
+    // sets the status of all the given messages with a single statement and returns the number of updated messages
+    int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus);
+
+    // marks the given messages as failed: schedules their next attempt with the backoff of `retryPolicy`, or parks the
+    // ones that used up their attempts; returns the number of updated messages
+    int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy);
 
     Optional<OrderApprovalOutboxMessage> findByTypeAndSagaIdAndSagaStatus(String type,
                                                                           UUID sagaId,
@@ -23,4 +50,10 @@ public interface ApprovalOutboxRepository {
     void deleteByTypeAndOutboxStatusAndSagaStatus(String type,
                                                   OutboxStatus outboxStatus,
                                                   SagaStatus... sagaStatuses);
+
+    // deletes at most `chunkSize` of the oldest matching messages and returns how many were deleted
+    int deleteChunkByTypeAndOutboxStatusAndSagaStatus(String type,
+                                                      OutboxStatus outboxStatus,
+                                                      int chunkSize,
+                                                      SagaStatus... sagaStatuses);
 }
@@ -1,8 +1,11 @@
 package com.food.ordering.system.order.service.domain;
 
 import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestMessagePublisher;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestPayloadEncoder;
 import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestMessagePublisher;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestPayloadEncoder;
 import com.food.ordering.system.order.service.domain.port.output.repository.*;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
 import org.mockito.Mockito;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -20,6 +23,16 @@ public class OrderTestConfiguration {
         return Mockito.mock(RestaurantApprovalRequestMessagePublisher.class);
     }
 
+    @Bean
+    public PaymentRequestPayloadEncoder paymentRequestPayloadEncoder() {
+        return Mockito.mock(PaymentRequestPayloadEncoder.class);
+    }
+
+    @Bean
+    public RestaurantApprovalRequestPayloadEncoder restaurantApprovalRequestPayloadEncoder() {
+        return Mockito.mock(RestaurantApprovalRequestPayloadEncoder.class);
+    }
+
     @Bean
     public OrderRepository orderRepository() {
         return Mockito.mock(OrderRepository.class);
@@ -45,6 +58,14 @@ public class OrderTestConfiguration {
         return Mockito.mock(ApprovalOutboxRepository.class);
     }
 
+    @Bean
+    public ProcessedSagaCache processedSagaCache() {
+        return ProcessedSagaCache.builder()
+                .name("OrderSaga")
+                .capacity(0)
+                .build();
+    }
+
     @Bean
     public OrderDomainService orderDomainService() {
         return new OrderDomainServiceImpl();
@@ -0,0 +1,88 @@
+package com.food.ordering.system.order.service.domain.outbox.scheduler.payment;
+
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.payment.PaymentRequestMessagePublisher;
+import com.food.ordering.system.outbox.OutboxStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+class PaymentOutboxSchedulerTest {
+
+    private final PaymentOutboxHelper paymentOutboxHelper = Mockito.mock(PaymentOutboxHelper.class);
+    private final PaymentRequestMessagePublisher paymentRequestMessagePublisher =
+            Mockito.mock(PaymentRequestMessagePublisher.class);
+    private final OrderPaymentOutboxMessage outboxMessage = OrderPaymentOutboxMessage.builder()
+            .id(UUID.randomUUID())
+            .sagaId(UUID.randomUUID())
+            .createdAt(ZonedDateTime.now())
+            .outboxStatus(OutboxStatus.STARTED)
+            .build();
+
+    @BeforeEach
+    void initSynchronization() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void testMessageIsPublishedAfterCommit() {
+        PaymentOutboxScheduler scheduler = scheduler(true);
+
+        scheduler.publishAfterCommit(outboxMessage);
+        Mockito.verify(paymentOutboxHelper).leaseOutboxMessages(List.of(outboxMessage));
+        Mockito.verify(paymentRequestMessagePublisher, Mockito.never()).publish(Mockito.any(), Mockito.any());
+
+        commit();
+        Mockito.verify(paymentRequestMessagePublisher).publish(Mockito.eq(outboxMessage), Mockito.any());
+    }
+
+    @Test
+    void testMessageIsLeftToTheRelayWhileAnEarlierMessageOfTheSagaIsUnsent() {
+        Mockito.when(paymentOutboxHelper.hasUnsettledEarlierMessage(outboxMessage)).thenReturn(true);
+        PaymentOutboxScheduler scheduler = scheduler(true);
+
+        scheduler.publishAfterCommit(outboxMessage);
+
+        Mockito.verify(paymentOutboxHelper, Mockito.never()).leaseOutboxMessages(Mockito.any());
+        Assertions.assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    @Test
+    void testDirectPublishIsOffByDefault() {
+        PaymentOutboxScheduler scheduler = scheduler(false);
+
+        scheduler.publishAfterCommit(outboxMessage);
+
+        Mockito.verifyNoInteractions(paymentOutboxHelper);
+        Assertions.assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    private PaymentOutboxScheduler scheduler(boolean directPublishEnabled) {
+        OrderServiceConfigData orderServiceConfigData = new OrderServiceConfigData();
+        orderServiceConfigData.setOutboxDirectPublishEnabled(directPublishEnabled);
+        orderServiceConfigData.setOutboxBatchSize(10);
+        orderServiceConfigData.setOutboxMaxInFlight(10);
+        orderServiceConfigData.setOutboxSchedulerFixedRate(10000);
+        return new PaymentOutboxScheduler(paymentOutboxHelper, paymentRequestMessagePublisher, orderServiceConfigData,
+                Optional.empty());
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
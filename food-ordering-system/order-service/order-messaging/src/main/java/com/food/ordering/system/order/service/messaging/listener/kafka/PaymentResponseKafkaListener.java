@@ -1,15 +1,18 @@
 package com.food.ordering.system.order.service.messaging.listener.kafka;
 
-import com.food.ordering.system.kafka.consumer.KafkaConsumer;
-import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModel;
-import com.food.ordering.system.kafka.order.avro.model.PaymentStatus;
+import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.parallel.KeyOrderedBatchProcessor;
 import com.food.ordering.system.order.service.domain.dto.message.PaymentResponse;
 import com.food.ordering.system.order.service.domain.exception.OrderNotFoundException;
 import com.food.ordering.system.order.service.domain.port.input.message.listener.payment.PaymentResponseMessageListener;
 import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -17,18 +20,23 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+// The topic carries PaymentResponseAvroModel and, once the payment service writes the compact schema,
+// PaymentResponseAvroModelV2 records; both are mapped to a PaymentResponse first.
 @Slf4j
 @Component
-public class PaymentResponseKafkaListener implements KafkaConsumer<PaymentResponseAvroModel> {
+public class PaymentResponseKafkaListener implements RetryingKafkaConsumer<SpecificRecordBase> {
 
     // one of the input ports in the domain layer
     private final PaymentResponseMessageListener paymentResponseMessageListener;
     private final OrderMessagingDataMapper orderMessagingDataMapper;
+    private final KeyOrderedBatchProcessor keyOrderedBatchProcessor;
 
     public PaymentResponseKafkaListener(PaymentResponseMessageListener paymentResponseMessageListener,
-                                        OrderMessagingDataMapper orderMessagingDataMapper) {
+                                        OrderMessagingDataMapper orderMessagingDataMapper,
+                                        KeyOrderedBatchProcessor keyOrderedBatchProcessor) {
         this.paymentResponseMessageListener = paymentResponseMessageListener;
         this.orderMessagingDataMapper = orderMessagingDataMapper;
+        this.keyOrderedBatchProcessor = keyOrderedBatchProcessor;
     }
 
     @Override
@@ -36,37 +44,46 @@ public class PaymentResponseKafkaListener implements KafkaConsumer<PaymentRespon
             id = "${kafka-consumer-config.payment-consumer-group-id}",
             topics = "${order-service.payment-response-topic-name}"
     )
-    public void receive(@Payload List<PaymentResponseAvroModel> messages,
+    public void receive(@Payload List<SpecificRecordBase> messages,
                         @Header(KafkaHeaders.RECEIVED_MESSAGE_KEY) List<String> keys,
                         @Header(KafkaHeaders.RECEIVED_PARTITION_ID) List<Integer> partitions,
                         @Header(KafkaHeaders.OFFSET) List<Long> offsets) {
         log.info("{} payment responses received with keys = {}, partitions = {} and offsets = {}",
                 messages.size(), keys, partitions, offsets);
-        messages.forEach(paymentResponseAvroModel -> {
+        // the records of a key are processed in order, the keys concurrently when the parallel processing is on
+        keyOrderedBatchProcessor.process(messages, keys, partitions, this::processPaymentResponse);
+    }
+
+    @Override
+    public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                               Acknowledgment acknowledgment) {
+        log.info("{} payment responses received for a retry", records.size());
+        keyOrderedBatchProcessor.processRetries(records, acknowledgment, this::processPaymentResponse);
+    }
 
-            try {
-                PaymentStatus paymentStatus = paymentResponseAvroModel.getPaymentStatus();
-                PaymentResponse paymentResponse = orderMessagingDataMapper.paymentResponseAvroModelToPaymentResponse(
-                        paymentResponseAvroModel
-                );
-                if (PaymentStatus.COMPLETED == paymentStatus) {
-                    log.info("Processing successful payment for order[id = {}]", paymentResponseAvroModel.getOrderId());
-                    paymentResponseMessageListener.paymentCompleted(paymentResponse);
-                } else if (PaymentStatus.CANCELLED == paymentStatus || PaymentStatus.FAILED == paymentStatus) {
-                    log.info("Processing unsuccessful payment order[id = {}]", paymentResponseAvroModel.getOrderId());
-                    paymentResponseMessageListener.paymentCancelled(paymentResponse);
-                }
-            } catch (OptimisticLockingFailureException e) {
-                // NO-OP for optimistic locking. This means another thread finished the work, do not throw an error to
-                // prevent reading the data from Kafka again
-                log.error("Caught an optimistic locking exception in PaymentResponseKafkaListener for orderId: {}",
-                        paymentResponseAvroModel.getOrderId());
-            } catch (OrderNotFoundException e) {
-                // NO-OP for OrderNotFoundException - order is not found, retrying won't help
-                log.error("No order found for orderId: {}", paymentResponseAvroModel.getOrderId());
+    private void processPaymentResponse(SpecificRecordBase paymentResponseAvroModel) {
+        PaymentResponse paymentResponse = orderMessagingDataMapper.paymentResponseAvroModelToPaymentResponse(
+                paymentResponseAvroModel
+        );
+        try {
+            PaymentStatus paymentStatus = paymentResponse.paymentStatus();
+            if (PaymentStatus.COMPLETED == paymentStatus) {
+                log.info("Processing successful payment for order[id = {}]", paymentResponse.orderId());
+                paymentResponseMessageListener.paymentCompleted(paymentResponse);
+            } else if (PaymentStatus.CANCELLED == paymentStatus || PaymentStatus.FAILED == paymentStatus) {
+                log.info("Processing unsuccessful payment order[id = {}]", paymentResponse.orderId());
+                paymentResponseMessageListener.paymentCancelled(paymentResponse);
             }
-            // all other messages will be propagated, i.e. reading will fail and the listener will read again the message
-            // from Kafka
-        });
+        } catch (OptimisticLockingFailureException e) {
+            // NO-OP for optimistic locking. This means another thread finished the work, do not throw an error to
+            // prevent reading the data from Kafka again
+            log.error("Caught an optimistic locking exception in PaymentResponseKafkaListener for orderId: {}",
+                    paymentResponse.orderId());
+        } catch (OrderNotFoundException e) {
+            // NO-OP for OrderNotFoundException - order is not found, retrying won't help
+            log.error("No order found for orderId: {}", paymentResponse.orderId());
+        }
+        // all other messages will be propagated, i.e. reading will fail and the listener will read again the message
+        // from Kafka
     }
 }
@@ -1,15 +1,18 @@
 package com.food.ordering.system.order.service.messaging.listener.kafka;
 
-import com.food.ordering.system.kafka.consumer.KafkaConsumer;
-import com.food.ordering.system.kafka.order.avro.model.OrderApprovalStatus;
-import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModel;
+import com.food.ordering.system.domain.valueobject.OrderApprovalStatus;
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.parallel.KeyOrderedBatchProcessor;
 import com.food.ordering.system.order.service.domain.dto.message.RestaurantApprovalResponse;
 import com.food.ordering.system.order.service.domain.exception.OrderNotFoundException;
 import com.food.ordering.system.order.service.domain.port.input.message.listener.restaurantapproval.RestaurantApprovalResponseMessageListener;
 import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -17,18 +20,23 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+// The topic carries RestaurantApprovalResponseAvroModel and, once the restaurant service writes the compact schema,
+// RestaurantApprovalResponseAvroModelV2 records; both are mapped to a RestaurantApprovalResponse first.
 @Slf4j
 @Component
-public class RestaurantApprovalKafkaListener implements KafkaConsumer<RestaurantApprovalResponseAvroModel> {
+public class RestaurantApprovalKafkaListener implements RetryingKafkaConsumer<SpecificRecordBase> {
 
     // one of the input ports in the domain layer
     private final RestaurantApprovalResponseMessageListener restaurantApprovalResponseMessageListener;
     private final OrderMessagingDataMapper orderMessagingDataMapper;
+    private final KeyOrderedBatchProcessor keyOrderedBatchProcessor;
 
     public RestaurantApprovalKafkaListener(RestaurantApprovalResponseMessageListener restaurantApprovalResponseMessageListener,
-                                           OrderMessagingDataMapper orderMessagingDataMapper) {
+                                           OrderMessagingDataMapper orderMessagingDataMapper,
+                                           KeyOrderedBatchProcessor keyOrderedBatchProcessor) {
         this.restaurantApprovalResponseMessageListener = restaurantApprovalResponseMessageListener;
         this.orderMessagingDataMapper = orderMessagingDataMapper;
+        this.keyOrderedBatchProcessor = keyOrderedBatchProcessor;
     }
 
     @Override
@@ -36,37 +44,46 @@ public class RestaurantApprovalKafkaListener implements KafkaConsumer<Restaurant
             id = "${kafka-consumer-config.restaurant-approval-consumer-group-id}",
             topics = "${order-service.restaurant-approval-response-topic-name}"
     )
-    public void receive(@Payload List<RestaurantApprovalResponseAvroModel> messages,
+    public void receive(@Payload List<SpecificRecordBase> messages,
                         @Header(KafkaHeaders.RECEIVED_MESSAGE_KEY) List<String> keys,
                         @Header(KafkaHeaders.RECEIVED_PARTITION_ID) List<Integer> partitions,
                         @Header(KafkaHeaders.OFFSET) List<Long> offsets) {
         log.info("{} restaurant approval responses received with keys = {}, partitions = {} and offsets = {}",
                 messages.size(), keys, partitions, offsets);
-        messages.forEach(restaurantApprovalResponseAvroModel -> {
-            try {
-                OrderApprovalStatus orderApprovalStatus = restaurantApprovalResponseAvroModel.getOrderApprovalStatus();
-                RestaurantApprovalResponse restaurantApprovalResponse = orderMessagingDataMapper.approvalResponseAvroModelToApproveResponse(
-                        restaurantApprovalResponseAvroModel
-                );
+        // the records of a key are processed in order, the keys concurrently when the parallel processing is on
+        keyOrderedBatchProcessor.process(messages, keys, partitions, this::processRestaurantApprovalResponse);
+    }
+
+    @Override
+    public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                               Acknowledgment acknowledgment) {
+        log.info("{} restaurant approval responses received for a retry", records.size());
+        keyOrderedBatchProcessor.processRetries(records, acknowledgment, this::processRestaurantApprovalResponse);
+    }
+
+    private void processRestaurantApprovalResponse(SpecificRecordBase restaurantApprovalResponseAvroModel) {
+        RestaurantApprovalResponse restaurantApprovalResponse = orderMessagingDataMapper
+                .approvalResponseAvroModelToApproveResponse(restaurantApprovalResponseAvroModel);
+        try {
+            OrderApprovalStatus orderApprovalStatus = restaurantApprovalResponse.orderApprovalStatus();
 
-                if (OrderApprovalStatus.APPROVED == orderApprovalStatus) {
-                    log.info("Processing approved order[id = {}]", restaurantApprovalResponseAvroModel.getOrderId());
-                    restaurantApprovalResponseMessageListener.orderApproved(restaurantApprovalResponse);
-                } else if (OrderApprovalStatus.REJECTED == orderApprovalStatus) {
-                    log.info("Processing rejected order[id = {}]", restaurantApprovalResponseAvroModel.getOrderId());
-                    restaurantApprovalResponseMessageListener.orderRejected(restaurantApprovalResponse);
-                }
-            } catch (OptimisticLockingFailureException e) {
-                // NO-OP for optimistic locking. This means another thread finished the work, do not throw an error to
-                // prevent reading the data from Kafka again
-                log.error("Caught an optimistic locking exception in RestaurantApprovalKafkaListener for orderId: {}",
-                        restaurantApprovalResponseAvroModel.getOrderId());
-            } catch (OrderNotFoundException e) {
-                // NO-OP for OrderNotFoundException - order is not found, retrying won't help
-                log.error("No order found for orderId: {}", restaurantApprovalResponseAvroModel.getOrderId());
+            if (OrderApprovalStatus.APPROVED == orderApprovalStatus) {
+                log.info("Processing approved order[id = {}]", restaurantApprovalResponse.orderId());
+                restaurantApprovalResponseMessageListener.orderApproved(restaurantApprovalResponse);
+            } else if (OrderApprovalStatus.REJECTED == orderApprovalStatus) {
+                log.info("Processing rejected order[id = {}]", restaurantApprovalResponse.orderId());
+                restaurantApprovalResponseMessageListener.orderRejected(restaurantApprovalResponse);
             }
-            // all other messages will be propagated, i.e. reading will fail and the listener will read again the message
-            // from Kafka
-        });
+        } catch (OptimisticLockingFailureException e) {
+            // NO-OP for optimistic locking. This means another thread finished the work, do not throw an error to
+            // prevent reading the data from Kafka again
+            log.error("Caught an optimistic locking exception in RestaurantApprovalKafkaListener for orderId: {}",
+                    restaurantApprovalResponse.orderId());
+        } catch (OrderNotFoundException e) {
+            // NO-OP for OrderNotFoundException - order is not found, retrying won't help
+            log.error("No order found for orderId: {}", restaurantApprovalResponse.orderId());
+        }
+        // all other messages will be propagated, i.e. reading will fail and the listener will read again the message
+        // from Kafka
     }
 }
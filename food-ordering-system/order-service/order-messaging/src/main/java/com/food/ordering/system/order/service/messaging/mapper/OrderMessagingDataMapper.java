@@ -2,19 +2,64 @@ package com.food.ordering.system.order.service.messaging.mapper;
 
 import com.food.ordering.system.domain.valueobject.OrderApprovalStatus;
 import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
 import com.food.ordering.system.kafka.order.avro.model.*;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.order.service.domain.dto.message.PaymentResponse;
 import com.food.ordering.system.order.service.domain.dto.message.RestaurantApprovalResponse;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+// Reads the v1 and the v2 (compact) schemas of the responses, so the topics can be moved to v2 while both are on them,
+// and writes the requests in the schema version of their topic.
 @Component
 public class OrderMessagingDataMapper {
 
+    public PaymentResponse paymentResponseAvroModelToPaymentResponse(SpecificRecordBase avroModel) {
+        if (avroModel instanceof PaymentResponseAvroModelV2 paymentResponseAvroModelV2) {
+            return paymentResponseAvroModelV2ToPaymentResponse(paymentResponseAvroModelV2);
+        }
+        if (avroModel instanceof PaymentResponseAvroModel paymentResponseAvroModel) {
+            return paymentResponseAvroModelToPaymentResponse(paymentResponseAvroModel);
+        }
+        throw new IllegalArgumentException(String.format("Unexpected payment response %s!",
+                avroModel.getSchema().getFullName()));
+    }
+
+    public RestaurantApprovalResponse approvalResponseAvroModelToApproveResponse(SpecificRecordBase avroModel) {
+        if (avroModel instanceof RestaurantApprovalResponseAvroModelV2 restaurantApprovalResponseAvroModelV2) {
+            return approvalResponseAvroModelV2ToApproveResponse(restaurantApprovalResponseAvroModelV2);
+        }
+        if (avroModel instanceof RestaurantApprovalResponseAvroModel restaurantApprovalResponseAvroModel) {
+            return approvalResponseAvroModelToApproveResponse(restaurantApprovalResponseAvroModel);
+        }
+        throw new IllegalArgumentException(String.format("Unexpected restaurant approval response %s!",
+                avroModel.getSchema().getFullName()));
+    }
+
+    public SpecificRecordBase orderPaymentEventToPaymentRequestAvroModel(
+            String sagaId,
+            OrderPaymentEventPayload orderPaymentEventPayload,
+            int schemaVersion) {
+        return schemaVersion == EventSchemaVersions.V2 ?
+                orderPaymentEventToPaymentRequestAvroModelV2(sagaId, orderPaymentEventPayload) :
+                orderPaymentEventToPaymentRequestAvroModel(sagaId, orderPaymentEventPayload);
+    }
+
+    public SpecificRecordBase orderApprovalEventToRestaurantApprovalRequestAvroModel(
+            String sagaId,
+            OrderApprovalEventPayload orderApprovalEventPayload,
+            int schemaVersion) {
+        return schemaVersion == EventSchemaVersions.V2 ?
+                orderApprovalEventToRestaurantApprovalRequestAvroModelV2(sagaId, orderApprovalEventPayload) :
+                orderApprovalEventToRestaurantApprovalRequestAvroModel(sagaId, orderApprovalEventPayload);
+    }
+
     public PaymentResponse paymentResponseAvroModelToPaymentResponse(PaymentResponseAvroModel paymentResponseAvroModel) {
         return PaymentResponse.builder()
                 .id(paymentResponseAvroModel.getId())
@@ -43,6 +88,36 @@ public class OrderMessagingDataMapper {
                 .build();
     }
 
+    public PaymentResponse paymentResponseAvroModelV2ToPaymentResponse(
+            PaymentResponseAvroModelV2 paymentResponseAvroModelV2) {
+        return PaymentResponse.builder()
+                .id(AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getId()))
+                .sagaId(AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getSagaId()))
+                .paymentId(AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getPaymentId()))
+                .customerId(AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getCustomerId()))
+                .orderId(AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getOrderId()))
+                .price(AvroCompactTypes.fromMinorUnits(paymentResponseAvroModelV2.getPriceMinorUnits()))
+                .createdAt(paymentResponseAvroModelV2.getCreatedAt())
+                .paymentStatus(PaymentStatus.valueOf(paymentResponseAvroModelV2.getPaymentStatus().name()))
+                .failureMessages(paymentResponseAvroModelV2.getFailureMessages())
+                .build();
+    }
+
+    public RestaurantApprovalResponse approvalResponseAvroModelV2ToApproveResponse(
+            RestaurantApprovalResponseAvroModelV2 restaurantApprovalResponseAvroModelV2) {
+        return RestaurantApprovalResponse.builder()
+                .id(AvroCompactTypes.toUuidString(restaurantApprovalResponseAvroModelV2.getId()))
+                .sagaId(AvroCompactTypes.toUuidString(restaurantApprovalResponseAvroModelV2.getSagaId()))
+                .orderId(AvroCompactTypes.toUuidString(restaurantApprovalResponseAvroModelV2.getOrderId()))
+                .createdAt(restaurantApprovalResponseAvroModelV2.getCreatedAt())
+                .failureMessages(restaurantApprovalResponseAvroModelV2.getFailureMessages())
+                .orderApprovalStatus(OrderApprovalStatus.valueOf(
+                        restaurantApprovalResponseAvroModelV2.getOrderApprovalStatus().name())
+                )
+                .restaurantId(AvroCompactTypes.toUuidString(restaurantApprovalResponseAvroModelV2.getRestaurantId()))
+                .build();
+    }
+
     public PaymentRequestAvroModel orderPaymentEventToPaymentRequestAvroModel(String sagaId, OrderPaymentEventPayload
             orderPaymentEventPayload) {
         return PaymentRequestAvroModel.newBuilder()
@@ -75,4 +150,38 @@ public class OrderMessagingDataMapper {
                 .setCreatedAt(orderApprovalEventPayload.getCreatedAt().toInstant())
                 .build();
     }
+
+    public PaymentRequestAvroModelV2 orderPaymentEventToPaymentRequestAvroModelV2(
+            String sagaId,
+            OrderPaymentEventPayload orderPaymentEventPayload) {
+        return PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(sagaId))
+                .setCustomerId(AvroCompactTypes.toAvro(orderPaymentEventPayload.getCustomerId()))
+                .setOrderId(AvroCompactTypes.toAvro(orderPaymentEventPayload.getOrderId()))
+                .setPriceMinorUnits(AvroCompactTypes.toMinorUnits(orderPaymentEventPayload.getPrice()))
+                .setCreatedAt(orderPaymentEventPayload.getCreatedAt().toInstant())
+                .setPaymentOrderStatus(PaymentOrderStatus.valueOf(orderPaymentEventPayload.getPaymentOrderStatus()))
+                .build();
+    }
+
+    public RestaurantApprovalRequestAvroModelV2 orderApprovalEventToRestaurantApprovalRequestAvroModelV2(
+            String sagaId,
+            OrderApprovalEventPayload orderApprovalEventPayload) {
+        return RestaurantApprovalRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(sagaId))
+                .setOrderId(AvroCompactTypes.toAvro(orderApprovalEventPayload.getOrderId()))
+                .setRestaurantId(AvroCompactTypes.toAvro(orderApprovalEventPayload.getRestaurantId()))
+                .setRestaurantOrderStatus(RestaurantOrderStatus
+                        .valueOf(orderApprovalEventPayload.getRestaurantOrderStatus()))
+                .setProducts(orderApprovalEventPayload.getProducts().stream().map(orderApprovalEventProduct ->
+                        ProductV2.newBuilder()
+                                .setId(AvroCompactTypes.toAvro(orderApprovalEventProduct.id()))
+                                .setQuantity(orderApprovalEventProduct.quantity())
+                                .build()).collect(Collectors.toList()))
+                .setPriceMinorUnits(AvroCompactTypes.toMinorUnits(orderApprovalEventPayload.getPrice()))
+                .setCreatedAt(orderApprovalEventPayload.getCreatedAt().toInstant())
+                .build();
+    }
 }
@@ -0,0 +1,46 @@
+package com.food.ordering.system.order.service.messaging.publisher.kafka;
+
+import com.food.ordering.system.kafka.producer.KafkaAvroPayloadSerializer;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
+import com.food.ordering.system.order.service.domain.port.output.message.publisher.restaurantapproval.RestaurantApprovalRequestPayloadEncoder;
+import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class OrderApprovalEventKafkaPayloadEncoder implements RestaurantApprovalRequestPayloadEncoder {
+
+    private final OrderMessagingDataMapper orderMessagingDataMapper;
+    private final KafkaAvroPayloadSerializer kafkaAvroPayloadSerializer;
+    private final OrderServiceConfigData orderServiceConfigData;
+    private final PartitionKeyStrategies partitionKeyStrategies;
+    private final EventSchemaVersions eventSchemaVersions;
+
+    public OrderApprovalEventKafkaPayloadEncoder(OrderMessagingDataMapper orderMessagingDataMapper,
+                                                 KafkaAvroPayloadSerializer kafkaAvroPayloadSerializer,
+                                                 OrderServiceConfigData orderServiceConfigData,
+                                                 PartitionKeyStrategies partitionKeyStrategies,
+                                                 EventSchemaVersions eventSchemaVersions) {
+        this.orderMessagingDataMapper = orderMessagingDataMapper;
+        this.kafkaAvroPayloadSerializer = kafkaAvroPayloadSerializer;
+        this.orderServiceConfigData = orderServiceConfigData;
+        this.partitionKeyStrategies = partitionKeyStrategies;
+        this.eventSchemaVersions = eventSchemaVersions;
+    }
+
+    @Override
+    public OutboxBinaryPayload encode(UUID sagaId, OrderApprovalEventPayload orderApprovalEventPayload) {
+        String topicName = orderServiceConfigData.getRestaurantApprovalRequestTopicName();
+        SpecificRecordBase avroModel = orderMessagingDataMapper.orderApprovalEventToRestaurantApprovalRequestAvroModel(
+                sagaId.toString(), orderApprovalEventPayload, eventSchemaVersions.forTopic(topicName));
+        // the key is chosen while the model is at hand, the relay only has the bytes
+        return kafkaAvroPayloadSerializer.serialize(topicName, avroModel)
+                .withPartitionKey(partitionKeyStrategies.partitionKey(topicName, avroModel, sagaId.toString()));
+    }
+}
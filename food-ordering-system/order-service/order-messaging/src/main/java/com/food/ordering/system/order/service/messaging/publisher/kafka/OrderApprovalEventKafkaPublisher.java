@@ -1,8 +1,10 @@
 package com.food.ordering.system.order.service.messaging.publisher.kafka;
 
-import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
 import com.food.ordering.system.kafka.producer.KafkaMessageHelper;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.kafka.producer.service.KafkaProducer;
+import com.food.ordering.system.kafka.producer.service.PreSerializedKafkaProducer;
 import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
 import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalOutboxMessage;
@@ -10,8 +12,12 @@ import com.food.ordering.system.order.service.domain.port.output.message.publish
 import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
 import com.food.ordering.system.outbox.OutboxStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -19,24 +25,37 @@ import java.util.function.BiConsumer;
 public class OrderApprovalEventKafkaPublisher implements RestaurantApprovalRequestMessagePublisher {
 
     private final OrderMessagingDataMapper orderMessagingDataMapper;
-    private final KafkaProducer<String, RestaurantApprovalRequestAvroModel> kafkaProducer;
+    private final KafkaProducer<String, SpecificRecordBase> kafkaProducer;
+    private final PreSerializedKafkaProducer<String> preSerializedKafkaProducer;
     private final OrderServiceConfigData orderServiceConfigData;
     private final KafkaMessageHelper kafkaMessageHelper;
+    private final PartitionKeyStrategies partitionKeyStrategies;
+    private final EventSchemaVersions eventSchemaVersions;
 
     public OrderApprovalEventKafkaPublisher(OrderMessagingDataMapper orderMessagingDataMapper,
-                                            KafkaProducer<String, RestaurantApprovalRequestAvroModel> kafkaProducer,
+                                            KafkaProducer<String, SpecificRecordBase> kafkaProducer,
+                                            PreSerializedKafkaProducer<String> preSerializedKafkaProducer,
                                             OrderServiceConfigData orderServiceConfigData,
-                                            KafkaMessageHelper kafkaMessageHelper) {
+                                            KafkaMessageHelper kafkaMessageHelper,
+                                            PartitionKeyStrategies partitionKeyStrategies,
+                                            EventSchemaVersions eventSchemaVersions) {
         this.orderMessagingDataMapper = orderMessagingDataMapper;
         this.kafkaProducer = kafkaProducer;
+        this.preSerializedKafkaProducer = preSerializedKafkaProducer;
         this.orderServiceConfigData = orderServiceConfigData;
         this.kafkaMessageHelper = kafkaMessageHelper;
+        this.partitionKeyStrategies = partitionKeyStrategies;
+        this.eventSchemaVersions = eventSchemaVersions;
     }
 
     @Override
     public void publish(OrderApprovalOutboxMessage orderApprovalOutboxMessage,
                         BiConsumer<OrderApprovalOutboxMessage, OutboxStatus> outboxCallback) {
 
+        if (orderApprovalOutboxMessage.getPayloadBytes() != null) {
+            publishPreSerialized(orderApprovalOutboxMessage, outboxCallback);
+            return;
+        }
         OrderApprovalEventPayload orderApprovalEventPayload = kafkaMessageHelper.getOrderEventPayload(
                 orderApprovalOutboxMessage.getPayload(), OrderApprovalEventPayload.class
         );
@@ -47,16 +66,18 @@ public class OrderApprovalEventKafkaPublisher implements RestaurantApprovalReque
         );
 
         try {
-            RestaurantApprovalRequestAvroModel restaurantApprovalRequestAvroModel = orderMessagingDataMapper
+            SpecificRecordBase restaurantApprovalRequestAvroModel = orderMessagingDataMapper
                     .orderApprovalEventToRestaurantApprovalRequestAvroModel(
-                            sagaId, orderApprovalEventPayload
+                            sagaId, orderApprovalEventPayload,
+                            eventSchemaVersions.forTopic(orderServiceConfigData.getRestaurantApprovalRequestTopicName())
                     );
             kafkaProducer.send(
-                    orderServiceConfigData.getPaymentRequestTopicName(),
-                    sagaId,
+                    orderServiceConfigData.getRestaurantApprovalRequestTopicName(),
+                    partitionKeyStrategies.partitionKey(orderServiceConfigData.getRestaurantApprovalRequestTopicName(),
+                            restaurantApprovalRequestAvroModel, sagaId),
                     restaurantApprovalRequestAvroModel,
                     kafkaMessageHelper.getKafkaCallback(
-                            orderServiceConfigData.getPaymentRequestTopicName(),
+                            orderServiceConfigData.getRestaurantApprovalRequestTopicName(),
                             restaurantApprovalRequestAvroModel,
                             orderApprovalOutboxMessage,
                             outboxCallback,
@@ -72,6 +93,94 @@ public class OrderApprovalEventKafkaPublisher implements RestaurantApprovalReque
             log.error("Error while sending OrderApprovalEventPayload to Kafka with orderId = {} and sagaId = {}. Error: {}",
                     orderApprovalEventPayload.getOrderId(), sagaId, e.getMessage(), e
             );
+            // the callback is not called by the producer when the send fails right away
+            outboxCallback.accept(orderApprovalOutboxMessage, OutboxStatus.FAILED);
+        }
+    }
+
+    // A relay batch is sent with a single flush and logged as a summary. The messages written with their serialized
+    // bytes and the ones written as JSON go to the producer as two batches; a message that cannot be mapped is failed
+    // right away, so it is retried with a backoff instead of waiting for the lease to expire.
+    @Override
+    public void publishBatch(List<OrderApprovalOutboxMessage> orderApprovalOutboxMessages,
+                             BiConsumer<OrderApprovalOutboxMessage, OutboxStatus> outboxCallback) {
+        String topicName = orderServiceConfigData.getRestaurantApprovalRequestTopicName();
+        List<OrderApprovalOutboxMessage> preSerializedMessages = new ArrayList<>();
+        List<ProducerRecord<String, byte[]>> preSerializedRecords = new ArrayList<>();
+        List<OrderApprovalOutboxMessage> mappedMessages = new ArrayList<>();
+        List<ProducerRecord<String, SpecificRecordBase>> mappedRecords = new ArrayList<>();
+        for (OrderApprovalOutboxMessage outboxMessage : orderApprovalOutboxMessages) {
+            String sagaId = outboxMessage.getSagaId().toString();
+            if (outboxMessage.getPayloadBytes() != null) {
+                preSerializedMessages.add(outboxMessage);
+                preSerializedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKey(outboxMessage.getPartitionKey(), sagaId), outboxMessage.getPayloadBytes()));
+                continue;
+            }
+            try {
+                OrderApprovalEventPayload eventPayload = kafkaMessageHelper.getOrderEventPayload(
+                        outboxMessage.getPayload(), OrderApprovalEventPayload.class
+                );
+                SpecificRecordBase avroModel = orderMessagingDataMapper
+                        .orderApprovalEventToRestaurantApprovalRequestAvroModel(sagaId, eventPayload,
+                                eventSchemaVersions.forTopic(topicName));
+                mappedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKeyStrategies.partitionKey(topicName, avroModel, sagaId), avroModel));
+                mappedMessages.add(outboxMessage);
+            } catch (Exception e) {
+                log.error("Error while mapping OrderApprovalOutboxMessage with sagaId = {} to " +
+                                "RestaurantApprovalRequestAvroModel. Error: {}",
+                        sagaId, e.getMessage(), e
+                );
+                outboxCallback.accept(outboxMessage, OutboxStatus.FAILED);
+            }
+        }
+
+        if (!preSerializedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(preSerializedKafkaProducer.sendBatch(topicName, preSerializedRecords),
+                    preSerializedMessages, outboxCallback, "RestaurantApprovalRequestAvroModel");
+        }
+        if (!mappedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(kafkaProducer.sendBatch(topicName, mappedRecords),
+                    mappedMessages, outboxCallback, "RestaurantApprovalRequestAvroModel");
+        }
+        log.info("{} OrderApprovalOutboxMessages ({} pre-serialized) sent to Kafka as a batch",
+                preSerializedRecords.size() + mappedRecords.size(), preSerializedRecords.size()
+        );
+    }
+
+    // the stored bytes are the serialized RestaurantApprovalRequestAvroModel (see
+    // OrderApprovalEventKafkaPayloadEncoder), so the payload is neither parsed nor mapped again
+    private void publishPreSerialized(OrderApprovalOutboxMessage orderApprovalOutboxMessage,
+                                      BiConsumer<OrderApprovalOutboxMessage, OutboxStatus> outboxCallback) {
+        String sagaId = orderApprovalOutboxMessage.getSagaId().toString();
+        try {
+            preSerializedKafkaProducer.send(
+                    orderServiceConfigData.getRestaurantApprovalRequestTopicName(),
+                    partitionKey(orderApprovalOutboxMessage.getPartitionKey(), sagaId),
+                    orderApprovalOutboxMessage.getPayloadBytes(),
+                    kafkaMessageHelper.getPreSerializedKafkaCallback(
+                            orderServiceConfigData.getRestaurantApprovalRequestTopicName(),
+                            orderApprovalOutboxMessage,
+                            outboxCallback,
+                            sagaId,
+                            "RestaurantApprovalRequestAvroModel"
+                    )
+            );
+
+            log.info("Pre-serialized RestaurantApprovalRequestAvroModel sent to Kafka for sagaId = {}", sagaId);
+        } catch (Exception e) {
+            log.error("Error while sending pre-serialized RestaurantApprovalRequestAvroModel to Kafka with " +
+                            "sagaId = {}. Error: {}", sagaId, e.getMessage(), e
+            );
+            // the callback is not called by the producer when the send fails right away
+            outboxCallback.accept(orderApprovalOutboxMessage, OutboxStatus.FAILED);
         }
     }
+
+    // the key was chosen by the partition key strategy when the bytes were written; the rows written before there was
+    // one are keyed by saga id, as they were
+    private static String partitionKey(String storedPartitionKey, String sagaId) {
+        return storedPartitionKey == null ? sagaId : storedPartitionKey;
+    }
 }
@@ -1,8 +1,10 @@
 package com.food.ordering.system.order.service.messaging.publisher.kafka;
 
-import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
 import com.food.ordering.system.kafka.producer.KafkaMessageHelper;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.kafka.producer.service.KafkaProducer;
+import com.food.ordering.system.kafka.producer.service.PreSerializedKafkaProducer;
 import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
 import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentOutboxMessage;
@@ -10,8 +12,12 @@ import com.food.ordering.system.order.service.domain.port.output.message.publish
 import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
 import com.food.ordering.system.outbox.OutboxStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -19,24 +25,37 @@ import java.util.function.BiConsumer;
 public class OrderPaymentEventKafkaPublisher implements PaymentRequestMessagePublisher {
 
     private final OrderMessagingDataMapper orderMessagingDataMapper;
-    private final KafkaProducer<String, PaymentRequestAvroModel> kafkaProducer;
+    private final KafkaProducer<String, SpecificRecordBase> kafkaProducer;
+    private final PreSerializedKafkaProducer<String> preSerializedKafkaProducer;
     private final OrderServiceConfigData orderServiceConfigData;
     private final KafkaMessageHelper kafkaMessageHelper;
+    private final PartitionKeyStrategies partitionKeyStrategies;
+    private final EventSchemaVersions eventSchemaVersions;
 
     public OrderPaymentEventKafkaPublisher(OrderMessagingDataMapper orderMessagingDataMapper,
-                                           KafkaProducer<String, PaymentRequestAvroModel> kafkaProducer,
+                                           KafkaProducer<String, SpecificRecordBase> kafkaProducer,
+                                           PreSerializedKafkaProducer<String> preSerializedKafkaProducer,
                                            OrderServiceConfigData orderServiceConfigData,
-                                           KafkaMessageHelper kafkaMessageHelper) {
+                                           KafkaMessageHelper kafkaMessageHelper,
+                                           PartitionKeyStrategies partitionKeyStrategies,
+                                           EventSchemaVersions eventSchemaVersions) {
         this.orderMessagingDataMapper = orderMessagingDataMapper;
         this.kafkaProducer = kafkaProducer;
+        this.preSerializedKafkaProducer = preSerializedKafkaProducer;
         this.orderServiceConfigData = orderServiceConfigData;
         this.kafkaMessageHelper = kafkaMessageHelper;
+        this.partitionKeyStrategies = partitionKeyStrategies;
+        this.eventSchemaVersions = eventSchemaVersions;
     }
 
     @Override
     public void publish(OrderPaymentOutboxMessage orderPaymentOutboxMessage,
                         BiConsumer<OrderPaymentOutboxMessage,
                                 OutboxStatus> outboxCallback) {
+        if (orderPaymentOutboxMessage.getPayloadBytes() != null) {
+            publishPreSerialized(orderPaymentOutboxMessage, outboxCallback);
+            return;
+        }
         OrderPaymentEventPayload orderPaymentEventPayload = kafkaMessageHelper.getOrderEventPayload(
                 orderPaymentOutboxMessage.getPayload(), OrderPaymentEventPayload.class
         );
@@ -47,12 +66,13 @@ public class OrderPaymentEventKafkaPublisher implements PaymentRequestMessagePub
         );
 
         try {
-            PaymentRequestAvroModel paymentRequestAvroModel = orderMessagingDataMapper.orderPaymentEventToPaymentRequestAvroModel(
-                    sagaId, orderPaymentEventPayload
-            );
+            SpecificRecordBase paymentRequestAvroModel = orderMessagingDataMapper
+                    .orderPaymentEventToPaymentRequestAvroModel(sagaId, orderPaymentEventPayload,
+                            eventSchemaVersions.forTopic(orderServiceConfigData.getPaymentRequestTopicName()));
             kafkaProducer.send(
                     orderServiceConfigData.getPaymentRequestTopicName(),
-                    sagaId,
+                    partitionKeyStrategies.partitionKey(orderServiceConfigData.getPaymentRequestTopicName(),
+                            paymentRequestAvroModel, sagaId),
                     paymentRequestAvroModel,
                     kafkaMessageHelper.getKafkaCallback(
                             orderServiceConfigData.getPaymentRequestTopicName(),
@@ -71,6 +91,94 @@ public class OrderPaymentEventKafkaPublisher implements PaymentRequestMessagePub
             log.error("Error while sending OrderPaymentEventPayload to Kafka with orderId = {} and sagaId = {}. Error: {}",
                     orderPaymentEventPayload.getOrderId(), sagaId, e.getMessage(), e
             );
+            // the callback is not called by the producer when the send fails right away
+            outboxCallback.accept(orderPaymentOutboxMessage, OutboxStatus.FAILED);
+        }
+    }
+
+    // A relay batch is sent with a single flush and logged as a summary. The messages written with their serialized
+    // bytes and the ones written as JSON go to the producer as two batches; a message that cannot be mapped is failed
+    // right away, so it is retried with a backoff instead of waiting for the lease to expire.
+    @Override
+    public void publishBatch(List<OrderPaymentOutboxMessage> orderPaymentOutboxMessages,
+                             BiConsumer<OrderPaymentOutboxMessage, OutboxStatus> outboxCallback) {
+        String topicName = orderServiceConfigData.getPaymentRequestTopicName();
+        List<OrderPaymentOutboxMessage> preSerializedMessages = new ArrayList<>();
+        List<ProducerRecord<String, byte[]>> preSerializedRecords = new ArrayList<>();
+        List<OrderPaymentOutboxMessage> mappedMessages = new ArrayList<>();
+        List<ProducerRecord<String, SpecificRecordBase>> mappedRecords = new ArrayList<>();
+        for (OrderPaymentOutboxMessage outboxMessage : orderPaymentOutboxMessages) {
+            String sagaId = outboxMessage.getSagaId().toString();
+            if (outboxMessage.getPayloadBytes() != null) {
+                preSerializedMessages.add(outboxMessage);
+                preSerializedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKey(outboxMessage.getPartitionKey(), sagaId), outboxMessage.getPayloadBytes()));
+                continue;
+            }
+            try {
+                OrderPaymentEventPayload eventPayload = kafkaMessageHelper.getOrderEventPayload(
+                        outboxMessage.getPayload(), OrderPaymentEventPayload.class
+                );
+                SpecificRecordBase avroModel = orderMessagingDataMapper
+                        .orderPaymentEventToPaymentRequestAvroModel(sagaId, eventPayload,
+                                eventSchemaVersions.forTopic(topicName));
+                mappedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKeyStrategies.partitionKey(topicName, avroModel, sagaId), avroModel));
+                mappedMessages.add(outboxMessage);
+            } catch (Exception e) {
+                log.error("Error while mapping OrderPaymentOutboxMessage with sagaId = {} to " +
+                                "PaymentRequestAvroModel. Error: {}",
+                        sagaId, e.getMessage(), e
+                );
+                outboxCallback.accept(outboxMessage, OutboxStatus.FAILED);
+            }
+        }
+
+        if (!preSerializedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(preSerializedKafkaProducer.sendBatch(topicName, preSerializedRecords),
+                    preSerializedMessages, outboxCallback, "PaymentRequestAvroModel");
+        }
+        if (!mappedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(kafkaProducer.sendBatch(topicName, mappedRecords),
+                    mappedMessages, outboxCallback, "PaymentRequestAvroModel");
         }
+        log.info("{} OrderPaymentOutboxMessages ({} pre-serialized) sent to Kafka as a batch",
+                preSerializedRecords.size() + mappedRecords.size(), preSerializedRecords.size()
+        );
+    }
+
+    // the stored bytes are the serialized PaymentRequestAvroModel (see OrderPaymentEventKafkaPayloadEncoder),
+    // so the payload is neither parsed nor mapped again
+    private void publishPreSerialized(OrderPaymentOutboxMessage orderPaymentOutboxMessage,
+                                      BiConsumer<OrderPaymentOutboxMessage, OutboxStatus> outboxCallback) {
+        String sagaId = orderPaymentOutboxMessage.getSagaId().toString();
+        try {
+            preSerializedKafkaProducer.send(
+                    orderServiceConfigData.getPaymentRequestTopicName(),
+                    partitionKey(orderPaymentOutboxMessage.getPartitionKey(), sagaId),
+                    orderPaymentOutboxMessage.getPayloadBytes(),
+                    kafkaMessageHelper.getPreSerializedKafkaCallback(
+                            orderServiceConfigData.getPaymentRequestTopicName(),
+                            orderPaymentOutboxMessage,
+                            outboxCallback,
+                            sagaId,
+                            "PaymentRequestAvroModel"
+                    )
+            );
+
+            log.info("Pre-serialized PaymentRequestAvroModel sent to Kafka for sagaId = {}", sagaId);
+        } catch (Exception e) {
+            log.error("Error while sending pre-serialized PaymentRequestAvroModel to Kafka with sagaId = {}. " +
+                            "Error: {}", sagaId, e.getMessage(), e
+            );
+            // the callback is not called by the producer when the send fails right away
+            outboxCallback.accept(orderPaymentOutboxMessage, OutboxStatus.FAILED);
+        }
+    }
+
+    // the key was chosen by the partition key strategy when the bytes were written; the rows written before there was
+    // one are keyed by saga id, as they were
+    private static String partitionKey(String storedPartitionKey, String sagaId) {
+        return storedPartitionKey == null ? sagaId : storedPartitionKey;
     }
 }
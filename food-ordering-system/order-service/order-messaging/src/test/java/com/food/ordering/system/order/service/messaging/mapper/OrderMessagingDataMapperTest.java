@@ -0,0 +1,177 @@
+package com.food.ordering.system.order.service.messaging.mapper;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.OrderApprovalStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.PaymentStatus;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModelV2;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.order.service.domain.dto.message.PaymentResponse;
+import com.food.ordering.system.order.service.domain.dto.message.RestaurantApprovalResponse;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventProduct;
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+class OrderMessagingDataMapperTest {
+
+    private static final String ID = UUID.randomUUID().toString();
+    private static final String SAGA_ID = UUID.randomUUID().toString();
+    private static final String ORDER_ID = UUID.randomUUID().toString();
+    private static final String CUSTOMER_ID = UUID.randomUUID().toString();
+    private static final String PAYMENT_ID = UUID.randomUUID().toString();
+    private static final String RESTAURANT_ID = UUID.randomUUID().toString();
+    private static final String PRODUCT_ID = UUID.randomUUID().toString();
+    private static final Instant CREATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    private final OrderMessagingDataMapper orderMessagingDataMapper = new OrderMessagingDataMapper();
+
+    @Test
+    void testV1AndV2PaymentResponsesAreReadAlike() {
+        PaymentResponse paymentResponse = orderMessagingDataMapper.paymentResponseAvroModelToPaymentResponse(
+                PaymentResponseAvroModel.newBuilder()
+                        .setId(ID)
+                        .setSagaId(SAGA_ID)
+                        .setPaymentId(PAYMENT_ID)
+                        .setCustomerId(CUSTOMER_ID)
+                        .setOrderId(ORDER_ID)
+                        .setPrice(new BigDecimal("100.50"))
+                        .setCreatedAt(CREATED_AT)
+                        .setPaymentStatus(PaymentStatus.COMPLETED)
+                        .setFailureMessages(List.of())
+                        .build());
+        PaymentResponse paymentResponseV2 = orderMessagingDataMapper.paymentResponseAvroModelToPaymentResponse(
+                PaymentResponseAvroModelV2.newBuilder()
+                        .setId(AvroCompactTypes.toAvro(ID))
+                        .setSagaId(AvroCompactTypes.toAvro(SAGA_ID))
+                        .setPaymentId(AvroCompactTypes.toAvro(PAYMENT_ID))
+                        .setCustomerId(AvroCompactTypes.toAvro(CUSTOMER_ID))
+                        .setOrderId(AvroCompactTypes.toAvro(ORDER_ID))
+                        .setPriceMinorUnits(10050L)
+                        .setCreatedAt(CREATED_AT)
+                        .setPaymentStatus(PaymentStatus.COMPLETED)
+                        .setFailureMessages(List.of())
+                        .build());
+
+        Assertions.assertEquals(paymentResponse, paymentResponseV2);
+    }
+
+    @Test
+    void testV1AndV2ApprovalResponsesAreReadAlike() {
+        RestaurantApprovalResponse approvalResponse = orderMessagingDataMapper
+                .approvalResponseAvroModelToApproveResponse(RestaurantApprovalResponseAvroModel.newBuilder()
+                        .setId(ID)
+                        .setSagaId(SAGA_ID)
+                        .setRestaurantId(RESTAURANT_ID)
+                        .setOrderId(ORDER_ID)
+                        .setCreatedAt(CREATED_AT)
+                        .setOrderApprovalStatus(OrderApprovalStatus.REJECTED)
+                        .setFailureMessages(List.of("rejected"))
+                        .build());
+        RestaurantApprovalResponse approvalResponseV2 = orderMessagingDataMapper
+                .approvalResponseAvroModelToApproveResponse(RestaurantApprovalResponseAvroModelV2.newBuilder()
+                        .setId(AvroCompactTypes.toAvro(ID))
+                        .setSagaId(AvroCompactTypes.toAvro(SAGA_ID))
+                        .setRestaurantId(AvroCompactTypes.toAvro(RESTAURANT_ID))
+                        .setOrderId(AvroCompactTypes.toAvro(ORDER_ID))
+                        .setCreatedAt(CREATED_AT)
+                        .setOrderApprovalStatus(OrderApprovalStatus.REJECTED)
+                        .setFailureMessages(List.of("rejected"))
+                        .build());
+
+        Assertions.assertEquals(approvalResponse, approvalResponseV2);
+    }
+
+    @Test
+    void testPaymentRequestIsWrittenInTheSchemaVersionOfItsTopic() {
+        OrderPaymentEventPayload orderPaymentEventPayload = orderPaymentEventPayload(new BigDecimal("100.50"));
+
+        PaymentRequestAvroModel paymentRequestAvroModel = (PaymentRequestAvroModel) orderMessagingDataMapper
+                .orderPaymentEventToPaymentRequestAvroModel(SAGA_ID, orderPaymentEventPayload, EventSchemaVersions.V1);
+        PaymentRequestAvroModelV2 paymentRequestAvroModelV2 = (PaymentRequestAvroModelV2) orderMessagingDataMapper
+                .orderPaymentEventToPaymentRequestAvroModel(SAGA_ID, orderPaymentEventPayload, EventSchemaVersions.V2);
+
+        Assertions.assertEquals(SAGA_ID, paymentRequestAvroModel.getSagaId());
+        Assertions.assertEquals(new BigDecimal("100.50"), paymentRequestAvroModel.getPrice());
+        Assertions.assertEquals(SAGA_ID, AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getSagaId()));
+        Assertions.assertEquals(CUSTOMER_ID, AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getCustomerId()));
+        Assertions.assertEquals(ORDER_ID, AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getOrderId()));
+        Assertions.assertEquals(10050L, paymentRequestAvroModelV2.getPriceMinorUnits());
+        Assertions.assertEquals(CREATED_AT, paymentRequestAvroModelV2.getCreatedAt());
+        Assertions.assertEquals(paymentRequestAvroModel.getPaymentOrderStatus(),
+                paymentRequestAvroModelV2.getPaymentOrderStatus());
+    }
+
+    @Test
+    void testApprovalRequestIsWrittenInTheSchemaVersionOfItsTopic() {
+        OrderApprovalEventPayload orderApprovalEventPayload = orderApprovalEventPayload(new BigDecimal("100.50"));
+
+        RestaurantApprovalRequestAvroModel approvalRequestAvroModel = (RestaurantApprovalRequestAvroModel)
+                orderMessagingDataMapper.orderApprovalEventToRestaurantApprovalRequestAvroModel(SAGA_ID,
+                        orderApprovalEventPayload, EventSchemaVersions.V1);
+        RestaurantApprovalRequestAvroModelV2 approvalRequestAvroModelV2 = (RestaurantApprovalRequestAvroModelV2)
+                orderMessagingDataMapper.orderApprovalEventToRestaurantApprovalRequestAvroModel(SAGA_ID,
+                        orderApprovalEventPayload, EventSchemaVersions.V2);
+
+        Assertions.assertEquals(PRODUCT_ID, approvalRequestAvroModel.getProducts().get(0).getId());
+        Assertions.assertEquals(new BigDecimal("100.50"), approvalRequestAvroModel.getPrice());
+        Assertions.assertEquals(RESTAURANT_ID,
+                AvroCompactTypes.toUuidString(approvalRequestAvroModelV2.getRestaurantId()));
+        Assertions.assertEquals(PRODUCT_ID,
+                AvroCompactTypes.toUuidString(approvalRequestAvroModelV2.getProducts().get(0).getId()));
+        Assertions.assertEquals(2, approvalRequestAvroModelV2.getProducts().get(0).getQuantity());
+        Assertions.assertEquals(10050L, approvalRequestAvroModelV2.getPriceMinorUnits());
+        Assertions.assertEquals(approvalRequestAvroModel.getRestaurantOrderStatus(),
+                approvalRequestAvroModelV2.getRestaurantOrderStatus());
+    }
+
+    // v1 carries the decimal as it is, v2 does not round it to minor units
+    @Test
+    void testV2RequestsRejectAPriceBeyondMinorUnits() {
+        BigDecimal price = new BigDecimal("100.505");
+
+        Assertions.assertDoesNotThrow(() -> orderMessagingDataMapper.orderPaymentEventToPaymentRequestAvroModel(
+                SAGA_ID, orderPaymentEventPayload(price), EventSchemaVersions.V1));
+        Assertions.assertThrows(ArithmeticException.class, () -> orderMessagingDataMapper
+                .orderPaymentEventToPaymentRequestAvroModel(SAGA_ID, orderPaymentEventPayload(price),
+                        EventSchemaVersions.V2));
+        Assertions.assertThrows(ArithmeticException.class, () -> orderMessagingDataMapper
+                .orderApprovalEventToRestaurantApprovalRequestAvroModel(SAGA_ID, orderApprovalEventPayload(price),
+                        EventSchemaVersions.V2));
+    }
+
+    private static OrderPaymentEventPayload orderPaymentEventPayload(BigDecimal price) {
+        return OrderPaymentEventPayload.builder()
+                .orderId(ORDER_ID)
+                .customerId(CUSTOMER_ID)
+                .price(price)
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .paymentOrderStatus("PENDING")
+                .build();
+    }
+
+    private static OrderApprovalEventPayload orderApprovalEventPayload(BigDecimal price) {
+        return OrderApprovalEventPayload.builder()
+                .orderId(ORDER_ID)
+                .restaurantId(RESTAURANT_ID)
+                .price(price)
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .restaurantOrderStatus("PAID")
+                .products(List.of(new OrderApprovalEventProduct(PRODUCT_ID, 2)))
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.food.ordering.system.order.service.messaging.publisher.kafka;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroDeserializer;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroSerializer;
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModelV2;
+import com.food.ordering.system.kafka.producer.KafkaAvroPayloadSerializer;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventPayload;
+import com.food.ordering.system.order.service.domain.outbox.model.approval.OrderApprovalEventProduct;
+import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+class OrderApprovalEventKafkaPayloadEncoderTest {
+
+    private static final String TOPIC = "restaurant-approval-request";
+    private static final UUID SAGA_ID = UUID.randomUUID();
+    private static final String ORDER_ID = UUID.randomUUID().toString();
+    private static final String RESTAURANT_ID = UUID.randomUUID().toString();
+    private static final String PRODUCT_ID = UUID.randomUUID().toString();
+    private static final Instant CREATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @Test
+    void testPayloadIsTheWireFormatOfTheRequest() {
+        OutboxBinaryPayload payload = encoder(Map.of(), Map.of()).encode(SAGA_ID, orderApprovalEventPayload());
+
+        RestaurantApprovalRequestAvroModel approvalRequestAvroModel =
+                (RestaurantApprovalRequestAvroModel) deserialize(payload);
+        Assertions.assertEquals(0, payload.bytes()[0]);
+        Assertions.assertEquals(ByteBuffer.wrap(payload.bytes(), 1, Integer.BYTES).getInt(), payload.schemaId());
+        Assertions.assertEquals(SAGA_ID.toString(), approvalRequestAvroModel.getSagaId());
+        Assertions.assertEquals(RESTAURANT_ID, approvalRequestAvroModel.getRestaurantId());
+        Assertions.assertEquals(PRODUCT_ID, approvalRequestAvroModel.getProducts().get(0).getId());
+        Assertions.assertEquals(SAGA_ID.toString(), payload.partitionKey());
+    }
+
+    @Test
+    void testPayloadIsWrittenInTheSchemaVersionOfItsTopic() {
+        OutboxBinaryPayload payload = encoder(Map.of(TOPIC, EventSchemaVersions.V2), Map.of())
+                .encode(SAGA_ID, orderApprovalEventPayload());
+
+        RestaurantApprovalRequestAvroModelV2 approvalRequestAvroModelV2 =
+                (RestaurantApprovalRequestAvroModelV2) deserialize(payload);
+        Assertions.assertEquals(RESTAURANT_ID,
+                AvroCompactTypes.toUuidString(approvalRequestAvroModelV2.getRestaurantId()));
+        Assertions.assertEquals(10050L, approvalRequestAvroModelV2.getPriceMinorUnits());
+    }
+
+    @Test
+    void testPayloadCarriesThePartitionKeyOfItsTopic() {
+        OutboxBinaryPayload payload = encoder(Map.of(), Map.of(TOPIC, "restaurantId"))
+                .encode(SAGA_ID, orderApprovalEventPayload());
+
+        Assertions.assertEquals(RESTAURANT_ID, payload.partitionKey());
+    }
+
+    private static OrderApprovalEventKafkaPayloadEncoder encoder(Map<String, Integer> schemaVersions,
+                                                                 Map<String, String> partitionKeyFields) {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setSchemaRegistryUrlKey("schema.registry.url");
+        KafkaProducerConfigData kafkaProducerConfigData = new KafkaProducerConfigData();
+        kafkaProducerConfigData.setValueSerializerClass(CachedAvroSerializer.class.getName());
+        kafkaProducerConfigData.setSchemaVersions(schemaVersions);
+        kafkaProducerConfigData.setPartitionKeyFields(partitionKeyFields);
+        OrderServiceConfigData orderServiceConfigData = new OrderServiceConfigData();
+        orderServiceConfigData.setRestaurantApprovalRequestTopicName(TOPIC);
+        return new OrderApprovalEventKafkaPayloadEncoder(new OrderMessagingDataMapper(),
+                new KafkaAvroPayloadSerializer(kafkaConfigData, kafkaProducerConfigData), orderServiceConfigData,
+                new PartitionKeyStrategies(kafkaProducerConfigData), new EventSchemaVersions(kafkaProducerConfigData));
+    }
+
+    private static Object deserialize(OutboxBinaryPayload payload) {
+        CachedAvroDeserializer cachedAvroDeserializer = new CachedAvroDeserializer();
+        cachedAvroDeserializer.configure(Map.of(), false);
+        return cachedAvroDeserializer.deserialize(TOPIC, payload.bytes());
+    }
+
+    private static OrderApprovalEventPayload orderApprovalEventPayload() {
+        return OrderApprovalEventPayload.builder()
+                .orderId(ORDER_ID)
+                .restaurantId(RESTAURANT_ID)
+                .price(new BigDecimal("100.50"))
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .restaurantOrderStatus("PAID")
+                .products(List.of(new OrderApprovalEventProduct(PRODUCT_ID, 2)))
+                .build();
+    }
+}
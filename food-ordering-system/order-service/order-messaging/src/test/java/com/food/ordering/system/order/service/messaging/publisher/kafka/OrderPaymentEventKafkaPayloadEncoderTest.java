@@ -0,0 +1,103 @@
+package com.food.ordering.system.order.service.messaging.publisher.kafka;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroDeserializer;
+import com.food.ordering.system.kafka.avro.serde.CachedAvroSerializer;
+import com.food.ordering.system.kafka.config.data.KafkaConfigData;
+import com.food.ordering.system.kafka.config.data.KafkaProducerConfigData;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.food.ordering.system.kafka.producer.KafkaAvroPayloadSerializer;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.order.service.domain.config.OrderServiceConfigData;
+import com.food.ordering.system.order.service.domain.outbox.model.payment.OrderPaymentEventPayload;
+import com.food.ordering.system.order.service.messaging.mapper.OrderMessagingDataMapper;
+import com.food.ordering.system.outbox.OutboxBinaryPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+// The encoder writes the payment request as the publisher would send it, with the fingerprint schema ids of the
+// cached serde, so no schema registry is needed.
+class OrderPaymentEventKafkaPayloadEncoderTest {
+
+    private static final String TOPIC = "payment-request";
+    private static final UUID SAGA_ID = UUID.randomUUID();
+    private static final String ORDER_ID = UUID.randomUUID().toString();
+    private static final String CUSTOMER_ID = UUID.randomUUID().toString();
+    private static final Instant CREATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @Test
+    void testPayloadIsTheWireFormatOfTheRequest() {
+        OutboxBinaryPayload payload = encoder(Map.of(), Map.of()).encode(SAGA_ID, orderPaymentEventPayload());
+
+        PaymentRequestAvroModel paymentRequestAvroModel = (PaymentRequestAvroModel) deserialize(payload);
+        Assertions.assertEquals(0, payload.bytes()[0]);
+        Assertions.assertEquals(ByteBuffer.wrap(payload.bytes(), 1, Integer.BYTES).getInt(), payload.schemaId());
+        Assertions.assertEquals(SAGA_ID.toString(), paymentRequestAvroModel.getSagaId());
+        Assertions.assertEquals(CUSTOMER_ID, paymentRequestAvroModel.getCustomerId());
+        Assertions.assertEquals(new BigDecimal("100.50"), paymentRequestAvroModel.getPrice());
+        // keyed by the saga id unless the topic is keyed by a field
+        Assertions.assertEquals(SAGA_ID.toString(), payload.partitionKey());
+    }
+
+    @Test
+    void testPayloadIsWrittenInTheSchemaVersionOfItsTopic() {
+        OutboxBinaryPayload payload = encoder(Map.of(TOPIC, EventSchemaVersions.V2), Map.of())
+                .encode(SAGA_ID, orderPaymentEventPayload());
+
+        PaymentRequestAvroModelV2 paymentRequestAvroModelV2 = (PaymentRequestAvroModelV2) deserialize(payload);
+        Assertions.assertEquals(SAGA_ID.toString(),
+                AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getSagaId()));
+        Assertions.assertEquals(10050L, paymentRequestAvroModelV2.getPriceMinorUnits());
+        Assertions.assertNotEquals(encoder(Map.of(), Map.of()).encode(SAGA_ID, orderPaymentEventPayload()).schemaId(),
+                payload.schemaId());
+    }
+
+    @Test
+    void testPayloadCarriesThePartitionKeyOfItsTopic() {
+        OutboxBinaryPayload payload = encoder(Map.of(), Map.of(TOPIC, "customerId"))
+                .encode(SAGA_ID, orderPaymentEventPayload());
+
+        Assertions.assertEquals(CUSTOMER_ID, payload.partitionKey());
+    }
+
+    private static OrderPaymentEventKafkaPayloadEncoder encoder(Map<String, Integer> schemaVersions,
+                                                                Map<String, String> partitionKeyFields) {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setSchemaRegistryUrlKey("schema.registry.url");
+        KafkaProducerConfigData kafkaProducerConfigData = new KafkaProducerConfigData();
+        kafkaProducerConfigData.setValueSerializerClass(CachedAvroSerializer.class.getName());
+        kafkaProducerConfigData.setSchemaVersions(schemaVersions);
+        kafkaProducerConfigData.setPartitionKeyFields(partitionKeyFields);
+        OrderServiceConfigData orderServiceConfigData = new OrderServiceConfigData();
+        orderServiceConfigData.setPaymentRequestTopicName(TOPIC);
+        return new OrderPaymentEventKafkaPayloadEncoder(new OrderMessagingDataMapper(),
+                new KafkaAvroPayloadSerializer(kafkaConfigData, kafkaProducerConfigData), orderServiceConfigData,
+                new PartitionKeyStrategies(kafkaProducerConfigData), new EventSchemaVersions(kafkaProducerConfigData));
+    }
+
+    private static Object deserialize(OutboxBinaryPayload payload) {
+        CachedAvroDeserializer cachedAvroDeserializer = new CachedAvroDeserializer();
+        cachedAvroDeserializer.configure(Map.of(), false);
+        return cachedAvroDeserializer.deserialize(TOPIC, payload.bytes());
+    }
+
+    private static OrderPaymentEventPayload orderPaymentEventPayload() {
+        return OrderPaymentEventPayload.builder()
+                .orderId(ORDER_ID)
+                .customerId(CUSTOMER_ID)
+                .price(new BigDecimal("100.50"))
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .paymentOrderStatus("PENDING")
+                .build();
+    }
+}
@@ -1,8 +1,25 @@
 package com.food.ordering.system.payment.service.domain;
 
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.metrics.KafkaConsumerMeterBinder;
+import com.food.ordering.system.outbox.backlog.OutboxBacklogSampler;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
+import com.food.ordering.system.outbox.metrics.OutboxMeterBinder;
+import com.food.ordering.system.outbox.notification.OutboxNotificationListener;
+import com.food.ordering.system.outbox.partition.OutboxPartitionManager;
+import com.food.ordering.system.payment.service.domain.config.PaymentServiceConfigData;
+import com.food.ordering.system.payment.service.domain.outbox.scheduler.OrderOutboxCleanerScheduler;
+import com.food.ordering.system.payment.service.domain.outbox.scheduler.OrderOutboxScheduler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class BeanConfiguration {
 
@@ -10,4 +27,87 @@ public class BeanConfiguration {
     public PaymentDomainService paymentDomainService() {
         return new PaymentDomainServiceImpl();
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "payment-service.outbox-notification-enabled", havingValue = "true")
+    public OutboxNotificationListener outboxNotificationListener(DataSourceProperties dataSourceProperties,
+                                                                 PaymentServiceConfigData paymentServiceConfigData,
+                                                                 OrderOutboxScheduler orderOutboxScheduler) {
+        return new OutboxNotificationListener(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                Map.of("payment_order_outbox", orderOutboxScheduler.getOutboxRelay()::wakeUp),
+                Duration.ofMillis(paymentServiceConfigData.getOutboxNotificationPollTimeoutMs()),
+                Duration.ofMillis(paymentServiceConfigData.getOutboxNotificationReconnectDelayMs())
+        );
+    }
+
+    // the tables are the ones declared with `PARTITION BY RANGE (created_at)` in init-schema.sql, each with the
+    // condition of the rows that are still needed by the relay
+    @Bean
+    @ConditionalOnProperty(name = "payment-service.outbox-partition-enabled", havingValue = "true")
+    public OutboxPartitionManager outboxPartitionManager(DataSource dataSource,
+                                                         PaymentServiceConfigData paymentServiceConfigData) {
+        return OutboxPartitionManager.builder()
+                .name("PaymentOrderOutbox")
+                .dataSource(dataSource)
+                .schema("payment")
+                // FAILED rows waiting for a retry are active as well; PARKED rows keep their partition until an
+                // operator resolves them
+                .activeRowConditions(Map.of("order_outbox",
+                        "outbox_status IN ('STARTED', 'PARKED') OR next_attempt_at IS NOT NULL"))
+                .sagaStepTables(Map.of("order_outbox", "order_outbox_saga_step"))
+                .precreateDays(paymentServiceConfigData.getOutboxPartitionPrecreateDays())
+                .retentionDays(paymentServiceConfigData.getOutboxPartitionRetentionDays())
+                .dropExpired(paymentServiceConfigData.isOutboxPartitionDropExpired())
+                .maintenanceInterval(Duration.ofMillis(
+                        paymentServiceConfigData.getOutboxPartitionMaintenanceIntervalMs()))
+                .build();
+    }
+
+    // the backlog gauges read the last sample of the outbox tables, so the metrics scrapes never query the database
+    @Bean
+    public OutboxBacklogSampler outboxBacklogSampler(DataSource dataSource,
+                                                     PaymentServiceConfigData paymentServiceConfigData) {
+        return OutboxBacklogSampler.builder()
+                .name("PaymentOrderOutbox")
+                .dataSource(dataSource)
+                .schema("payment")
+                .tables(List.of("order_outbox"))
+                .countLimit(paymentServiceConfigData.getOutboxMetricsCountLimit())
+                .sampleInterval(Duration.ofMillis(
+                        paymentServiceConfigData.getOutboxMetricsSampleIntervalMs()))
+                .build();
+    }
+
+    @Bean
+    public ProcessedSagaCache processedSagaCache(PaymentServiceConfigData paymentServiceConfigData) {
+        return ProcessedSagaCache.builder()
+                .name("PaymentSaga")
+                .capacity(paymentServiceConfigData.getProcessedSagaCacheCapacity())
+                .build();
+    }
+
+    // bound to the registry of the actuator, which exposes the meters on /actuator/metrics and /actuator/prometheus
+    @Bean
+    public OutboxMeterBinder outboxMeterBinder(OrderOutboxScheduler orderOutboxScheduler,
+                                               OrderOutboxCleanerScheduler orderOutboxCleanerScheduler,
+                                               OutboxBacklogSampler outboxBacklogSampler,
+                                               ProcessedSagaCache processedSagaCache) {
+        return OutboxMeterBinder.builder()
+                .relays(List.of(orderOutboxScheduler.getOutboxRelay()))
+                .cleaners(List.of(orderOutboxCleanerScheduler.getOutboxCleaner()))
+                .backlogSampler(outboxBacklogSampler)
+                .processedSagaCaches(List.of(processedSagaCache))
+                .build();
+    }
+
+    // the meters of the adaptive consumer controller, bound to the same registry; none while it is disabled
+    @Bean
+    public KafkaConsumerMeterBinder kafkaConsumerMeterBinder(AdaptiveConsumerController adaptiveConsumerController) {
+        return KafkaConsumerMeterBinder.builder()
+                .adaptiveConsumerController(adaptiveConsumerController)
+                .build();
+    }
 }
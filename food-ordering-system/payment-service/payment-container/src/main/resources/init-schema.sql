@@ -19,7 +19,7 @@ CREATE TABLE "payment".payment
     created_at TIMESTAMP WITH TIME ZONE NOT NULL,
     status payment_status NOT NULL,
     CONSTRAINT payment_pkey PRIMARY KEY (id)
-)
+);
 
 DROP TABLE IF EXISTS "payment".credit_entry CASCADE;
 
@@ -29,7 +29,12 @@ CREATE TABLE "payment".credit_entry
     customer_id uuid NOT NULL,
     total_credit_amount numeric(10, 2) NOT NULL,
     CONSTRAINT credit_entry_pkey PRIMARY KEY (id)
-)
+);
+
+-- the credit of a payment is debited with a single update looked up by the customer
+CREATE UNIQUE INDEX "payment_credit_entry_customer_id"
+    ON "payment".credit_entry
+    (customer_id);
 
 DROP TYPE IF EXISTS transaction_type;
 
@@ -44,10 +49,10 @@ CREATE TABLE "payment".credit_history
     amount numeric(10, 2) NOT NULL,
     type transaction_type NOT NULL,
     CONSTRAINT credit_history_pkey PRIMARY KEY (id)
-)
+);
 
 DROP TYPE IF EXISTS outbox_status;
-CREATE TYPE outbox_status AS ENUM('STARTED', 'COMPLETED', 'FAILED');
+CREATE TYPE outbox_status AS ENUM('STARTED', 'COMPLETED', 'FAILED', 'PARKED');
 
 DROP TABLE IF EXISTS "payment".order_outbox CASCADE;
 CREATE TABLE "payment".order_outbox
@@ -61,13 +66,94 @@ CREATE TABLE "payment".order_outbox
     outbox_status outbox_status NOT NULL,
     payment_status payment_status NOT NULL,
     version integer NOT NULL,
-    CONSTRAINT order_outbox_pkey PRIMARY KEY (id)
-)
+    lease_owner character varying COLLATE pg_catalog."default",
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    -- failed send attempts so far and, while the row is FAILED, the earliest time of the next one; a row that used up
+    -- its attempts is PARKED without a next attempt
+    attempt_count integer NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT order_outbox_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- daily partitions `order_outbox_p<yyyyMMdd>` are created ahead and dropped after the retention by the outbox
+-- partition manager; the default partition only catches rows for which no partition was created in time
+CREATE TABLE payment.order_outbox_default PARTITION OF payment.order_outbox DEFAULT;
 
 CREATE INDEX "payment_order_outbox_saga_status"
     ON "payment".order_outbox
     (type, payment_status);
 
-CREATE UNIQUE INDEX "payment_order_outbox_saga_id_payment_status_outbox_status"
+-- oldest-first access for the relay claims and the chunked clean-up
+CREATE INDEX "payment_order_outbox_outbox_status_created_at"
+    ON "payment".order_outbox
+    (type, outbox_status, created_at, id);
+
+-- lookups of the rows of a saga; uniqueness is kept by the saga step keys below
+CREATE INDEX "payment_order_outbox_saga_id_payment_status_outbox_status"
     ON "payment".order_outbox
-    (type, saga_id, payment_status, outbox_status);
\ No newline at end of file
+    (type, saga_id, payment_status, outbox_status);
+
+-- the saga step keys of the order outbox rows, kept unique outside the partitioned table (its unique indexes have to
+-- contain created_at, which is stamped when the step is processed, so they can't tell a resent step from a new one);
+-- maintained by the trigger below in the transaction writing the outbox row, so a duplicate step fails with a unique
+-- violation, and deleted by the outbox partition manager with the partition of their rows
+DROP TABLE IF EXISTS "payment".order_outbox_saga_step CASCADE;
+
+CREATE TABLE "payment".order_outbox_saga_step
+(
+    type character varying COLLATE pg_catalog."default" NOT NULL,
+    saga_id uuid NOT NULL,
+    payment_status payment_status NOT NULL,
+    outbox_status outbox_status NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT order_outbox_saga_step_pkey PRIMARY KEY (type, saga_id, payment_status, outbox_status)
+);
+
+CREATE INDEX "payment_order_outbox_saga_step_created_at"
+    ON "payment".order_outbox_saga_step
+    (created_at);
+
+CREATE OR REPLACE FUNCTION "payment".order_outbox_saga_step()
+returns trigger
+AS '
+BEGIN
+    IF TG_OP = ''UPDATE''
+        AND (OLD.type, OLD.saga_id, OLD.payment_status, OLD.outbox_status)
+        IS NOT DISTINCT FROM (NEW.type, NEW.saga_id, NEW.payment_status, NEW.outbox_status) THEN
+        return null;
+    END IF;
+    IF TG_OP IN (''UPDATE'', ''DELETE'') THEN
+        DELETE FROM "payment".order_outbox_saga_step
+        WHERE type = OLD.type AND saga_id = OLD.saga_id
+        AND payment_status = OLD.payment_status AND outbox_status = OLD.outbox_status;
+    END IF;
+    IF TG_OP IN (''INSERT'', ''UPDATE'') THEN
+        INSERT INTO "payment".order_outbox_saga_step (type, saga_id, payment_status, outbox_status, created_at)
+        VALUES (NEW.type, NEW.saga_id, NEW.payment_status, NEW.outbox_status, NEW.created_at);
+    END IF;
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER order_outbox_saga_step
+AFTER INSERT OR UPDATE OR DELETE ON "payment".order_outbox
+FOR EACH ROW EXECUTE PROCEDURE "payment".order_outbox_saga_step();
+
+DROP FUNCTION IF EXISTS "payment".notify_outbox_started CASCADE;
+
+-- wakes up the outbox relay listening on the `<schema>_<table>` channel, passed as the trigger argument (TG_TABLE_NAME
+-- would be the name of the partition); the notification is delivered only when the inserting transaction commits, and
+-- the same notification is sent only once per transaction
+CREATE OR REPLACE FUNCTION "payment".notify_outbox_started()
+returns trigger
+AS '
+BEGIN
+    PERFORM pg_notify(TG_ARGV[0], '''');
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER order_outbox_notify_started
+AFTER INSERT ON "payment".order_outbox
+FOR EACH ROW WHEN (NEW.outbox_status = 'STARTED')
+EXECUTE PROCEDURE "payment".notify_outbox_started('payment_order_outbox');
\ No newline at end of file
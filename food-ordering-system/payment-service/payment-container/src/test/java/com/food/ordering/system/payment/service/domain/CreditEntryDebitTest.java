@@ -0,0 +1,123 @@
+package com.food.ordering.system.payment.service.domain;
+
+import com.food.ordering.system.domain.valueobject.Money;
+import com.food.ordering.system.domain.valueobject.PaymentOrderStatus;
+import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.payment.service.dataaccess.creditentry.entity.CreditEntryEntity;
+import com.food.ordering.system.payment.service.dataaccess.creditentry.repository.CreditEntryJpaRepository;
+import com.food.ordering.system.payment.service.dataaccess.outbox.entity.OrderOutboxEntity;
+import com.food.ordering.system.payment.service.dataaccess.outbox.repository.OrderOutboxJpaRepository;
+import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
+import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
+import com.food.ordering.system.payment.service.domain.port.input.message.listener.PaymentRequestMessageListener;
+import com.food.ordering.system.payment.service.domain.port.output.repository.CreditEntryRepository;
+import com.food.ordering.system.saga.order.SagaConstants;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest(classes = PaymentServiceApplication.class)
+public class CreditEntryDebitTest {
+
+    @Autowired
+    private PaymentRequestMessageListener paymentRequestMessageListener;
+
+    @Autowired
+    private CreditEntryRepository creditEntryRepository;
+
+    @Autowired
+    private CreditEntryJpaRepository creditEntryJpaRepository;
+
+    @Autowired
+    private OrderOutboxJpaRepository orderOutboxJpaRepository;
+
+    private final static String CUSTOMER_ID = "d215b5f8-0249-4dc5-89a3-51fd148cfb43";
+    private final static BigDecimal CREDIT = new BigDecimal("100.00");
+
+    @Test
+    void testPaymentWithInsufficientCredit() {
+        String sagaId = UUID.randomUUID().toString();
+        paymentRequestMessageListener.completePayment(getPaymentRequest(sagaId, new BigDecimal("1000.00")));
+
+        Optional<OrderOutboxEntity> orderOutboxEntity = orderOutboxJpaRepository
+                .findByTypeAndSagaIdAndPaymentStatusAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME,
+                        UUID.fromString(sagaId),
+                        PaymentStatus.FAILED,
+                        OutboxStatus.STARTED);
+        Assertions.assertThat(orderOutboxEntity).isPresent();
+        Assertions.assertThat(orderOutboxEntity.get().getPayload()).contains("doesn't have enough credit");
+        Assertions.assertThat(creditEntryJpaRepository.findByCustomerId(UUID.fromString(CUSTOMER_ID)))
+                .hasValueSatisfying(creditEntryEntity ->
+                        Assertions.assertThat(creditEntryEntity.getTotalCreditAmount()).isEqualByComparingTo(CREDIT));
+    }
+
+    @Test
+    void testDebitWithInsufficientCredit() {
+        Assertions.assertThat(creditEntryRepository.debit(UUID.fromString(CUSTOMER_ID),
+                new Money(new BigDecimal("1000.00")))).isEmpty();
+        Assertions.assertThat(creditEntryRepository.findByCustomerId(UUID.fromString(CUSTOMER_ID)))
+                .hasValueSatisfying(creditEntry ->
+                        Assertions.assertThat(creditEntry.getTotalCreditAmount().amount())
+                                .isEqualByComparingTo(CREDIT));
+    }
+
+    // the debits must neither overdraw the credit nor lose an update: 10 debits of 30 on a credit of 100 leave 3
+    // applied and 10 as the credit
+    @Test
+    void testConcurrentDebits() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        CreditEntryEntity creditEntryEntity = creditEntryJpaRepository.save(CreditEntryEntity.builder()
+                .id(UUID.randomUUID())
+                .customerId(customerId)
+                .totalCreditAmount(CREDIT)
+                .build());
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Callable<Optional<CreditEntry>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tasks.add(() -> creditEntryRepository.debit(customerId, new Money(new BigDecimal("30.00"))));
+            }
+            List<BigDecimal> creditsAfterDebit = new ArrayList<>();
+            for (Future<Optional<CreditEntry>> debit : executor.invokeAll(tasks)) {
+                debit.get().ifPresent(creditEntry -> creditsAfterDebit.add(creditEntry.getTotalCreditAmount()
+                        .amount()));
+            }
+
+            Assertions.assertThat(creditsAfterDebit)
+                    .usingElementComparator(BigDecimal::compareTo)
+                    .containsExactlyInAnyOrder(new BigDecimal("70"), new BigDecimal("40"), new BigDecimal("10"));
+            Assertions.assertThat(creditEntryRepository.findByCustomerId(customerId))
+                    .hasValueSatisfying(creditEntry ->
+                            Assertions.assertThat(creditEntry.getTotalCreditAmount().amount())
+                                    .isEqualByComparingTo(new BigDecimal("10")));
+        } finally {
+            executor.shutdown();
+            creditEntryJpaRepository.delete(creditEntryEntity);
+        }
+    }
+
+    private PaymentRequest getPaymentRequest(String sagaId, BigDecimal price) {
+        return PaymentRequest.builder()
+                .id(UUID.randomUUID().toString())
+                .sagaId(sagaId)
+                .orderId(UUID.randomUUID().toString())
+                .paymentOrderStatus(PaymentOrderStatus.PENDING)
+                .customerId(CUSTOMER_ID)
+                .price(price)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
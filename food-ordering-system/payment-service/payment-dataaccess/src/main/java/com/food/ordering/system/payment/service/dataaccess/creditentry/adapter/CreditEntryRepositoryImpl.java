@@ -1,5 +1,6 @@
 package com.food.ordering.system.payment.service.dataaccess.creditentry.adapter;
 
+import com.food.ordering.system.domain.valueobject.Money;
 import com.food.ordering.system.payment.service.domain.port.output.repository.CreditEntryRepository;
 import com.food.ordering.system.payment.service.dataaccess.creditentry.mapper.CreditEntryDataAccessMapper;
 import com.food.ordering.system.payment.service.dataaccess.creditentry.repository.CreditEntryJpaRepository;
@@ -34,4 +35,18 @@ public class CreditEntryRepositoryImpl implements CreditEntryRepository {
                 .findByCustomerId(customerId)
                 .map(creditEntryDataAccessMapper::creditEntryEntityToCreditEntry);
     }
+
+    @Override
+    public Optional<CreditEntry> debit(UUID customerId, Money amount) {
+        return creditEntryJpaRepository
+                .debitByCustomerId(customerId, amount.amount())
+                .map(balance -> creditEntryDataAccessMapper.creditEntryBalanceToCreditEntry(customerId, balance));
+    }
+
+    @Override
+    public Optional<CreditEntry> credit(UUID customerId, Money amount) {
+        return creditEntryJpaRepository
+                .creditByCustomerId(customerId, amount.amount())
+                .map(balance -> creditEntryDataAccessMapper.creditEntryBalanceToCreditEntry(customerId, balance));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.food.ordering.system.payment.service.dataaccess.creditentry.entity;
+
+import java.math.BigDecimal;
+
+// The row an atomic credit update returns. It is read as plain values rather than as a CreditEntryEntity, which would
+// resolve to the instance already managed by the persistence context and keep its stale amount; the id is returned as
+// text, since Hibernate does not map a uuid column of a native query result.
+public interface CreditEntryBalance {
+
+    String getId();
+
+    BigDecimal getTotalCreditAmount();
+}
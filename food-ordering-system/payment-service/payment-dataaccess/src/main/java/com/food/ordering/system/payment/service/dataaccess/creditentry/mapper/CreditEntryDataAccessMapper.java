@@ -2,11 +2,14 @@ package com.food.ordering.system.payment.service.dataaccess.creditentry.mapper;
 
 import com.food.ordering.system.domain.valueobject.CustomerId;
 import com.food.ordering.system.domain.valueobject.Money;
+import com.food.ordering.system.payment.service.dataaccess.creditentry.entity.CreditEntryBalance;
 import com.food.ordering.system.payment.service.dataaccess.creditentry.entity.CreditEntryEntity;
 import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
 import com.food.ordering.system.payment.service.domain.valueobject.CreditEntryId;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Component
 public class CreditEntryDataAccessMapper {
 
@@ -18,6 +21,14 @@ public class CreditEntryDataAccessMapper {
                 .build();
     }
 
+    public CreditEntry creditEntryBalanceToCreditEntry(UUID customerId, CreditEntryBalance creditEntryBalance) {
+        return CreditEntry.builder()
+                .id(new CreditEntryId(UUID.fromString(creditEntryBalance.getId())))
+                .customerId(new CustomerId(customerId))
+                .totalCreditAmount(new Money(creditEntryBalance.getTotalCreditAmount()))
+                .build();
+    }
+
     public CreditEntryEntity creditEntryToCreditEntryEntity(CreditEntry creditEntry) {
         return CreditEntryEntity.builder()
                 .id(creditEntry.getId().getValue())
@@ -1,9 +1,14 @@
 package com.food.ordering.system.payment.service.dataaccess.creditentry.repository;
 
+import com.food.ordering.system.payment.service.dataaccess.creditentry.entity.CreditEntryBalance;
 import com.food.ordering.system.payment.service.dataaccess.creditentry.entity.CreditEntryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +16,24 @@ import java.util.UUID;
 public interface CreditEntryJpaRepository extends JpaRepository<CreditEntryEntity, UUID> {
 
     Optional<CreditEntryEntity> findByCustomerId(UUID customerId);
+
+    // The credit is checked and changed by the database in one statement, under the row lock, so concurrent payments of
+    // a customer can neither overdraw the credit nor lose an update. RETURNING makes these queries rather than
+    // modifying statements, so they are not @Modifying; they are read-write transactions of their own when called
+    // outside of one, unlike the read-only default of the repository queries.
+    @Transactional
+    @Query(value = "UPDATE credit_entry SET total_credit_amount = total_credit_amount - :amount " +
+            "WHERE customer_id = :customerId AND :amount > 0 AND total_credit_amount >= :amount " +
+            "RETURNING CAST(id AS character varying) AS id, total_credit_amount AS totalCreditAmount",
+            nativeQuery = true)
+    Optional<CreditEntryBalance> debitByCustomerId(@Param("customerId") UUID customerId,
+                                                   @Param("amount") BigDecimal amount);
+
+    @Transactional
+    @Query(value = "UPDATE credit_entry SET total_credit_amount = total_credit_amount + :amount " +
+            "WHERE customer_id = :customerId AND :amount > 0 " +
+            "RETURNING CAST(id AS character varying) AS id, total_credit_amount AS totalCreditAmount",
+            nativeQuery = true)
+    Optional<CreditEntryBalance> creditByCustomerId(@Param("customerId") UUID customerId,
+                                                    @Param("amount") BigDecimal amount);
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package com.food.ordering.system.payment.service.dataaccess.credithistory.adapter;
 
+import com.food.ordering.system.domain.valueobject.Money;
 import com.food.ordering.system.payment.service.domain.port.output.repository.CreditHistoryRepository;
+import com.food.ordering.system.payment.service.dataaccess.credithistory.entity.CreditHistoryAmounts;
 import com.food.ordering.system.payment.service.dataaccess.credithistory.entity.CreditHistoryEntity;
 import com.food.ordering.system.payment.service.dataaccess.credithistory.mapper.CreditHistoryDataAccessMapper;
 import com.food.ordering.system.payment.service.dataaccess.credithistory.repository.CreditHistoryJpaRepository;
 import com.food.ordering.system.payment.service.domain.entity.CreditHistory;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -36,4 +40,14 @@ public class CreditHistoryRepositoryImpl implements CreditHistoryRepository {
                 .map(creditHistoryDataAccessMapper::creditHistoryEntityToCreditHistory)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public Optional<CreditHistoryTotals> findTotalsByCustomerId(UUID customerId) {
+        CreditHistoryAmounts creditHistoryAmounts = creditHistoryJpaRepository.sumAmountsByCustomerId(customerId);
+        if (creditHistoryAmounts.getEntryCount() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new CreditHistoryTotals(new Money(creditHistoryAmounts.getTotalCreditAmount()),
+                new Money(creditHistoryAmounts.getTotalDebitAmount())));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.food.ordering.system.payment.service.dataaccess.credithistory.entity;
+
+import java.math.BigDecimal;
+
+// The credit history of a customer summed up per transaction type by the database, with the number of entries it sums.
+public interface CreditHistoryAmounts {
+
+    BigDecimal getTotalCreditAmount();
+
+    BigDecimal getTotalDebitAmount();
+
+    long getEntryCount();
+}
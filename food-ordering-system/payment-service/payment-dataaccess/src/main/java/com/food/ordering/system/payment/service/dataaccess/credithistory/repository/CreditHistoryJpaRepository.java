@@ -1,7 +1,10 @@
 package com.food.ordering.system.payment.service.dataaccess.credithistory.repository;
 
+import com.food.ordering.system.payment.service.dataaccess.credithistory.entity.CreditHistoryAmounts;
 import com.food.ordering.system.payment.service.dataaccess.credithistory.entity.CreditHistoryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,12 @@ import java.util.UUID;
 public interface CreditHistoryJpaRepository extends JpaRepository<CreditHistoryEntity, UUID> {
 
     List<CreditHistoryEntity> findByCustomerId(UUID customerId);
-}
\ No newline at end of file
+
+    // a single row, however long the history of the customer is
+    @Query(value = "SELECT COALESCE(SUM(amount) FILTER (WHERE type = 'CREDIT'), 0) AS totalCreditAmount, " +
+            "COALESCE(SUM(amount) FILTER (WHERE type = 'DEBIT'), 0) AS totalDebitAmount, " +
+            "COUNT(*) AS entryCount " +
+            "FROM credit_history WHERE customer_id = :customerId",
+            nativeQuery = true)
+    CreditHistoryAmounts sumAmountsByCustomerId(@Param("customerId") UUID customerId);
+}
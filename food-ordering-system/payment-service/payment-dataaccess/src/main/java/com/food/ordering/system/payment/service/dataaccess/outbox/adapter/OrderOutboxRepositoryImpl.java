@@ -1,15 +1,17 @@
 package com.food.ordering.system.payment.service.dataaccess.outbox.adapter;
 
 import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.payment.service.dataaccess.outbox.entity.OrderOutboxEntity;
-import com.food.ordering.system.payment.service.dataaccess.outbox.exception.OrderOutboxNotFoundException;
 import com.food.ordering.system.payment.service.dataaccess.outbox.mapper.OrderOutboxDataAccessMapper;
 import com.food.ordering.system.payment.service.dataaccess.outbox.repository.OrderOutboxJpaRepository;
 import com.food.ordering.system.payment.service.domain.outbox.model.OrderOutboxMessage;
 import com.food.ordering.system.payment.service.domain.port.output.repository.OrderOutboxRepository;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,20 +38,41 @@ public class OrderOutboxRepositoryImpl implements OrderOutboxRepository {
     }
 
     @Override
-    public List<OrderOutboxMessage> findByTypeAndOutboxStatus(String sagaType, OutboxStatus outboxStatus) {
-        List<OrderOutboxEntity> orderOutboxEntities = orderOutboxJpaRepository.findByTypeAndOutboxStatus(
-                sagaType, outboxStatus
+    public List<OrderOutboxMessage> claimByTypeAndOutboxStatus(String sagaType,
+                                                               OutboxStatus outboxStatus,
+                                                               String leaseOwner,
+                                                               OutboxCursor after,
+                                                               int batchSize,
+                                                               long leaseSeconds) {
+        List<OrderOutboxEntity> orderOutboxEntities = orderOutboxJpaRepository.findClaimableForUpdateSkipLocked(
+                sagaType, outboxStatus.name(), after.createdAt(), after.id(), batchSize
         );
-        if (orderOutboxEntities == null || orderOutboxEntities.isEmpty()) {
-            throw new OrderOutboxNotFoundException(
-                    String.format("Approval outbox object cannot be found for saga type %s", sagaType)
-            );
+        // an empty claim is a regular outcome here (nothing pending or everything leased by other instances)
+        if (orderOutboxEntities.isEmpty()) {
+            return Collections.emptyList();
         }
+
+        orderOutboxJpaRepository.updateLeaseByIdIn(
+                orderOutboxEntities.stream().map(OrderOutboxEntity::getId).collect(Collectors.toList()),
+                leaseOwner,
+                leaseSeconds
+        );
         return orderOutboxEntities.stream()
                 .map(orderOutboxDataAccessMapper::orderOutboxEntityToOrderOutboxMessage)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus) {
+        return orderOutboxJpaRepository.updateOutboxStatusByIdIn(ids, outboxStatus.name());
+    }
+
+    @Override
+    public int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy) {
+        return orderOutboxJpaRepository.updateFailedOutboxStatusByIdIn(ids, retryPolicy.maxAttempts(),
+                retryPolicy.initialBackoffSeconds(), retryPolicy.maxBackoffSeconds());
+    }
+
     @Override
     public Optional<OrderOutboxMessage> findByTypeAndSagaIdAndPaymentStatusAndOutboxStatus(String sagaType,
                                                                                            UUID sagaId,
@@ -64,4 +87,9 @@ public class OrderOutboxRepositoryImpl implements OrderOutboxRepository {
     public void deleteByTypeAndOutboxStatus(String sagaType, OutboxStatus outboxStatus) {
         orderOutboxJpaRepository.deleteByTypeAndOutboxStatus(sagaType, outboxStatus);
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteChunkByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus, int chunkSize) {
+        return orderOutboxJpaRepository.deleteChunkByTypeAndOutboxStatus(type, outboxStatus.name(), chunkSize);
+    }
+}
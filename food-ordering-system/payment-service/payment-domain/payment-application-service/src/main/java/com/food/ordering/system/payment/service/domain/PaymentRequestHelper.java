@@ -17,6 +17,8 @@ import com.food.ordering.system.payment.service.domain.port.output.message.publi
 import com.food.ordering.system.payment.service.domain.port.output.repository.CreditEntryRepository;
 import com.food.ordering.system.payment.service.domain.port.output.repository.CreditHistoryRepository;
 import com.food.ordering.system.payment.service.domain.port.output.repository.PaymentRepository;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditEntryUpdate;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -100,18 +102,37 @@ public class PaymentRequestHelper {
         );
     }
 
+    // for a request known to be processed already - only its response is published again, if it was sent before
+    @Transactional
+    public void republishPaymentResponse(PaymentRequest paymentRequest, PaymentStatus paymentStatus) {
+        if (publishIfOutboxMessageProcessedForPayment(paymentRequest, paymentStatus)) {
+            log.info("The response of saga id {} with status {} is published again", paymentRequest.getSagaId(),
+                    paymentStatus);
+        }
+    }
+
     private PaymentEvent createPaymentEvent(Payment payment, PaymentStatus paymentStatus) {
-        CreditEntry creditEntry = getCreditEntry(payment.getCustomerId());
-        List<CreditHistory> creditHistoryList = getCreditHistory(payment.getCustomerId());
+        List<CreditHistory> creditHistoryList = new ArrayList<>();
         List<String> failureMessages = new ArrayList<>();
 
         PaymentEvent paymentEvent;
         if (paymentStatus == PaymentStatus.COMPLETED) {
             paymentEvent = paymentDomainService.validateAndInitiatePayment(
-                    payment, creditEntry, creditHistoryList, failureMessages);
+                    payment,
+                    getCreditEntry(payment.getCustomerId()),
+                    getCreditHistoryTotals(payment.getCustomerId()),
+                    () -> creditEntryUpdate(payment, creditEntryRepository.debit(
+                            payment.getCustomerId().getValue(), payment.getPrice())),
+                    creditHistoryList,
+                    failureMessages
+            );
         } else if (paymentStatus == PaymentStatus.CANCELLED) {
             paymentEvent = paymentDomainService.validateAndCancelPayment(
-                    payment, creditEntry, creditHistoryList, failureMessages
+                    payment,
+                    () -> creditEntryUpdate(payment, creditEntryRepository.credit(
+                            payment.getCustomerId().getValue(), payment.getPrice())),
+                    creditHistoryList,
+                    failureMessages
             );
         } else {
             String errMessage = String.format("Payment with status %s cannot be handled", paymentStatus);
@@ -120,10 +141,17 @@ public class PaymentRequestHelper {
         }
 
         // even if the payment has failed, it should be saved (previous method sets the status to failed)
-        persistEntities(payment, failureMessages, creditEntry, creditHistoryList);
+        persistEntities(payment, creditHistoryList);
         return paymentEvent;
     }
 
+    // the credit entry is only read again when the atomic update is rejected, for the failure to be reported with it
+    private CreditEntryUpdate creditEntryUpdate(Payment payment, Optional<CreditEntry> updatedCreditEntry) {
+        return updatedCreditEntry
+                .map(creditEntry -> new CreditEntryUpdate(creditEntry, true))
+                .orElseGet(() -> new CreditEntryUpdate(getCreditEntry(payment.getCustomerId()), false));
+    }
+
     private CreditEntry getCreditEntry(CustomerId customerId) {
         return creditEntryRepository.findByCustomerId(customerId.getValue()).orElseThrow(
                 () -> {
@@ -136,30 +164,26 @@ public class PaymentRequestHelper {
         );
     }
 
-    private List<CreditHistory> getCreditHistory(CustomerId customerId) {
-        List<CreditHistory> creditHistoryList = creditHistoryRepository.findByCustomerId(customerId.getValue());
-        if (creditHistoryList == null || creditHistoryList.isEmpty()) {
-            String errMessage = String.format(
-                    "Could not find a credit entry for customer[id = %s]", customerId.getValue()
-            );
-            log.error(errMessage);
-            throw new PaymentApplicationServiceException(errMessage);
-        }
-
-        return creditHistoryList;
+    private CreditHistoryTotals getCreditHistoryTotals(CustomerId customerId) {
+        return creditHistoryRepository.findTotalsByCustomerId(customerId.getValue()).orElseThrow(
+                () -> {
+                    String errMessage = String.format(
+                            "Could not find a credit history for customer[id = %s]", customerId.getValue()
+                    );
+                    log.error(errMessage);
+                    return new PaymentApplicationServiceException(errMessage);
+                }
+        );
     }
 
-    private void persistEntities(Payment payment,
-                                 List<String> failureMessages,
-                                 CreditEntry creditEntry,
-                                 List<CreditHistory> creditHistoryList) {
+    // the credit entry is only updated once the payment is valid, so a failed payment has nothing to revert
+    private void persistEntities(Payment payment, List<CreditHistory> creditHistoryList) {
         paymentRepository.save(payment);
-        if (failureMessages.isEmpty()) {
-            creditEntryRepository.save(creditEntry);
-            creditHistoryRepository.save(creditHistoryList.get(creditHistoryList.size() - 1));
-        }
+        creditHistoryList.forEach(creditHistoryRepository::save);
     }
 
+    // kept in the exactly-once Kafka mode as well: the consumed offsets are committed in a Kafka transaction, after
+    // the database one, so a crash in between still redelivers a request that has been processed
     private boolean publishIfOutboxMessageProcessedForPayment(PaymentRequest paymentRequest,
                                                               PaymentStatus paymentStatus) {
         Optional<OrderOutboxMessage> orderOutboxMessageOptional = orderOutboxHelper
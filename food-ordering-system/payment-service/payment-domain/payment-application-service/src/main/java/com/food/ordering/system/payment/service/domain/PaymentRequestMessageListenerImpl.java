@@ -1,28 +1,69 @@
 package com.food.ordering.system.payment.service.domain;
 
+import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
 import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
 import com.food.ordering.system.payment.service.domain.port.input.message.listener.PaymentRequestMessageListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
+// The helper methods are their own transactions, so a request they returned from has committed and is remembered in
+// the processed saga cache; a resent request skips the payment processing then. Its response is still published
+// again, like for any duplicate the helper detects - the order service may resend the request because it lost the
+// response, and a response whose outbox message is completed is not sent by the relay anymore.
 @Slf4j
 @Service
 public class PaymentRequestMessageListenerImpl implements PaymentRequestMessageListener {
 
+    private static final String PAYMENT_STEP_PREFIX = "payment-";
+
     private final PaymentRequestHelper paymentRequestHelper;
+    private final ProcessedSagaCache processedSagaCache;
 
-    public PaymentRequestMessageListenerImpl(PaymentRequestHelper paymentRequestHelper) {
+    public PaymentRequestMessageListenerImpl(PaymentRequestHelper paymentRequestHelper,
+                                             ProcessedSagaCache processedSagaCache) {
         this.paymentRequestHelper = paymentRequestHelper;
+        this.processedSagaCache = processedSagaCache;
     }
 
     @Override
     public void completePayment(PaymentRequest paymentRequest) {
+        if (isProcessed(paymentRequest)) {
+            paymentRequestHelper.republishPaymentResponse(paymentRequest, PaymentStatus.COMPLETED);
+            return;
+        }
         paymentRequestHelper.persistPaymentEvent(paymentRequest);
+        markProcessed(paymentRequest);
     }
 
     @Override
     public void cancelPayment(PaymentRequest paymentRequest) {
+        if (isProcessed(paymentRequest)) {
+            paymentRequestHelper.republishPaymentResponse(paymentRequest, PaymentStatus.CANCELLED);
+            return;
+        }
         paymentRequestHelper.persistCancelPayment(paymentRequest);
+        markProcessed(paymentRequest);
+    }
+
+    private boolean isProcessed(PaymentRequest paymentRequest) {
+        if (processedSagaCache.isProcessed(UUID.fromString(paymentRequest.getSagaId()), step(paymentRequest))) {
+            log.info("Payment request with sagaId {} and status {} is already processed", paymentRequest.getSagaId(),
+                    paymentRequest.getPaymentOrderStatus());
+            return true;
+        }
+        return false;
+    }
+
+    private void markProcessed(PaymentRequest paymentRequest) {
+        processedSagaCache.markProcessed(UUID.fromString(paymentRequest.getSagaId()), step(paymentRequest));
+    }
+
+    // a saga sends one pending and at most one cancelled payment request
+    private static String step(PaymentRequest paymentRequest) {
+        return PAYMENT_STEP_PREFIX + paymentRequest.getPaymentOrderStatus();
     }
 }
 
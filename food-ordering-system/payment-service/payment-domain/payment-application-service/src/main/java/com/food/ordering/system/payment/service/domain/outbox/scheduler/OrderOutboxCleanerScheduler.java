@@ -1,35 +1,48 @@
 package com.food.ordering.system.payment.service.domain.outbox.scheduler;
 
+import com.food.ordering.system.outbox.OutboxCleaner;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
-import com.food.ordering.system.payment.service.domain.outbox.model.OrderOutboxMessage;
+import com.food.ordering.system.payment.service.domain.config.PaymentServiceConfigData;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.Duration;
 
 @Slf4j
 @Component
 public class OrderOutboxCleanerScheduler implements OutboxScheduler {
 
-    private final OrderOutboxHelper orderOutboxHelper;
+    private final OutboxCleaner outboxCleaner;
+    private final boolean partitionRetention;
 
-    public OrderOutboxCleanerScheduler(OrderOutboxHelper orderOutboxHelper) {
-        this.orderOutboxHelper = orderOutboxHelper;
+    public OrderOutboxCleanerScheduler(OrderOutboxHelper orderOutboxHelper,
+                                       PaymentServiceConfigData paymentServiceConfigData) {
+        // not transactional - each chunk is deleted (and committed) on its own
+        this.outboxCleaner = OutboxCleaner.builder()
+                .name("PaymentOrderOutbox")
+                .deleteStrategy(chunkSize -> orderOutboxHelper.deleteOrderOutboxMessageChunkByOutboxStatus(
+                        chunkSize, OutboxStatus.COMPLETED
+                ))
+                .chunkSize(paymentServiceConfigData.getOutboxCleanerChunkSize())
+                .pauseBetweenChunks(Duration.ofMillis(paymentServiceConfigData.getOutboxCleanerPauseMs()))
+                .build();
+        this.partitionRetention = paymentServiceConfigData.isOutboxPartitionEnabled();
     }
 
     @Override
-    @Transactional
     @Scheduled(cron = "@midnight")
     public void processOutboxMessage() {
-        List<OrderOutboxMessage> outboxMessages =
-                orderOutboxHelper.getOrderOutboxMessageByOutboxStatus(OutboxStatus.COMPLETED);
-        if (outboxMessages != null && !outboxMessages.isEmpty()) {
-            log.info("Received {} OrderOutboxMessage for clean-up!", outboxMessages.size());
-            orderOutboxHelper.deleteOrderOutboxMessageByOutboxStatus(OutboxStatus.COMPLETED);
-            log.info("Deleted {} OrderOutboxMessage!", outboxMessages.size());
+        // the expired partitions are dropped as a whole by the OutboxPartitionManager instead
+        if (partitionRetention) {
+            log.debug("{} clean-up skipped, the outbox is retained by partitions.", outboxCleaner.getName());
+            return;
         }
+        outboxCleaner.clean();
     }
-}
\ No newline at end of file
+
+    public OutboxCleaner getOutboxCleaner() {
+        return outboxCleaner;
+    }
+}
@@ -6,7 +6,10 @@ import com.fasterxml.jackson.databind.deser.std.UUIDDeserializer;
 import com.food.ordering.system.domain.DomainConstants;
 import com.food.ordering.system.domain.valueobject.PaymentStatus;
 import com.food.ordering.system.outbox.OutboxScheduler;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.payment.service.domain.config.PaymentServiceConfigData;
 import com.food.ordering.system.payment.service.domain.entity.Payment;
 import com.food.ordering.system.payment.service.domain.exception.PaymentDomainException;
 import com.food.ordering.system.payment.service.domain.outbox.model.OrderEventPayload;
@@ -22,6 +25,7 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -31,10 +35,20 @@ public class OrderOutboxHelper {
     private static final String ORDER_OUTBOX_MESSAGE_SAVE_ERROR_MESSAGE = "Could not save an OrderOutboxMessage!";
     private final OrderOutboxRepository orderOutboxRepository;
     private final ObjectMapper objectMapper;
+    private final PaymentServiceConfigData paymentServiceConfigData;
+    private final OutboxRetryPolicy retryPolicy;
 
-    public OrderOutboxHelper(OrderOutboxRepository orderOutboxRepository, ObjectMapper objectMapper) {
+    public OrderOutboxHelper(OrderOutboxRepository orderOutboxRepository,
+                             ObjectMapper objectMapper,
+                             PaymentServiceConfigData paymentServiceConfigData) {
         this.orderOutboxRepository = orderOutboxRepository;
         this.objectMapper = objectMapper;
+        this.paymentServiceConfigData = paymentServiceConfigData;
+        this.retryPolicy = OutboxRetryPolicy.ofMillis(
+                paymentServiceConfigData.getOutboxRetryMaxAttempts(),
+                paymentServiceConfigData.getOutboxRetryInitialBackoffMs(),
+                paymentServiceConfigData.getOutboxRetryMaxBackoffMs()
+        );
     }
 
     @Transactional(readOnly = true)
@@ -46,9 +60,18 @@ public class OrderOutboxHelper {
     }
 
 
-    @Transactional(readOnly = true)
-    public List<OrderOutboxMessage> getOrderOutboxMessageByOutboxStatus(OutboxStatus outboxStatus) {
-        return orderOutboxRepository.findByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus);
+    @Transactional
+    public List<OrderOutboxMessage> claimOrderOutboxMessagesByOutboxStatus(OutboxCursor after,
+                                                                           int batchSize,
+                                                                           OutboxStatus outboxStatus) {
+        return orderOutboxRepository.claimByTypeAndOutboxStatus(
+                SagaConstants.ORDER_SAGA_NAME,
+                outboxStatus,
+                paymentServiceConfigData.getOutboxInstanceId(),
+                after,
+                batchSize,
+                paymentServiceConfigData.getOutboxLeaseSeconds()
+        );
     }
 
     @Transactional
@@ -56,6 +79,12 @@ public class OrderOutboxHelper {
         orderOutboxRepository.deleteByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus);
     }
 
+    @Transactional
+    public int deleteOrderOutboxMessageChunkByOutboxStatus(int chunkSize, OutboxStatus outboxStatus) {
+        return orderOutboxRepository.deleteChunkByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus,
+                chunkSize);
+    }
+
     @Transactional
     public void updateOutboxMessage(OrderOutboxMessage orderOutboxMessage, OutboxStatus outboxStatus) {
         orderOutboxMessage.setOutboxStatus(outboxStatus);
@@ -80,6 +109,20 @@ public class OrderOutboxHelper {
                 .build());
     }
 
+    // used by the outbox relay to acknowledge a whole batch of broker outcomes with one update
+    @Transactional
+    public void bulkUpdateOutboxStatus(List<OrderOutboxMessage> orderOutboxMessages, OutboxStatus outboxStatus) {
+        List<UUID> ids = orderOutboxMessages.stream().map(OrderOutboxMessage::getId).collect(Collectors.toList());
+        // a failed send is scheduled for a retry after its backoff, or parked once it used up its attempts (the status
+        // of the message objects stays FAILED then)
+        int updated = outboxStatus == OutboxStatus.FAILED
+                ? orderOutboxRepository.updateFailedOutboxStatusByIds(ids, retryPolicy)
+                : orderOutboxRepository.updateOutboxStatusByIds(ids, outboxStatus);
+        orderOutboxMessages.forEach(outboxMessage -> outboxMessage.setOutboxStatus(outboxStatus));
+        log.info("Order outbox table status is updated as: {} for {} of {} messages", outboxStatus.name(), updated,
+                ids.size());
+    }
+
     private String createPayload(OrderEventPayload orderEventPayload) {
         try {
             return objectMapper.writeValueAsString(orderEventPayload);
@@ -1,47 +1,68 @@
 package com.food.ordering.system.payment.service.domain.outbox.scheduler;
 
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxPollingTrigger;
+import com.food.ordering.system.outbox.OutboxRelay;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.payment.service.domain.config.PaymentServiceConfigData;
 import com.food.ordering.system.payment.service.domain.outbox.model.OrderOutboxMessage;
 import com.food.ordering.system.payment.service.domain.port.output.message.publisher.PaymentResponseMessagePublisher;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 @Slf4j
 @Component
-public class OrderOutboxScheduler implements OutboxScheduler {
+public class OrderOutboxScheduler implements OutboxScheduler, SchedulingConfigurer {
 
-
-    private final OrderOutboxHelper orderOutboxHelper;
-    private final PaymentResponseMessagePublisher paymentResponseMessagePublisher;
+    private final OutboxRelay<OrderOutboxMessage> outboxRelay;
 
     public OrderOutboxScheduler(OrderOutboxHelper orderOutboxHelper,
-                                PaymentResponseMessagePublisher paymentResponseMessagePublisher) {
-        this.orderOutboxHelper = orderOutboxHelper;
-        this.paymentResponseMessagePublisher = paymentResponseMessagePublisher;
+                                PaymentResponseMessagePublisher paymentResponseMessagePublisher,
+                                PaymentServiceConfigData paymentServiceConfigData) {
+        this.outboxRelay = OutboxRelay.<OrderOutboxMessage>builder()
+                .name("PaymentOrderOutbox")
+                .fetchStrategy((after, batchSize) -> orderOutboxHelper.claimOrderOutboxMessagesByOutboxStatus(
+                        after, batchSize, OutboxStatus.STARTED))
+                // only the failed sends have a next attempt, the cancellations saved as FAILED are never retried
+                .retryFetchStrategy((after, batchSize) -> orderOutboxHelper.claimOrderOutboxMessagesByOutboxStatus(
+                        after, batchSize, OutboxStatus.FAILED))
+                .retryBatchSize(paymentServiceConfigData.getOutboxRetryBatchSize())
+                .cursorExtractor(outboxMessage -> new OutboxCursor(outboxMessage.getCreatedAt(), outboxMessage.getId()))
+                .publishStrategy(paymentResponseMessagePublisher::publish)
+                .batchPublishStrategy(paymentResponseMessagePublisher::publishBatch)
+                .ackStrategy(orderOutboxHelper::bulkUpdateOutboxStatus)
+                .batchSize(paymentServiceConfigData.getOutboxBatchSize())
+                .maxPagesPerRun(paymentServiceConfigData.getOutboxMaxPagesPerRun())
+                .maxInFlight(paymentServiceConfigData.getOutboxMaxInFlight())
+                .drainTimeout(Duration.ofMillis(paymentServiceConfigData.getOutboxDrainTimeoutMs()))
+                .pollingTrigger(OutboxPollingTrigger.of(
+                        paymentServiceConfigData.getOutboxSchedulerMode(),
+                        paymentServiceConfigData.getOutboxSchedulerInitialDelay(),
+                        paymentServiceConfigData.getOutboxSchedulerMinDelay(),
+                        paymentServiceConfigData.getOutboxSchedulerFixedRate(),
+                        paymentServiceConfigData.getOutboxSchedulerBackoffMultiplier()
+                ))
+                .build();
     }
 
     @Override
-    @Transactional
-    @Scheduled(fixedRateString = "${payment-service.outbox-scheduler-fixed-rate}",
-            initialDelayString = "${payment-service.outbox-scheduler-initial-delay}")
     public void processOutboxMessage() {
-        List<OrderOutboxMessage> outboxMessages = orderOutboxHelper.getOrderOutboxMessageByOutboxStatus(
-                OutboxStatus.STARTED
-        );
-        if (outboxMessages != null && !outboxMessages.isEmpty()) {
-            log.info("Received {} OrderOutboxMessage with ids {}, sending to message bus!", outboxMessages.size(),
-                    outboxMessages.stream().map(outboxMessage ->
-                            outboxMessage.getId().toString()).collect(Collectors.joining(",")));
-            outboxMessages.forEach(orderOutboxMessage ->
-                    paymentResponseMessagePublisher.publish(orderOutboxMessage,
-                            orderOutboxHelper::updateOutboxMessage));
-            log.info("{} OrderOutboxMessage sent to message bus!", outboxMessages.size());
-        }
+        outboxRelay.relay();
+    }
+
+    // the relay is triggered by its polling trigger instead of @Scheduled, so the delay between runs can follow the
+    // outcome of the previous run (see `payment-service.outbox-scheduler-mode`)
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this::processOutboxMessage, outboxRelay.getPollingTrigger());
+    }
+
+    public OutboxRelay<OrderOutboxMessage> getOutboxRelay() {
+        return outboxRelay;
     }
 }
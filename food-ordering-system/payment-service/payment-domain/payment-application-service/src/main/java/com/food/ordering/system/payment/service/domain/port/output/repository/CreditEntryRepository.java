@@ -1,5 +1,6 @@
 package com.food.ordering.system.payment.service.domain.port.output.repository;
 
+import com.food.ordering.system.domain.valueobject.Money;
 import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
 
 import java.util.Optional;
@@ -10,4 +11,12 @@ public interface CreditEntryRepository {
     CreditEntry save(CreditEntry payment);
 
     Optional<CreditEntry> findByCustomerId(UUID customerId);
+
+    // subtracts the amount from the customer's credit in a single statement, only if the credit covers it; empty when
+    // the debit is not applied: no credit entry, a non-positive amount or not enough credit
+    Optional<CreditEntry> debit(UUID customerId, Money amount);
+
+    // adds the amount to the customer's credit in a single statement; empty when there is no credit entry or the
+    // amount is not positive
+    Optional<CreditEntry> credit(UUID customerId, Money amount);
 }
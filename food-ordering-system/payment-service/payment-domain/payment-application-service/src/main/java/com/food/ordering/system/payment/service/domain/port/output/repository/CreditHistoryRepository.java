@@ -1,8 +1,10 @@
 package com.food.ordering.system.payment.service.domain.port.output.repository;
 
 import com.food.ordering.system.payment.service.domain.entity.CreditHistory;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CreditHistoryRepository {
@@ -10,4 +12,7 @@ public interface CreditHistoryRepository {
     CreditHistory save(CreditHistory payment);
 
     List<CreditHistory> findByCustomerId(UUID customerId);
+
+    // empty for a customer without any credit history
+    Optional<CreditHistoryTotals> findTotalsByCustomerId(UUID customerId);
 }
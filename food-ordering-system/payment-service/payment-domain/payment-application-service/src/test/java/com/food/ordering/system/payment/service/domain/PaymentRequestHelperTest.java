@@ -0,0 +1,145 @@
+package com.food.ordering.system.payment.service.domain;
+
+import com.food.ordering.system.domain.valueobject.CustomerId;
+import com.food.ordering.system.domain.valueobject.Money;
+import com.food.ordering.system.domain.valueobject.PaymentOrderStatus;
+import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
+import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
+import com.food.ordering.system.payment.service.domain.entity.CreditHistory;
+import com.food.ordering.system.payment.service.domain.entity.Payment;
+import com.food.ordering.system.payment.service.domain.mapper.PaymentDataMapper;
+import com.food.ordering.system.payment.service.domain.outbox.model.OrderEventPayload;
+import com.food.ordering.system.payment.service.domain.outbox.scheduler.OrderOutboxHelper;
+import com.food.ordering.system.payment.service.domain.port.output.message.publisher.PaymentResponseMessagePublisher;
+import com.food.ordering.system.payment.service.domain.port.output.repository.CreditEntryRepository;
+import com.food.ordering.system.payment.service.domain.port.output.repository.CreditHistoryRepository;
+import com.food.ordering.system.payment.service.domain.port.output.repository.PaymentRepository;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditEntryId;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
+import com.food.ordering.system.payment.service.domain.valueobject.TransactionType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+class PaymentRequestHelperTest {
+
+    private static final UUID CUSTOMER_ID = UUID.fromString("d215b5f8-0249-4dc5-89a3-51fd148cfb41");
+
+    private final PaymentRepository paymentRepository = Mockito.mock(PaymentRepository.class);
+    private final CreditEntryRepository creditEntryRepository = Mockito.mock(CreditEntryRepository.class);
+    private final CreditHistoryRepository creditHistoryRepository = Mockito.mock(CreditHistoryRepository.class);
+    private final OrderOutboxHelper orderOutboxHelper = Mockito.mock(OrderOutboxHelper.class);
+    private final PaymentRequestHelper paymentRequestHelper = new PaymentRequestHelper(new PaymentDomainServiceImpl(),
+            new PaymentDataMapper(), paymentRepository, creditEntryRepository, creditHistoryRepository,
+            orderOutboxHelper, Mockito.mock(PaymentResponseMessagePublisher.class));
+
+    @BeforeEach
+    void initCredit() {
+        Mockito.when(creditEntryRepository.findByCustomerId(CUSTOMER_ID)).thenReturn(Optional.of(creditEntry("100.00")));
+        Mockito.when(creditHistoryRepository.findTotalsByCustomerId(CUSTOMER_ID))
+                .thenReturn(Optional.of(new CreditHistoryTotals(money("150.00"), money("50.00"))));
+    }
+
+    @Test
+    void testPaymentIsDebitedAndRecordedInTheHistory() {
+        Mockito.when(creditEntryRepository.debit(CUSTOMER_ID, money("30.00")))
+                .thenReturn(Optional.of(creditEntry("70.00")));
+
+        paymentRequestHelper.persistPaymentEvent(paymentRequest("30.00"));
+
+        Assertions.assertEquals(PaymentStatus.COMPLETED, savedPaymentStatus());
+        ArgumentCaptor<CreditHistory> creditHistory = ArgumentCaptor.forClass(CreditHistory.class);
+        Mockito.verify(creditHistoryRepository).save(creditHistory.capture());
+        Assertions.assertEquals(TransactionType.DEBIT, creditHistory.getValue().getTransactionType());
+        Assertions.assertEquals(money("30.00"), creditHistory.getValue().getAmount());
+    }
+
+    @Test
+    void testPaymentAboveTheCreditIsNotDebited() {
+        paymentRequestHelper.persistPaymentEvent(paymentRequest("1000.00"));
+
+        Assertions.assertEquals(PaymentStatus.FAILED, savedPaymentStatus());
+        verifyCreditUntouched();
+    }
+
+    @Test
+    void testPaymentWithAnInconsistentHistoryIsNotDebited() {
+        Mockito.when(creditHistoryRepository.findTotalsByCustomerId(CUSTOMER_ID))
+                .thenReturn(Optional.of(new CreditHistoryTotals(money("150.00"), money("40.00"))));
+
+        paymentRequestHelper.persistPaymentEvent(paymentRequest("30.00"));
+
+        Assertions.assertEquals(PaymentStatus.FAILED, savedPaymentStatus());
+        verifyCreditUntouched();
+    }
+
+    // a concurrent payment may have used up the credit since it was read: the rejected debit changed nothing
+    @Test
+    void testRejectedDebitFailsThePaymentWithoutARevert() {
+        Mockito.when(creditEntryRepository.debit(CUSTOMER_ID, money("30.00"))).thenReturn(Optional.empty());
+
+        paymentRequestHelper.persistPaymentEvent(paymentRequest("30.00"));
+
+        Assertions.assertEquals(PaymentStatus.FAILED, savedPaymentStatus());
+        Mockito.verify(creditEntryRepository, Mockito.never()).credit(Mockito.any(), Mockito.any());
+        Mockito.verify(creditHistoryRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(orderOutboxHelper).saveOrderOutboxMessage(Mockito.any(OrderEventPayload.class),
+                Mockito.eq(PaymentStatus.FAILED), Mockito.eq(OutboxStatus.STARTED), Mockito.any());
+    }
+
+    @Test
+    void testCreditHistoryIsReadAsTotals() {
+        Mockito.when(creditEntryRepository.debit(CUSTOMER_ID, money("30.00")))
+                .thenReturn(Optional.of(creditEntry("70.00")));
+
+        paymentRequestHelper.persistPaymentEvent(paymentRequest("30.00"));
+
+        Mockito.verify(creditHistoryRepository).findTotalsByCustomerId(CUSTOMER_ID);
+        Mockito.verify(creditHistoryRepository, Mockito.never()).findByCustomerId(Mockito.any());
+    }
+
+    private void verifyCreditUntouched() {
+        Mockito.verify(creditEntryRepository, Mockito.never()).debit(Mockito.any(), Mockito.any());
+        Mockito.verify(creditEntryRepository, Mockito.never()).credit(Mockito.any(), Mockito.any());
+        Mockito.verify(creditHistoryRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    private PaymentStatus savedPaymentStatus() {
+        ArgumentCaptor<Payment> payment = ArgumentCaptor.forClass(Payment.class);
+        Mockito.verify(paymentRepository).save(payment.capture());
+        return payment.getValue().getPaymentStatus();
+    }
+
+    private static CreditEntry creditEntry(String totalCreditAmount) {
+        return CreditEntry.builder()
+                .id(new CreditEntryId(UUID.randomUUID()))
+                .customerId(new CustomerId(CUSTOMER_ID))
+                .totalCreditAmount(money(totalCreditAmount))
+                .build();
+    }
+
+    private static Money money(String amount) {
+        return new Money(new BigDecimal(amount));
+    }
+
+    private static PaymentRequest paymentRequest(String price) {
+        return PaymentRequest.builder()
+                .id(UUID.randomUUID().toString())
+                .sagaId(UUID.randomUUID().toString())
+                .orderId(UUID.randomUUID().toString())
+                .customerId(CUSTOMER_ID.toString())
+                .price(new BigDecimal(price))
+                .createdAt(Instant.now())
+                .paymentOrderStatus(PaymentOrderStatus.PENDING)
+                .build();
+    }
+}
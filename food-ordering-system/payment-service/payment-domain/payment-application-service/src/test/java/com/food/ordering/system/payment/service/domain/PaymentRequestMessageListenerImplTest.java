@@ -0,0 +1,72 @@
+package com.food.ordering.system.payment.service.domain;
+
+import com.food.ordering.system.domain.valueobject.PaymentOrderStatus;
+import com.food.ordering.system.domain.valueobject.PaymentStatus;
+import com.food.ordering.system.outbox.idempotency.ProcessedSagaCache;
+import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+class PaymentRequestMessageListenerImplTest {
+
+    private final PaymentRequestHelper paymentRequestHelper = Mockito.mock(PaymentRequestHelper.class);
+    private final ProcessedSagaCache processedSagaCache = ProcessedSagaCache.builder()
+            .name("Test")
+            .capacity(10)
+            .build();
+    private final PaymentRequestMessageListenerImpl listener =
+            new PaymentRequestMessageListenerImpl(paymentRequestHelper, processedSagaCache);
+
+    @Test
+    void testProcessedRequestIsKeyedByThePaymentStep() {
+        PaymentRequest paymentRequest = paymentRequest(PaymentOrderStatus.PENDING);
+
+        listener.completePayment(paymentRequest);
+
+        Assertions.assertTrue(processedSagaCache.isProcessed(UUID.fromString(paymentRequest.getSagaId()),
+                "payment-PENDING"));
+    }
+
+    @Test
+    void testResentRequestIsOnlyRepublished() {
+        PaymentRequest paymentRequest = paymentRequest(PaymentOrderStatus.PENDING);
+
+        listener.completePayment(paymentRequest);
+        listener.completePayment(paymentRequest);
+
+        Mockito.verify(paymentRequestHelper).persistPaymentEvent(paymentRequest);
+        Mockito.verify(paymentRequestHelper).republishPaymentResponse(paymentRequest, PaymentStatus.COMPLETED);
+    }
+
+    @Test
+    void testCancelRequestOfAProcessedSagaIsProcessed() {
+        String sagaId = UUID.randomUUID().toString();
+        listener.completePayment(paymentRequest(sagaId, PaymentOrderStatus.PENDING));
+        PaymentRequest cancelRequest = paymentRequest(sagaId, PaymentOrderStatus.CANCELLED);
+
+        listener.cancelPayment(cancelRequest);
+
+        Mockito.verify(paymentRequestHelper).persistCancelPayment(cancelRequest);
+    }
+
+    private static PaymentRequest paymentRequest(PaymentOrderStatus paymentOrderStatus) {
+        return paymentRequest(UUID.randomUUID().toString(), paymentOrderStatus);
+    }
+
+    private static PaymentRequest paymentRequest(String sagaId, PaymentOrderStatus paymentOrderStatus) {
+        return PaymentRequest.builder()
+                .id(UUID.randomUUID().toString())
+                .sagaId(sagaId)
+                .orderId(UUID.randomUUID().toString())
+                .customerId(UUID.randomUUID().toString())
+                .price(new BigDecimal("100.00"))
+                .createdAt(Instant.now())
+                .paymentOrderStatus(paymentOrderStatus)
+                .build();
+    }
+}
@@ -4,18 +4,26 @@ import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
 import com.food.ordering.system.payment.service.domain.entity.CreditHistory;
 import com.food.ordering.system.payment.service.domain.entity.Payment;
 import com.food.ordering.system.payment.service.domain.event.PaymentEvent;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditEntryUpdate;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
 
 import java.util.List;
+import java.util.function.Supplier;
 
+// The payment and the credit are validated first; only a valid payment gets the credit entry debited (or credited
+// back) by the given update, which the database applies atomically, so a failed payment leaves the credit as it was
+// and never has to be reverted. The credit history entry of a payment is added to the list once the update is applied.
 public interface PaymentDomainService {
 
     PaymentEvent validateAndInitiatePayment(Payment payment,
                                             CreditEntry creditEntry,
+                                            CreditHistoryTotals creditHistoryTotals,
+                                            Supplier<CreditEntryUpdate> creditDebit,
                                             List<CreditHistory> creditHistoryList,
                                             List<String> failureMessages);
 
     PaymentEvent validateAndCancelPayment(Payment payment,
-                                          CreditEntry creditEntry,
+                                          Supplier<CreditEntryUpdate> creditRefund,
                                           List<CreditHistory> creditHistoryList,
                                           List<String> failureMessages);
 }
@@ -10,7 +10,9 @@ import com.food.ordering.system.payment.service.domain.event.PaymentCancelledEve
 import com.food.ordering.system.payment.service.domain.event.PaymentCompletedEvent;
 import com.food.ordering.system.payment.service.domain.event.PaymentEvent;
 import com.food.ordering.system.payment.service.domain.event.PaymentFailedEvent;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditEntryUpdate;
 import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryId;
+import com.food.ordering.system.payment.service.domain.valueobject.CreditHistoryTotals;
 import com.food.ordering.system.payment.service.domain.valueobject.TransactionType;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,6 +20,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Slf4j
 public class PaymentDomainServiceImpl implements PaymentDomainService {
@@ -25,17 +28,23 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
     @Override
     public PaymentEvent validateAndInitiatePayment(Payment payment,
                                                    CreditEntry creditEntry,
+                                                   CreditHistoryTotals creditHistoryTotals,
+                                                   Supplier<CreditEntryUpdate> creditDebit,
                                                    List<CreditHistory> creditHistoryList,
                                                    List<String> failureMessages) {
         payment.validatePayment(failureMessages);
         payment.initializePayment();
-        validateCreditEntry(payment, creditEntry, failureMessages);
-        subtractCreditEntry(payment, creditEntry);
-        updateCreditHistory(payment, creditHistoryList, TransactionType.DEBIT);
-        validateCreditHistory(creditEntry, creditHistoryList, failureMessages);
+        if (failureMessages.isEmpty()) {
+            validateCreditEntry(payment, creditEntry, failureMessages);
+            validateCreditHistory(payment, creditEntry, creditHistoryTotals, failureMessages);
+        }
+        if (failureMessages.isEmpty()) {
+            validateCreditDebit(payment, creditDebit.get(), failureMessages);
+        }
 
         if (failureMessages.isEmpty()) {
             log.info("Payment is initiated for order[id = {}]", payment.getOrderId().getValue());
+            updateCreditHistory(payment, creditHistoryList, TransactionType.DEBIT);
             payment.updateStatus(PaymentStatus.COMPLETED);
             return new PaymentCompletedEvent(payment, currentUTCTime());
         } else {
@@ -47,15 +56,17 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
 
     @Override
     public PaymentEvent validateAndCancelPayment(Payment payment,
-                                                 CreditEntry creditEntry,
+                                                 Supplier<CreditEntryUpdate> creditRefund,
                                                  List<CreditHistory> creditHistoryList,
                                                  List<String> failureMessages) {
         payment.validatePayment(failureMessages);
-        addCreditEntry(payment, creditEntry);
-        updateCreditHistory(payment, creditHistoryList, TransactionType.CREDIT);
+        if (failureMessages.isEmpty()) {
+            validateCreditRefund(payment, creditRefund.get(), failureMessages);
+        }
 
         if (failureMessages.isEmpty()) {
             log.info("Payment is cancelled for order[id = {}]", payment.getOrderId().getValue());
+            updateCreditHistory(payment, creditHistoryList, TransactionType.CREDIT);
             payment.updateStatus(PaymentStatus.CANCELLED);
             return new PaymentCancelledEvent(payment, currentUTCTime());
         } else {
@@ -67,18 +78,35 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
 
     private void validateCreditEntry(Payment payment, CreditEntry creditEntry, List<String> failureMessages) {
         if (payment.getPrice().isGreaterThan(creditEntry.getTotalCreditAmount())) {
+            addNotEnoughCreditMessage(payment, failureMessages);
+        }
+    }
+
+    // the credit entry may have been debited by a concurrent payment since it was read
+    private void validateCreditDebit(Payment payment, CreditEntryUpdate creditDebit, List<String> failureMessages) {
+        if (!creditDebit.applied()) {
+            addNotEnoughCreditMessage(payment, failureMessages);
+        }
+    }
+
+    private static void addNotEnoughCreditMessage(Payment payment, List<String> failureMessages) {
+        String errMessage = String.format(
+                "Customer[id = %s] doesn't have enough credit for payment!", payment.getCustomerId().getValue()
+        );
+        log.error(errMessage);
+        failureMessages.add(errMessage);
+    }
+
+    private void validateCreditRefund(Payment payment, CreditEntryUpdate creditRefund, List<String> failureMessages) {
+        if (!creditRefund.applied()) {
             String errMessage = String.format(
-                    "Customer[id = %s] doesn't have enough credit for payment!", payment.getCustomerId().getValue()
+                    "Credit of customer[id = %s] could not be restored!", payment.getCustomerId().getValue()
             );
             log.error(errMessage);
             failureMessages.add(errMessage);
         }
     }
 
-    private void subtractCreditEntry(Payment payment, CreditEntry creditEntry) {
-        creditEntry.subtractCreditAmount(payment.getPrice());
-    }
-
     private void updateCreditHistory(Payment payment,
                                      List<CreditHistory> creditHistoryList,
                                      TransactionType transactionType) {
@@ -92,11 +120,13 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
         );
     }
 
-    private void validateCreditHistory(CreditEntry creditEntry,
-                                       List<CreditHistory> creditHistoryList,
+    // checked before the debit, with the payment counted in the history as it will be once the debit is applied
+    private void validateCreditHistory(Payment payment,
+                                       CreditEntry creditEntry,
+                                       CreditHistoryTotals creditHistoryTotals,
                                        List<String> failureMessages) {
-        Money totalCreditHistory = getTotalHistoryAmount(creditHistoryList, TransactionType.CREDIT);
-        Money totalDebitHistory = getTotalHistoryAmount(creditHistoryList, TransactionType.DEBIT);
+        Money totalCreditHistory = creditHistoryTotals.totalCreditAmount();
+        Money totalDebitHistory = creditHistoryTotals.totalDebitAmount().add(payment.getPrice());
         if (totalDebitHistory.isGreaterThan(totalCreditHistory)) {
             String errMessage = String.format(
                     "Customer[id = %s] doesn't have enough resources according to credit history!",
@@ -106,7 +136,7 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
             failureMessages.add(errMessage);
         }
 
-        if (!creditEntry.getTotalCreditAmount().equals(totalCreditHistory.subtract(totalDebitHistory))) {
+        if (!creditEntry.getTotalCreditAmount().equals(creditHistoryTotals.balance())) {
             String errMessage = String.format(
                     "Credit history total is not equal to current credits for customer[id = %s]!",
                     creditEntry.getCustomerId().getValue()
@@ -116,17 +146,6 @@ public class PaymentDomainServiceImpl implements PaymentDomainService {
         }
     }
 
-    private static Money getTotalHistoryAmount(List<CreditHistory> creditHistoryList, TransactionType credit) {
-        return creditHistoryList.stream()
-                .filter(creditHistory -> credit == creditHistory.getTransactionType())
-                .map(CreditHistory::getAmount)
-                .reduce(Money.ZERO, Money::add);
-    }
-
-    private void addCreditEntry(Payment payment, CreditEntry creditEntry) {
-        creditEntry.addCreditAmount(payment.getPrice());
-    }
-
     private ZonedDateTime currentUTCTime() {
         return ZonedDateTime.now(ZoneId.of(DomainConstants.UTC));
     }
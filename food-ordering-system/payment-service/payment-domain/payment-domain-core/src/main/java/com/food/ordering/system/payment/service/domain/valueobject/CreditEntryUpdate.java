@@ -0,0 +1,8 @@
+package com.food.ordering.system.payment.service.domain.valueobject;
+
+import com.food.ordering.system.payment.service.domain.entity.CreditEntry;
+
+// The outcome of an atomic update of a customer's credit in the database: the credit entry as the update left it, and
+// whether it was applied - a debit the credit is short of is not, and leaves the entry as it was.
+public record CreditEntryUpdate(CreditEntry creditEntry, boolean applied) {
+}
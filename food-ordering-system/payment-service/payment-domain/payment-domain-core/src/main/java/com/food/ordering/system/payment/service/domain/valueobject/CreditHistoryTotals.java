@@ -0,0 +1,12 @@
+package com.food.ordering.system.payment.service.domain.valueobject;
+
+import com.food.ordering.system.domain.valueobject.Money;
+
+// What a customer's credit history adds up to per transaction type. It is all a payment is validated against, so the
+// database sums the history up rather than returning it entry by entry.
+public record CreditHistoryTotals(Money totalCreditAmount, Money totalDebitAmount) {
+
+    public Money balance() {
+        return totalCreditAmount.subtract(totalDebitAmount);
+    }
+}
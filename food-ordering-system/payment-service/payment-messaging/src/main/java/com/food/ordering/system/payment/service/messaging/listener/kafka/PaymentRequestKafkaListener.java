@@ -1,17 +1,20 @@
 package com.food.ordering.system.payment.service.messaging.listener.kafka;
 
-import com.food.ordering.system.kafka.consumer.KafkaConsumer;
-import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
-import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.domain.valueobject.PaymentOrderStatus;
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.parallel.KeyOrderedBatchProcessor;
 import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
 import com.food.ordering.system.payment.service.domain.exception.PaymentApplicationServiceException;
 import com.food.ordering.system.payment.service.domain.exception.PaymentNotFoundException;
 import com.food.ordering.system.payment.service.domain.port.input.message.listener.PaymentRequestMessageListener;
 import com.food.ordering.system.payment.service.messaging.mapper.PaymentMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.postgresql.util.PSQLState;
 import org.springframework.dao.DataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -20,17 +23,22 @@ import org.springframework.stereotype.Component;
 import java.sql.SQLException;
 import java.util.List;
 
+// The topic carries PaymentRequestAvroModel and, once the order service writes the compact schema,
+// PaymentRequestAvroModelV2 records; both are mapped to a PaymentRequest first.
 @Slf4j
 @Component
-public class PaymentRequestKafkaListener implements KafkaConsumer<PaymentRequestAvroModel> {
+public class PaymentRequestKafkaListener implements RetryingKafkaConsumer<SpecificRecordBase> {
 
     private final PaymentRequestMessageListener paymentRequestMessageListener;
     private final PaymentMessagingDataMapper paymentMessagingDataMapper;
+    private final KeyOrderedBatchProcessor keyOrderedBatchProcessor;
 
     public PaymentRequestKafkaListener(PaymentRequestMessageListener paymentRequestMessageListener,
-                                       PaymentMessagingDataMapper paymentMessagingDataMapper) {
+                                       PaymentMessagingDataMapper paymentMessagingDataMapper,
+                                       KeyOrderedBatchProcessor keyOrderedBatchProcessor) {
         this.paymentRequestMessageListener = paymentRequestMessageListener;
         this.paymentMessagingDataMapper = paymentMessagingDataMapper;
+        this.keyOrderedBatchProcessor = keyOrderedBatchProcessor;
     }
 
     @Override
@@ -38,7 +46,7 @@ public class PaymentRequestKafkaListener implements KafkaConsumer<PaymentRequest
             id = "${kafka-consumer-config.payment-consumer-group-id}",
             topics = "${payment-service.payment-request-topic-name}"
     )
-    public void receive(@Payload List<PaymentRequestAvroModel> messages,
+    public void receive(@Payload List<SpecificRecordBase> messages,
                         @Header(KafkaHeaders.RECEIVED_MESSAGE_KEY) List<String> keys,
                         @Header(KafkaHeaders.RECEIVED_PARTITION_ID) List<Integer> partitions,
                         @Header(KafkaHeaders.OFFSET) List<Long> offsets) {
@@ -46,36 +54,46 @@ public class PaymentRequestKafkaListener implements KafkaConsumer<PaymentRequest
                 messages.size(), keys, partitions, offsets
         );
 
-        messages.forEach(paymentRequestAvroModel -> {
-            try {
-                String orderId = paymentRequestAvroModel.getOrderId();
-                PaymentOrderStatus paymentOrderStatus = paymentRequestAvroModel.getPaymentOrderStatus();
-                PaymentRequest paymentRequest = paymentMessagingDataMapper.paymentRequestAvroModelToPaymentRequest(
-                        paymentRequestAvroModel
-                );
-                if (paymentOrderStatus == PaymentOrderStatus.PENDING) {
-                    log.info("Processing payment for orderId: {}", orderId);
-                    paymentRequestMessageListener.completePayment(paymentRequest);
-                } else if (paymentOrderStatus == PaymentOrderStatus.CANCELLED) {
-                    log.info("Cancelling payment for orderId: {}", orderId);
-                    paymentRequestMessageListener.cancelPayment(paymentRequest);
-                }
-            } catch (DataAccessException e) {
-                SQLException sqlException = (SQLException) e.getRootCause();
-                if (sqlException != null && sqlException.getSQLState() != null &&
-                        PSQLState.UNIQUE_VIOLATION.getState().equals(sqlException.getSQLState())) {
-                    //NO-OP for unique constraint exception
-                    log.error("Caught a unique constraint exception with sql state: {} " +
-                                    "in PaymentRequestKafkaListener for order id: {}",
-                            sqlException.getSQLState(), paymentRequestAvroModel.getOrderId());
-                } else {
-                    throw new PaymentApplicationServiceException("Throwing DataAccessException in" +
-                            " PaymentRequestKafkaListener: " + e.getMessage(), e);
-                }
-            } catch (PaymentNotFoundException e) {
-                //NO-OP for PaymentNotFoundException
-                log.error("No payment found for order id: {}", paymentRequestAvroModel.getOrderId());
+        // the records of a key are processed in order, the keys concurrently when the parallel processing is on
+        keyOrderedBatchProcessor.process(messages, keys, partitions, this::processPaymentRequest);
+    }
+
+    @Override
+    public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                               Acknowledgment acknowledgment) {
+        log.info("{} payment requests received for a retry", records.size());
+        keyOrderedBatchProcessor.processRetries(records, acknowledgment, this::processPaymentRequest);
+    }
+
+    private void processPaymentRequest(SpecificRecordBase paymentRequestAvroModel) {
+        PaymentRequest paymentRequest = paymentMessagingDataMapper.paymentRequestAvroModelToPaymentRequest(
+                paymentRequestAvroModel
+        );
+        try {
+            String orderId = paymentRequest.getOrderId();
+            PaymentOrderStatus paymentOrderStatus = paymentRequest.getPaymentOrderStatus();
+            if (paymentOrderStatus == PaymentOrderStatus.PENDING) {
+                log.info("Processing payment for orderId: {}", orderId);
+                paymentRequestMessageListener.completePayment(paymentRequest);
+            } else if (paymentOrderStatus == PaymentOrderStatus.CANCELLED) {
+                log.info("Cancelling payment for orderId: {}", orderId);
+                paymentRequestMessageListener.cancelPayment(paymentRequest);
+            }
+        } catch (DataAccessException e) {
+            SQLException sqlException = (SQLException) e.getRootCause();
+            if (sqlException != null && sqlException.getSQLState() != null &&
+                    PSQLState.UNIQUE_VIOLATION.getState().equals(sqlException.getSQLState())) {
+                //NO-OP for unique constraint exception
+                log.error("Caught a unique constraint exception with sql state: {} " +
+                                "in PaymentRequestKafkaListener for order id: {}",
+                        sqlException.getSQLState(), paymentRequest.getOrderId());
+            } else {
+                throw new PaymentApplicationServiceException("Throwing DataAccessException in" +
+                        " PaymentRequestKafkaListener: " + e.getMessage(), e);
             }
-        });
+        } catch (PaymentNotFoundException e) {
+            //NO-OP for PaymentNotFoundException
+            log.error("No payment found for order id: {}", paymentRequest.getOrderId());
+        }
     }
 }
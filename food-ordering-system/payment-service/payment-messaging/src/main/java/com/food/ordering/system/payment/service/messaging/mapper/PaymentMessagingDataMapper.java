@@ -1,18 +1,44 @@
 package com.food.ordering.system.payment.service.messaging.mapper;
 
 import com.food.ordering.system.domain.valueobject.PaymentOrderStatus;
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
 import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
 import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModelV2;
 import com.food.ordering.system.kafka.order.avro.model.PaymentStatus;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
 import com.food.ordering.system.payment.service.domain.outbox.model.OrderEventPayload;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 
+// Reads the v1 and the v2 (compact) payment requests, so the topic can be moved to v2 while both are on it, and
+// writes the responses in the schema version of their topic.
 @Component
 public class PaymentMessagingDataMapper {
 
+    public PaymentRequest paymentRequestAvroModelToPaymentRequest(SpecificRecordBase avroModel) {
+        if (avroModel instanceof PaymentRequestAvroModelV2 paymentRequestAvroModelV2) {
+            return paymentRequestAvroModelV2ToPaymentRequest(paymentRequestAvroModelV2);
+        }
+        if (avroModel instanceof PaymentRequestAvroModel paymentRequestAvroModel) {
+            return paymentRequestAvroModelToPaymentRequest(paymentRequestAvroModel);
+        }
+        throw new IllegalArgumentException(String.format("Unexpected payment request %s!",
+                avroModel.getSchema().getFullName()));
+    }
+
+    public SpecificRecordBase orderEventPayloadToPaymentResponseAvroModel(String sagaId,
+                                                                          OrderEventPayload orderEventPayload,
+                                                                          int schemaVersion) {
+        return schemaVersion == EventSchemaVersions.V2 ?
+                orderEventPayloadToPaymentResponseAvroModelV2(sagaId, orderEventPayload) :
+                orderEventPayloadToPaymentResponseAvroModel(sagaId, orderEventPayload);
+    }
+
     public PaymentRequest paymentRequestAvroModelToPaymentRequest(PaymentRequestAvroModel paymentRequestAvroModel) {
         return PaymentRequest.builder()
                 .id(paymentRequestAvroModel.getId())
@@ -25,6 +51,20 @@ public class PaymentMessagingDataMapper {
                 .build();
     }
 
+    public PaymentRequest paymentRequestAvroModelV2ToPaymentRequest(
+            PaymentRequestAvroModelV2 paymentRequestAvroModelV2) {
+        return PaymentRequest.builder()
+                .id(AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getId()))
+                .sagaId(AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getSagaId()))
+                .customerId(AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getCustomerId()))
+                .orderId(AvroCompactTypes.toUuidString(paymentRequestAvroModelV2.getOrderId()))
+                .price(AvroCompactTypes.fromMinorUnits(paymentRequestAvroModelV2.getPriceMinorUnits()))
+                .createdAt(paymentRequestAvroModelV2.getCreatedAt())
+                .paymentOrderStatus(PaymentOrderStatus.valueOf(paymentRequestAvroModelV2.getPaymentOrderStatus()
+                        .name()))
+                .build();
+    }
+
     public PaymentResponseAvroModel orderEventPayloadToPaymentResponseAvroModel(String sagaId,
                                                                                 OrderEventPayload orderEventPayload) {
         return PaymentResponseAvroModel.newBuilder()
@@ -39,4 +79,19 @@ public class PaymentMessagingDataMapper {
                 .setFailureMessages(orderEventPayload.getFailureMessages())
                 .build();
     }
+
+    public PaymentResponseAvroModelV2
+    orderEventPayloadToPaymentResponseAvroModelV2(String sagaId, OrderEventPayload orderEventPayload) {
+        return PaymentResponseAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(sagaId))
+                .setPaymentId(AvroCompactTypes.toAvro(orderEventPayload.getPaymentId()))
+                .setCustomerId(AvroCompactTypes.toAvro(orderEventPayload.getCustomerId()))
+                .setOrderId(AvroCompactTypes.toAvro(orderEventPayload.getOrderId()))
+                .setPriceMinorUnits(AvroCompactTypes.toMinorUnits(orderEventPayload.getPrice()))
+                .setCreatedAt(orderEventPayload.getCreatedAt().toInstant())
+                .setPaymentStatus(PaymentStatus.valueOf(orderEventPayload.getPaymentStatus()))
+                .setFailureMessages(orderEventPayload.getFailureMessages())
+                .build();
+    }
 }
@@ -1,7 +1,8 @@
 package com.food.ordering.system.payment.service.messaging.publisher.kafka;
 
-import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModel;
 import com.food.ordering.system.kafka.producer.KafkaMessageHelper;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.kafka.producer.service.KafkaProducer;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.payment.service.domain.config.PaymentServiceConfigData;
@@ -10,8 +11,12 @@ import com.food.ordering.system.payment.service.domain.outbox.model.OrderOutboxM
 import com.food.ordering.system.payment.service.domain.port.output.message.publisher.PaymentResponseMessagePublisher;
 import com.food.ordering.system.payment.service.messaging.mapper.PaymentMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -19,18 +24,24 @@ import java.util.function.BiConsumer;
 public class PaymentEventKafkaPublisher implements PaymentResponseMessagePublisher {
 
     private final PaymentMessagingDataMapper paymentMessagingDataMapper;
-    private final KafkaProducer<String, PaymentResponseAvroModel> kafkaProducer;
+    private final KafkaProducer<String, SpecificRecordBase> kafkaProducer;
     private final PaymentServiceConfigData paymentServiceConfigData;
     private final KafkaMessageHelper kafkaMessageHelper;
+    private final PartitionKeyStrategies partitionKeyStrategies;
+    private final EventSchemaVersions eventSchemaVersions;
 
     public PaymentEventKafkaPublisher(PaymentMessagingDataMapper paymentMessagingDataMapper,
-                                      KafkaProducer<String, PaymentResponseAvroModel> kafkaProducer,
+                                      KafkaProducer<String, SpecificRecordBase> kafkaProducer,
                                       PaymentServiceConfigData paymentServiceConfigData,
-                                      KafkaMessageHelper kafkaMessageHelper) {
+                                      KafkaMessageHelper kafkaMessageHelper,
+                                      PartitionKeyStrategies partitionKeyStrategies,
+                                      EventSchemaVersions eventSchemaVersions) {
         this.paymentMessagingDataMapper = paymentMessagingDataMapper;
         this.kafkaProducer = kafkaProducer;
         this.paymentServiceConfigData = paymentServiceConfigData;
         this.kafkaMessageHelper = kafkaMessageHelper;
+        this.partitionKeyStrategies = partitionKeyStrategies;
+        this.eventSchemaVersions = eventSchemaVersions;
     }
 
     @Override
@@ -46,11 +57,13 @@ public class PaymentEventKafkaPublisher implements PaymentResponseMessagePublish
                 sagaId);
 
         try {
-            PaymentResponseAvroModel paymentResponseAvroModel = paymentMessagingDataMapper
-                    .orderEventPayloadToPaymentResponseAvroModel(sagaId, orderEventPayload);
+            SpecificRecordBase paymentResponseAvroModel = paymentMessagingDataMapper
+                    .orderEventPayloadToPaymentResponseAvroModel(sagaId, orderEventPayload,
+                            eventSchemaVersions.forTopic(paymentServiceConfigData.getPaymentResponseTopicName()));
 
             kafkaProducer.send(paymentServiceConfigData.getPaymentResponseTopicName(),
-                    sagaId,
+                    partitionKeyStrategies.partitionKey(paymentServiceConfigData.getPaymentResponseTopicName(),
+                            paymentResponseAvroModel, sagaId),
                     paymentResponseAvroModel,
                     kafkaMessageHelper.getKafkaCallback(paymentServiceConfigData.getPaymentResponseTopicName(),
                             paymentResponseAvroModel,
@@ -60,11 +73,47 @@ public class PaymentEventKafkaPublisher implements PaymentResponseMessagePublish
                             "PaymentResponseAvroModel"));
 
             log.info("PaymentResponseAvroModel sent to kafka for order id: {} and saga id: {}",
-                    paymentResponseAvroModel.getOrderId(), sagaId);
+                    orderEventPayload.getOrderId(), sagaId);
         } catch (Exception e) {
             log.error("Error while sending PaymentRequestAvroModel message" +
                             " to kafka with order id: {} and saga id: {}, error: {}",
                     orderEventPayload.getOrderId(), sagaId, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // A relay batch is sent with a single flush and logged as a summary; a message that cannot be mapped is failed
+    // right away, so it is retried with a backoff instead of waiting for the lease to expire.
+    @Override
+    public void publishBatch(List<OrderOutboxMessage> orderOutboxMessages,
+                             BiConsumer<OrderOutboxMessage, OutboxStatus> outboxCallback) {
+        String topicName = paymentServiceConfigData.getPaymentResponseTopicName();
+        List<OrderOutboxMessage> mappedMessages = new ArrayList<>();
+        List<ProducerRecord<String, SpecificRecordBase>> mappedRecords = new ArrayList<>();
+        for (OrderOutboxMessage outboxMessage : orderOutboxMessages) {
+            String sagaId = outboxMessage.getSagaId().toString();
+            try {
+                OrderEventPayload orderEventPayload = kafkaMessageHelper.getOrderEventPayload(
+                        outboxMessage.getPayload(), OrderEventPayload.class
+                );
+                SpecificRecordBase avroModel = paymentMessagingDataMapper
+                        .orderEventPayloadToPaymentResponseAvroModel(sagaId, orderEventPayload,
+                                eventSchemaVersions.forTopic(topicName));
+                mappedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKeyStrategies.partitionKey(topicName, avroModel, sagaId), avroModel));
+                mappedMessages.add(outboxMessage);
+            } catch (Exception e) {
+                log.error("Error while mapping OrderOutboxMessage with sagaId = {} to " +
+                                "PaymentResponseAvroModel. Error: {}",
+                        sagaId, e.getMessage(), e
+                );
+                outboxCallback.accept(outboxMessage, OutboxStatus.FAILED);
+            }
+        }
+
+        if (!mappedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(kafkaProducer.sendBatch(topicName, mappedRecords),
+                    mappedMessages, outboxCallback, "PaymentResponseAvroModel");
+        }
+        log.info("{} OrderOutboxMessages sent to Kafka as a batch", mappedRecords.size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.food.ordering.system.payment.service.messaging.mapper;
+
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.PaymentOrderStatus;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.PaymentResponseAvroModelV2;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.payment.service.domain.dto.PaymentRequest;
+import com.food.ordering.system.payment.service.domain.outbox.model.OrderEventPayload;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+class PaymentMessagingDataMapperTest {
+
+    private static final String SAGA_ID = UUID.randomUUID().toString();
+    private static final String ORDER_ID = UUID.randomUUID().toString();
+    private static final String CUSTOMER_ID = UUID.randomUUID().toString();
+    private static final String PAYMENT_ID = UUID.randomUUID().toString();
+    private static final Instant CREATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    private final PaymentMessagingDataMapper paymentMessagingDataMapper = new PaymentMessagingDataMapper();
+
+    @Test
+    void testV1AndV2RequestsAreReadAlike() {
+        String id = UUID.randomUUID().toString();
+        SpecificRecordBase paymentRequestAvroModel = PaymentRequestAvroModel.newBuilder()
+                .setId(id)
+                .setSagaId(SAGA_ID)
+                .setCustomerId(CUSTOMER_ID)
+                .setOrderId(ORDER_ID)
+                .setPrice(new BigDecimal("100.50"))
+                .setCreatedAt(CREATED_AT)
+                .setPaymentOrderStatus(PaymentOrderStatus.CANCELLED)
+                .build();
+        SpecificRecordBase paymentRequestAvroModelV2 = PaymentRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(id))
+                .setSagaId(AvroCompactTypes.toAvro(SAGA_ID))
+                .setCustomerId(AvroCompactTypes.toAvro(CUSTOMER_ID))
+                .setOrderId(AvroCompactTypes.toAvro(ORDER_ID))
+                .setPriceMinorUnits(10050L)
+                .setCreatedAt(CREATED_AT)
+                .setPaymentOrderStatus(PaymentOrderStatus.CANCELLED)
+                .build();
+
+        PaymentRequest paymentRequest = paymentMessagingDataMapper
+                .paymentRequestAvroModelToPaymentRequest(paymentRequestAvroModel);
+        PaymentRequest paymentRequestV2 = paymentMessagingDataMapper
+                .paymentRequestAvroModelToPaymentRequest(paymentRequestAvroModelV2);
+
+        for (PaymentRequest request : List.of(paymentRequest, paymentRequestV2)) {
+            Assertions.assertEquals(id, request.getId());
+            Assertions.assertEquals(SAGA_ID, request.getSagaId());
+            Assertions.assertEquals(CUSTOMER_ID, request.getCustomerId());
+            Assertions.assertEquals(ORDER_ID, request.getOrderId());
+            Assertions.assertEquals(new BigDecimal("100.50"), request.getPrice());
+            Assertions.assertEquals(CREATED_AT, request.getCreatedAt());
+            Assertions.assertEquals(com.food.ordering.system.domain.valueobject.PaymentOrderStatus.CANCELLED,
+                    request.getPaymentOrderStatus());
+        }
+    }
+
+    @Test
+    void testResponseIsWrittenInTheSchemaVersionOfItsTopic() {
+        OrderEventPayload orderEventPayload = orderEventPayload(new BigDecimal("100.50"));
+
+        PaymentResponseAvroModel paymentResponseAvroModel = (PaymentResponseAvroModel) paymentMessagingDataMapper
+                .orderEventPayloadToPaymentResponseAvroModel(SAGA_ID, orderEventPayload, EventSchemaVersions.V1);
+        PaymentResponseAvroModelV2 paymentResponseAvroModelV2 = (PaymentResponseAvroModelV2)
+                paymentMessagingDataMapper.orderEventPayloadToPaymentResponseAvroModel(SAGA_ID, orderEventPayload,
+                        EventSchemaVersions.V2);
+
+        Assertions.assertEquals(SAGA_ID, paymentResponseAvroModel.getSagaId());
+        Assertions.assertEquals(new BigDecimal("100.50"), paymentResponseAvroModel.getPrice());
+        Assertions.assertEquals(SAGA_ID, AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getSagaId()));
+        Assertions.assertEquals(PAYMENT_ID,
+                AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getPaymentId()));
+        Assertions.assertEquals(CUSTOMER_ID,
+                AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getCustomerId()));
+        Assertions.assertEquals(ORDER_ID, AvroCompactTypes.toUuidString(paymentResponseAvroModelV2.getOrderId()));
+        Assertions.assertEquals(10050L, paymentResponseAvroModelV2.getPriceMinorUnits());
+        Assertions.assertEquals(CREATED_AT, paymentResponseAvroModelV2.getCreatedAt());
+        Assertions.assertEquals(paymentResponseAvroModel.getPaymentStatus(),
+                paymentResponseAvroModelV2.getPaymentStatus());
+        Assertions.assertEquals(List.of("failure"), paymentResponseAvroModelV2.getFailureMessages());
+    }
+
+    // v1 carries the decimal as it is, v2 does not round it to minor units
+    @Test
+    void testV2ResponseRejectsAPriceBeyondMinorUnits() {
+        OrderEventPayload orderEventPayload = orderEventPayload(new BigDecimal("100.505"));
+
+        Assertions.assertDoesNotThrow(() -> paymentMessagingDataMapper
+                .orderEventPayloadToPaymentResponseAvroModel(SAGA_ID, orderEventPayload, EventSchemaVersions.V1));
+        Assertions.assertThrows(ArithmeticException.class, () -> paymentMessagingDataMapper
+                .orderEventPayloadToPaymentResponseAvroModel(SAGA_ID, orderEventPayload, EventSchemaVersions.V2));
+    }
+
+    private static OrderEventPayload orderEventPayload(BigDecimal price) {
+        return OrderEventPayload.builder()
+                .paymentId(PAYMENT_ID)
+                .customerId(CUSTOMER_ID)
+                .orderId(ORDER_ID)
+                .price(price)
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .paymentStatus("FAILED")
+                .failureMessages(List.of("failure"))
+                .build();
+    }
+}
@@ -1,12 +1,101 @@
 package com.food.ordering.system.restaurant.service.domain;
 
+import com.food.ordering.system.kafka.consumer.adaptive.AdaptiveConsumerController;
+import com.food.ordering.system.kafka.consumer.metrics.KafkaConsumerMeterBinder;
+import com.food.ordering.system.outbox.backlog.OutboxBacklogSampler;
+import com.food.ordering.system.outbox.metrics.OutboxMeterBinder;
+import com.food.ordering.system.outbox.notification.OutboxNotificationListener;
+import com.food.ordering.system.outbox.partition.OutboxPartitionManager;
+import com.food.ordering.system.restaurant.service.domain.config.RestaurantServiceConfigData;
+import com.food.ordering.system.restaurant.service.domain.outbox.scheduler.OrderOutboxCleanerScheduler;
+import com.food.ordering.system.restaurant.service.domain.outbox.scheduler.OrderOutboxScheduler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class BeanConfiguration {
+
     @Bean
     public RestaurantDomainService restaurantDomainService() {
         return new RestaurantDomainServiceImpl();
     }
-}
\ No newline at end of file
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant-service.outbox-notification-enabled", havingValue = "true")
+    public OutboxNotificationListener outboxNotificationListener(DataSourceProperties dataSourceProperties,
+                                                                 RestaurantServiceConfigData restaurantServiceConfigData,
+                                                                 OrderOutboxScheduler orderOutboxScheduler) {
+        return new OutboxNotificationListener(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                Map.of("restaurant_order_outbox", orderOutboxScheduler.getOutboxRelay()::wakeUp),
+                Duration.ofMillis(restaurantServiceConfigData.getOutboxNotificationPollTimeoutMs()),
+                Duration.ofMillis(restaurantServiceConfigData.getOutboxNotificationReconnectDelayMs())
+        );
+    }
+
+    // the tables are the ones declared with `PARTITION BY RANGE (created_at)` in init-schema.sql, each with the
+    // condition of the rows that are still needed by the relay
+    @Bean
+    @ConditionalOnProperty(name = "restaurant-service.outbox-partition-enabled", havingValue = "true")
+    public OutboxPartitionManager outboxPartitionManager(DataSource dataSource,
+                                                         RestaurantServiceConfigData restaurantServiceConfigData) {
+        return OutboxPartitionManager.builder()
+                .name("RestaurantOrderOutbox")
+                .dataSource(dataSource)
+                .schema("restaurant")
+                // FAILED rows waiting for a retry are active as well; PARKED rows keep their partition until an
+                // operator resolves them
+                .activeRowConditions(Map.of("order_outbox",
+                        "outbox_status IN ('STARTED', 'PARKED') OR next_attempt_at IS NOT NULL"))
+                .precreateDays(restaurantServiceConfigData.getOutboxPartitionPrecreateDays())
+                .retentionDays(restaurantServiceConfigData.getOutboxPartitionRetentionDays())
+                .dropExpired(restaurantServiceConfigData.isOutboxPartitionDropExpired())
+                .maintenanceInterval(Duration.ofMillis(
+                        restaurantServiceConfigData.getOutboxPartitionMaintenanceIntervalMs()))
+                .build();
+    }
+
+    // the backlog gauges read the last sample of the outbox tables, so the metrics scrapes never query the database
+    @Bean
+    public OutboxBacklogSampler outboxBacklogSampler(DataSource dataSource,
+                                                     RestaurantServiceConfigData restaurantServiceConfigData) {
+        return OutboxBacklogSampler.builder()
+                .name("RestaurantOrderOutbox")
+                .dataSource(dataSource)
+                .schema("restaurant")
+                .tables(List.of("order_outbox"))
+                .countLimit(restaurantServiceConfigData.getOutboxMetricsCountLimit())
+                .sampleInterval(Duration.ofMillis(
+                        restaurantServiceConfigData.getOutboxMetricsSampleIntervalMs()))
+                .build();
+    }
+
+    // bound to the registry of the actuator, which exposes the meters on /actuator/metrics and /actuator/prometheus
+    @Bean
+    public OutboxMeterBinder outboxMeterBinder(OrderOutboxScheduler orderOutboxScheduler,
+                                               OrderOutboxCleanerScheduler orderOutboxCleanerScheduler,
+                                               OutboxBacklogSampler outboxBacklogSampler) {
+        return OutboxMeterBinder.builder()
+                .relays(List.of(orderOutboxScheduler.getOutboxRelay()))
+                .cleaners(List.of(orderOutboxCleanerScheduler.getOutboxCleaner()))
+                .backlogSampler(outboxBacklogSampler)
+                .build();
+    }
+
+    // the meters of the adaptive consumer controller, bound to the same registry; none while it is disabled
+    @Bean
+    public KafkaConsumerMeterBinder kafkaConsumerMeterBinder(AdaptiveConsumerController adaptiveConsumerController) {
+        return KafkaConsumerMeterBinder.builder()
+                .adaptiveConsumerController(adaptiveConsumerController)
+                .build();
+    }
+}
@@ -65,7 +65,7 @@ ALTER TABLE restaurant.restaurant_product
     NOT VALID;
 
 DROP TYPE IF EXISTS outbox_status;
-CREATE TYPE outbox_status AS ENUM ('STARTED', 'COMPLETED', 'FAILED');
+CREATE TYPE outbox_status AS ENUM ('STARTED', 'COMPLETED', 'FAILED', 'PARKED');
 
 DROP TABLE IF EXISTS restaurant.order_outbox CASCADE;
 
@@ -80,13 +80,52 @@ CREATE TABLE restaurant.order_outbox
     outbox_status outbox_status NOT NULL,
     approval_status approval_status NOT NULL,
     version integer NOT NULL,
-    CONSTRAINT order_outbox_pkey PRIMARY KEY (id)
-);
+    lease_owner character varying COLLATE pg_catalog."default",
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    -- failed send attempts so far and, while the row is FAILED, the earliest time of the next one; a row that used up
+    -- its attempts is PARKED without a next attempt
+    attempt_count integer NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT order_outbox_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- daily partitions `order_outbox_p<yyyyMMdd>` are created ahead and dropped after the retention by the outbox
+-- partition manager; the default partition only catches rows for which no partition was created in time
+CREATE TABLE restaurant.order_outbox_default PARTITION OF restaurant.order_outbox DEFAULT;
 
 CREATE INDEX "restaurant_order_outbox_saga_status"
     ON "restaurant".order_outbox
     (type, approval_status);
 
+-- oldest-first access for the relay claims and the chunked clean-up
+CREATE INDEX "restaurant_order_outbox_outbox_status_created_at"
+    ON "restaurant".order_outbox
+    (type, outbox_status, created_at, id);
+
+-- lookups of the earlier rows of a saga by the relay claims
+CREATE INDEX "restaurant_order_outbox_saga_id"
+    ON "restaurant".order_outbox
+    (type, saga_id);
+
+DROP FUNCTION IF EXISTS restaurant.notify_outbox_started CASCADE;
+
+-- wakes up the outbox relay listening on the `<schema>_<table>` channel, passed as the trigger argument (TG_TABLE_NAME
+-- would be the name of the partition); the notification is delivered only when the inserting transaction commits, and
+-- the same notification is sent only once per transaction
+CREATE OR REPLACE FUNCTION restaurant.notify_outbox_started()
+returns trigger
+AS '
+BEGIN
+    PERFORM pg_notify(TG_ARGV[0], '''');
+    return null;
+END;
+'  LANGUAGE plpgsql;
+
+CREATE TRIGGER order_outbox_notify_started
+AFTER INSERT ON restaurant.order_outbox
+FOR EACH ROW WHEN (NEW.outbox_status = 'STARTED')
+EXECUTE PROCEDURE restaurant.notify_outbox_started('restaurant_order_outbox');
+
 DROP MATERIALIZED VIEW IF EXISTS restaurant.order_restaurant_m_view;
 
 -- stores the results of a query on disk
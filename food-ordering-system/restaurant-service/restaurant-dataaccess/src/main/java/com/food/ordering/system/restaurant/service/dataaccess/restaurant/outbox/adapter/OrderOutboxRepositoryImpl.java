@@ -1,16 +1,20 @@
 package com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.adapter;
 
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
-import com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.exception.OrderOutboxNotFoundException;
+import com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.entity.OrderOutboxEntity;
 import com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.mapper.OrderOutboxDataAccessMapper;
 import com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.repository.OrderOutboxJpaRepository;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutboxMessage;
 import com.food.ordering.system.restaurant.service.domain.port.output.repository.OrderOutboxRepository;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 public class OrderOutboxRepositoryImpl implements OrderOutboxRepository {
@@ -33,19 +37,39 @@ public class OrderOutboxRepositoryImpl implements OrderOutboxRepository {
     }
 
     @Override
-    public List<OrderOutboxMessage> findByTypeAndOutboxStatus(String sagaType, OutboxStatus outboxStatus) {
-        List<OrderOutboxMessage> orderOutboxMessages = orderOutboxJpaRepository.findByTypeAndOutboxStatus(sagaType, outboxStatus)
-                .stream()
+    public List<OrderOutboxMessage> claimByTypeAndOutboxStatus(String sagaType,
+                                                               OutboxStatus outboxStatus,
+                                                               String leaseOwner,
+                                                               OutboxCursor after,
+                                                               int batchSize,
+                                                               long leaseSeconds) {
+        List<OrderOutboxEntity> orderOutboxEntities = orderOutboxJpaRepository.findClaimableForUpdateSkipLocked(
+                sagaType, outboxStatus.name(), after.createdAt(), after.id(), batchSize
+        );
+        // an empty claim is a regular outcome here (nothing pending or everything leased by other instances)
+        if (orderOutboxEntities.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        orderOutboxJpaRepository.updateLeaseByIdIn(
+                orderOutboxEntities.stream().map(OrderOutboxEntity::getId).collect(Collectors.toList()),
+                leaseOwner,
+                leaseSeconds
+        );
+        return orderOutboxEntities.stream()
                 .map(orderOutboxDataAccessMapper::orderOutboxEntityToOrderOutboxMessage)
-                .toList();
+                .collect(Collectors.toList());
+    }
 
-        if (orderOutboxMessages.isEmpty()) {
-            throw new OrderOutboxNotFoundException(
-                    String.format("Approval outbox object cannot be found for saga type %s", sagaType)
-            );
-        }
+    @Override
+    public int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus) {
+        return orderOutboxJpaRepository.updateOutboxStatusByIdIn(ids, outboxStatus.name());
+    }
 
-        return orderOutboxMessages;
+    @Override
+    public int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy) {
+        return orderOutboxJpaRepository.updateFailedOutboxStatusByIdIn(ids, retryPolicy.maxAttempts(),
+                retryPolicy.initialBackoffSeconds(), retryPolicy.maxBackoffSeconds());
     }
 
     @Override
@@ -59,4 +83,9 @@ public class OrderOutboxRepositoryImpl implements OrderOutboxRepository {
     public void deleteByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus) {
         orderOutboxJpaRepository.deleteByTypeAndOutboxStatus(type, outboxStatus);
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteChunkByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus, int chunkSize) {
+        return orderOutboxJpaRepository.deleteChunkByTypeAndOutboxStatus(type, outboxStatus.name(), chunkSize);
+    }
+}
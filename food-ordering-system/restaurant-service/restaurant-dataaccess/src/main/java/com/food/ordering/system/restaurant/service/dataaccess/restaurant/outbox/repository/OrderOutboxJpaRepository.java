@@ -3,8 +3,12 @@ package com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.restaurant.service.dataaccess.restaurant.outbox.entity.OrderOutboxEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,10 +16,79 @@ import java.util.UUID;
 @Repository
 public interface OrderOutboxJpaRepository extends JpaRepository<OrderOutboxEntity, UUID> {
 
-    List<OrderOutboxEntity> findByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus);
-
     Optional<OrderOutboxEntity> findByTypeAndSagaIdAndOutboxStatus(String type, UUID sagaId, OutboxStatus outboxStatus);
 
     void deleteByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus);
 
-}
\ No newline at end of file
+    // FAILED rows are claimed (by the retry stage of the relay) only once their backoff is over; a row the service
+    // wrote as FAILED itself has no next attempt, so it is never claimed
+    // a relay run pages through the rows after its cursor (the last row of its previous page), so every page is a range
+    // of the (type, outbox_status, created_at, id) index
+    // a message is only claimed once the earlier ones of its saga are settled - one still STARTED (e.g. leased by a
+    // direct publish) or FAILED and waiting for its backoff holds the later ones back, so a retry never lets a later
+    // step of the saga overtake it. PARKED rows and the FAILED rows without a next attempt are never sent again, so
+    // they do not hold the saga back; the parked ones are counted by the outbox.backlog.parked gauge instead
+    @Query(value = "SELECT * FROM order_outbox outbox " +
+            "WHERE type = :type AND outbox_status = :outboxStatus " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at < now()) " +
+            "AND (outbox_status <> 'FAILED' OR next_attempt_at <= now()) " +
+            "AND (created_at, id) > (:afterCreatedAt, :afterId) " +
+            "AND NOT EXISTS (SELECT 1 FROM order_outbox earlier " +
+            "WHERE earlier.type = outbox.type AND earlier.saga_id = outbox.saga_id " +
+            "AND (earlier.outbox_status = 'STARTED' " +
+            "OR (earlier.outbox_status = 'FAILED' AND earlier.next_attempt_at IS NOT NULL)) " +
+            "AND (earlier.created_at, earlier.id) < (outbox.created_at, outbox.id)) " +
+            "ORDER BY created_at, id " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutboxEntity> findClaimableForUpdateSkipLocked(@Param("type") String type,
+                                                             @Param("outboxStatus") String outboxStatus,
+                                                             @Param("afterCreatedAt") ZonedDateTime afterCreatedAt,
+                                                             @Param("afterId") UUID afterId,
+                                                             @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Query(value = "UPDATE order_outbox " +
+            "SET lease_owner = :leaseOwner, lease_expires_at = now() + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateLeaseByIdIn(@Param("ids") List<UUID> ids,
+                          @Param("leaseOwner") String leaseOwner,
+                          @Param("leaseSeconds") long leaseSeconds);
+
+    // bulk acknowledgement of the broker outcomes, which also releases the lease
+    @Modifying
+    @Query(value = "UPDATE order_outbox " +
+            "SET outbox_status = :outboxStatus, version = version + 1, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateOutboxStatusByIdIn(@Param("ids") List<UUID> ids, @Param("outboxStatus") String outboxStatus);
+
+    // acknowledges failed sends: the attempt is counted and the next one is scheduled after the jittered exponential
+    // backoff of OutboxRetryPolicy, or the row is parked once it used up its attempts; the lease is released and the
+    // version bumped like in updateOutboxStatusByIdIn
+    @Modifying
+    @Query(value = "UPDATE order_outbox " +
+            "SET outbox_status = CAST(CASE WHEN attempt_count + 1 >= :maxAttempts THEN 'PARKED' ELSE 'FAILED' END " +
+            "AS outbox_status), " +
+            "next_attempt_at = CASE WHEN attempt_count + 1 >= :maxAttempts THEN NULL ELSE now() + make_interval(" +
+            "secs => least(:maxBackoffSeconds, :initialBackoffSeconds * power(2, least(attempt_count, 30))) " +
+            "* (0.5 + random() / 2)) END, " +
+            "attempt_count = attempt_count + 1, version = version + 1, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int updateFailedOutboxStatusByIdIn(@Param("ids") List<UUID> ids,
+                                       @Param("maxAttempts") int maxAttempts,
+                                       @Param("initialBackoffSeconds") double initialBackoffSeconds,
+                                       @Param("maxBackoffSeconds") double maxBackoffSeconds);
+
+    // deletes a chunk of the oldest matching rows, so the index on (type, outbox_status, created_at, id) is read as a
+    // range; rows locked by a relay at the moment are skipped and left for the next clean-up
+    @Modifying
+    @Query(value = "DELETE FROM order_outbox WHERE id IN (" +
+            "SELECT id FROM order_outbox " +
+            "WHERE type = :type AND outbox_status = :outboxStatus " +
+            "ORDER BY created_at, id " +
+            "LIMIT :chunkSize " +
+            "FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteChunkByTypeAndOutboxStatus(@Param("type") String type,
+                                         @Param("outboxStatus") String outboxStatus,
+                                         @Param("chunkSize") int chunkSize);
+}
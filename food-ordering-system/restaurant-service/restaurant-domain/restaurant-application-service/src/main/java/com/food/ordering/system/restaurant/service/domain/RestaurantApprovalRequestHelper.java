@@ -94,6 +94,8 @@ public class RestaurantApprovalRequestHelper {
         return restaurant;
     }
 
+    // kept in the exactly-once Kafka mode as well: the consumed offsets are committed in a Kafka transaction, after
+    // the database one, so a crash in between still redelivers a request that has been processed
     private boolean publishIfOutboxMessageProcessed(RestaurantApprovalRequest restaurantApprovalRequest) {
         Optional<OrderOutboxMessage> orderOutboxMessage =
                 orderOutboxHelper.getCompletedOrderOutboxMessageBySagaIdAndOutboxStatus(
@@ -1,5 +1,6 @@
 package com.food.ordering.system.restaurant.service.domain.config;
 
+import com.food.ordering.system.outbox.OutboxPollingMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -11,4 +12,31 @@ public class RestaurantServiceConfigData {
 
     private String restaurantApprovalRequestTopicName;
     private String restaurantApprovalResponseTopicName;
+    private OutboxPollingMode outboxSchedulerMode;
+    private long outboxSchedulerFixedRate;
+    private long outboxSchedulerInitialDelay;
+    private long outboxSchedulerMinDelay;
+    private double outboxSchedulerBackoffMultiplier;
+    private String outboxInstanceId;
+    private int outboxBatchSize;
+    private int outboxMaxPagesPerRun;
+    private long outboxLeaseSeconds;
+    private int outboxMaxInFlight;
+    private long outboxDrainTimeoutMs;
+    private int outboxRetryMaxAttempts;
+    private long outboxRetryInitialBackoffMs;
+    private long outboxRetryMaxBackoffMs;
+    private int outboxRetryBatchSize;
+    private int outboxCleanerChunkSize;
+    private long outboxCleanerPauseMs;
+    private boolean outboxPartitionEnabled;
+    private int outboxPartitionPrecreateDays;
+    private int outboxPartitionRetentionDays;
+    private boolean outboxPartitionDropExpired;
+    private long outboxPartitionMaintenanceIntervalMs;
+    private long outboxMetricsSampleIntervalMs;
+    private int outboxMetricsCountLimit;
+    private boolean outboxNotificationEnabled;
+    private long outboxNotificationPollTimeoutMs;
+    private long outboxNotificationReconnectDelayMs;
 }
@@ -3,7 +3,10 @@ package com.food.ordering.system.restaurant.service.domain.outbox.scheduler;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.food.ordering.system.domain.valueobject.OrderApprovalStatus;
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.restaurant.service.domain.config.RestaurantServiceConfigData;
 import com.food.ordering.system.restaurant.service.domain.exception.RestaurantDomainException;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderEventPayload;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutboxMessage;
@@ -18,6 +21,7 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.food.ordering.system.domain.DomainConstants.UTC;
 
@@ -27,11 +31,20 @@ public class OrderOutboxHelper {
 
     private final OrderOutboxRepository orderOutboxRepository;
     private final ObjectMapper objectMapper;
+    private final RestaurantServiceConfigData restaurantServiceConfigData;
+    private final OutboxRetryPolicy retryPolicy;
 
     public OrderOutboxHelper(OrderOutboxRepository orderOutboxRepository,
-                             ObjectMapper objectMapper) {
+                             ObjectMapper objectMapper,
+                             RestaurantServiceConfigData restaurantServiceConfigData) {
         this.orderOutboxRepository = orderOutboxRepository;
         this.objectMapper = objectMapper;
+        this.restaurantServiceConfigData = restaurantServiceConfigData;
+        this.retryPolicy = OutboxRetryPolicy.ofMillis(
+                restaurantServiceConfigData.getOutboxRetryMaxAttempts(),
+                restaurantServiceConfigData.getOutboxRetryInitialBackoffMs(),
+                restaurantServiceConfigData.getOutboxRetryMaxBackoffMs()
+        );
     }
 
     @Transactional(readOnly = true)
@@ -41,9 +54,18 @@ public class OrderOutboxHelper {
         return orderOutboxRepository.findByTypeAndSagaIdAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, sagaId, outboxStatus);
     }
 
-    @Transactional(readOnly = true)
-    public List<OrderOutboxMessage> getOrderOutboxMessageByOutboxStatus(OutboxStatus outboxStatus) {
-        return orderOutboxRepository.findByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus);
+    @Transactional
+    public List<OrderOutboxMessage> claimOrderOutboxMessagesByOutboxStatus(OutboxCursor after,
+                                                                           int batchSize,
+                                                                           OutboxStatus outboxStatus) {
+        return orderOutboxRepository.claimByTypeAndOutboxStatus(
+                SagaConstants.ORDER_SAGA_NAME,
+                outboxStatus,
+                restaurantServiceConfigData.getOutboxInstanceId(),
+                after,
+                batchSize,
+                restaurantServiceConfigData.getOutboxLeaseSeconds()
+        );
     }
 
     @Transactional
@@ -51,6 +73,12 @@ public class OrderOutboxHelper {
         orderOutboxRepository.deleteByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus);
     }
 
+    @Transactional
+    public int deleteOrderOutboxMessageChunkByOutboxStatus(int chunkSize, OutboxStatus outboxStatus) {
+        return orderOutboxRepository.deleteChunkByTypeAndOutboxStatus(SagaConstants.ORDER_SAGA_NAME, outboxStatus,
+                chunkSize);
+    }
+
     @Transactional
     public void saveOrderOutboxMessage(OrderEventPayload orderEventPayload,
                                        OrderApprovalStatus approvalStatus,
@@ -75,6 +103,20 @@ public class OrderOutboxHelper {
         log.info("Order outbox table status is updated as: {}", outboxStatus.name());
     }
 
+    // used by the outbox relay to acknowledge a whole batch of broker outcomes with one update
+    @Transactional
+    public void bulkUpdateOutboxStatus(List<OrderOutboxMessage> orderOutboxMessages, OutboxStatus outboxStatus) {
+        List<UUID> ids = orderOutboxMessages.stream().map(OrderOutboxMessage::getId).collect(Collectors.toList());
+        // a failed send is scheduled for a retry after its backoff, or parked once it used up its attempts (the status
+        // of the message objects stays FAILED then)
+        int updated = outboxStatus == OutboxStatus.FAILED
+                ? orderOutboxRepository.updateFailedOutboxStatusByIds(ids, retryPolicy)
+                : orderOutboxRepository.updateOutboxStatusByIds(ids, outboxStatus);
+        orderOutboxMessages.forEach(outboxMessage -> outboxMessage.setOutboxStatus(outboxStatus));
+        log.info("Order outbox table status is updated as: {} for {} of {} messages", outboxStatus.name(), updated,
+                ids.size());
+    }
+
     private void save(OrderOutboxMessage orderPaymentOutboxMessage) {
         OrderOutboxMessage response = orderOutboxRepository.save(orderPaymentOutboxMessage);
         if (response == null) {
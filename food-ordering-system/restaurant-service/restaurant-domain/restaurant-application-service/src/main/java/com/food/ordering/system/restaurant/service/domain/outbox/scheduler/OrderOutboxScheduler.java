@@ -1,48 +1,68 @@
 package com.food.ordering.system.restaurant.service.domain.outbox.scheduler;
 
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxPollingTrigger;
+import com.food.ordering.system.outbox.OutboxRelay;
 import com.food.ordering.system.outbox.OutboxScheduler;
 import com.food.ordering.system.outbox.OutboxStatus;
+import com.food.ordering.system.restaurant.service.domain.config.RestaurantServiceConfigData;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutboxMessage;
 import com.food.ordering.system.restaurant.service.domain.port.output.message.publisher.RestaurantApprovalResponseMessagePublisher;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 @Slf4j
 @Component
-public class OrderOutboxScheduler implements OutboxScheduler {
+public class OrderOutboxScheduler implements OutboxScheduler, SchedulingConfigurer {
 
-    private final OrderOutboxHelper orderOutboxHelper;
-    private final RestaurantApprovalResponseMessagePublisher responseMessagePublisher;
+    private final OutboxRelay<OrderOutboxMessage> outboxRelay;
 
     public OrderOutboxScheduler(OrderOutboxHelper orderOutboxHelper,
-                                RestaurantApprovalResponseMessagePublisher responseMessagePublisher) {
-        this.orderOutboxHelper = orderOutboxHelper;
-        this.responseMessagePublisher = responseMessagePublisher;
+                                RestaurantApprovalResponseMessagePublisher responseMessagePublisher,
+                                RestaurantServiceConfigData restaurantServiceConfigData) {
+        this.outboxRelay = OutboxRelay.<OrderOutboxMessage>builder()
+                .name("RestaurantOrderOutbox")
+                .fetchStrategy((after, batchSize) -> orderOutboxHelper.claimOrderOutboxMessagesByOutboxStatus(
+                        after, batchSize, OutboxStatus.STARTED))
+                // the failed messages are retried once their backoff is over, with what is left of a batch
+                .retryFetchStrategy((after, batchSize) -> orderOutboxHelper.claimOrderOutboxMessagesByOutboxStatus(
+                        after, batchSize, OutboxStatus.FAILED))
+                .retryBatchSize(restaurantServiceConfigData.getOutboxRetryBatchSize())
+                .cursorExtractor(outboxMessage -> new OutboxCursor(outboxMessage.getCreatedAt(), outboxMessage.getId()))
+                .publishStrategy(responseMessagePublisher::publish)
+                .batchPublishStrategy(responseMessagePublisher::publishBatch)
+                .ackStrategy(orderOutboxHelper::bulkUpdateOutboxStatus)
+                .batchSize(restaurantServiceConfigData.getOutboxBatchSize())
+                .maxPagesPerRun(restaurantServiceConfigData.getOutboxMaxPagesPerRun())
+                .maxInFlight(restaurantServiceConfigData.getOutboxMaxInFlight())
+                .drainTimeout(Duration.ofMillis(restaurantServiceConfigData.getOutboxDrainTimeoutMs()))
+                .pollingTrigger(OutboxPollingTrigger.of(
+                        restaurantServiceConfigData.getOutboxSchedulerMode(),
+                        restaurantServiceConfigData.getOutboxSchedulerInitialDelay(),
+                        restaurantServiceConfigData.getOutboxSchedulerMinDelay(),
+                        restaurantServiceConfigData.getOutboxSchedulerFixedRate(),
+                        restaurantServiceConfigData.getOutboxSchedulerBackoffMultiplier()
+                ))
+                .build();
     }
 
-    @Transactional
-    @Scheduled(fixedRateString = "${restaurant-service.outbox-scheduler-fixed-rate}",
-            initialDelayString = "${restaurant-service.outbox-scheduler-initial-delay}")
     @Override
     public void processOutboxMessage() {
-        List<OrderOutboxMessage> outboxMessages =
-                orderOutboxHelper.getOrderOutboxMessageByOutboxStatus(OutboxStatus.STARTED);
-        if (outboxMessages != null && !outboxMessages.isEmpty()) {
-            log.info("Received {} OrderOutboxMessage records with ids {}, sending to message bus!",
-                    outboxMessages.size(),
-                    outboxMessages.stream()
-                            .map(outboxMessage -> outboxMessage.getId().toString())
-                            .collect(Collectors.joining(","))
-            );
-            outboxMessages.forEach(orderOutboxMessage ->
-                    responseMessagePublisher.publish(orderOutboxMessage,
-                            orderOutboxHelper::updateOutboxStatus));
-            log.info("{} OrderOutboxMessage sent to message bus!", outboxMessages.size());
-        }
+        outboxRelay.relay();
+    }
+
+    // the relay is triggered by its polling trigger instead of @Scheduled, so the delay between runs can follow the
+    // outcome of the previous run (see `restaurant-service.outbox-scheduler-mode`)
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this::processOutboxMessage, outboxRelay.getPollingTrigger());
+    }
+
+    public OutboxRelay<OrderOutboxMessage> getOutboxRelay() {
+        return outboxRelay;
     }
 }
@@ -3,10 +3,17 @@ package com.food.ordering.system.restaurant.service.domain.port.output.message.p
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutboxMessage;
 
+import java.util.List;
 import java.util.function.BiConsumer;
 
 public interface RestaurantApprovalResponseMessagePublisher {
 
     void publish(OrderOutboxMessage orderOutboxMessage,
                  BiConsumer<OrderOutboxMessage, OutboxStatus> outboxCallback);
-}
\ No newline at end of file
+
+    // publishes the messages of a relay run together; a publisher that can batch its sends overrides it
+    default void publishBatch(List<OrderOutboxMessage> outboxMessages,
+                              BiConsumer<OrderOutboxMessage, OutboxStatus> outboxCallback) {
+        outboxMessages.forEach(outboxMessage -> publish(outboxMessage, outboxCallback));
+    }
+}
@@ -1,5 +1,7 @@
 package com.food.ordering.system.restaurant.service.domain.port.output.repository;
 
+import com.food.ordering.system.outbox.OutboxCursor;
+import com.food.ordering.system.outbox.OutboxRetryPolicy;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutboxMessage;
 
@@ -11,11 +13,28 @@ public interface OrderOutboxRepository {
 
     OrderOutboxMessage save(OrderOutboxMessage orderOutboxMessage);
 
-    List<OrderOutboxMessage> findByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus);
+    // locks at most `batchSize` unleased (or expired) messages with SKIP LOCKED and stamps them with a lease owned by
+    // `leaseOwner` for `leaseSeconds`, so concurrent relay instances never fetch the same messages
+    // the claim starts after the `after` cursor, in (created_at, id) order, so a relay run can page through the outbox
+    List<OrderOutboxMessage> claimByTypeAndOutboxStatus(String type,
+                                                        OutboxStatus outboxStatus,
+                                                        String leaseOwner,
+                                                        OutboxCursor after,
+                                                        int batchSize,
+                                                        long leaseSeconds);
+
+    // sets the status of all the given messages with a single statement and returns the number of updated messages
+    int updateOutboxStatusByIds(List<UUID> ids, OutboxStatus outboxStatus);
+
+    // marks the given messages as failed: schedules their next attempt with the backoff of `retryPolicy`, or parks the
+    // ones that used up their attempts; returns the number of updated messages
+    int updateFailedOutboxStatusByIds(List<UUID> ids, OutboxRetryPolicy retryPolicy);
 
     Optional<OrderOutboxMessage> findByTypeAndSagaIdAndOutboxStatus(String type, UUID sagaId,
                                                                     OutboxStatus outboxStatus);
 
     void deleteByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus);
 
-}
\ No newline at end of file
+    // deletes at most `chunkSize` of the oldest matching messages and returns how many were deleted
+    int deleteChunkByTypeAndOutboxStatus(String type, OutboxStatus outboxStatus, int chunkSize);
+}
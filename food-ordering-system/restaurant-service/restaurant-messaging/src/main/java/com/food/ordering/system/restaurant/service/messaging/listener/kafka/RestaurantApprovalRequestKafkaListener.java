@@ -1,15 +1,19 @@
 package com.food.ordering.system.restaurant.service.messaging.listener.kafka;
 
-import com.food.ordering.system.kafka.consumer.KafkaConsumer;
-import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.consumer.RetryingKafkaConsumer;
+import com.food.ordering.system.kafka.consumer.parallel.KeyOrderedBatchProcessor;
+import com.food.ordering.system.restaurant.service.domain.dto.RestaurantApprovalRequest;
 import com.food.ordering.system.restaurant.service.domain.exception.RestaurantDomainException;
 import com.food.ordering.system.restaurant.service.domain.exception.RestaurantNotFoundException;
 import com.food.ordering.system.restaurant.service.domain.port.input.message.listener.RestaurantApprovalRequestMessageListener;
 import com.food.ordering.system.restaurant.service.messaging.mapper.RestaurantMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.postgresql.util.PSQLState;
 import org.springframework.dao.DataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -18,25 +22,30 @@ import org.springframework.stereotype.Component;
 import java.sql.SQLException;
 import java.util.List;
 
+// The topic carries RestaurantApprovalRequestAvroModel and, once the order service writes the compact schema,
+// RestaurantApprovalRequestAvroModelV2 records; both are mapped to a RestaurantApprovalRequest first.
 @Slf4j
 @Component
-public class RestaurantApprovalRequestKafkaListener implements KafkaConsumer<RestaurantApprovalRequestAvroModel> {
+public class RestaurantApprovalRequestKafkaListener implements RetryingKafkaConsumer<SpecificRecordBase> {
 
     private final RestaurantApprovalRequestMessageListener restaurantApprovalRequestMessageListener;
     private final RestaurantMessagingDataMapper restaurantMessagingDataMapper;
+    private final KeyOrderedBatchProcessor keyOrderedBatchProcessor;
 
     public RestaurantApprovalRequestKafkaListener(RestaurantApprovalRequestMessageListener
                                                           restaurantApprovalRequestMessageListener,
                                                   RestaurantMessagingDataMapper
-                                                          restaurantMessagingDataMapper) {
+                                                          restaurantMessagingDataMapper,
+                                                  KeyOrderedBatchProcessor keyOrderedBatchProcessor) {
         this.restaurantApprovalRequestMessageListener = restaurantApprovalRequestMessageListener;
         this.restaurantMessagingDataMapper = restaurantMessagingDataMapper;
+        this.keyOrderedBatchProcessor = keyOrderedBatchProcessor;
     }
 
     @Override
     @KafkaListener(id = "${kafka-consumer-config.restaurant-approval-consumer-group-id}",
             topics = "${restaurant-service.restaurant-approval-request-topic-name}")
-    public void receive(@Payload List<RestaurantApprovalRequestAvroModel> messages,
+    public void receive(@Payload List<SpecificRecordBase> messages,
                         @Header(KafkaHeaders.RECEIVED_MESSAGE_KEY) List<String> keys,
                         @Header(KafkaHeaders.RECEIVED_PARTITION_ID) List<Integer> partitions,
                         @Header(KafkaHeaders.OFFSET) List<Long> offsets) {
@@ -44,35 +53,46 @@ public class RestaurantApprovalRequestKafkaListener implements KafkaConsumer<Res
                 messages.size(), keys, partitions, offsets
         );
 
-        messages.forEach(restaurantApprovalRequestAvroModel -> {
-            try {
-                String orderId = restaurantApprovalRequestAvroModel.getOrderId();
-                log.info("Processing an order approval for order id: {}", orderId);
-                restaurantApprovalRequestMessageListener.approveOrder(restaurantMessagingDataMapper.
-                        restaurantApprovalRequestAvroModelToRestaurantApproval(restaurantApprovalRequestAvroModel));
-            } catch (DataAccessException e) {
-                SQLException sqlException = (SQLException) e.getRootCause();
-                if (sqlException != null && sqlException.getSQLState() != null &&
-                        PSQLState.UNIQUE_VIOLATION.getState().equals(sqlException.getSQLState())) {
-                    //NO-OP for unique constraint exception
-                    log.error("Caught a unique constraint exception with sql state: {} in " +
-                                    "RestaurantApprovalRequestKafkaListener for order id: {}",
-                            sqlException.getSQLState(), restaurantApprovalRequestAvroModel.getOrderId());
-                } else {
-                    throw new RestaurantDomainException(
-                            String.format(
-                                    "Throwing DataAccessException in RestaurantApprovalRequestKafkaListener: %s",
-                                    e.getMessage()
-                            ), e
-                    );
-                }
-            } catch (RestaurantNotFoundException e) {
-                //NO-OP for RestaurantNotFoundException
-                log.error("No restaurant found for restaurant id {} and order id {}",
-                        restaurantApprovalRequestAvroModel.getRestaurantId(),
-                        restaurantApprovalRequestAvroModel.getOrderId()
+        // the records of a key are processed in order, the keys concurrently when the parallel processing is on
+        keyOrderedBatchProcessor.process(messages, keys, partitions, this::processRestaurantApprovalRequest);
+    }
+
+    @Override
+    public void receiveRetries(List<ConsumerRecord<String, SpecificRecordBase>> records,
+                               Acknowledgment acknowledgment) {
+        log.info("{} restaurant approval requests received for a retry", records.size());
+        keyOrderedBatchProcessor.processRetries(records, acknowledgment, this::processRestaurantApprovalRequest);
+    }
+
+    private void processRestaurantApprovalRequest(SpecificRecordBase restaurantApprovalRequestAvroModel) {
+        RestaurantApprovalRequest restaurantApprovalRequest = restaurantMessagingDataMapper
+                .restaurantApprovalRequestAvroModelToRestaurantApproval(restaurantApprovalRequestAvroModel);
+        try {
+            String orderId = restaurantApprovalRequest.getOrderId();
+            log.info("Processing an order approval for order id: {}", orderId);
+            restaurantApprovalRequestMessageListener.approveOrder(restaurantApprovalRequest);
+        } catch (DataAccessException e) {
+            SQLException sqlException = (SQLException) e.getRootCause();
+            if (sqlException != null && sqlException.getSQLState() != null &&
+                    PSQLState.UNIQUE_VIOLATION.getState().equals(sqlException.getSQLState())) {
+                //NO-OP for unique constraint exception
+                log.error("Caught a unique constraint exception with sql state: {} in " +
+                                "RestaurantApprovalRequestKafkaListener for order id: {}",
+                        sqlException.getSQLState(), restaurantApprovalRequest.getOrderId());
+            } else {
+                throw new RestaurantDomainException(
+                        String.format(
+                                "Throwing DataAccessException in RestaurantApprovalRequestKafkaListener: %s",
+                                e.getMessage()
+                        ), e
                 );
             }
-        });
+        } catch (RestaurantNotFoundException e) {
+            //NO-OP for RestaurantNotFoundException
+            log.error("No restaurant found for restaurant id {} and order id {}",
+                    restaurantApprovalRequest.getRestaurantId(),
+                    restaurantApprovalRequest.getOrderId()
+            );
+        }
     }
 }
\ No newline at end of file
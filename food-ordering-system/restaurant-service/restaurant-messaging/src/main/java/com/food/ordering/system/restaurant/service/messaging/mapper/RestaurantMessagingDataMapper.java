@@ -2,20 +2,48 @@ package com.food.ordering.system.restaurant.service.messaging.mapper;
 
 import com.food.ordering.system.domain.valueobject.ProductId;
 import com.food.ordering.system.domain.valueobject.RestaurantOrderStatus;
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
 import com.food.ordering.system.kafka.order.avro.model.OrderApprovalStatus;
 import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModelV2;
 import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModelV2;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.restaurant.service.domain.dto.RestaurantApprovalRequest;
 import com.food.ordering.system.restaurant.service.domain.entity.Product;
 import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderEventPayload;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+// Reads the v1 and the v2 (compact) restaurant approval requests, so the topic can be moved to v2 while both are on
+// it, and writes the responses in the schema version of their topic.
 @Component
 public class RestaurantMessagingDataMapper {
 
+    public RestaurantApprovalRequest restaurantApprovalRequestAvroModelToRestaurantApproval(
+            SpecificRecordBase avroModel) {
+        if (avroModel instanceof RestaurantApprovalRequestAvroModelV2 restaurantApprovalRequestAvroModelV2) {
+            return restaurantApprovalRequestAvroModelV2ToRestaurantApproval(restaurantApprovalRequestAvroModelV2);
+        }
+        if (avroModel instanceof RestaurantApprovalRequestAvroModel restaurantApprovalRequestAvroModel) {
+            return restaurantApprovalRequestAvroModelToRestaurantApproval(restaurantApprovalRequestAvroModel);
+        }
+        throw new IllegalArgumentException(String.format("Unexpected restaurant approval request %s!",
+                avroModel.getSchema().getFullName()));
+    }
+
+    public SpecificRecordBase orderEventPayloadToRestaurantApprovalResponseAvroModel(String sagaId,
+                                                                                     OrderEventPayload
+                                                                                             orderEventPayload,
+                                                                                     int schemaVersion) {
+        return schemaVersion == EventSchemaVersions.V2 ?
+                orderEventPayloadToRestaurantApprovalResponseAvroModelV2(sagaId, orderEventPayload) :
+                orderEventPayloadToRestaurantApprovalResponseAvroModel(sagaId, orderEventPayload);
+    }
+
     public RestaurantApprovalRequest
     restaurantApprovalRequestAvroModelToRestaurantApproval(RestaurantApprovalRequestAvroModel
                                                                    restaurantApprovalRequestAvroModel) {
@@ -38,6 +66,28 @@ public class RestaurantMessagingDataMapper {
                 .build();
     }
 
+    public RestaurantApprovalRequest
+    restaurantApprovalRequestAvroModelV2ToRestaurantApproval(RestaurantApprovalRequestAvroModelV2
+                                                                     restaurantApprovalRequestAvroModelV2) {
+        return RestaurantApprovalRequest.builder()
+                .id(AvroCompactTypes.toUuidString(restaurantApprovalRequestAvroModelV2.getId()))
+                .sagaId(AvroCompactTypes.toUuidString(restaurantApprovalRequestAvroModelV2.getSagaId()))
+                .restaurantId(AvroCompactTypes.toUuidString(restaurantApprovalRequestAvroModelV2.getRestaurantId()))
+                .orderId(AvroCompactTypes.toUuidString(restaurantApprovalRequestAvroModelV2.getOrderId()))
+                .restaurantOrderStatus(RestaurantOrderStatus.valueOf(restaurantApprovalRequestAvroModelV2
+                        .getRestaurantOrderStatus().name()))
+                .products(restaurantApprovalRequestAvroModelV2.getProducts()
+                        .stream().map(avroModel ->
+                                Product.builder()
+                                        .id(new ProductId(AvroCompactTypes.toUuid(avroModel.getId())))
+                                        .quantity(avroModel.getQuantity())
+                                        .build())
+                        .collect(Collectors.toList()))
+                .price(AvroCompactTypes.fromMinorUnits(restaurantApprovalRequestAvroModelV2.getPriceMinorUnits()))
+                .createdAt(restaurantApprovalRequestAvroModelV2.getCreatedAt())
+                .build();
+    }
+
     public RestaurantApprovalResponseAvroModel
     orderEventPayloadToRestaurantApprovalResponseAvroModel(String sagaId, OrderEventPayload orderEventPayload) {
         return RestaurantApprovalResponseAvroModel.newBuilder()
@@ -50,4 +100,17 @@ public class RestaurantMessagingDataMapper {
                 .setFailureMessages(orderEventPayload.getFailureMessages())
                 .build();
     }
+
+    public RestaurantApprovalResponseAvroModelV2
+    orderEventPayloadToRestaurantApprovalResponseAvroModelV2(String sagaId, OrderEventPayload orderEventPayload) {
+        return RestaurantApprovalResponseAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(UUID.randomUUID()))
+                .setSagaId(AvroCompactTypes.toAvro(sagaId))
+                .setOrderId(AvroCompactTypes.toAvro(orderEventPayload.getOrderId()))
+                .setRestaurantId(AvroCompactTypes.toAvro(orderEventPayload.getRestaurantId()))
+                .setCreatedAt(orderEventPayload.getCreatedAt().toInstant())
+                .setOrderApprovalStatus(OrderApprovalStatus.valueOf(orderEventPayload.getOrderApprovalStatus()))
+                .setFailureMessages(orderEventPayload.getFailureMessages())
+                .build();
+    }
 }
\ No newline at end of file
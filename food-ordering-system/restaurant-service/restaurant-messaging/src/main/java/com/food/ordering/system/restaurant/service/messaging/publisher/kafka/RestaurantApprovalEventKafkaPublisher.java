@@ -1,7 +1,8 @@
 package com.food.ordering.system.restaurant.service.messaging.publisher.kafka;
 
-import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModel;
 import com.food.ordering.system.kafka.producer.KafkaMessageHelper;
+import com.food.ordering.system.kafka.producer.key.PartitionKeyStrategies;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
 import com.food.ordering.system.kafka.producer.service.KafkaProducer;
 import com.food.ordering.system.outbox.OutboxStatus;
 import com.food.ordering.system.restaurant.service.domain.config.RestaurantServiceConfigData;
@@ -10,8 +11,12 @@ import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderOutb
 import com.food.ordering.system.restaurant.service.domain.port.output.message.publisher.RestaurantApprovalResponseMessagePublisher;
 import com.food.ordering.system.restaurant.service.messaging.mapper.RestaurantMessagingDataMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -19,19 +24,24 @@ import java.util.function.BiConsumer;
 public class RestaurantApprovalEventKafkaPublisher implements RestaurantApprovalResponseMessagePublisher {
 
     private final RestaurantMessagingDataMapper restaurantMessagingDataMapper;
-    private final KafkaProducer<String, RestaurantApprovalResponseAvroModel> kafkaProducer;
+    private final KafkaProducer<String, SpecificRecordBase> kafkaProducer;
     private final RestaurantServiceConfigData restaurantServiceConfigData;
     private final KafkaMessageHelper kafkaMessageHelper;
+    private final PartitionKeyStrategies partitionKeyStrategies;
+    private final EventSchemaVersions eventSchemaVersions;
 
     public RestaurantApprovalEventKafkaPublisher(RestaurantMessagingDataMapper dataMapper,
-                                                 KafkaProducer<String, RestaurantApprovalResponseAvroModel>
-                                                         kafkaProducer,
+                                                 KafkaProducer<String, SpecificRecordBase> kafkaProducer,
                                                  RestaurantServiceConfigData restaurantServiceConfigData,
-                                                 KafkaMessageHelper kafkaMessageHelper) {
+                                                 KafkaMessageHelper kafkaMessageHelper,
+                                                 PartitionKeyStrategies partitionKeyStrategies,
+                                                 EventSchemaVersions eventSchemaVersions) {
         this.restaurantMessagingDataMapper = dataMapper;
         this.kafkaProducer = kafkaProducer;
         this.restaurantServiceConfigData = restaurantServiceConfigData;
         this.kafkaMessageHelper = kafkaMessageHelper;
+        this.partitionKeyStrategies = partitionKeyStrategies;
+        this.eventSchemaVersions = eventSchemaVersions;
     }
 
     @Override
@@ -48,14 +58,20 @@ public class RestaurantApprovalEventKafkaPublisher implements RestaurantApproval
         );
 
         try {
-            RestaurantApprovalResponseAvroModel restaurantApprovalResponseAvroModel = restaurantMessagingDataMapper
+            SpecificRecordBase restaurantApprovalResponseAvroModel = restaurantMessagingDataMapper
                     .orderEventPayloadToRestaurantApprovalResponseAvroModel(
-                            sagaId, orderEventPayload
+                            sagaId, orderEventPayload,
+                            eventSchemaVersions.forTopic(
+                                    restaurantServiceConfigData.getRestaurantApprovalResponseTopicName())
                     );
 
             kafkaProducer.send(
                     restaurantServiceConfigData.getRestaurantApprovalResponseTopicName(),
-                    sagaId,
+                    partitionKeyStrategies.partitionKey(
+                            restaurantServiceConfigData.getRestaurantApprovalResponseTopicName(),
+                            restaurantApprovalResponseAvroModel,
+                            sagaId
+                    ),
                     restaurantApprovalResponseAvroModel,
                     kafkaMessageHelper.getKafkaCallback(
                             restaurantServiceConfigData.getRestaurantApprovalResponseTopicName(),
@@ -76,4 +92,40 @@ public class RestaurantApprovalEventKafkaPublisher implements RestaurantApproval
         }
 
     }
-}
\ No newline at end of file
+
+    // A relay batch is sent with a single flush and logged as a summary; a message that cannot be mapped is failed
+    // right away, so it is retried with a backoff instead of waiting for the lease to expire.
+    @Override
+    public void publishBatch(List<OrderOutboxMessage> orderOutboxMessages,
+                             BiConsumer<OrderOutboxMessage, OutboxStatus> outboxCallback) {
+        String topicName = restaurantServiceConfigData.getRestaurantApprovalResponseTopicName();
+        List<OrderOutboxMessage> mappedMessages = new ArrayList<>();
+        List<ProducerRecord<String, SpecificRecordBase>> mappedRecords = new ArrayList<>();
+        for (OrderOutboxMessage outboxMessage : orderOutboxMessages) {
+            String sagaId = outboxMessage.getSagaId().toString();
+            try {
+                OrderEventPayload orderEventPayload = kafkaMessageHelper.getOrderEventPayload(
+                        outboxMessage.getPayload(), OrderEventPayload.class
+                );
+                SpecificRecordBase avroModel = restaurantMessagingDataMapper
+                        .orderEventPayloadToRestaurantApprovalResponseAvroModel(sagaId, orderEventPayload,
+                                eventSchemaVersions.forTopic(topicName));
+                mappedRecords.add(new ProducerRecord<>(topicName,
+                        partitionKeyStrategies.partitionKey(topicName, avroModel, sagaId), avroModel));
+                mappedMessages.add(outboxMessage);
+            } catch (Exception e) {
+                log.error("Error while mapping OrderOutboxMessage with sagaId = {} to " +
+                                "RestaurantApprovalResponseAvroModel. Error: {}",
+                        sagaId, e.getMessage(), e
+                );
+                outboxCallback.accept(outboxMessage, OutboxStatus.FAILED);
+            }
+        }
+
+        if (!mappedRecords.isEmpty()) {
+            kafkaMessageHelper.completeBatch(kafkaProducer.sendBatch(topicName, mappedRecords),
+                    mappedMessages, outboxCallback, "RestaurantApprovalResponseAvroModel");
+        }
+        log.info("{} OrderOutboxMessages sent to Kafka as a batch", mappedRecords.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.food.ordering.system.restaurant.service.messaging.mapper;
+
+import com.food.ordering.system.domain.valueobject.RestaurantOrderStatus;
+import com.food.ordering.system.kafka.avro.AvroCompactTypes;
+import com.food.ordering.system.kafka.order.avro.model.Product;
+import com.food.ordering.system.kafka.order.avro.model.ProductV2;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalRequestAvroModelV2;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModel;
+import com.food.ordering.system.kafka.order.avro.model.RestaurantApprovalResponseAvroModelV2;
+import com.food.ordering.system.kafka.producer.schema.EventSchemaVersions;
+import com.food.ordering.system.restaurant.service.domain.dto.RestaurantApprovalRequest;
+import com.food.ordering.system.restaurant.service.domain.outbox.model.OrderEventPayload;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+class RestaurantMessagingDataMapperTest {
+
+    private static final String ID = UUID.randomUUID().toString();
+    private static final String SAGA_ID = UUID.randomUUID().toString();
+    private static final String ORDER_ID = UUID.randomUUID().toString();
+    private static final String RESTAURANT_ID = UUID.randomUUID().toString();
+    private static final String PRODUCT_ID = UUID.randomUUID().toString();
+    private static final Instant CREATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    private final RestaurantMessagingDataMapper restaurantMessagingDataMapper = new RestaurantMessagingDataMapper();
+
+    @Test
+    void testV1AndV2RequestsAreReadAlike() {
+        SpecificRecordBase approvalRequestAvroModel = RestaurantApprovalRequestAvroModel.newBuilder()
+                .setId(ID)
+                .setSagaId(SAGA_ID)
+                .setRestaurantId(RESTAURANT_ID)
+                .setOrderId(ORDER_ID)
+                .setRestaurantOrderStatus(com.food.ordering.system.kafka.order.avro.model.RestaurantOrderStatus.PAID)
+                .setProducts(List.of(Product.newBuilder().setId(PRODUCT_ID).setQuantity(2).build()))
+                .setPrice(new BigDecimal("100.50"))
+                .setCreatedAt(CREATED_AT)
+                .build();
+        SpecificRecordBase approvalRequestAvroModelV2 = RestaurantApprovalRequestAvroModelV2.newBuilder()
+                .setId(AvroCompactTypes.toAvro(ID))
+                .setSagaId(AvroCompactTypes.toAvro(SAGA_ID))
+                .setRestaurantId(AvroCompactTypes.toAvro(RESTAURANT_ID))
+                .setOrderId(AvroCompactTypes.toAvro(ORDER_ID))
+                .setRestaurantOrderStatus(com.food.ordering.system.kafka.order.avro.model.RestaurantOrderStatus.PAID)
+                .setProducts(List.of(ProductV2.newBuilder()
+                        .setId(AvroCompactTypes.toAvro(PRODUCT_ID))
+                        .setQuantity(2)
+                        .build()))
+                .setPriceMinorUnits(10050L)
+                .setCreatedAt(CREATED_AT)
+                .build();
+
+        RestaurantApprovalRequest approvalRequest = restaurantMessagingDataMapper
+                .restaurantApprovalRequestAvroModelToRestaurantApproval(approvalRequestAvroModel);
+        RestaurantApprovalRequest approvalRequestV2 = restaurantMessagingDataMapper
+                .restaurantApprovalRequestAvroModelToRestaurantApproval(approvalRequestAvroModelV2);
+
+        for (RestaurantApprovalRequest request : List.of(approvalRequest, approvalRequestV2)) {
+            Assertions.assertEquals(ID, request.getId());
+            Assertions.assertEquals(SAGA_ID, request.getSagaId());
+            Assertions.assertEquals(RESTAURANT_ID, request.getRestaurantId());
+            Assertions.assertEquals(ORDER_ID, request.getOrderId());
+            Assertions.assertEquals(RestaurantOrderStatus.PAID, request.getRestaurantOrderStatus());
+            Assertions.assertEquals(UUID.fromString(PRODUCT_ID), request.getProducts().get(0).getId().getValue());
+            Assertions.assertEquals(2, request.getProducts().get(0).getQuantity());
+            Assertions.assertEquals(new BigDecimal("100.50"), request.getPrice());
+            Assertions.assertEquals(CREATED_AT, request.getCreatedAt());
+        }
+    }
+
+    @Test
+    void testResponseIsWrittenInTheSchemaVersionOfItsTopic() {
+        OrderEventPayload orderEventPayload = OrderEventPayload.builder()
+                .orderId(ORDER_ID)
+                .restaurantId(RESTAURANT_ID)
+                .createdAt(ZonedDateTime.ofInstant(CREATED_AT, ZoneOffset.UTC))
+                .orderApprovalStatus("REJECTED")
+                .failureMessages(List.of("rejected"))
+                .build();
+
+        RestaurantApprovalResponseAvroModel approvalResponseAvroModel = (RestaurantApprovalResponseAvroModel)
+                restaurantMessagingDataMapper.orderEventPayloadToRestaurantApprovalResponseAvroModel(SAGA_ID,
+                        orderEventPayload, EventSchemaVersions.V1);
+        RestaurantApprovalResponseAvroModelV2 approvalResponseAvroModelV2 = (RestaurantApprovalResponseAvroModelV2)
+                restaurantMessagingDataMapper.orderEventPayloadToRestaurantApprovalResponseAvroModel(SAGA_ID,
+                        orderEventPayload, EventSchemaVersions.V2);
+
+        Assertions.assertEquals(SAGA_ID, approvalResponseAvroModel.getSagaId());
+        Assertions.assertEquals(SAGA_ID, AvroCompactTypes.toUuidString(approvalResponseAvroModelV2.getSagaId()));
+        Assertions.assertEquals(ORDER_ID, AvroCompactTypes.toUuidString(approvalResponseAvroModelV2.getOrderId()));
+        Assertions.assertEquals(RESTAURANT_ID,
+                AvroCompactTypes.toUuidString(approvalResponseAvroModelV2.getRestaurantId()));
+        Assertions.assertEquals(CREATED_AT, approvalResponseAvroModelV2.getCreatedAt());
+        Assertions.assertEquals(approvalResponseAvroModel.getOrderApprovalStatus(),
+                approvalResponseAvroModelV2.getOrderApprovalStatus());
+        Assertions.assertEquals(List.of("rejected"), approvalResponseAvroModelV2.getFailureMessages());
+    }
+}